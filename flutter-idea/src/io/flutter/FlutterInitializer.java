@@ -88,9 +88,6 @@ public class FlutterInitializer implements StartupActivity {
     // Start watching for devices.
     DeviceService.getInstance(project);
 
-    // Start a DevTools server
-    DevToolsService.getInstance(project);
-
     // If the project declares a Flutter dependency, do some extra initialization.
     boolean hasFlutterModule = false;
 
@@ -124,6 +121,9 @@ public class FlutterInitializer implements StartupActivity {
 
     if (hasFlutterModule || WorkspaceCache.getInstance(project).isBazel()) {
       initializeToolWindows(project);
+
+      // Start a DevTools server in the background, shared with other projects using the same SDK.
+      DevToolsService.getInstance(project).prewarm();
     }
     else {
       project.getMessageBus().connect().subscribe(ProjectTopics.MODULES, new ModuleListener() {
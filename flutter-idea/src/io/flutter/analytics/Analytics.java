@@ -5,12 +5,12 @@
  */
 package io.flutter.analytics;
 
+import com.intellij.ide.AppLifecycleListener;
+import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectManager;
-import com.intellij.openapi.util.SystemInfo;
-import com.intellij.util.concurrency.QueueProcessor;
 import com.jetbrains.lang.dart.sdk.DartSdk;
 import io.flutter.bazel.WorkspaceCache;
 import io.flutter.sdk.FlutterSdk;
@@ -19,15 +19,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -43,6 +36,11 @@ public class Analytics {
 
   private static final int maxExceptionLength = 512;
 
+  /**
+   * How long the result of scanning the open projects for Bazel workspaces is reused.
+   */
+  private static final long bazelCheckIntervalMs = 60 * 1000;
+
   @NotNull
   private final String clientId;
   @NotNull
@@ -52,8 +50,16 @@ public class Analytics {
   @NotNull
   private final String platformVersion;
 
+  /**
+   * Dimensions that don't change while the IDE is running, computed on first use.
+   */
+  @Nullable
+  private Map<String, String> staticDimensions;
+  private boolean usesBazel;
+  private long lastBazelCheck;
+
   @NotNull
-  private Transport transport = new HttpTransport();
+  private Transport transport = new BatchingHttpTransport();
   @NotNull
   private ThrottlingBucket bucket = new ThrottlingBucket(20);
   private boolean myCanSend = false;
@@ -63,6 +69,24 @@ public class Analytics {
     this.pluginVersion = pluginVersion;
     this.platformName = platformName;
     this.platformVersion = platformVersion;
+
+    final Application application = ApplicationManager.getApplication();
+    if (application != null) {
+      // Keep the hits that haven't been sent yet when the IDE exits.
+      application.getMessageBus().connect().subscribe(AppLifecycleListener.TOPIC, new AppLifecycleListener() {
+        @Override
+        public void appWillBeClosed(boolean isRestart) {
+          close();
+        }
+      });
+    }
+  }
+
+  /**
+   * Saves or sends any hits the transport is holding. Hits sent afterwards may be dropped.
+   */
+  public void close() {
+    transport.close();
   }
 
   public void disableThrottling(@NotNull Runnable func) {
@@ -182,14 +206,7 @@ public class Analytics {
       return;
     }
 
-    args.put("v", "1"); // protocol version
-    args.put("ds", "app"); // specify an 'app' data source
-
-    args.put("an", applicationName);
-    args.put("av", pluginVersion);
-
-    args.put("aiid", platformName); // Record the platform name as the application installer ID
-    args.put("cd1", platformVersion); // Record the Open API version as a custom dimension
+    args.putAll(getStaticDimensions());
 
     // If the Flutter SDK is provided, send the SDK version in a custom dimension.
     if (flutterSdk != null) {
@@ -203,28 +220,59 @@ public class Analytics {
     }
 
     // Record whether this client uses bazel.
-    if (anyProjectUsesBazel()) {
+    if (usesBazel()) {
       args.put("cd3", "bazel");
     }
 
-    args.put("tid", trackingId);
-    args.put("cid", clientId);
     args.put("t", hitType);
 
-    try {
-      final Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-      args.put("sr", screenSize.width + "x" + screenSize.height);
-    }
-    catch (HeadlessException he) {
-      // ignore this - allow the tests to run when the IDE is headless
-    }
+    transport.send(analyticsUrl, args);
+  }
+
+  @NotNull
+  private synchronized Map<String, String> getStaticDimensions() {
+    if (staticDimensions == null) {
+      final Map<String, String> dimensions = new HashMap<>();
+      dimensions.put("v", "1"); // protocol version
+      dimensions.put("ds", "app"); // specify an 'app' data source
+
+      dimensions.put("an", applicationName);
+      dimensions.put("av", pluginVersion);
+
+      dimensions.put("aiid", platformName); // Record the platform name as the application installer ID
+      dimensions.put("cd1", platformVersion); // Record the Open API version as a custom dimension
+
+      dimensions.put("tid", trackingId);
+      dimensions.put("cid", clientId);
 
-    final String language = System.getProperty("user.language");
-    if (language != null) {
-      args.put("ul", language);
+      try {
+        final Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        dimensions.put("sr", screenSize.width + "x" + screenSize.height);
+      }
+      catch (HeadlessException he) {
+        // ignore this - allow the tests to run when the IDE is headless
+      }
+
+      final String language = System.getProperty("user.language");
+      if (language != null) {
+        dimensions.put("ul", language);
+      }
+      staticDimensions = dimensions;
     }
+    return staticDimensions;
+  }
 
-    transport.send(analyticsUrl, args);
+  /**
+   * Returns whether any open project uses Bazel, rescanning the open projects at most once per
+   * {@link #bazelCheckIntervalMs}.
+   */
+  private synchronized boolean usesBazel() {
+    final long now = System.currentTimeMillis();
+    if (lastBazelCheck == 0 || now - lastBazelCheck > bazelCheckIntervalMs) {
+      usesBazel = anyProjectUsesBazel();
+      lastBazelCheck = now;
+    }
+    return usesBazel;
   }
 
   /**
@@ -253,83 +301,24 @@ public class Analytics {
 
   public interface Transport {
     void send(@NotNull String url, @NotNull Map<String, String> values);
-  }
-
-  private static class HttpTransport implements Transport {
-    private final QueueProcessor<Runnable> sendingQueue = QueueProcessor.createRunnableQueueProcessor();
-
-    @Nullable
-    private static String createUserAgent() {
-      final String locale = Locale.getDefault().toString();
-
-      if (SystemInfo.isWindows) {
-        return "Mozilla/5.0 (Windows; Windows; Windows; " + locale + ")";
-      }
-      else if (SystemInfo.isMac) {
-        return "Mozilla/5.0 (Macintosh; Intel Mac OS X; Macintosh; " + locale + ")";
-      }
-      else if (SystemInfo.isLinux) {
-        return "Mozilla/5.0 (Linux; Linux; Linux; " + locale + ")";
-      }
 
-      return null;
-    }
-
-    @Override
-    public void send(@NotNull String url, @NotNull Map<String, String> values) {
-      sendingQueue.add(() -> {
-        try {
-          final byte[] postDataBytes = createPostData(values);
-          final HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
-          conn.setRequestMethod("POST");
-          conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-          conn.setRequestProperty("Content-Length", String.valueOf(postDataBytes.length));
-          final String userAgent = createUserAgent();
-          if (userAgent != null) {
-            conn.setRequestProperty("User-Agent", userAgent);
-          }
-          conn.setDoOutput(true);
-          conn.getOutputStream().write(postDataBytes);
-
-          final InputStream in = conn.getInputStream();
-          //noinspection ResultOfMethodCallIgnored
-          in.read();
-          in.close();
-        }
-        catch (IOException ignore) {
-        }
-      });
-    }
-
-    byte[] createPostData(@NotNull Map<String, String> values) throws UnsupportedEncodingException {
-      final StringBuilder postData = new StringBuilder();
-      for (Map.Entry<String, String> param : values.entrySet()) {
-        if (postData.length() != 0) {
-          postData.append('&');
-        }
-        postData.append(URLEncoder.encode(param.getKey(), "UTF-8"));
-        postData.append('=');
-        postData.append(URLEncoder.encode(param.getValue(), "UTF-8"));
-      }
-      return postData.toString().getBytes(StandardCharsets.UTF_8);
+    /**
+     * Called when the IDE exits. Transports that hold on to hits should save or send them before returning.
+     */
+    default void close() {
     }
   }
 
   // This class is intended to be used during debugging. Replacing the reference to
-  // HttpTransport with NonTransport stops sending any data to Google Analytics,
+  // BatchingHttpTransport with NonTransport stops sending any data to Google Analytics,
   // and instead logs the number of bytes that would have been sent (minus HTTP header bytes).
-  private static class NonTransport extends HttpTransport {
+  private static class NonTransport implements Transport {
     private static final Logger LOG = Logger.getInstance(Analytics.class);
 
     @Override
     public void send(@NotNull String url, @NotNull Map<String, String> values) {
-      try {
-        final byte[] postDataBytes = createPostData(values);
-        //noinspection ConstantConditions
-        LOG.info("Sending " + postDataBytes.length + " bytes " + new String(postDataBytes));
-      }
-      catch (UnsupportedEncodingException ignore) {
-      }
+      final byte[] postDataBytes = BatchingHttpTransport.createPostData(values).getBytes(StandardCharsets.UTF_8);
+      LOG.info("Sending " + postDataBytes.length + " bytes " + new String(postDataBytes, StandardCharsets.UTF_8));
     }
   }
 }
\ No newline at end of file
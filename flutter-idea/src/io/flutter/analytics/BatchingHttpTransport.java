@@ -0,0 +1,419 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.analytics;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.concurrency.QueueProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends analytics hits using the Measurement Protocol batch endpoint.
+ * <p>
+ * Hits are queued and posted together, up to {@link #MAX_HITS_PER_BATCH} per request, once
+ * enough of them have accumulated or {@link #FLUSH_DELAY_MS} after the first queued hit.
+ * If a batch can't be delivered (for example because the machine is offline) the undelivered
+ * hits are appended to a spool file and retried with the next batch. The spool is bounded;
+ * when it is full, or when hits get too old for the collector to accept, the oldest hits are
+ * dropped.
+ * <p>
+ * When the IDE exits, hits that are still waiting to be batched are spooled rather than posted, so
+ * that exiting isn't held up by the network. They are sent with the first batch of the next session.
+ */
+class BatchingHttpTransport implements Analytics.Transport {
+  private static final Logger LOG = Logger.getInstance(BatchingHttpTransport.class);
+
+  /**
+   * Limits imposed by the Measurement Protocol batch endpoint.
+   */
+  static final int MAX_HITS_PER_BATCH = 20;
+  static final int MAX_BATCH_BYTES = 16 * 1024;
+  static final int MAX_HIT_BYTES = 8 * 1024;
+
+  /**
+   * The collector ignores hits queued for longer than four hours.
+   */
+  static final long MAX_HIT_AGE_MS = TimeUnit.HOURS.toMillis(4);
+
+  static final long FLUSH_DELAY_MS = 10 * 1000;
+  static final int MAX_SPOOLED_HITS = 500;
+
+  private static final int TIMEOUT_MS = 10 * 1000;
+
+  /**
+   * How long {@link #close()} waits for a batch that is being posted to finish before giving up.
+   */
+  static final long CLOSE_TIMEOUT_MS = 2 * 1000;
+
+  /**
+   * Resolved lazily so that creating a transport doesn't depend on the IDE's paths being set up.
+   */
+  @Nullable private Path spoolFile;
+  private final long flushDelayMs;
+
+  /**
+   * Delivery and all access to the spool file happen on this queue, one batch at a time.
+   */
+  private final QueueProcessor<Runnable> sendingQueue = QueueProcessor.createRunnableQueueProcessor();
+
+  private final Object lock = new Object();
+  private List<Hit> pending = new ArrayList<>();
+  private ScheduledFuture<?> flushTimer;
+  private volatile boolean closed;
+
+  BatchingHttpTransport() {
+    this(null, FLUSH_DELAY_MS);
+  }
+
+  BatchingHttpTransport(@Nullable Path spoolFile, long flushDelayMs) {
+    this.spoolFile = spoolFile;
+    this.flushDelayMs = flushDelayMs;
+  }
+
+  @Override
+  public void send(@NotNull String url, @NotNull Map<String, String> values) {
+    final Hit hit = new Hit(toBatchUrl(url), values, System.currentTimeMillis());
+    if (hit.postData.length() > MAX_HIT_BYTES) {
+      // The collector would reject it.
+      LOG.debug("Dropping oversized analytics hit");
+      return;
+    }
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      pending.add(hit);
+      if (pending.size() >= MAX_HITS_PER_BATCH) {
+        flushLocked();
+      }
+      else if (flushTimer == null) {
+        flushTimer = AppExecutorUtil.getAppScheduledExecutorService().schedule(this::flush, flushDelayMs, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  /**
+   * Queues all pending hits for delivery now.
+   */
+  void flush() {
+    synchronized (lock) {
+      flushLocked();
+    }
+  }
+
+  private void flushLocked() {
+    if (flushTimer != null) {
+      flushTimer.cancel(false);
+      flushTimer = null;
+    }
+    if (pending.isEmpty()) {
+      return;
+    }
+    final List<Hit> hits = pending;
+    pending = new ArrayList<>();
+    sendingQueue.add(() -> deliver(hits));
+  }
+
+  /**
+   * Spools the pending hits so they are sent the next time the IDE runs, and stops sending.
+   * <p>
+   * Waits for the spool to be written, unless a batch that is being posted takes longer than
+   * {@link #CLOSE_TIMEOUT_MS} to finish.
+   */
+  @Override
+  public void close() {
+    final List<Hit> hits;
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (flushTimer != null) {
+        flushTimer.cancel(false);
+        flushTimer = null;
+      }
+      hits = pending;
+      pending = new ArrayList<>();
+    }
+    if (hits.isEmpty()) {
+      return;
+    }
+
+    final CountDownLatch spooled = new CountDownLatch(1);
+    sendingQueue.add(() -> {
+      try {
+        final List<Hit> all = readSpool();
+        all.addAll(hits);
+        writeSpool(all);
+      }
+      finally {
+        spooled.countDown();
+      }
+    });
+    try {
+      if (!spooled.await(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        LOG.debug("Timed out spooling " + hits.size() + " analytics hits");
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits until all hits queued for delivery so far have been sent or spooled.
+   */
+  void waitForDelivery() {
+    sendingQueue.waitFor();
+  }
+
+  private void deliver(@NotNull List<Hit> hits) {
+    final List<Hit> all = readSpool();
+    final boolean hadSpool = !all.isEmpty();
+    all.addAll(hits);
+
+    final long now = System.currentTimeMillis();
+    all.removeIf((hit) -> now - hit.time > MAX_HIT_AGE_MS);
+
+    int sent = 0;
+    try {
+      // Once closed, the rest are spooled without waiting for the network.
+      while (sent < all.size() && !closed) {
+        sent += postBatch(all, sent, now);
+      }
+    }
+    catch (IOException e) {
+      LOG.debug("Unable to send analytics, spooling " + (all.size() - sent) + " hits", e);
+    }
+
+    if (sent < all.size()) {
+      writeSpool(all.subList(sent, all.size()));
+    }
+    else if (hadSpool) {
+      deleteSpool();
+    }
+  }
+
+  /**
+   * Posts the hits starting at {@code start} that fit in one batch and returns how many were sent.
+   */
+  private int postBatch(@NotNull List<Hit> hits, int start, long now) throws IOException {
+    final String url = hits.get(start).url;
+    final StringBuilder body = new StringBuilder();
+    int count = 0;
+    for (int i = start; i < hits.size() && count < MAX_HITS_PER_BATCH; i++) {
+      final Hit hit = hits.get(i);
+      if (!hit.url.equals(url)) {
+        break;
+      }
+      final String payload = hit.encode(now);
+      if (count > 0 && body.length() + payload.length() + 1 > MAX_BATCH_BYTES) {
+        break;
+      }
+      if (body.length() != 0) {
+        body.append('\n');
+      }
+      body.append(payload);
+      count++;
+    }
+    post(url, body.toString().getBytes(StandardCharsets.UTF_8));
+    return count;
+  }
+
+  private static void post(@NotNull String url, byte[] postDataBytes) throws IOException {
+    final HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
+    conn.setRequestMethod("POST");
+    conn.setConnectTimeout(TIMEOUT_MS);
+    conn.setReadTimeout(TIMEOUT_MS);
+    conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+    conn.setRequestProperty("Content-Length", String.valueOf(postDataBytes.length));
+    final String userAgent = createUserAgent();
+    if (userAgent != null) {
+      conn.setRequestProperty("User-Agent", userAgent);
+    }
+    conn.setDoOutput(true);
+    try (OutputStream out = conn.getOutputStream()) {
+      out.write(postDataBytes);
+    }
+
+    final int status = conn.getResponseCode();
+    if (status >= 500) {
+      // Worth retrying later.
+      throw new IOException("HTTP " + status);
+    }
+    // Other responses are final; malformed hits would be rejected again on a retry.
+    final InputStream in = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
+    if (in != null) {
+      //noinspection ResultOfMethodCallIgnored
+      in.read();
+      in.close();
+    }
+  }
+
+  @NotNull
+  private Path getSpoolFile() {
+    if (spoolFile == null) {
+      spoolFile = Paths.get(PathManager.getSystemPath(), "flutter", "analytics-spool.txt");
+    }
+    return spoolFile;
+  }
+
+  @NotNull
+  private List<Hit> readSpool() {
+    final List<Hit> hits = new ArrayList<>();
+    final Path spoolFile = getSpoolFile();
+    if (!Files.exists(spoolFile)) {
+      return hits;
+    }
+    try {
+      for (String line : Files.readAllLines(spoolFile, StandardCharsets.UTF_8)) {
+        final Hit hit = Hit.parse(line);
+        if (hit != null) {
+          hits.add(hit);
+        }
+      }
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+    }
+    return hits;
+  }
+
+  private void writeSpool(@NotNull List<Hit> hits) {
+    // Keep the most recent hits.
+    final List<Hit> kept = hits.subList(Math.max(0, hits.size() - MAX_SPOOLED_HITS), hits.size());
+    final List<String> lines = new ArrayList<>(kept.size());
+    for (Hit hit : kept) {
+      lines.add(hit.serialize());
+    }
+    try {
+      final Path spoolFile = getSpoolFile();
+      Files.createDirectories(spoolFile.getParent());
+      Files.write(spoolFile, lines, StandardCharsets.UTF_8);
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+    }
+  }
+
+  private void deleteSpool() {
+    try {
+      Files.deleteIfExists(getSpoolFile());
+    }
+    catch (IOException e) {
+      LOG.debug(e);
+    }
+  }
+
+  /**
+   * Maps a single hit endpoint, such as {@code https://www.google-analytics.com/collect}, to the
+   * batch endpoint on the same host.
+   */
+  @NotNull
+  static String toBatchUrl(@NotNull String url) {
+    return url.endsWith("/collect") ? url.substring(0, url.length() - "collect".length()) + "batch" : url;
+  }
+
+  @Nullable
+  private static String createUserAgent() {
+    final String locale = Locale.getDefault().toString();
+
+    if (SystemInfo.isWindows) {
+      return "Mozilla/5.0 (Windows; Windows; Windows; " + locale + ")";
+    }
+    else if (SystemInfo.isMac) {
+      return "Mozilla/5.0 (Macintosh; Intel Mac OS X; Macintosh; " + locale + ")";
+    }
+    else if (SystemInfo.isLinux) {
+      return "Mozilla/5.0 (Linux; Linux; Linux; " + locale + ")";
+    }
+
+    return null;
+  }
+
+  @NotNull
+  static String createPostData(@NotNull Map<String, String> values) {
+    final StringBuilder postData = new StringBuilder();
+    for (Map.Entry<String, String> param : values.entrySet()) {
+      if (postData.length() != 0) {
+        postData.append('&');
+      }
+      postData.append(URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8));
+      postData.append('=');
+      postData.append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
+    }
+    return postData.toString();
+  }
+
+  private static class Hit {
+    @NotNull final String url;
+    @NotNull final String postData;
+    final long time;
+
+    Hit(@NotNull String url, @NotNull Map<String, String> values, long time) {
+      this(url, createPostData(values), time);
+    }
+
+    private Hit(@NotNull String url, @NotNull String postData, long time) {
+      this.url = url;
+      this.postData = postData;
+      this.time = time;
+    }
+
+    /**
+     * Returns the payload with the queue time set so the collector attributes the hit to when it
+     * happened rather than when it was delivered.
+     */
+    @NotNull
+    String encode(long now) {
+      final long queueTime = now - time;
+      return queueTime <= 0 ? postData : postData + "&qt=" + queueTime;
+    }
+
+    /**
+     * Encoded post data contains no tabs or newlines, so hits are stored one per line.
+     */
+    @NotNull
+    String serialize() {
+      return time + "\t" + url + "\t" + postData;
+    }
+
+    @Nullable
+    static Hit parse(@NotNull String line) {
+      final String[] parts = line.split("\t", 3);
+      if (parts.length != 3) {
+        return null;
+      }
+      try {
+        return new Hit(parts[1], parts[2], Long.parseLong(parts[0]));
+      }
+      catch (NumberFormatException e) {
+        return null;
+      }
+    }
+  }
+}
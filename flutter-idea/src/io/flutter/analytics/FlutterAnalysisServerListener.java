@@ -41,6 +41,7 @@ import java.beans.PropertyChangeEvent;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("LocalCanBeFinal")
@@ -98,7 +99,20 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
   @NotNull final DartQuickFixListener quickFixListener;
   // instance members
   @NotNull private final Project project;
+  /**
+   * Full error lists, retained only for files that are open in an editor.
+   */
   @NotNull private final Map<String, List<AnalysisError>> pathToErrors;
+  /**
+   * Per-file error counts indexed like {@link #ERROR_TYPES}, for files with at least one counted error.
+   */
+  @NotNull private final Map<String, int[]> pathToErrorCounts;
+  /**
+   * Sum of all values in {@link #pathToErrorCounts}, updated by delta as errors arrive.
+   * Guarded by itself.
+   */
+  @NotNull private final int[] totalErrorCounts = new int[ERROR_TYPES.length];
+  @NotNull private final Set<String> openFilePaths;
   @NotNull private final Map<String, Instant> pathToErrorTimestamps;
   @NotNull private final Map<String, Instant> pathToHighlightTimestamps;
   @NotNull private final Map<String, Instant> pathToOutlineTimestamps;
@@ -116,7 +130,12 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
 
   FlutterAnalysisServerListener(@NotNull Project project) {
     this.project = project;
-    this.pathToErrors = new HashMap<>();
+    this.pathToErrors = new ConcurrentHashMap<>();
+    this.pathToErrorCounts = new ConcurrentHashMap<>();
+    this.openFilePaths = ConcurrentHashMap.newKeySet();
+    for (VirtualFile file : FileEditorManager.getInstance(project).getOpenFiles()) {
+      openFilePaths.add(file.getPath());
+    }
     this.pathToErrorTimestamps = new HashMap<>();
     this.pathToHighlightTimestamps = new HashMap<>();
     this.pathToOutlineTimestamps = new HashMap<>();
@@ -130,6 +149,7 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
         // Record the time that this file was opened so that we'll be able to log
         // relative timings for errors, highlights, outlines, etc.
         String filePath = file.getPath();
+        openFilePaths.add(filePath);
         Instant nowInstant = Instant.now();
         pathToErrorTimestamps.put(filePath, nowInstant);
         pathToHighlightTimestamps.put(filePath, nowInstant);
@@ -142,6 +162,12 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
 
       @Override
       public void fileClosed(@NotNull final FileEditorManager source, @NotNull final VirtualFile file) {
+        // Only counts are kept for files that are not open.
+        String filePath = file.getPath();
+        if (!source.isFileOpen(file)) {
+          openFilePaths.remove(filePath);
+          pathToErrors.remove(filePath);
+        }
       }
     };
     messageBusConnection.subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, fileEditorManagerListener);
@@ -236,11 +262,61 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
   @Override
   public void computedErrors(String path, List<AnalysisError> list) {
     assert list != null;
-    pathToErrors.put(path, list);
     assert path != null;
+    updateErrorCounts(path, list);
+    if (openFilePaths.contains(path)) {
+      pathToErrors.put(path, list);
+    }
+    else {
+      pathToErrors.remove(path);
+    }
     maybeLogInitialAnalysisTime(INITIAL_COMPUTE_ERRORS_TIME, path, pathToErrorTimestamps);
   }
 
+  /**
+   * Replaces the counts recorded for {@code path} with the counts of {@code errors}, applying the
+   * difference to the project totals.
+   */
+  private void updateErrorCounts(@NotNull String path, @NotNull List<AnalysisError> errors) {
+    final int[] counts = countErrorsByType(errors);
+    synchronized (totalErrorCounts) {
+      final int[] previous = counts == null ? pathToErrorCounts.remove(path) : pathToErrorCounts.put(path, counts);
+      for (int i = 0; i < ERROR_TYPES.length; i++) {
+        totalErrorCounts[i] += (counts == null ? 0 : counts[i]) - (previous == null ? 0 : previous[i]);
+      }
+    }
+  }
+
+  /**
+   * Counts the errors of each of the {@link #ERROR_TYPES}, or returns null if there are none.
+   * <p>
+   * TODOs are ignored in the Dart Problems view, and can be ignored for any dashboard work.
+   */
+  @Nullable
+  static int[] countErrorsByType(@NotNull List<AnalysisError> errors) {
+    int[] counts = null;
+    for (AnalysisError error : errors) {
+      final int index = errorTypeIndex(error.getType());
+      if (index < 0) {
+        continue;
+      }
+      if (counts == null) {
+        counts = new int[ERROR_TYPES.length];
+      }
+      counts[index]++;
+    }
+    return counts;
+  }
+
+  private static int errorTypeIndex(@Nullable String type) {
+    for (int i = 0; i < ERROR_TYPES.length; i++) {
+      if (ERROR_TYPES[i].equals(type)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   @NotNull
   public List<AnalysisError> getAnalysisErrorsForFile(String path) {
     if (path == null) {
@@ -250,45 +326,18 @@ public final class FlutterAnalysisServerListener implements Disposable, Analysis
   }
 
   /**
-   * Iterate through all files in this {@link Project}, counting how many of each {@link
-   * AnalysisErrorType} is in each file. The returned {@link HashMap} will contain the set of String
-   * keys in ERROR_TYPES and values with the mentioned sums, converted to Strings.
+   * Returns how many of each {@link AnalysisErrorType} there are across all files in this {@link
+   * Project}. The returned {@link HashMap} will contain the set of String keys in ERROR_TYPES and
+   * values with the mentioned sums.
    */
   @NotNull
   private HashMap<String, Integer> getTotalAnalysisErrorCounts() {
-    // Create a zero-filled array of length ERROR_TYPES.length.
-    int[] errorCountsArray = new int[ERROR_TYPES.length];
-
-    // Iterate through each file in this project.
-    for (String keyPath : pathToErrors.keySet()) {
-      // Get the list of AnalysisErrors and remove any todos from the list, these are ignored in the
-      // Dart Problems view, and can be ignored for any dashboard work.
-      assert keyPath != null;
-      List<AnalysisError> errors = getAnalysisErrorsForFile(keyPath);
-      errors.removeIf(e -> {
-        assert e != null;
-        return Objects.equals(e.getType(), AnalysisErrorType.TODO);
-      });
-      if (errors.isEmpty()) {
-        continue;
-      }
-
-      // For this file, count how many of each ERROR_TYPES type we have and add this count to each
-      // errorCountsArray[*]
+    HashMap<String, Integer> errorCounts = new HashMap<>();
+    synchronized (totalErrorCounts) {
       for (int i = 0; i < ERROR_TYPES.length; i++) {
-        final int j = i;
-        errorCountsArray[j] += errors.stream().filter(e -> {
-          assert e != null;
-          return Objects.equals(e.getType(), ERROR_TYPES[j]);
-        }).count();
+        errorCounts.put(ERROR_TYPES[i], totalErrorCounts[i]);
       }
     }
-
-    // Finally, create and return the final HashMap.
-    HashMap<String, Integer> errorCounts = new HashMap<>();
-    for (int i = 0; i < ERROR_TYPES.length; i++) {
-      errorCounts.put(ERROR_TYPES[i], errorCountsArray[i]);
-    }
     return errorCounts;
   }
 
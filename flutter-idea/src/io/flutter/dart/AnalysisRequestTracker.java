@@ -0,0 +1,174 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.dart;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.flutter.utils.JsonUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Tracks requests sent to the analysis server until their responses arrive.
+ * <p>
+ * Every request is removed once its future completes, whether it got a result, an error response,
+ * missed its deadline, was superseded by a newer request with the same key, was cancelled by the
+ * caller or was abandoned because the server restarted.
+ */
+public class AnalysisRequestTracker {
+  /**
+   * An error response from the analysis server.
+   */
+  public static class RequestErrorException extends Exception {
+    @Nullable private final String code;
+
+    RequestErrorException(@Nullable String code, @Nullable String message) {
+      super(code + ": " + message);
+      this.code = code;
+    }
+
+    @Nullable
+    public String getCode() {
+      return code;
+    }
+  }
+
+  private static class Request<T> {
+    @NotNull final CompletableFuture<T> future = new CompletableFuture<>();
+    @NotNull final Function<JsonObject, T> parseResult;
+    @Nullable final String supersedeKey;
+
+    Request(@NotNull Function<JsonObject, T> parseResult, @Nullable String supersedeKey) {
+      this.parseResult = parseResult;
+      this.supersedeKey = supersedeKey;
+    }
+
+    void complete(@NotNull JsonObject result) {
+      try {
+        future.complete(parseResult.apply(result));
+      }
+      catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+
+  @NotNull private final ScheduledExecutorService scheduler;
+
+  // Guarded by this.
+  private final Map<String, Request<?>> pending = new HashMap<>();
+  private final Map<String, Request<?>> latestByKey = new HashMap<>();
+
+  public AnalysisRequestTracker(@NotNull ScheduledExecutorService scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Starts tracking a request before it is sent.
+   *
+   * @param id           the id the request is sent with
+   * @param supersedeKey if not null, a pending request with the same key is cancelled
+   * @param timeoutMs    how long to wait for the response before failing with a {@link TimeoutException}
+   * @param parseResult  converts the result object of the response; exceptions it throws fail the request
+   */
+  @NotNull
+  public <T> CompletableFuture<T> register(@NotNull String id,
+                                           @Nullable String supersedeKey,
+                                           long timeoutMs,
+                                           @NotNull Function<JsonObject, T> parseResult) {
+    final Request<T> request = new Request<>(parseResult, supersedeKey);
+    final Request<?> superseded;
+    synchronized (this) {
+      pending.put(id, request);
+      superseded = supersedeKey == null ? null : latestByKey.put(supersedeKey, request);
+    }
+    if (superseded != null) {
+      superseded.future.cancel(false);
+    }
+
+    final ScheduledFuture<?> deadline = scheduler.schedule(
+      () -> request.future.completeExceptionally(new TimeoutException("No response to analysis server request " + id)),
+      timeoutMs, TimeUnit.MILLISECONDS);
+    request.future.whenComplete((value, error) -> {
+      deadline.cancel(false);
+      synchronized (this) {
+        pending.remove(id, request);
+        if (supersedeKey != null) {
+          latestByKey.remove(supersedeKey, request);
+        }
+      }
+    });
+    return request.future;
+  }
+
+  /**
+   * Completes the request with the given id from its response, if it is still pending.
+   *
+   * @return whether the response was for a pending request
+   */
+  public boolean handleResponse(@NotNull String id, @NotNull JsonObject response) {
+    final Request<?> request;
+    synchronized (this) {
+      request = pending.get(id);
+    }
+    if (request == null) {
+      return false;
+    }
+
+    final JsonElement error = response.get("error");
+    if (error != null && error.isJsonObject()) {
+      final JsonObject errorObject = error.getAsJsonObject();
+      request.future.completeExceptionally(
+        new RequestErrorException(JsonUtils.getStringMember(errorObject, "code"), JsonUtils.getStringMember(errorObject, "message")));
+      return true;
+    }
+
+    final JsonElement result = response.get("result");
+    if (result == null || !result.isJsonObject()) {
+      request.future.completeExceptionally(new RequestErrorException(null, "Response to request " + id + " has no result"));
+      return true;
+    }
+    request.complete(result.getAsJsonObject());
+    return true;
+  }
+
+  /**
+   * Fails every pending request, for example because the server restarted and will never answer them.
+   */
+  public void failAll(@NotNull String reason) {
+    final List<Request<?>> toFail;
+    synchronized (this) {
+      toFail = new ArrayList<>(pending.values());
+    }
+    for (Request<?> request : toFail) {
+      request.future.completeExceptionally(new RequestErrorException(null, reason));
+    }
+  }
+
+  /**
+   * Tests the ids of the pending requests without copying them.
+   */
+  public synchronized boolean testPendingIds(@NotNull Predicate<Set<String>> predicate) {
+    return predicate.test(pending.keySet());
+  }
+
+  public synchronized int getPendingCount() {
+    return pending.size();
+  }
+}
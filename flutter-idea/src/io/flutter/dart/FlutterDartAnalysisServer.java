@@ -7,20 +7,17 @@ package io.flutter.dart;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.server.AnalysisServerListenerAdapter;
 import com.google.dart.server.ResponseListener;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonPrimitive;
 import com.intellij.openapi.Disposable;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.Consumer;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
 import io.flutter.FlutterInitializer;
 import io.flutter.analytics.TimeTracker;
@@ -31,15 +28,21 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FlutterDartAnalysisServer implements Disposable {
   private static final String FLUTTER_NOTIFICATION_OUTLINE = "flutter.outline";
   private static final String FLUTTER_NOTIFICATION_OUTLINE_KEY = "\"flutter.outline\"";
+  private static final String ID_KEY = "\"id\"";
+
+  private static final String WIDGET_DESCRIPTION_REQUEST = "flutter.getWidgetDescription";
+  private static final long WIDGET_DESCRIPTION_TIMEOUT_MS = 10000;
+  private static final long SET_PROPERTY_VALUE_TIMEOUT_MS = 5000;
 
   @NotNull final Project project;
+  @NotNull private final DartAnalysisServerService analysisService;
 
   /**
    * Each key is a notification identifier.
@@ -51,12 +54,23 @@ public class FlutterDartAnalysisServer implements Disposable {
   protected final Map<String, List<FlutterOutlineListener>> fileOutlineListeners = new HashMap<>();
 
   /**
-   * Each key is a request identifier.
-   * Each value is the {@link Consumer} for the response.
+   * Requests sent by this class that are waiting for a response.
    */
-  private final Map<String, Consumer<JsonObject>> responseConsumers = new HashMap<>();
+  @NotNull private final AnalysisRequestTracker requestTracker;
   private boolean isDisposed = false;
 
+  /**
+   * Counts connections to the analysis server. Property ids and other results from an earlier
+   * server mean nothing to a newer one.
+   */
+  private final AtomicInteger serverGeneration = new AtomicInteger();
+
+  /**
+   * Handles messages one at a time in the order they arrive, so that outlines for a file are never
+   * applied out of order.
+   */
+  @NotNull private final Executor messageExecutor;
+
   @NotNull
   public static FlutterDartAnalysisServer getInstance(@NotNull final Project project) {
     return Objects.requireNonNull(project.getService(FlutterDartAnalysisServer.class));
@@ -64,19 +78,38 @@ public class FlutterDartAnalysisServer implements Disposable {
 
   @NotNull
   private DartAnalysisServerService getAnalysisService() {
-    return Objects.requireNonNull(DartPlugin.getInstance().getAnalysisService(project));
+    return analysisService;
   }
 
   @VisibleForTesting
   public FlutterDartAnalysisServer(@NotNull Project project) {
+    this(project,
+         Objects.requireNonNull(DartPlugin.getInstance().getAnalysisService(project)),
+         AppExecutorUtil.getAppScheduledExecutorService(),
+         AppExecutorUtil.createBoundedApplicationPoolExecutor("FlutterDartAnalysisServer", 1));
+    Disposer.register(project, this);
+  }
+
+  @VisibleForTesting
+  FlutterDartAnalysisServer(@NotNull Project project,
+                            @NotNull DartAnalysisServerService analysisService,
+                            @NotNull ScheduledExecutorService scheduler,
+                            @NotNull Executor messageExecutor) {
     this.project = project;
-    DartAnalysisServerService analysisService = getAnalysisService();
+    this.analysisService = analysisService;
+    this.requestTracker = new AnalysisRequestTracker(scheduler);
+    this.messageExecutor = messageExecutor;
     analysisService.addResponseListener(new CompatibleResponseListener());
     analysisService.addAnalysisServerListener(new AnalysisServerListenerAdapter() {
       private boolean hasComputedErrors = false;
 
       @Override
       public void serverConnected(String s) {
+        serverGeneration.incrementAndGet();
+
+        // Requests sent to a previous server will never be answered.
+        requestTracker.failAll("Analysis server restarted");
+
         // If the server reconnected we need to let it know that we still care
         // about our subscriptions.
         if (!subscriptions.isEmpty()) {
@@ -98,7 +131,13 @@ public class FlutterDartAnalysisServer implements Disposable {
         super.computedErrors(file, errors);
       }
     });
-    Disposer.register(project, this);
+  }
+
+  /**
+   * Returns a number that changes each time the analysis server connects or restarts.
+   */
+  public int getServerGeneration() {
+    return serverGeneration.get();
   }
 
   public void addOutlineListener(@NotNull final String filePath, @NotNull final FlutterOutlineListener listener) {
@@ -157,28 +196,32 @@ public class FlutterDartAnalysisServer implements Disposable {
     return analysisService.edit_getAssists(file, offset, length);
   }
 
-  @Nullable
-  public CompletableFuture<List<FlutterWidgetProperty>> getWidgetDescription(@NotNull VirtualFile file, int _offset) {
-    final CompletableFuture<List<FlutterWidgetProperty>> result = new CompletableFuture<>();
+  /**
+   * Requests the properties of the widget created at the given offset.
+   * <p>
+   * A newer request with the same supersede key cancels a pending one, so each caller only gets the
+   * properties for its latest location. Callers that show properties independently, such as two
+   * property editors, must use different keys. The returned future fails if the server returns an
+   * error, restarts or doesn't respond in time.
+   */
+  @NotNull
+  public CompletableFuture<List<FlutterWidgetProperty>> getWidgetDescription(@NotNull VirtualFile file,
+                                                                             int _offset,
+                                                                             @NotNull String supersedeKey) {
     final String filePath = FileUtil.toSystemDependentName(file.getPath());
     DartAnalysisServerService analysisService = getAnalysisService();
     final int offset = analysisService.getOriginalOffset(file, _offset);
 
     final String id = analysisService.generateUniqueId();
-    synchronized (responseConsumers) {
-      responseConsumers.put(id, (resultObject) -> {
-        try {
-          final JsonArray propertiesObject = resultObject.getAsJsonArray("properties");
-          final ArrayList<FlutterWidgetProperty> properties = new ArrayList<>();
-          for (JsonElement propertyObject : propertiesObject) {
-            properties.add(FlutterWidgetProperty.fromJson(propertyObject.getAsJsonObject()));
-          }
-          result.complete(properties);
-        }
-        catch (Throwable ignored) {
+    final CompletableFuture<List<FlutterWidgetProperty>> result = requestTracker.register(
+      id, WIDGET_DESCRIPTION_REQUEST + ":" + supersedeKey, WIDGET_DESCRIPTION_TIMEOUT_MS, (resultObject) -> {
+        final JsonArray propertiesObject = resultObject.getAsJsonArray("properties");
+        final ArrayList<FlutterWidgetProperty> properties = new ArrayList<>();
+        for (JsonElement propertyObject : propertiesObject) {
+          properties.add(FlutterWidgetProperty.fromJson(propertyObject.getAsJsonObject()));
         }
+        return properties;
       });
-    }
 
     final JsonObject request = FlutterRequestUtilities.generateFlutterGetWidgetDescription(id, filePath, offset);
     analysisService.sendRequest(id, request);
@@ -186,35 +229,33 @@ public class FlutterDartAnalysisServer implements Disposable {
     return result;
   }
 
-
-  @Nullable
-  public SourceChange setWidgetPropertyValue(int propertyId, FlutterWidgetPropertyValue value) {
-    final CountDownLatch latch = new CountDownLatch(1);
-    final AtomicReference<SourceChange> result = new AtomicReference<>();
+  /**
+   * Asks the server for the edit that sets a widget property to the given value.
+   * <p>
+   * The returned future completes with null if the server has no change to make, and fails if the
+   * server returns an error, for example for an invalid expression, restarts or doesn't respond in
+   * time.
+   */
+  @NotNull
+  public CompletableFuture<SourceChange> setWidgetPropertyValue(int propertyId, FlutterWidgetPropertyValue value) {
     DartAnalysisServerService analysisService = getAnalysisService();
     final String id = analysisService.generateUniqueId();
-    synchronized (responseConsumers) {
-      responseConsumers.put(id, (resultObject) -> {
-        try {
-          final JsonObject propertiesObject = resultObject.getAsJsonObject("change");
-          result.set(SourceChange.fromJson(propertiesObject));
-        }
-        catch (Throwable ignored) {
-        }
-        latch.countDown();
+    final CompletableFuture<SourceChange> result = requestTracker.register(
+      id, null, SET_PROPERTY_VALUE_TIMEOUT_MS, (resultObject) -> {
+        final JsonObject changeObject = resultObject.getAsJsonObject("change");
+        return changeObject == null ? null : SourceChange.fromJson(changeObject);
       });
-    }
 
     final JsonObject request = FlutterRequestUtilities.generateFlutterSetWidgetPropertyValue(id, propertyId, value);
     analysisService.sendRequest(id, request);
 
-    Uninterruptibles.awaitUninterruptibly(latch, 100, TimeUnit.MILLISECONDS);
-    return result.get();
+    return result;
   }
 
   private void processString(String jsonString) {
     if (isDisposed) return;
-    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+    if (!requestTracker.testPendingIds((pendingIds) -> mayBeHandled(jsonString, pendingIds))) return;
+    messageExecutor.execute(() -> {
       // Short circuit just in case we have been disposed in the time it took
       // for us to get around to listening for the response.
       if (isDisposed) return;
@@ -223,46 +264,78 @@ public class FlutterDartAnalysisServer implements Disposable {
   }
 
   /**
-   * Handle the given {@link JsonObject} response.
+   * Returns whether the given message might be a notification or response handled by this class.
+   * <p>
+   * Most messages from the analysis server, including large ones like analysis.errors and
+   * completion.results, are of no interest here. This scans the raw text so that they don't need to
+   * be parsed. It may return true for messages that are then ignored, but never returns false for
+   * one that would be handled.
    */
-  private void processResponse(JsonObject response) {
-    final JsonElement eventName = response.get("event");
-    if (eventName != null && eventName.isJsonPrimitive()) {
-      processNotification(response, eventName);
-      return;
+  @VisibleForTesting
+  static boolean mayBeHandled(@NotNull String json, @NotNull Collection<String> pendingIds) {
+    if (json.contains(FLUTTER_NOTIFICATION_OUTLINE_KEY)) {
+      return true;
+    }
+    if (pendingIds.isEmpty()) {
+      return false;
     }
 
-    if (response.has("error")) {
-      return;
+    int index = 0;
+    while ((index = json.indexOf(ID_KEY, index)) >= 0) {
+      index = skipWhitespace(json, index + ID_KEY.length());
+      if (index >= json.length() || json.charAt(index) != ':') {
+        continue;
+      }
+      index = skipWhitespace(json, index + 1);
+      if (index >= json.length() || json.charAt(index) != '"') {
+        continue;
+      }
+      final int start = index + 1;
+      final int end = json.indexOf('"', start);
+      if (end < 0) {
+        return false;
+      }
+      for (String id : pendingIds) {
+        if (id.length() == end - start && json.regionMatches(start, id, 0, id.length())) {
+          return true;
+        }
+      }
+      index = end + 1;
     }
+    return false;
+  }
 
-    final JsonObject resultObject = response.getAsJsonObject("result");
-    if (resultObject == null) {
-      return;
+  private static int skipWhitespace(@NotNull String json, int index) {
+    while (index < json.length() && Character.isWhitespace(json.charAt(index))) {
+      index++;
     }
+    return index;
+  }
 
-    final JsonPrimitive idJsonPrimitive = (JsonPrimitive)response.get("id");
-    if (idJsonPrimitive == null) {
+  /**
+   * Handle the given {@link JsonObject} response.
+   */
+  private void processResponse(JsonObject response) {
+    final JsonElement eventName = response.get("event");
+    if (eventName != null && eventName.isJsonPrimitive()) {
+      processNotification(response, eventName);
       return;
     }
-    final String idString = idJsonPrimitive.getAsString();
 
-    final Consumer<JsonObject> consumer;
-    synchronized (responseConsumers) {
-      consumer = responseConsumers.remove(idString);
-    }
-    if (consumer == null) {
+    final JsonElement id = response.get("id");
+    if (id == null || !id.isJsonPrimitive()) {
       return;
     }
 
-    consumer.consume(resultObject);
+    // Completes the request with its result or error, if it is one of ours.
+    requestTracker.handleResponse(id.getAsString(), response);
   }
 
   /**
    * Attempts to handle the given {@link JsonObject} as a notification.
    */
   private void processNotification(JsonObject response, @NotNull JsonElement eventName) {
-    // If we add code to handle more event types below, update the filter in processString().
+    // If we add code to handle more event types below, update the filter in mayBeHandled().
     final String event = eventName.getAsString();
     if (event.equals(FLUTTER_NOTIFICATION_OUTLINE)) {
       final JsonObject paramsObject = response.get("params").getAsJsonObject();
@@ -303,5 +376,6 @@ public class FlutterDartAnalysisServer implements Disposable {
   @Override
   public void dispose() {
     isDisposed = true;
+    requestTracker.failAll("Flutter analysis server was disposed");
   }
 }
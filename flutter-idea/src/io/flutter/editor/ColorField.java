@@ -20,6 +20,7 @@ import org.dartlang.analysis.server.protocol.FlutterOutline;
 import org.dartlang.analysis.server.protocol.FlutterWidgetProperty;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import javax.swing.*;
 import java.awt.*;
@@ -32,7 +33,7 @@ import java.util.concurrent.CompletableFuture;
  * opens a color picker.
  */
 class ColorField extends ExtendableTextField {
-  private final String originalExpression;
+  private String originalExpression;
   private final String name;
   private final Extension setColorExtension;
   @Nullable private Color currentColor;
@@ -91,6 +92,29 @@ class ColorField extends ExtendableTextField {
     this.panel = panel;
   }
 
+  /**
+   * Shows a newer value of the property, unless the color picker is open.
+   */
+  void setProperty(FlutterWidgetProperty property) {
+    if (colorPicker != null) {
+      return;
+    }
+    final String expression = property.getExpression();
+    originalExpression = expression;
+    setText(expression != null ? expression : "");
+    currentColor = parseColorExpression(expression);
+    repaint();
+  }
+
+  /**
+   * Returns the color shown in the field's icon, or null if the expression isn't a color.
+   */
+  @VisibleForTesting
+  @Nullable
+  Color getCurrentColor() {
+    return currentColor;
+  }
+
   @Nullable
   private static Color parseColorExpression(String expression) {
     if (expression == null) return null;
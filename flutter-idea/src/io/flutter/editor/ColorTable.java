@@ -0,0 +1,187 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import com.intellij.openapi.diagnostic.Logger;
+import io.flutter.FlutterUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The colors from a generated properties file, parsed once when the file is loaded.
+ * <p>
+ * Keys look like <code>blue[200]</code>, <code>blue.primary</code> or <code>white</code>. A color can
+ * be looked up by its key, by the name of a primary color (<code>blue</code>), or by a name and a
+ * shade (<code>blue.shade200</code>).
+ */
+class ColorTable {
+  private static final Logger LOG = Logger.getInstance(ColorTable.class);
+
+  static final String primarySuffix = ".primary";
+  static final String defaultShade = "[500]";
+  private static final String shadePrefix = ".shade";
+
+  /**
+   * The shades of one color.
+   */
+  private static class Shades {
+    int[] shades = new int[0];
+    FlutterColors.FlutterColor[] colors = new FlutterColors.FlutterColor[0];
+
+    void add(int shade, @NotNull FlutterColors.FlutterColor color) {
+      shades = Arrays.copyOf(shades, shades.length + 1);
+      shades[shades.length - 1] = shade;
+      colors = Arrays.copyOf(colors, colors.length + 1);
+      colors[colors.length - 1] = color;
+    }
+
+    @Nullable
+    FlutterColors.FlutterColor get(int shade) {
+      for (int i = 0; i < shades.length; i++) {
+        if (shades[i] == shade) {
+          return colors[i];
+        }
+      }
+      return null;
+    }
+  }
+
+  // Every key in the file, plus the names of primary colors.
+  private final Map<String, FlutterColors.FlutterColor> colors = new HashMap<>();
+  private final Map<String, Shades> shades = new HashMap<>();
+  private final Map<Color, String> colorToName = new HashMap<>();
+
+  ColorTable(@NotNull String resourcePath) {
+    final Properties properties = new Properties();
+    try (InputStream stream = FlutterUtils.class.getResourceAsStream(resourcePath)) {
+      if (stream != null) {
+        properties.load(stream);
+      }
+    }
+    catch (IOException e) {
+      FlutterUtils.warn(LOG, e);
+    }
+
+    final Map<String, FlutterColors.FlutterColor> primaries = new HashMap<>();
+    for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+      final String name = (String)entry.getKey();
+      final Color color = parseColor((String)entry.getValue());
+      if (color == null) {
+        continue;
+      }
+      colorToName.put(color, name);
+      colors.put(name, new FlutterColors.FlutterColor(color, false));
+
+      if (name.endsWith(primarySuffix)) {
+        primaries.put(name.substring(0, name.length() - primarySuffix.length()), new FlutterColors.FlutterColor(color, true));
+      }
+
+      final int bracket = name.indexOf('[');
+      if (bracket > 0 && name.endsWith("]")) {
+        final int shade = parseInt(name, bracket + 1, name.length() - 1);
+        if (shade >= 0) {
+          final Shades family = shades.computeIfAbsent(name.substring(0, bracket), (key) -> new Shades());
+          family.add(shade, colors.get(name));
+        }
+      }
+    }
+
+    // A key in the file takes precedence over a primary color with the same name.
+    for (Map.Entry<String, FlutterColors.FlutterColor> entry : primaries.entrySet()) {
+      colors.putIfAbsent(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Returns the color for a key, the name of a primary color, or a name followed by a shade like <code>blue.shade200</code>.
+   */
+  @Nullable
+  FlutterColors.FlutterColor getColor(@NotNull String key) {
+    final FlutterColors.FlutterColor color = colors.get(key);
+    if (color != null) {
+      return color;
+    }
+
+    // Handle things like Colors.blue.shade200.
+    final int shadeStart = key.indexOf(shadePrefix);
+    if (shadeStart > 0) {
+      return getColor(key.substring(0, shadeStart), parseInt(key, shadeStart + shadePrefix.length(), key.length()));
+    }
+    return null;
+  }
+
+  /**
+   * Returns a shade of a color, like <code>blue[200]</code>.
+   */
+  @Nullable
+  FlutterColors.FlutterColor getColor(@NotNull String name, int shade) {
+    final Shades family = shades.get(name);
+    return family == null ? null : family.get(shade);
+  }
+
+  /**
+   * Returns the the shortest name matching a color if one exists.
+   */
+  @Nullable
+  String getColorName(@Nullable Color color) {
+    String name = colorToName.get(color);
+    if (name == null) return null;
+    // Normalize to avoid including suffixes that are not required.
+    name = maybeTrimSuffix(name, primarySuffix);
+    name = maybeTrimSuffix(name, defaultShade);
+    return name;
+  }
+
+  /**
+   * Parses a non-negative decimal number from part of the text, returning -1 if it isn't one.
+   */
+  static int parseInt(@NotNull CharSequence text, int start, int end) {
+    if (start >= end || end - start > 9) {
+      return -1;
+    }
+    int value = 0;
+    for (int i = start; i < end; i++) {
+      final char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static String maybeTrimSuffix(String value, String suffix) {
+    if (value.endsWith(suffix)) {
+      return value.substring(0, value.length() - suffix.length());
+    }
+    return value;
+  }
+
+  private static Color parseColor(String hexValue) {
+    if (hexValue == null) {
+      return null;
+    }
+
+    try {
+      // argb to r, g, b, a
+      final long value = Long.parseLong(hexValue, 16);
+
+      //noinspection UseJBColor
+      return new Color((int)(value >> 16) & 0xFF, (int)(value >> 8) & 0xFF, (int)value & 0xFF, (int)(value >> 24) & 0xFF);
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
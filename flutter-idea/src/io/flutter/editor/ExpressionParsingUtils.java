@@ -5,6 +5,8 @@
  */
 package io.flutter.editor;
 
+import org.jetbrains.annotations.NotNull;
+
 import java.awt.*;
 
 public class ExpressionParsingUtils {
@@ -27,6 +29,29 @@ public class ExpressionParsingUtils {
     return null;
   }
 
+  /**
+   * Parses an unsigned decimal or hex int literal, such as <code>255</code> or <code>0xFF42A5F5</code>, returning -1
+   * if the text isn't one.
+   */
+  public static long parseUnsignedIntLiteral(@NotNull CharSequence text) {
+    final int length = text.length();
+    final boolean isHex = length > 2 && text.charAt(0) == '0' && (text.charAt(1) == 'x' || text.charAt(1) == 'X');
+    final int radix = isHex ? 16 : 10;
+    final int start = isHex ? 2 : 0;
+    if (start >= length || length - start > (isHex ? 8 : 10)) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = start; i < length; i++) {
+      final int digit = Character.digit(text.charAt(i), radix);
+      if (digit < 0) {
+        return -1;
+      }
+      value = value * radix + digit;
+    }
+    return value <= 0xFFFFFFFFL ? value : -1;
+  }
+
   public static Color parseColor(String text) {
     final Color color = parseColor(text, "const Color(");
     if (color != null) return color;
@@ -8,10 +8,11 @@ package io.flutter.editor;
 import com.intellij.openapi.command.CommandProcessor;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.ElementColorProvider;
+import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.impl.PsiFileFactoryImpl;
-import com.intellij.psi.impl.source.tree.AstBufferUtil;
 import com.jetbrains.lang.dart.DartLanguage;
 import com.jetbrains.lang.dart.DartTokenTypes;
 import com.jetbrains.lang.dart.psi.DartArgumentList;
@@ -30,6 +31,7 @@ import static io.flutter.dart.DartPsiUtil.getNewExprFromType;
 import static io.flutter.dart.DartPsiUtil.topmostReferenceExpression;
 
 public class FlutterColorProvider implements ElementColorProvider {
+  private static final String SHADE = "shade";
 
   @Nullable
   @Override
@@ -47,8 +49,15 @@ public class FlutterColorProvider implements ElementColorProvider {
 
     if (parent.getNode().getElementType() == DartTokenTypes.ARRAY_ACCESS_EXPRESSION) {
       // Colors.blue[200]
-      final String code = AstBufferUtil.getTextSkippingWhitespaceComments(parent.getNode());
-      return parseColorText(code.substring(code.indexOf(name) + name.length() + 1), name);
+      if (!isQualifiedBy(refExpr, name)) return null;
+      final PsiElement selectorNode = lastSignificantChild(refExpr);
+      if (selectorNode == null) return null;
+      for (PsiElement index = refExpr.getNextSibling(); index != null; index = index.getNextSibling()) {
+        if (index.getNode().getElementType() == DartTokenTypes.LITERAL_EXPRESSION) {
+          return parseShade(selectorNode.getText(), index.getNode().getChars(), 0, name);
+        }
+      }
+      return null;
     }
     else if (parent.getNode().getElementType() == DartTokenTypes.CALL_EXPRESSION) {
       // foo(Color.fromRGBO(0, 255, 0, 0.5))
@@ -66,49 +75,152 @@ public class FlutterColorProvider implements ElementColorProvider {
       final PsiElement idNode = refExpr.getFirstChild();
       if (idNode == null) return null;
       if (name.equals(idNode.getText())) {
-        final PsiElement selectorNode = refExpr.getLastChild();
+        final PsiElement selectorNode = lastSignificantChild(refExpr);
         if (selectorNode == null) return null;
-        final String code = AstBufferUtil.getTextSkippingWhitespaceComments(selectorNode.getNode());
-        return parseColorText(code, name);
+        return parseColorText(selectorNode.getText(), name);
       }
       // refExpr.getLastChild().getText().startsWith("shade") -> Colors.blue.shade200
-      final PsiElement child = refExpr.getLastChild();
+      final PsiElement child = lastSignificantChild(refExpr);
       if (child == null) return null;
-      if (child.getText().startsWith("shade")) {
-        final String code = AstBufferUtil.getTextSkippingWhitespaceComments(refExpr.getNode());
-        return parseColorText(code.substring(code.indexOf(name) + name.length() + 1), name);
+      final String shade = child.getText();
+      if (shade.startsWith(SHADE) && isQualifiedBy(idNode, name)) {
+        final PsiElement familyNode = lastSignificantChild(idNode);
+        if (familyNode == null) return null;
+        return parseShade(familyNode.getText(), shade, SHADE.length(), name);
       }
     }
     return null;
   }
 
+  /**
+   * Reads the color from the literal arguments of a constructor call, without copying the call's text.
+   */
   @Nullable
-  private Color parseColorElements(@NotNull PsiElement parent, @NotNull PsiElement refExpr) {
+  private static Color parseColorElements(@NotNull PsiElement parent, @NotNull PsiElement refExpr) {
     final PsiElement selectorNode = refExpr.getLastChild();
     if (selectorNode == null) return null;
-    final String selector = selectorNode.getText();
-    final boolean isFromARGB = "fromARGB".equals(selector);
-    final boolean isFromRGBO = "fromRGBO".equals(selector);
-    if (isFromARGB || isFromRGBO) {
-      String code = AstBufferUtil.getTextSkippingWhitespaceComments(parent.getNode());
-      if (code.startsWith("constColor(")) {
-        code = code.substring(5);
-      }
-      return ExpressionParsingUtils.parseColorComponents(code.substring(code.indexOf(selector)), selector + "(", isFromARGB);
-    }
     final PsiElement args = parent.getLastChild();
-    if (args != null && args.getNode().getElementType() == DartTokenTypes.ARGUMENTS) {
-      String code = AstBufferUtil.getTextSkippingWhitespaceComments(parent.getNode());
-      if (code.startsWith("constColor(")) {
-        code = code.substring(5);
+    if (args == null || args.getNode().getElementType() != DartTokenTypes.ARGUMENTS) return null;
+    final DartArgumentList list = ((DartArguments)args).getArgumentList();
+    if (list == null) return null;
+    final List<DartExpression> expressions = list.getExpressionList();
+    final CharSequence[] literals = new CharSequence[expressions.size()];
+    for (int i = 0; i < literals.length; i++) {
+      literals[i] = literalChars(expressions.get(i));
+    }
+    return parseColorArguments(selectorNode.getText(), literals);
+  }
+
+  /**
+   * Returns the text of a number literal, or null for any other expression.
+   */
+  @Nullable
+  private static CharSequence literalChars(@NotNull DartExpression expression) {
+    if (!(expression instanceof DartLiteralExpression)) return null;
+    // The number token is the literal's only child, and its text is shared rather than copied.
+    final PsiElement token = expression.getFirstChild();
+    if (token == null || token.getNextSibling() != null) return null;
+    return token.getNode().getChars();
+  }
+
+  /**
+   * Builds the color for <code>Color(0xFF42A5F5)</code>, <code>Color.fromARGB(255, 66, 165, 245)</code> or
+   * <code>Color.fromRGBO(66, 165, 245, 1.0)</code> from the text of its arguments, which is null for arguments that
+   * aren't literals.
+   */
+  @Nullable
+  static Color parseColorArguments(@NotNull String selector, @NotNull CharSequence[] literals) {
+    switch (selector) {
+      case "Color": {
+        if (literals.length == 0 || literals[0] == null) return null;
+        final long value = ExpressionParsingUtils.parseUnsignedIntLiteral(literals[0]);
+        if (value < 0) return null;
+        //noinspection UseJBColor
+        return new Color((int)(value >> 16) & 0xFF, (int)(value >> 8) & 0xFF, (int)value & 0xFF, (int)(value >> 24) & 0xFF);
       }
-      return ExpressionParsingUtils.parseColor(code);
+      case "fromARGB": {
+        if (literals.length < 4) return null;
+        final int alpha = parseComponent(literals[0]);
+        final int red = parseComponent(literals[1]);
+        final int green = parseComponent(literals[2]);
+        final int blue = parseComponent(literals[3]);
+        if (alpha < 0 || red < 0 || green < 0 || blue < 0) return null;
+        //noinspection UseJBColor
+        return new Color(red, green, blue, alpha);
+      }
+      case "fromRGBO": {
+        if (literals.length < 4 || literals[3] == null) return null;
+        final int red = parseComponent(literals[0]);
+        final int green = parseComponent(literals[1]);
+        final int blue = parseComponent(literals[2]);
+        if (red < 0 || green < 0 || blue < 0) return null;
+        final float opacity;
+        try {
+          opacity = Float.parseFloat(literals[3].toString());
+        }
+        catch (NumberFormatException e) {
+          return null;
+        }
+        if (!(opacity >= 0.0f && opacity <= 1.0f)) return null;
+        //noinspection UseJBColor
+        return new Color(red / 255.0f, green / 255.0f, blue / 255.0f, opacity);
+      }
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Parses a color component from 0 to 255, returning -1 if the text isn't one.
+   */
+  private static int parseComponent(@Nullable CharSequence literal) {
+    if (literal == null) return -1;
+    final long value = ExpressionParsingUtils.parseUnsignedIntLiteral(literal);
+    return value <= 255 ? (int)value : -1;
+  }
+
+  /**
+   * Returns whether a reference like <code>Colors.blue</code> starts with the given name.
+   */
+  private static boolean isQualifiedBy(@NotNull PsiElement refExpr, @NotNull String name) {
+    final PsiElement qualifier = refExpr.getFirstChild();
+    return qualifier != null && name.equals(qualifier.getText());
+  }
+
+  /**
+   * Returns the last child that isn't whitespace or a comment.
+   */
+  @Nullable
+  private static PsiElement lastSignificantChild(@NotNull PsiElement element) {
+    PsiElement child = element.getLastChild();
+    while (child instanceof PsiWhiteSpace || child instanceof PsiComment) {
+      child = child.getPrevSibling();
+    }
+    return child;
+  }
+
+  /**
+   * Looks up a shade of a color, like <code>blue[200]</code>, from the digits of the shade in the source.
+   */
+  @Nullable
+  static Color parseShade(@NotNull String family, @NotNull CharSequence shadeText, int start, @NotNull String platform) {
+    final int shade = ColorTable.parseInt(shadeText, start, shadeText.length());
+    if (shade < 0) return null;
+    final FlutterColors.FlutterColor color;
+    if ("CupertinoColors".equals(platform)) {
+      color = FlutterCupertinoColors.getColor(family, shade);
+    }
+    else {
+      color = FlutterColors.getColor(family, shade);
+    }
+    if (color != null) {
+      return color.getAWTColor();
     }
     return null;
   }
 
   @Nullable
-  private Color parseColorText(@NotNull String text, @NotNull String platform) {
+  static Color parseColorText(@NotNull String text, @NotNull String platform) {
     final FlutterColors.FlutterColor color;
     if ("CupertinoColors".equals(platform)) {
       color = FlutterCupertinoColors.getColor(text);
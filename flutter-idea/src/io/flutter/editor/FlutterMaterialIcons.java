@@ -5,47 +5,28 @@
  */
 package io.flutter.editor;
 
-import com.intellij.openapi.diagnostic.Logger;
-import com.intellij.openapi.util.IconLoader;
-import io.flutter.FlutterUtils;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.io.IOException;
-import java.util.Properties;
 
 public class FlutterMaterialIcons {
-  private static final Logger LOG = Logger.getInstance(FlutterMaterialIcons.class);
-
-  private static final Properties icons;
-
-  static {
-    icons = new Properties();
-
-    try {
-      icons.load(FlutterMaterialIcons.class.getResourceAsStream("/flutter/icons/material.properties"));
-    }
-    catch (IOException e) {
-      FlutterUtils.warn(LOG, e);
-    }
-  }
+  private static final IconTable icons = new IconTable("/flutter/icons/material.properties", FlutterMaterialIcons.class);
 
+  @Nullable
   public static Icon getIconForHex(String hexValue) {
-    final String iconName = icons.getProperty(hexValue + ".codepoint");
-    return getIcon(iconName);
+    return hexValue == null ? null : icons.getIconForHex(hexValue);
   }
 
-  public static Icon getIconForName(String name) {
-    return getIcon(name);
+  /**
+   * Returns the icon for a code point, like the <code>codePoint</code> of an <code>IconData</code>.
+   */
+  @Nullable
+  public static Icon getIconForCodePoint(int codePoint) {
+    return icons.getIconForCodePoint(codePoint);
   }
 
-  private static Icon getIcon(String name) {
-    if (name == null) {
-      return null;
-    }
-    final String path = icons.getProperty(name);
-    if (path == null) {
-      return null;
-    }
-    return IconLoader.findIcon("/flutter/icons/" + path, FlutterMaterialIcons.class);
+  @Nullable
+  public static Icon getIconForName(String name) {
+    return icons.getIconForName(name);
   }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.IconLoader;
+import io.flutter.FlutterUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The icons listed in a generated properties file, indexed once when the file is loaded.
+ * <p>
+ * The file maps code points to names, like <code>e4c4.codepoint=abc_rounded</code>, and names to
+ * image paths. An icon is loaded the first time it is asked for and reused after that.
+ */
+class IconTable {
+  private static final Logger LOG = Logger.getInstance(IconTable.class);
+
+  private static final String codePointSuffix = ".codepoint";
+
+  @NotNull private final Class<?> resourceClass;
+  private final Map<String, String> pathsByName = new HashMap<>();
+  private final Map<Integer, String> namesByCodePoint = new HashMap<>();
+  private final Map<String, Icon> icons = new ConcurrentHashMap<>();
+
+  IconTable(@NotNull String resourcePath, @NotNull Class<?> resourceClass) {
+    this.resourceClass = resourceClass;
+
+    final Properties properties = new Properties();
+    try (InputStream stream = resourceClass.getResourceAsStream(resourcePath)) {
+      if (stream != null) {
+        properties.load(stream);
+      }
+    }
+    catch (IOException e) {
+      FlutterUtils.warn(LOG, e);
+    }
+
+    for (String key : properties.stringPropertyNames()) {
+      final String value = properties.getProperty(key);
+      if (key.endsWith(codePointSuffix)) {
+        final Integer codePoint = parseHex(key.substring(0, key.length() - codePointSuffix.length()));
+        if (codePoint != null) {
+          namesByCodePoint.put(codePoint, value);
+        }
+      }
+      else {
+        pathsByName.put(key, value);
+      }
+    }
+  }
+
+  @Nullable
+  Icon getIconForHex(@NotNull String hexValue) {
+    final Integer codePoint = parseHex(hexValue);
+    return codePoint == null ? null : getIconForCodePoint(codePoint);
+  }
+
+  @Nullable
+  Icon getIconForCodePoint(int codePoint) {
+    return getIconForName(namesByCodePoint.get(codePoint));
+  }
+
+  @Nullable
+  Icon getIconForName(@Nullable String name) {
+    if (name == null) {
+      return null;
+    }
+    final Icon cached = icons.get(name);
+    if (cached != null) {
+      return cached;
+    }
+    final String path = pathsByName.get(name);
+    if (path == null) {
+      return null;
+    }
+    final Icon icon = IconLoader.findIcon("/flutter/icons/" + path, resourceClass);
+    if (icon != null) {
+      icons.put(name, icon);
+    }
+    return icon;
+  }
+
+  @Nullable
+  private static Integer parseHex(@NotNull String hexValue) {
+    try {
+      return Integer.parseInt(hexValue, 16);
+    }
+    catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
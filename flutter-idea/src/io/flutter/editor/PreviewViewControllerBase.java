@@ -48,6 +48,10 @@ public abstract class PreviewViewControllerBase extends WidgetViewController {
   public static final double SCREENSHOT_FRAMES_PER_SECOND = 3.0;
   public static final int PREVIEW_MAX_WIDTH = 280;
   public static final int PREVIEW_MAX_HEIGHT = 520;
+  /**
+   * Previews at or below this area (in logical pixels) request downscaled screenshots.
+   */
+  public static final int SMALL_PREVIEW_AREA = PREVIEW_MAX_WIDTH * PREVIEW_MAX_HEIGHT / 4;
   private static final Stroke SOLID_STROKE = new BasicStroke(1);
   private static final Color SHADOW_COLOR = new JBColor(new Color(0, 0, 0, 64), new Color(0, 0, 0, 64));
   protected static final int defaultLineHeight = 20;
@@ -75,6 +79,13 @@ public abstract class PreviewViewControllerBase extends WidgetViewController {
   int maxHeight;
   boolean _mouseInScreenshot = false;
 
+  // Scratch buffers reused by paint so highlighting boxes doesn't allocate per box.
+  private final Matrix4 paintMatrix = Matrix4.identity();
+  private final double[] paintRect = new double[4];
+  private final double[] paintCorners = new double[8];
+  private final int[] paintXs = new int[4];
+  private final int[] paintYs = new int[4];
+
   public PreviewViewControllerBase(WidgetViewModelData data, boolean drawBackground, Disposable parent) {
     super(data, parent);
     this.drawBackground = drawBackground;
@@ -534,10 +545,9 @@ public abstract class PreviewViewControllerBase extends WidgetViewController {
     }
 
     final Dimension previewSize = getPreviewSize();
-    final long startTime = System.currentTimeMillis();
-    // 0.7 is a tweak to ensure we do not try to download enormous screenshots.
     final CompletableFuture<InspectorService.InteractiveScreenshot> screenshotFuture =
-      group.getScreenshotAtLocation(getLocation(), 10, toPixels(previewSize.width), toPixels(previewSize.height), getDPI() * 0.7);
+      group.getScreenshotAtLocation(getLocation(), 10, toPixels(previewSize.width), toPixels(previewSize.height),
+                                    getScreenshotPixelRatio(previewSize));
     group.safeWhenComplete(
       screenshotFuture,
       (pair, e2) -> {
@@ -564,6 +574,21 @@ public abstract class PreviewViewControllerBase extends WidgetViewController {
 
   protected abstract Dimension getPreviewSize();
 
+  /**
+   * Maximum device pixel ratio to request screenshots at.
+   * <p>
+   * Small previews do not benefit from high resolution screenshots so they
+   * request a downscaled image, which is cheaper to encode, transfer and decode.
+   */
+  protected double getScreenshotPixelRatio(Dimension previewSize) {
+    // 0.7 is a tweak to ensure we do not try to download enormous screenshots.
+    final double pixelRatio = getDPI() * 0.7;
+    if (previewSize.width * previewSize.height <= SMALL_PREVIEW_AREA) {
+      return min(pixelRatio, 1.0);
+    }
+    return pixelRatio;
+  }
+
   public void paint(@NotNull Graphics g, int lineHeight) {
     final Graphics2D g2d = (Graphics2D)g.create();
     // Required to render colors with an alpha channel. Rendering with an
@@ -614,35 +639,29 @@ public abstract class PreviewViewControllerBase extends WidgetViewController {
       // TODO(jacobr): be smarter and track if the highlights are associated with a different screenshot.
       if (nodesToHighlight != null && nodesToHighlight.size() > 0) { //&& !screenshotLoading) {
         boolean first = true;
+        // The transform to the screenshot is the same for every box.
+        final Matrix4 screenshotTransform = buildTransformToScreenshot(latestScreenshot);
         for (DiagnosticsNode box : nodesToHighlight) {
           final TransformedRect transform = box.getTransformToRoot();
           if (transform != null) {
-            double x, y;
-            final Matrix4 matrix = buildTransformToScreenshot(latestScreenshot);
-            matrix.multiply(transform.getTransform());
-            final Rectangle2D rect = transform.getRectangle();
-
-            final Vector3[] points = new Vector3[]{
-              matrix.perspectiveTransform(new Vector3(new double[]{rect.getMinX(), rect.getMinY(), 0})),
-              matrix.perspectiveTransform(new Vector3(new double[]{rect.getMaxX(), rect.getMinY(), 0})),
-              matrix.perspectiveTransform(new Vector3(new double[]{rect.getMaxX(), rect.getMaxY(), 0})),
-              matrix.perspectiveTransform(new Vector3(new double[]{rect.getMinX(), rect.getMaxY(), 0}))
-            };
+            final Matrix4 matrix = screenshotTransform.multiplied(transform.getTransform(paintMatrix), paintMatrix);
+            transform.getRect(paintRect, 0);
+            matrix.transformRects(paintRect, paintCorners);
 
             // The widget's bounding box may be rotated or otherwise
             // transformed so we can't simply draw a rectangle.
-            final Polygon polygon = new Polygon();
-            for (Vector3 point : points) {
-              polygon.addPoint((int)Math.round(point.getX()), (int)Math.round(point.getY()));
+            for (int i = 0; i < 4; i++) {
+              paintXs[i] = (int)Math.round(paintCorners[i * 2]);
+              paintYs[i] = (int)Math.round(paintCorners[i * 2 + 1]);
             }
 
             if (first && elements.size() > 0 && !Objects.equals(box.getValueRef(), elements.get(0).getValueRef())) {
               g2d.setColor(FlutterEditorColors.HIGHLIGHTED_RENDER_OBJECT_BORDER_COLOR);
-              g2d.fillPolygon(polygon);
+              g2d.fillPolygon(paintXs, paintYs, 4);
             }
             g2d.setStroke(SOLID_STROKE);
             g2d.setColor(FlutterEditorColors.HIGHLIGHTED_RENDER_OBJECT_BORDER_COLOR);
-            g2d.drawPolygon(polygon);
+            g2d.drawPolygon(paintXs, paintYs, 4);
           }
           first = false;
         }
@@ -9,6 +9,7 @@ import com.google.common.base.Joiner;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.actionSystem.ActionToolbar;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.ex.EditorEx;
@@ -22,6 +23,7 @@ import com.intellij.openapi.ui.popup.JBPopupFactory;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.ui.JBColor;
 import com.intellij.ui.awt.RelativePoint;
 import com.intellij.ui.components.JBLabel;
@@ -30,6 +32,7 @@ import com.intellij.util.ui.PositionTracker;
 import com.jetbrains.lang.dart.assists.AssistUtils;
 import com.jetbrains.lang.dart.assists.DartSourceEditException;
 import io.flutter.FlutterMessages;
+import io.flutter.dart.AnalysisRequestTracker;
 import io.flutter.dart.FlutterDartAnalysisServer;
 import io.flutter.hotui.StableWidgetTracker;
 import io.flutter.inspector.DiagnosticsNode;
@@ -48,6 +51,7 @@ import org.dartlang.analysis.server.protocol.*;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import javax.swing.*;
 import java.awt.*;
@@ -57,6 +61,7 @@ import java.awt.event.ItemEvent;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class EnumValueWrapper {
   final FlutterWidgetPropertyValueEnumItem item;
@@ -176,7 +181,46 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
   private final FlutterDartAnalysisServer flutterDartAnalysisService;
   @Nullable private final Project project;
   private final boolean showWidgetEditToolbar;
-  private final Map<String, JComponent> fields = new HashMap<>();
+  private static final int MAX_CACHED_DESCRIPTIONS = 32;
+  private static final AtomicInteger nextPanelId = new AtomicInteger();
+
+  /**
+   * The UI for one property. Rows are kept between updates and patched in place
+   * when a newer description has a property with the same name and editor.
+   */
+  private static class PropertyRow {
+    final String editorKey;
+    final JComponent field;
+    @Nullable final JBLabel label;
+    /**
+     * The outline the row edits a property of.
+     */
+    FlutterOutline outline;
+    /**
+     * The analysis server's id for the property the row edits.
+     */
+    int propertyId;
+    /**
+     * The expression last shown in the row, to tell in-progress edits apart.
+     */
+    String expression;
+
+    PropertyRow(String editorKey, JComponent field, @Nullable JBLabel label) {
+      this.editorKey = editorKey;
+      this.field = field;
+      this.label = label;
+    }
+  }
+
+  /**
+   * The rows in the order they are laid out.
+   */
+  private final Map<String, PropertyRow> rows = new LinkedHashMap<>();
+  private boolean rowsLaidOut;
+  /**
+   * Recent descriptions. Retries run off the UI thread.
+   */
+  private final WidgetDescriptionCache descriptionCache = new WidgetDescriptionCache(MAX_CACHED_DESCRIPTIONS);
   private final Map<String, FlutterWidgetProperty> propertyMap = new HashMap<>();
   private final Map<String, String> currentExpressionMap = new HashMap<>();
   private final ArrayList<FlutterWidgetProperty> properties = new ArrayList<>();
@@ -203,6 +247,11 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
    */
   private boolean needHotReload;
   private CompletableFuture<List<FlutterWidgetProperty>> propertyFuture;
+  /**
+   * Only this panel's newer requests supersede its pending description request, so panels showing
+   * different widgets don't cancel each other's.
+   */
+  private final String descriptionRequestKey = "PropertyEditorPanel-" + nextPanelId.incrementAndGet();
 
   public PropertyEditorPanel(
     @Nullable InspectorGroupManagerService inspectorGroupManagerService,
@@ -363,8 +412,17 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
       return;
     }
 
-    final CompletableFuture<List<FlutterWidgetProperty>> future =
-      flutterDartAnalysisService.getWidgetDescription(file, offset);
+    final WidgetDescriptionCache.Key key = new WidgetDescriptionCache.Key(
+      file, getModificationStamp(file), getProjectModificationCount(), flutterDartAnalysisService.getServerGeneration(), offset,
+      outline.getLength());
+    final List<FlutterWidgetProperty> cached = descriptionCache.get(key);
+    final CompletableFuture<List<FlutterWidgetProperty>> future;
+    if (cached != null) {
+      future = CompletableFuture.completedFuture(cached);
+    }
+    else {
+      future = flutterDartAnalysisService.getWidgetDescription(file, offset, descriptionRequestKey);
+    }
     propertyFuture = future;
 
     if (propertyFuture == null) return;
@@ -377,17 +435,10 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
       if (offset != getOffset() || !file.equals(activeFile.getValue())) {
         return;
       }
-      properties.clear();
-      properties.addAll(updatedProperties);
-      propertyMap.clear();
-      currentExpressionMap.clear();
-      for (FlutterWidgetProperty property : updatedProperties) {
-        final String name = property.getName();
-        propertyMap.put(name, property);
-        currentExpressionMap.put(name, property.getExpression());
-      }
+      setProperties(updatedProperties);
 
       if (propertyMap.isEmpty()) {
+        descriptionCache.remove(key);
         // TODO(jacobr): is this still needed now that we have dealt with timeout
         // issues by making the analysis server api async?
         numFailures++;
@@ -397,10 +448,46 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
         return;
       }
       numFailures = 0;
+      descriptionCache.put(key, updatedProperties);
       rebuildUi();
     });
   }
 
+  /**
+   * Replaces the properties to show. The UI is updated by {@link #rebuildUi}.
+   */
+  @VisibleForTesting
+  void setProperties(@NotNull List<FlutterWidgetProperty> updatedProperties) {
+    properties.clear();
+    properties.addAll(updatedProperties);
+    propertyMap.clear();
+    currentExpressionMap.clear();
+    for (FlutterWidgetProperty property : updatedProperties) {
+      final String name = property.getName();
+      propertyMap.put(name, property);
+      currentExpressionMap.put(name, property.getExpression());
+    }
+  }
+
+  /**
+   * Returns the field editing the named property, or null if it isn't shown.
+   */
+  @VisibleForTesting
+  @Nullable
+  JComponent getPropertyField(@NotNull String name) {
+    final PropertyRow row = rows.get(name);
+    return row == null ? null : row.field;
+  }
+
+  private static long getModificationStamp(@NotNull VirtualFile file) {
+    final Document document = ReadAction.compute(() -> FileDocumentManager.getInstance().getCachedDocument(file));
+    return document != null ? document.getModificationStamp() : file.getModificationStamp();
+  }
+
+  private long getProjectModificationCount() {
+    return project == null || project.isDisposed() ? 0 : PsiModificationTracker.getInstance(project).getModificationCount();
+  }
+
   public void outlinesChanged(List<FlutterOutline> outlines) {
     final FlutterOutline nextOutline = outlines.isEmpty() ? null : outlines.get(0);
     if (nextOutline == outline) return;
@@ -452,13 +539,59 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
     rebuildUi();
   }
 
+  /**
+   * Updates the UI to show the current properties.
+   * <p>
+   * Rows for properties that are still shown with the same kind of editor are
+   * reused and only their values and tooltips are updated, so focus and
+   * in-progress edits are kept. Components are only laid out again when rows
+   * are added, removed or reordered.
+   */
   protected void rebuildUi() {
-    // TODO(jacobr): be lazier about only rebuilding what changed.
+    final Map<String, PropertyRow> previousRows = new LinkedHashMap<>(rows);
+    final Map<String, PropertyRow> nextRows = new LinkedHashMap<>();
+    boolean created = false;
+    for (FlutterWidgetProperty property : properties) {
+      final String name = property.getName();
+      if (name.equals("child") || name.equals("children")) {
+        continue;
+      }
+      if (name.equals("Container")) {
+        final List<FlutterWidgetProperty> containerProperties = property.getChildren();
+        // TODO(jacobr): add support for container properties.
+        continue;
+      }
+
+      PropertyRow row = previousRows.get(name);
+      if (row != null && row.editorKey.equals(getEditorKey(property))) {
+        updateRow(row, property);
+      }
+      else {
+        row = createRow(property);
+        created = true;
+      }
+      row.outline = outline;
+      row.propertyId = property.getId();
+      updateTooltips(row, property);
+      nextRows.put(name, row);
+    }
+
+    rows.clear();
+    rows.putAll(nextRows);
+    if (!created && new ArrayList<>(previousRows.keySet()).equals(new ArrayList<>(nextRows.keySet())) && rowsLaidOut) {
+      // Nothing to lay out again.
+      return;
+    }
+    layoutRows();
+  }
+
+  private void layoutRows() {
     final Component focusOwner = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
     if (focusOwner != null) {
       if (isAncestorOf(focusOwner)) {
-        for (Map.Entry<String, JComponent> entry : fields.entrySet()) {
-          if (entry.getValue().isAncestorOf(focusOwner) || entry.getValue() == focusOwner) {
+        for (Map.Entry<String, PropertyRow> entry : rows.entrySet()) {
+          final JComponent field = entry.getValue().field;
+          if (field.isAncestorOf(focusOwner) || field == focusOwner) {
             previouslyFocusedProperty = entry.getKey();
             break;
           }
@@ -468,6 +601,7 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
         previouslyFocusedProperty = null;
       }
     }
+    rowsLaidOut = true;
     removeAll();
     // Layout Constraints
     // Column constraints
@@ -477,129 +611,186 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
       "[23]4[23]"
     );
     setLayout(manager);
-    int added = 0;
-    for (FlutterWidgetProperty property : properties) {
-      final String name = property.getName();
-      if (name.equals("child") || name.equals("children")) {
-        continue;
+    for (PropertyRow row : rows.values()) {
+      if (row.label == null) {
+        add(row.field, "span, growx");
       }
-      if (name.equals("Container")) {
-        final List<FlutterWidgetProperty> containerProperties = property.getChildren();
-        // TODO(jacobr): add support for container properties.
-        continue;
+      else {
+        // 120 is the max width of the column but that does not appear to be
+        // applied unless it is also set here.
+        add(row.label, "right, wmax 120px");
+        add(row.field, "wrap, growx");
       }
-      final String documentation = property.getDocumentation();
-      JComponent field = null;
+    }
+    if (previouslyFocusedProperty != null && rows.containsKey(previouslyFocusedProperty)) {
+      rows.get(previouslyFocusedProperty).field.requestFocus();
+    }
 
-      if (property.getEditor() == null) {
-        // TODO(jacobr): detect color properties more robustly.
-        final boolean colorProperty = name.equals("color");
-        final String colorPropertyName = name;
-        if (colorProperty) {
-          field = buildColorProperty(name, property);
-        }
-        else {
-          String expression = property.getExpression();
-          if (expression == null) {
-            expression = "";
-          }
-          final JBTextField textField = new JBTextField(expression);
-          // Make sure we show the text at the beginning of the text field.
-          // The default is to show the end if the content scrolls which looks
-          // bad in a property editor.
-          textField.setCaretPosition(0);
-          addTextFieldListeners(name, textField);
-          field = textField;
-        }
+    if (rows.isEmpty()) {
+      add(new JBLabel("No editable properties"));
+    }
+    // TODO(jacobr): why is this needed?
+    revalidate();
+    repaint();
+  }
+
+  /**
+   * Returns a key that is the same for properties whose rows can be reused for each other.
+   */
+  private static String getEditorKey(FlutterWidgetProperty property) {
+    final FlutterWidgetPropertyEditor editor = property.getEditor();
+    if (editor == null) {
+      // TODO(jacobr): detect color properties more robustly.
+      return property.getName().equals("color") ? "color" : "text";
+    }
+    if (editor.getEnumItems() != null) {
+      final List<String> itemNames = new ArrayList<>();
+      for (FlutterWidgetPropertyValueEnumItem item : editor.getEnumItems()) {
+        itemNames.add(item.getName());
+      }
+      return "enum:" + Joiner.on(",").join(itemNames);
+    }
+    return "text";
+  }
+
+  private PropertyRow createRow(FlutterWidgetProperty property) {
+    final String name = property.getName();
+    final JComponent field;
+
+    if (property.getEditor() == null) {
+      if (name.equals("color")) {
+        field = buildColorProperty(name, property);
       }
       else {
-        final FlutterWidgetPropertyEditor editor = property.getEditor();
-        if (editor.getEnumItems() != null) {
-          final ComboBox<EnumValueWrapper> comboBox = new ComboBox<>();
-          comboBox.setEditable(true);
-          comboBox.setModel(new PropertyEnumComboBoxModel(property));
-
-          // TODO(jacobr): need a bit more padding around comboBox to make it match the JBTextField.
-          field = comboBox;
-          comboBox.addItemListener(e -> {
-            if (e.getStateChange() == ItemEvent.SELECTED) {
-              final EnumValueWrapper wrapper = (EnumValueWrapper)e.getItem();
-              if (wrapper.item != null) {
-                setParsedPropertyValue(name, new FlutterWidgetPropertyValue(null, null, null, null, wrapper.item, null), false);
-              }
-              else {
-                setPropertyValue(name, wrapper.expression);
-              }
-            }
-          });
+        String expression = property.getExpression();
+        if (expression == null) {
+          expression = "";
         }
-        else {
-          // TODO(jacobr): use IntegerField and friends when appropriate.
-          // TODO(jacobr): we should probably use if (property.isSafeToUpdate())
-          // but that currently it seems to have a bunch of false positives.
-          final String kind = property.getEditor().getKind();
-          if (Objects.equals(kind, FlutterWidgetPropertyEditorKind.BOOL)) {
-            // TODO(jacobr): show as boolean.
+        final JBTextField textField = new JBTextField(expression);
+        // Make sure we show the text at the beginning of the text field.
+        // The default is to show the end if the content scrolls which looks
+        // bad in a property editor.
+        textField.setCaretPosition(0);
+        addTextFieldListeners(name, textField);
+        field = textField;
+      }
+    }
+    else {
+      final FlutterWidgetPropertyEditor editor = property.getEditor();
+      if (editor.getEnumItems() != null) {
+        final ComboBox<EnumValueWrapper> comboBox = new ComboBox<>();
+        comboBox.setEditable(true);
+        comboBox.setModel(new PropertyEnumComboBoxModel(property));
+
+        // TODO(jacobr): need a bit more padding around comboBox to make it match the JBTextField.
+        field = comboBox;
+        comboBox.addItemListener(e -> {
+          if (e.getStateChange() == ItemEvent.SELECTED) {
+            final EnumValueWrapper wrapper = (EnumValueWrapper)e.getItem();
+            if (wrapper.item != null) {
+              setParsedPropertyValue(name, new FlutterWidgetPropertyValue(null, null, null, null, wrapper.item, null), false);
+            }
+            else {
+              setPropertyValue(name, wrapper.expression);
+            }
           }
-          final JBTextField textField = new JBTextField(property.getExpression());
-          // Make sure we show the text at the beginning of the text field.
-          // The default is to show the end if the content scrolls which looks
-          // bad in a property editor.
-          textField.setCaretPosition(0);
-          field = textField;
-          addTextFieldListeners(name, textField);
-        }
+        });
       }
-
-      if (name.equals("data")) {
-        if (documentation != null) {
-          field.setToolTipText(documentation);
-        }
-        else {
-          field.setToolTipText("data");
+      else {
+        // TODO(jacobr): use IntegerField and friends when appropriate.
+        // TODO(jacobr): we should probably use if (property.isSafeToUpdate())
+        // but that currently it seems to have a bunch of false positives.
+        final String kind = property.getEditor().getKind();
+        if (Objects.equals(kind, FlutterWidgetPropertyEditorKind.BOOL)) {
+          // TODO(jacobr): show as boolean.
         }
-        add(field, "span, growx");
+        final JBTextField textField = new JBTextField(property.getExpression());
+        // Make sure we show the text at the beginning of the text field.
+        // The default is to show the end if the content scrolls which looks
+        // bad in a property editor.
+        textField.setCaretPosition(0);
+        field = textField;
+        addTextFieldListeners(name, textField);
       }
-      else {
-        final String propertyName = property.getName();
-        final JBLabel label = new JBLabel(propertyName);
-        // 120 is the max width of the column but that does not appear to be
-        // applied unless it is also set here.
-        add(label, "right, wmax 120px");
-        final ArrayList<String> tooltipBlocks = new ArrayList<>();
-        tooltipBlocks.add("<strong>" + propertyName + "</strong>");
+    }
 
-        if (documentation != null) {
-          tooltipBlocks.add(documentation);
-        }
-        // Use multiple line breaks so there is a clear separation between blocks.
-        label.setToolTipText(Joiner.on("\n\n").join(tooltipBlocks));
+    // Hack: set the preferred width of the ui elements to a small value
+    // so it doesn't cause the overall layout to be wider than it should
+    // be.
+    if (!fixedWidth) {
+      setPreferredFieldSize(field);
+    }
+
+    final PropertyRow row = new PropertyRow(getEditorKey(property), field, name.equals("data") ? null : new JBLabel(name));
+    row.expression = property.getExpression();
+    return row;
+  }
 
-        add(field, "wrap, growx");
+  /**
+   * Shows a newer value of the property in an existing row, unless the user is
+   * in the middle of editing it.
+   * <p>
+   * An in-progress edit is only kept while the row still edits the same
+   * property of the same outline. Otherwise it is discarded, since it would be
+   * applied to a different widget once the user commits it.
+   */
+  private void updateRow(PropertyRow row, FlutterWidgetProperty property) {
+    final String expression = property.getExpression();
+    final boolean sameProperty = row.outline == outline && row.propertyId == property.getId();
+    if (sameProperty && Objects.equals(expression, row.expression)) {
+      return;
+    }
+
+    if (row.field instanceof ComboBox) {
+      final ComboBox<?> comboBox = (ComboBox<?>)row.field;
+      if (sameProperty && (comboBox.isPopupVisible() || isEditing(comboBox.getEditor().getEditorComponent(), row.expression))) {
+        return;
       }
-      if (documentation != null) {
-        field.setToolTipText(documentation);
+      comboBox.hidePopup();
+      //noinspection unchecked
+      ((ComboBox<EnumValueWrapper>)comboBox).setModel(new PropertyEnumComboBoxModel(property));
+    }
+    else if (row.field instanceof JTextField) {
+      if (sameProperty && isEditing(row.field, row.expression)) {
+        return;
+      }
+      if (row.field instanceof ColorField) {
+        ((ColorField)row.field).setProperty(property);
       }
-      // Hack: set the preferred width of the ui elements to a small value
-      // so it doesn't cause the overall layout to be wider than it should
-      // be.
-      if (!fixedWidth) {
-        setPreferredFieldSize(field);
+      else {
+        final JTextField textField = (JTextField)row.field;
+        textField.setText(expression == null ? "" : expression);
+        textField.setCaretPosition(0);
       }
+    }
+    row.expression = expression;
+  }
 
-      fields.put(name, field);
-      added++;
+  /**
+   * Returns whether the user has focused the field and changed its text from the last shown expression.
+   */
+  private static boolean isEditing(Component component, @Nullable String shownExpression) {
+    if (!(component instanceof JTextField) || !component.isFocusOwner()) {
+      return false;
     }
-    if (previouslyFocusedProperty != null && fields.containsKey(previouslyFocusedProperty)) {
-      fields.get(previouslyFocusedProperty).requestFocus();
+    return !Objects.equals(((JTextField)component).getText(), shownExpression == null ? "" : shownExpression);
+  }
+
+  private static void updateTooltips(PropertyRow row, FlutterWidgetProperty property) {
+    final String documentation = property.getDocumentation();
+    if (row.label == null) {
+      row.field.setToolTipText(documentation != null ? documentation : property.getName());
+      return;
     }
 
-    if (added == 0) {
-      add(new JBLabel("No editable properties"));
+    final ArrayList<String> tooltipBlocks = new ArrayList<>();
+    tooltipBlocks.add("<strong>" + property.getName() + "</strong>");
+    if (documentation != null) {
+      tooltipBlocks.add(documentation);
     }
-    // TODO(jacobr): why is this needed?
-    revalidate();
-    repaint();
+    // Use multiple line breaks so there is a clear separation between blocks.
+    row.label.setToolTipText(Joiner.on("\n\n").join(tooltipBlocks));
+    row.field.setToolTipText(documentation);
   }
 
   private JTextField buildColorProperty(String name, FlutterWidgetProperty property) {
@@ -607,7 +798,6 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
   }
 
   public void addTextFieldListeners(String name, JBTextField field) {
-    final FlutterOutline matchingOutline = outline;
     field.addActionListener(e -> setPropertyValue(name, field.getText()));
     field.addFocusListener(new FocusListener() {
       @Override
@@ -616,7 +806,8 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
 
       @Override
       public void focusLost(FocusEvent e) {
-        if (outline != matchingOutline) {
+        final PropertyRow row = rows.get(name);
+        if (row == null || row.field != field || outline != row.outline) {
           // Don't do anything. The user has moved on to a different outline node.
           return;
         }
@@ -647,14 +838,19 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
   }
 
   private void setParsedPropertyValue(String propertyName, FlutterWidgetPropertyValue value, boolean force) {
-    final boolean updated = setParsedPropertyValueHelper(propertyName, value);
-    if (!updated && force) {
-      hotReload();
-    }
+    AsyncUtils.whenCompleteUiThread(setParsedPropertyValueHelper(propertyName, value), (updated, throwable) -> {
+      if (!Boolean.TRUE.equals(updated) && force && !project.isDisposed()) {
+        hotReload();
+      }
+    });
   }
 
-
-  private boolean setParsedPropertyValueHelper(String propertyName, FlutterWidgetPropertyValue value) {
+  /**
+   * Asks the analysis server for the edit setting the property and applies it.
+   * <p>
+   * Completes with whether an edit was applied.
+   */
+  private CompletableFuture<Boolean> setParsedPropertyValueHelper(String propertyName, FlutterWidgetPropertyValue value) {
     // TODO(jacobr): also do simple tracking of how the previous expression maps to the current expression to avoid spurious edits.
 
     // Treat an empty expression and empty value objects as omitted values
@@ -664,11 +860,11 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
     final FlutterWidgetProperty property = propertyMap.get(propertyName);
     if (property == null) {
       // UI is in the process of updating. Skip this action.
-      return false;
+      return CompletableFuture.completedFuture(false);
     }
 
     if (property.getExpression() != null && property.getExpression().equals(value.getExpression())) {
-      return false;
+      return CompletableFuture.completedFuture(false);
     }
 
     if (value != null && Objects.equals(value.getExpression(), "") || emptyValue.equals(value)) {
@@ -678,7 +874,7 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
 
     final String lastExpression = currentExpressionMap.get(propertyName);
     if (lastExpression != null && value != null && lastExpression.equals(value.getExpression())) {
-      return false;
+      return CompletableFuture.completedFuture(false);
     }
     currentExpressionMap.put(propertyName, value != null ? value.getExpression() : null);
 
@@ -736,38 +932,45 @@ public class PropertyEditorPanel extends SimpleToolWindowPanel {
     }
     if (Objects.equals(property.getValue(), value)) {
       // Short circuit as nothing changed.
-      return false;
+      return CompletableFuture.completedFuture(false);
     }
 
-    final SourceChange change;
-    try {
-      change = flutterDartAnalysisService.setWidgetPropertyValue(property.getId(), value);
-    }
-    catch (Exception e) {
-      if (value != null && value.getExpression() != null) {
-        FlutterMessages.showInfo("Invalid property value", value.getExpression(), project);
-      }
-      else {
-        FlutterMessages.showError("Unable to set propery value", e.getMessage(), project);
+    final FlutterWidgetPropertyValue newValue = value;
+    final CompletableFuture<Boolean> result = new CompletableFuture<>();
+    AsyncUtils.whenCompleteUiThread(flutterDartAnalysisService.setWidgetPropertyValue(property.getId(), newValue), (change, throwable) -> {
+      if (project.isDisposed()) {
+        result.complete(false);
+        return;
       }
-      return false;
-    }
-
-    if (change != null && change.getEdits() != null && !change.getEdits().isEmpty()) {
-      // TODO(jacobr): does running a write action make sense here? We are
-      // already on the UI thread.
-      ApplicationManager.getApplication().runWriteAction(() -> {
-        try {
-          AssistUtils.applySourceChange(project, change, false);
-          hotReload();
+      if (throwable != null) {
+        if (throwable instanceof AnalysisRequestTracker.RequestErrorException && newValue != null && newValue.getExpression() != null) {
+          FlutterMessages.showInfo("Invalid property value", newValue.getExpression(), project);
         }
-        catch (DartSourceEditException exception) {
-          FlutterMessages.showInfo("Failed to apply code change", exception.getMessage(), project);
+        else {
+          FlutterMessages.showError("Unable to set propery value", throwable.getMessage(), project);
         }
-      });
-      return true;
-    }
-    return false;
+        result.complete(false);
+        return;
+      }
+
+      if (change != null && change.getEdits() != null && !change.getEdits().isEmpty()) {
+        // TODO(jacobr): does running a write action make sense here? We are
+        // already on the UI thread.
+        ApplicationManager.getApplication().runWriteAction(() -> {
+          try {
+            AssistUtils.applySourceChange(project, change, false);
+            hotReload();
+          }
+          catch (DartSourceEditException exception) {
+            FlutterMessages.showInfo("Failed to apply code change", exception.getMessage(), project);
+          }
+        });
+        result.complete(true);
+        return;
+      }
+      result.complete(false);
+    });
+    return result;
   }
 
   private void hotReload() {
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.dartlang.analysis.server.protocol.FlutterWidgetProperty;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The most recently used widget descriptions from the analysis server.
+ * <p>
+ * A description stays valid until its file or any other source in the project changes, or the
+ * analysis server restarts, since the property ids in it only mean something to the server that
+ * sent them. Edits elsewhere count because they can change the widget's constructor and so its
+ * properties. All of these are part of the key, so stale descriptions are never found and age out
+ * as newer ones are added.
+ * <p>
+ * Safe to use from any thread.
+ */
+class WidgetDescriptionCache {
+  /**
+   * Identifies a widget description: the widget at an offset range in a version of a file and of
+   * the rest of the project, as described by one run of the analysis server.
+   */
+  static class Key {
+    @NotNull final VirtualFile file;
+    final long modificationStamp;
+    final long projectModificationCount;
+    final int serverGeneration;
+    final int offset;
+    final int length;
+
+    Key(@NotNull VirtualFile file, long modificationStamp, long projectModificationCount, int serverGeneration, int offset, int length) {
+      this.file = file;
+      this.modificationStamp = modificationStamp;
+      this.projectModificationCount = projectModificationCount;
+      this.serverGeneration = serverGeneration;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) return false;
+      final Key other = (Key)o;
+      return file.equals(other.file) &&
+             modificationStamp == other.modificationStamp &&
+             projectModificationCount == other.projectModificationCount &&
+             serverGeneration == other.serverGeneration &&
+             offset == other.offset &&
+             length == other.length;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(file, modificationStamp, projectModificationCount, serverGeneration, offset, length);
+    }
+  }
+
+  private final int maxSize;
+
+  // Guarded by this. In access order, so the eldest entry is the least recently used.
+  private final Map<Key, List<FlutterWidgetProperty>> descriptions;
+
+  WidgetDescriptionCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.descriptions = new LinkedHashMap<>(maxSize, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, List<FlutterWidgetProperty>> eldest) {
+        return size() > WidgetDescriptionCache.this.maxSize;
+      }
+    };
+  }
+
+  @Nullable
+  synchronized List<FlutterWidgetProperty> get(@NotNull Key key) {
+    return descriptions.get(key);
+  }
+
+  synchronized void put(@NotNull Key key, @NotNull List<FlutterWidgetProperty> properties) {
+    descriptions.put(key, properties);
+  }
+
+  synchronized void remove(@NotNull Key key) {
+    descriptions.remove(key);
+  }
+
+  synchronized int size() {
+    return descriptions.size();
+  }
+}
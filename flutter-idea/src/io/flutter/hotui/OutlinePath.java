@@ -0,0 +1,247 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.hotui;
+
+import org.dartlang.analysis.server.protocol.FlutterOutline;
+import org.dartlang.analysis.server.protocol.FlutterOutlineAttribute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The path from the root of a FlutterOutline to a tracked node.
+ * <p>
+ * Each step of the path is described by the kind and class name of the node and by its position
+ * relative to its parent, rather than by its child index. That lets the same node be found in the
+ * outline computed after an edit, even when siblings were inserted or removed before it or the node
+ * was wrapped in a new widget.
+ * <p>
+ * Instances are immutable, so they can be matched against a new outline on any thread.
+ */
+class OutlinePath {
+  /**
+   * What is known about a node in the path.
+   */
+  static class Step {
+    @Nullable final String kind;
+    @Nullable final String className;
+    // Distances from the start of the parent to the start of the node, and from the end of the node to the end of the parent.
+    final int startDelta;
+    final int endDelta;
+    final int length;
+    // What the node shows in the outline, which tells apart siblings of the same class.
+    @NotNull final List<String> labels;
+
+    Step(@NotNull FlutterOutline parent, @NotNull FlutterOutline node) {
+      kind = node.getKind();
+      className = node.getClassName();
+      startDelta = node.getOffset() - parent.getOffset();
+      endDelta = parent.getOffset() + parent.getLength() - (node.getOffset() + node.getLength());
+      length = node.getLength();
+      labels = getLabels(node);
+    }
+
+    boolean hasSameKey(@NotNull FlutterOutline node) {
+      return Objects.equals(kind, node.getKind()) && Objects.equals(className, node.getClassName());
+    }
+
+    /**
+     * How far a candidate is from where this step's node was; smaller is closer.
+     * <p>
+     * A single edit outside the node moves at most one of its edges relative to its parent, so the
+     * closer edge counts most. An inserted sibling can end up where the node was on one side, so
+     * candidates that show something else, or changed length, come after that.
+     */
+    long distance(@NotNull FlutterOutline parent, @NotNull FlutterOutline candidate) {
+      final int start = Math.abs(candidate.getOffset() - parent.getOffset() - startDelta);
+      final int end = Math.abs(parent.getOffset() + parent.getLength() - (candidate.getOffset() + candidate.getLength()) - endDelta);
+      final int lengthChange = Math.min(Math.abs(candidate.getLength() - length), 0xffff);
+      final int labelChange = labels.equals(getLabels(candidate)) ? 0 : 0x10000;
+      return ((long)Math.min(start, end) << 32) + labelChange + lengthChange;
+    }
+  }
+
+  static final OutlinePath EMPTY = new OutlinePath(Collections.emptyList(), Collections.emptyList());
+
+  /**
+   * The nodes of the outline the path was found in, starting with the root.
+   */
+  @NotNull private final List<FlutterOutline> nodes;
+
+  /**
+   * One step for each node after the root.
+   */
+  @NotNull private final List<Step> steps;
+
+  private OutlinePath(@NotNull List<FlutterOutline> nodes, @NotNull List<Step> steps) {
+    this.nodes = nodes;
+    this.steps = steps;
+  }
+
+  private static OutlinePath of(@NotNull List<FlutterOutline> nodes) {
+    final List<Step> steps = new ArrayList<>(Math.max(0, nodes.size() - 1));
+    for (int i = 1; i < nodes.size(); i++) {
+      steps.add(new Step(nodes.get(i - 1), nodes.get(i)));
+    }
+    return new OutlinePath(Collections.unmodifiableList(nodes), Collections.unmodifiableList(steps));
+  }
+
+  /**
+   * Returns the path to the innermost node containing an offset.
+   *
+   * @param convertOffset converts an offset in the outline to an offset in the file
+   */
+  @NotNull
+  static OutlinePath findAtOffset(@Nullable FlutterOutline root, int offset, @NotNull IntUnaryOperator convertOffset) {
+    final List<FlutterOutline> nodes = new ArrayList<>();
+    FlutterOutline node = root;
+    while (node != null && contains(node, offset, convertOffset)) {
+      nodes.add(node);
+      FlutterOutline next = null;
+      for (FlutterOutline child : getChildren(node)) {
+        if (contains(child, offset, convertOffset)) {
+          next = child;
+          break;
+        }
+      }
+      node = next;
+    }
+    return of(nodes);
+  }
+
+  private static boolean contains(@NotNull FlutterOutline node, int offset, @NotNull IntUnaryOperator convertOffset) {
+    return convertOffset.applyAsInt(node.getOffset()) <= offset && offset <= convertOffset.applyAsInt(node.getOffset() + node.getLength());
+  }
+
+  /**
+   * Returns the most similar path in a new outline.
+   */
+  @NotNull
+  OutlinePath match(@Nullable FlutterOutline root) {
+    if (root == null) {
+      return EMPTY;
+    }
+    final List<FlutterOutline> path = new ArrayList<>();
+    FlutterOutline node = root;
+    path.add(node);
+    int i = 0;
+    while (i < steps.size()) {
+      final List<FlutterOutline> children = getChildren(node);
+      if (children.isEmpty()) {
+        break;
+      }
+      final Step step = steps.get(i);
+
+      FlutterOutline child = findClosest(node, children, step, true);
+      // The node may have been wrapped by a new widget. Add the wrapping widget to the path and otherwise proceed normally.
+      final FlutterOutline wrapper = findWrapper(node, children, step);
+      if (wrapper != null) {
+        final FlutterOutline wrapped = getChildren(wrapper).get(0);
+        if (child == null || step.distance(node, wrapped) < step.distance(node, child)) {
+          path.add(wrapper);
+          node = wrapper;
+          child = wrapped;
+        }
+      }
+      if (child == null && i + 1 < steps.size()) {
+        // Or a widget that wrapped the next node may have been removed.
+        child = findClosest(node, children, steps.get(i + 1), true);
+        if (child != null) {
+          i++;
+        }
+      }
+      if (child == null) {
+        // Nothing looks like the node any more, so use whatever is where it was.
+        child = findClosest(node, children, step, false);
+      }
+      assert child != null;
+      path.add(child);
+      node = child;
+      i++;
+    }
+    return of(path);
+  }
+
+  /**
+   * Returns the last node in the path, or null if the path is empty.
+   */
+  @Nullable
+  FlutterOutline getTarget() {
+    return nodes.isEmpty() ? null : nodes.get(nodes.size() - 1);
+  }
+
+  @NotNull
+  List<FlutterOutline> getNodes() {
+    return nodes;
+  }
+
+  @Nullable
+  private static FlutterOutline findClosest(@NotNull FlutterOutline parent,
+                                            @NotNull List<FlutterOutline> children,
+                                            @NotNull Step step,
+                                            boolean sameKey) {
+    FlutterOutline best = null;
+    long bestDistance = Long.MAX_VALUE;
+    for (FlutterOutline child : children) {
+      if (sameKey && !step.hasSameKey(child)) {
+        continue;
+      }
+      final long distance = step.distance(parent, child);
+      if (distance < bestDistance) {
+        best = child;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  @Nullable
+  private static FlutterOutline findWrapper(@NotNull FlutterOutline parent, @NotNull List<FlutterOutline> children, @NotNull Step step) {
+    FlutterOutline best = null;
+    long bestDistance = Long.MAX_VALUE;
+    for (FlutterOutline child : children) {
+      final List<FlutterOutline> wrapped = getChildren(child);
+      if (wrapped.size() != 1 || !step.hasSameKey(wrapped.get(0))) {
+        continue;
+      }
+      // The wrapped node was a child of the parent before, so that is where it is measured from.
+      final long distance = step.distance(parent, wrapped.get(0));
+      if (distance < bestDistance) {
+        best = child;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the label of a node and of its attributes. Attribute locations are left out since they move with every edit.
+   */
+  @NotNull
+  private static List<String> getLabels(@NotNull FlutterOutline node) {
+    final List<String> labels = new ArrayList<>();
+    labels.add(node.getLabel());
+    labels.add(node.getVariableName());
+    final List<FlutterOutlineAttribute> attributes = node.getAttributes();
+    if (attributes != null) {
+      for (FlutterOutlineAttribute attribute : attributes) {
+        labels.add(attribute.getName() + "=" + attribute.getLabel());
+      }
+    }
+    return labels;
+  }
+
+  @NotNull
+  private static List<FlutterOutline> getChildren(@NotNull FlutterOutline node) {
+    final List<FlutterOutline> children = node.getChildren();
+    return children == null ? Collections.emptyList() : children;
+  }
+}
@@ -7,11 +7,10 @@ package io.flutter.hotui;
 
 import com.google.common.collect.ImmutableList;
 import com.intellij.openapi.Disposable;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.io.FileUtil;
-import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import io.flutter.dart.FlutterDartAnalysisServer;
 import io.flutter.dart.FlutterOutlineListener;
 import io.flutter.inspector.InspectorService;
@@ -20,110 +19,92 @@ import io.flutter.utils.EventStream;
 import org.dartlang.analysis.server.protocol.FlutterOutline;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Class that uses the FlutterOutline to maintain the source location for a
  * Widget even when code edits that would otherwise confuse location tracking
  * occur.
+ * <p>
+ * Outlines are matched against the previous location on a background thread.
+ * When outlines arrive faster than they can be matched, only the latest one
+ * is matched, and a location is only published once no newer outline is
+ * waiting.
  */
 public class StableWidgetTracker implements Disposable {
+  /**
+   * Shared by all trackers; matching is cheap, and running one match at a time keeps each tracker's updates in order.
+   */
+  private static final ExecutorService matchExecutor =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("StableWidgetTracker", 1);
+
+  @NotNull
+  private final Executor executor;
+
   private final String currentFilePath;
   private final InspectorService.Location initialLocation;
   private final FlutterDartAnalysisServer flutterAnalysisServer;
 
   private final OutlineOffsetConverter converter;
-  // Path to the current outline
-  private ArrayList<FlutterOutline> lastPath;
 
-  FlutterOutline root;
+  /**
+   * The latest outline that hasn't been matched yet.
+   */
+  private final AtomicReference<FlutterOutline> pendingOutline = new AtomicReference<>();
+
+  // Path to the current outline. Only used on the executor.
+  private OutlinePath lastPath;
+
+  private volatile boolean disposed;
 
   private final FlutterOutlineListener outlineListener = new FlutterOutlineListener() {
     @Override
     public void outlineUpdated(@NotNull String filePath, @NotNull FlutterOutline outline, @Nullable String instrumentedCode) {
       if (Objects.equals(currentFilePath, filePath)) {
-        ApplicationManager.getApplication().invokeLater(() -> outlineChanged(outline));
+        // Only schedule a match if none is waiting; the waiting one will pick up this outline.
+        if (pendingOutline.getAndSet(outline) == null) {
+          executor.execute(StableWidgetTracker.this::matchPendingOutline);
+        }
       }
     }
   };
 
-  private void outlineChanged(FlutterOutline outline) {
-    this.root = outline;
-    FlutterOutline match;
+  private void matchPendingOutline() {
+    final FlutterOutline outline = pendingOutline.getAndSet(null);
+    if (outline == null || disposed) {
+      return;
+    }
+
     if (lastPath == null) {
       // First outline.
-      lastPath = new ArrayList<>();
-      findOutlineAtOffset(root, initialLocation.getOffset(), lastPath);
+      lastPath = OutlinePath.findAtOffset(outline, initialLocation.getOffset(), converter::getConvertedFileOffset);
     }
     else {
-      lastPath = findSimilarPath(root, lastPath);
+      lastPath = lastPath.match(outline);
     }
-    currentOutlines.setValue(lastPath.isEmpty() ? ImmutableList.of() : ImmutableList.of(lastPath.get(lastPath.size() - 1)));
-  }
-
-  private static int findChildIndex(FlutterOutline node, FlutterOutline child) {
-    final List<FlutterOutline> children = node.getChildren();
-    for (int i = 0; i < children.size(); i++) {
-      if (children.get(i) == child) return i;
-    }
-    return -1;
-  }
 
-  private ArrayList<FlutterOutline> findSimilarPath(FlutterOutline root, ArrayList<FlutterOutline> lastPath) {
-    final ArrayList<FlutterOutline> path = new ArrayList<>();
-    FlutterOutline node = root;
-    path.add(node);
-    int i = 1;
-    while (i < lastPath.size() && node != null && !node.getChildren().isEmpty()) {
-      final FlutterOutline oldChild = lastPath.get(i);
-      final int expectedIndex = findChildIndex(lastPath.get(i - 1), oldChild);
-      assert (expectedIndex != -1);
-      final List<FlutterOutline> children = node.getChildren();
-      final int index = Math.min(Math.max(0, expectedIndex), children.size());
-      node = children.get(index);
-      if (!Objects.equals(node.getClassName(), oldChild.getClassName()) && node.getChildren().size() == 1) {
-        final FlutterOutline child = node.getChildren().get(0);
-        if (Objects.equals(child.getClassName(), oldChild.getClassName())) {
-          // We have detected that the previous widget was wrapped by a new widget.
-          // Add the wrapping widget to the path and otherwise proceed normally.
-          path.add(node);
-          node = child;
-        }
-      }
-      // TODO(jacobr): consider doing some additional validation that the children have the same class names, etc.
-      // We could use that to be reslient to small changes such as adding a new parent widget, etc.
-      path.add(node);
-      i++;
+    if (pendingOutline.get() != null) {
+      // A newer outline is already waiting to be matched, and will publish its location instead.
+      return;
     }
-    return path;
-  }
-
-  private boolean findOutlineAtOffset(FlutterOutline outline, int offset, ArrayList<FlutterOutline> path) {
-    if (outline == null) {
-      return false;
-    }
-    path.add(outline);
-    if (converter.getConvertedOutlineOffset(outline) <= offset && offset <= converter.getConvertedOutlineEnd(outline)) {
-      final List<FlutterOutline> children = outline.getChildren();
-      if (children != null) {
-        for (FlutterOutline child : children) {
-          final boolean foundChild = findOutlineAtOffset(child, offset, path);
-          if (foundChild) {
-            return true;
-          }
-        }
-      }
-      return true;
-    }
-    path.remove(path.size() - 1);
-    return false;
+    final FlutterOutline target = lastPath.getTarget();
+    currentOutlines.setValue(target == null ? ImmutableList.of() : ImmutableList.of(target));
   }
 
   private final EventStream<List<FlutterOutline>> currentOutlines;
 
+  /**
+   * The outline of the tracked widget, or an empty list if it can't be found.
+   * <p>
+   * Values are set on the background thread that matches outlines, which is shared by all trackers, so listeners
+   * that don't ask for the UI thread are called there and must not block it.
+   */
   public EventStream<List<FlutterOutline>> getCurrentOutlines() {
     return currentOutlines;
   }
@@ -133,20 +114,33 @@ public class StableWidgetTracker implements Disposable {
     FlutterDartAnalysisServer flutterAnalysisServer,
     Project project,
     Disposable parentDisposable
+  ) {
+    this(initialLocation, flutterAnalysisServer, new OutlineOffsetConverter(project, initialLocation.getFile()), matchExecutor,
+         parentDisposable);
+  }
+
+  @VisibleForTesting
+  StableWidgetTracker(
+    InspectorService.Location initialLocation,
+    FlutterDartAnalysisServer flutterAnalysisServer,
+    OutlineOffsetConverter converter,
+    @NotNull Executor executor,
+    Disposable parentDisposable
   ) {
     Disposer.register(parentDisposable, this);
-    converter = new OutlineOffsetConverter(project, initialLocation.getFile());
+    this.converter = converter;
+    this.executor = executor;
     currentOutlines = new EventStream<>(ImmutableList.of());
     this.flutterAnalysisServer = flutterAnalysisServer;
     this.initialLocation = initialLocation;
 
-    final DartAnalysisServerService analysisServerService = DartAnalysisServerService.getInstance(project);
     currentFilePath = FileUtil.toSystemDependentName(initialLocation.getFile().getPath());
     flutterAnalysisServer.addOutlineListener(currentFilePath, outlineListener);
   }
 
   @Override
   public void dispose() {
+    disposed = true;
     flutterAnalysisServer.removeOutlineListener(currentFilePath, outlineListener);
   }
 
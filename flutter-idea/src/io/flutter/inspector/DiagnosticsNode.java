@@ -18,6 +18,7 @@ import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
 import io.flutter.run.daemon.FlutterApp;
 import io.flutter.utils.CustomIconMaker;
 import io.flutter.utils.JsonUtils;
+import io.flutter.view.DiagnosticsNodeRenderSpec;
 import io.flutter.vmService.frame.DartVmServiceValue;
 import org.apache.commons.lang.StringUtils;
 import org.dartlang.analysis.server.protocol.HoverInformation;
@@ -65,6 +66,10 @@ public class DiagnosticsNode {
 
   private ArrayList<DiagnosticsNode> cachedProperties;
 
+  private TransformedRect cachedTransformToRoot;
+
+  private volatile DiagnosticsNodeRenderSpec renderSpec;
+
   public DiagnosticsNode(JsonObject json,
                          InspectorService.ObjectGroup inspectorService,
                          boolean isProperty,
@@ -176,10 +181,13 @@ public class DiagnosticsNode {
    * <p>
    */
   public TransformedRect getTransformToRoot() {
-    if (!json.has("transformToRoot")) {
-      return null;
+    if (cachedTransformToRoot == null) {
+      if (!json.has("transformToRoot")) {
+        return null;
+      }
+      cachedTransformToRoot = new TransformedRect(json.getAsJsonObject("transformToRoot"));
     }
-    return new TransformedRect(json.getAsJsonObject("transformToRoot"));
+    return cachedTransformToRoot;
   }
 
   /**
@@ -795,6 +803,18 @@ public class DiagnosticsNode {
     return iconMaker.fromWidgetName(getDescription());
   }
 
+  /**
+   * Returns how this node is drawn in the inspector tree, or null if that hasn't been computed yet.
+   */
+  @Nullable
+  public DiagnosticsNodeRenderSpec getRenderSpec() {
+    return renderSpec;
+  }
+
+  public void setRenderSpec(@Nullable DiagnosticsNodeRenderSpec renderSpec) {
+    this.renderSpec = renderSpec;
+  }
+
   /**
    * Returns true if two diagnostic nodes are indistinguishable from
    * the perspective of a user debugging.
@@ -11,15 +11,12 @@ import com.intellij.ui.components.JBLabel;
 import com.intellij.util.ui.JBUI;
 import com.intellij.util.ui.UIUtil;
 import io.flutter.run.daemon.FlutterApp;
-import io.flutter.vmService.HeapMonitor;
 import io.flutter.vmService.HeapMonitor.HeapListener;
-import io.flutter.vmService.HeapMonitor.HeapSample;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Path2D;
-import java.util.LinkedList;
 
 public class HeapDisplay extends JPanel {
   public static JPanel createJPanelView(Disposable parentDisposable, FlutterApp app) {
@@ -45,8 +42,10 @@ public class HeapDisplay extends JPanel {
 
     final HeapListener listener = memoryUsages -> SwingUtilities.invokeLater(() -> {
       heapState.handleMemoryUsage(memoryUsages);
-      graph.updateFrom(heapState);
-      panel.repaint();
+      if (panel.isShowing()) {
+        graph.updateFrom(heapState);
+        panel.repaint();
+      }
     });
 
     assert app.getVMServiceManager() != null;
@@ -73,6 +72,9 @@ public class HeapDisplay extends JPanel {
 
   private @Nullable HeapState heapState;
 
+  private int[] bucketMin = new int[0];
+  private int[] bucketMax = new int[0];
+
   public HeapDisplay(@Nullable SummaryCallback summaryCallback) {
     this.summaryCallback = summaryCallback;
 
@@ -83,7 +85,6 @@ public class HeapDisplay extends JPanel {
     this.heapState = state;
 
     if (!heapState.getSamples().isEmpty()) {
-      final HeapSample sample = heapState.getSamples().get(0);
       if (summaryCallback != null) {
         summaryCallback.updatedSummary(state);
       }
@@ -110,43 +111,41 @@ public class HeapDisplay extends JPanel {
     graphics2D.setColor(getForegroundColor());
     graphics2D.setStroke(GRAPH_STROKE);
 
+    if (width <= 0 || heapState.getSamples().isEmpty()) {
+      return;
+    }
+    if (bucketMin.length != width) {
+      bucketMin = new int[width];
+      bucketMax = new int[width];
+    }
+    // Reduce the samples to one min/max pair per pixel column so painting
+    // cost depends on the width of the panel rather than the session length.
+    heapState.getSamples().downsample(now - heapState.getMaxSampleSizeMs(), now, bucketMin, bucketMax);
+
     Path2D path = null;
 
-    for (HeapSample sample : heapState.getSamples()) {
-      final double x = width - (((double)(now - sample.getSampleTime())) / ((double)heapState.getMaxSampleSizeMs()) * width);
-      final double y = (double)height * sample.getBytes() / maxDataSize;
+    for (int x = 0; x < width; x++) {
+      if (bucketMax[x] == -1) {
+        continue;
+      }
+      final double yMin = (double)height * bucketMin[x] / maxDataSize;
+      final double yMax = (double)height * bucketMax[x] / maxDataSize;
 
       if (path == null) {
         path = new Path2D.Double();
-        path.moveTo(x, height - y + 1);
+        path.moveTo(x, height - yMin + 1);
       }
       else {
-        path.lineTo(x, height - y + 1);
+        path.lineTo(x, height - yMin + 1);
+      }
+      if (yMax != yMin) {
+        path.lineTo(x, height - yMax + 1);
       }
     }
 
-    graphics2D.draw(path);
-  }
-}
-
-/**
- * A fixed-length list of captured samples.
- */
-class HeapSamples {
-  final LinkedList<HeapSample> samples = new LinkedList<>();
-  final int maxSampleSizeMs;
-
-  HeapSamples(int maxSampleSizeMs) {
-    this.maxSampleSizeMs = maxSampleSizeMs;
-  }
-
-  void addSample(HeapMonitor.HeapSample sample) {
-    samples.add(sample);
-
-    // Leave a little bit extra in the samples we trim off.
-    final long oldestTime = System.currentTimeMillis() - maxSampleSizeMs - 2000;
-    while (!samples.isEmpty() && samples.get(0).getSampleTime() < oldestTime) {
-      samples.removeFirst();
+    if (path == null) {
+      return;
     }
+    graphics2D.draw(path);
   }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.inspector;
+
+import io.flutter.vmService.HeapMonitor;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity ring buffer of captured heap samples.
+ * <p>
+ * Samples are stored in primitive arrays so memory use stays constant no
+ * matter how long the app runs. Samples older than the display window (plus a
+ * little slack) are trimmed. Samples are kept at a fixed rate chosen so that
+ * the whole window fits: a sample arriving sooner than that after the previous
+ * one replaces its values, so a burst of samples can't push the start of the
+ * window out of the buffer.
+ */
+class HeapSamples {
+  static final int DEFAULT_CAPACITY = 2048;
+
+  /**
+   * How much older than the window samples may get before they are trimmed.
+   */
+  private static final int TRIM_SLACK_MS = 2000;
+
+  final int maxSampleSizeMs;
+
+  /**
+   * Minimum time between two stored samples.
+   */
+  private final long sampleIntervalMs;
+
+  private final long[] times;
+  private final int[] bytes;
+  private final int[] external;
+
+  /**
+   * Index of the oldest sample.
+   */
+  private int start;
+  private int size;
+
+  HeapSamples(int maxSampleSizeMs) {
+    this(maxSampleSizeMs, DEFAULT_CAPACITY, (maxSampleSizeMs + TRIM_SLACK_MS + DEFAULT_CAPACITY - 1) / DEFAULT_CAPACITY);
+  }
+
+  HeapSamples(int maxSampleSizeMs, int capacity, long sampleIntervalMs) {
+    this.maxSampleSizeMs = maxSampleSizeMs;
+    this.sampleIntervalMs = sampleIntervalMs;
+    times = new long[capacity];
+    bytes = new int[capacity];
+    external = new int[capacity];
+  }
+
+  void addSample(HeapMonitor.HeapSample sample) {
+    add(sample.getSampleTime(), sample.getBytes(), sample.getExternal());
+  }
+
+  void add(long time, int sampleBytes, int sampleExternal) {
+    final int capacity = times.length;
+    if (size > 0 && time - times[physicalIndex(size - 1)] < sampleIntervalMs) {
+      // Too soon after the last sample; keep its time but show the latest values.
+      final int last = physicalIndex(size - 1);
+      bytes[last] = sampleBytes;
+      external[last] = sampleExternal;
+      return;
+    }
+
+    final int index = (start + size) % capacity;
+    times[index] = time;
+    bytes[index] = sampleBytes;
+    external[index] = sampleExternal;
+    if (size < capacity) {
+      size++;
+    }
+    else {
+      start = (start + 1) % capacity;
+    }
+
+    // Leave a little bit extra in the samples we trim off.
+    final long oldestTime = time - maxSampleSizeMs - TRIM_SLACK_MS;
+    while (size > 0 && times[start] < oldestTime) {
+      start = (start + 1) % capacity;
+      size--;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Time of the i-th oldest sample.
+   */
+  long getTime(int i) {
+    return times[physicalIndex(i)];
+  }
+
+  /**
+   * Heap usage of the i-th oldest sample.
+   */
+  int getBytes(int i) {
+    return bytes[physicalIndex(i)];
+  }
+
+  int getExternal(int i) {
+    return external[physicalIndex(i)];
+  }
+
+  int getLastBytes() {
+    return getBytes(size - 1);
+  }
+
+  int getMaxBytes() {
+    int max = 0;
+    for (int i = 0; i < size; i++) {
+      max = Math.max(max, getBytes(i));
+    }
+    return max;
+  }
+
+  /**
+   * Reduces the samples between {@code startTime} and {@code endTime} into
+   * {@code min.length} equally sized time buckets, storing the smallest and
+   * largest heap usage seen in each bucket.
+   * <p>
+   * Buckets without samples are set to -1. This lets a graph be drawn with one
+   * vertical segment per pixel column regardless of how many samples there are.
+   */
+  void downsample(long startTime, long endTime, int[] min, int[] max) {
+    assert min.length == max.length;
+    Arrays.fill(min, -1);
+    Arrays.fill(max, -1);
+    final int buckets = min.length;
+    final double span = Math.max(1, endTime - startTime);
+    for (int i = 0; i < size; i++) {
+      final long time = getTime(i);
+      if (time < startTime || time > endTime) {
+        continue;
+      }
+      final int bucket = Math.min(buckets - 1, (int)((time - startTime) / span * buckets));
+      final int value = getBytes(i);
+      if (min[bucket] == -1 || value < min[bucket]) {
+        min[bucket] = value;
+      }
+      if (value > max[bucket]) {
+        max[bucket] = value;
+      }
+    }
+  }
+
+  private int physicalIndex(int i) {
+    assert i >= 0 && i < size;
+    return (start + i) % times.length;
+  }
+}
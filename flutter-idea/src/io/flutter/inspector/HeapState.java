@@ -31,19 +31,13 @@ public class HeapState {
     return samples.maxSampleSizeMs;
   }
 
-  public List<HeapMonitor.HeapSample> getSamples() {
-    return samples.samples;
+  HeapSamples getSamples() {
+    return samples;
   }
 
   // Allocated heap size.
   public int getCapacity() {
-    int max = heapMaxInBytes;
-
-    for (HeapMonitor.HeapSample sample : samples.samples) {
-      max = Math.max(max, sample.getBytes());
-    }
-
-    return max;
+    return Math.max(heapMaxInBytes, samples.getMaxBytes());
   }
 
   private static String printMb(int bytes) {
@@ -51,7 +45,7 @@ public class HeapState {
   }
 
   public String getHeapSummary() {
-    return printMb(samples.samples.getLast().getBytes()) + " of " + printMb(heapMaxInBytes);
+    return printMb(samples.getLastBytes()) + " of " + printMb(heapMaxInBytes);
   }
 
   void addSample(HeapMonitor.HeapSample sample) {
@@ -51,11 +51,7 @@ import org.dartlang.vm.service.element.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -195,6 +191,13 @@ public class InspectorService implements Disposable {
   @NotNull private final Set<InspectorServiceClient> clients;
   @NotNull private final EvalOnDartLibrary inspectorLibrary;
   @NotNull private final Set<String> supportedServiceMethods;
+  @NotNull private final ScreenshotCache screenshotCache = new ScreenshotCache();
+
+  /**
+   * Number of Flutter.Frame events seen so far. Used to tell whether a cached
+   * screenshot may still match what is on the device.
+   */
+  private volatile long frameNumber = 0;
 
   private final StreamSubscription<Boolean> setPubRootDirectoriesSubscription;
 
@@ -358,6 +361,7 @@ public class InspectorService implements Disposable {
 
   @Override
   public void dispose() {
+    screenshotCache.clear();
     Disposer.dispose(inspectorLibrary);
     Disposer.dispose(setPubRootDirectoriesSubscription);
   }
@@ -410,6 +414,7 @@ public class InspectorService implements Disposable {
       }
       case VmService.EXTENSION_STREAM_ID: {
         if ("Flutter.Frame".equals(event.getExtensionKind())) {
+          frameNumber++;
           ApplicationManager.getApplication().invokeLater(() -> {
             for (InspectorServiceClient client : clients) {
               client.onFlutterFrame();
@@ -562,6 +567,7 @@ public class InspectorService implements Disposable {
       invokeVoidServiceMethod("disposeGroup", groupName);
       disposed = true;
       lock.writeLock().unlock();
+      screenshotCache.invalidateGroup(groupName);
     }
 
     private <T> CompletableFuture<T> nullIfDisposed(Supplier<CompletableFuture<T>> supplier) {
@@ -872,78 +878,77 @@ public class InspectorService implements Disposable {
       );
     }
 
+    /**
+     * Returns a screenshot of the widgets created at {@code location}.
+     * <p>
+     * Requests for the same location and size are shared until the app renders
+     * a new frame.
+     */
     public CompletableFuture<InteractiveScreenshot> getScreenshotAtLocation(
       Location location,
       int count,
       int width,
       int height,
       double maxPixelRatio) {
-      final JsonObject params = new JsonObject();
-      addLocationToParams(location, params);
-      params.addProperty("count", count);
-      params.addProperty("width", width);
-      params.addProperty("height", height);
-      params.addProperty("maxPixelRatio", maxPixelRatio);
-      params.addProperty("groupName", groupName);
-      return nullIfDisposed(() -> {
-        return inspectorLibrary.invokeServiceMethod("ext.flutter.inspector.screenshotAtLocation", params).thenApplyAsync(
-          (JsonObject response) -> {
-            if (response == null || response.get("result").isJsonNull()) {
-              // No screenshot available.
-              return null;
-            }
-            final JsonObject result = response.getAsJsonObject("result");
-            Screenshot screenshot = null;
-            final JsonElement screenshotJson = result.get("screenshot");
-            if (screenshotJson != null && !screenshotJson.isJsonNull()) {
-              screenshot = getScreenshotFromJson(screenshotJson.getAsJsonObject());
-            }
-            return new InteractiveScreenshot(
-              screenshot,
-              parseDiagnosticsNodesHelper(result.get("boxes"), null),
-              parseDiagnosticsNodesHelper(result.get("elements"), null)
-            );
-          });
+      final String target = location == null ? "" : location.getPath() + ":" + location.getLine() + ":" + location.getColumn();
+      final ScreenshotCache.Key key =
+        new ScreenshotCache.Key(target + "#" + count, groupName, width, height, maxPixelRatio, frameNumber);
+      return screenshotCache.get(key, () -> {
+        final JsonObject params = new JsonObject();
+        addLocationToParams(location, params);
+        params.addProperty("count", count);
+        params.addProperty("width", width);
+        params.addProperty("height", height);
+        params.addProperty("maxPixelRatio", maxPixelRatio);
+        params.addProperty("groupName", groupName);
+        return nullIfDisposed(() -> {
+          return inspectorLibrary.invokeServiceMethod("ext.flutter.inspector.screenshotAtLocation", params).thenComposeAsync(
+            (JsonObject response) -> {
+              if (response == null || response.get("result").isJsonNull()) {
+                // No screenshot available.
+                return CompletableFuture.completedFuture(null);
+              }
+              final JsonObject result = response.getAsJsonObject("result");
+              final JsonElement screenshotJson = result.get("screenshot");
+              final CompletableFuture<Screenshot> screenshotFuture =
+                screenshotJson != null && !screenshotJson.isJsonNull()
+                ? ScreenshotCache.decodeAsync(screenshotJson.getAsJsonObject())
+                : CompletableFuture.completedFuture(null);
+              return screenshotFuture.thenApply((screenshot) -> new InteractiveScreenshot(
+                screenshot,
+                parseDiagnosticsNodesHelper(result.get("boxes"), null),
+                parseDiagnosticsNodesHelper(result.get("elements"), null)
+              ));
+            });
+        });
       });
     }
 
+    /**
+     * Returns a screenshot of the element referenced by {@code ref}.
+     * <p>
+     * Requests for the same element and size are shared until the app renders
+     * a new frame.
+     */
     public CompletableFuture<Screenshot> getScreenshot(InspectorInstanceRef ref, int width, int height, double maxPixelRatio) {
-      final JsonObject params = new JsonObject();
-      params.addProperty("width", width);
-      params.addProperty("height", height);
-      params.addProperty("maxPixelRatio", maxPixelRatio);
-      params.addProperty("id", ref.getId());
-
-      return nullIfDisposed(
-        () -> inspectorLibrary.invokeServiceMethod("ext.flutter.inspector.screenshot", params).thenApplyAsync((JsonObject response) -> {
-          if (response == null || response.get("result").isJsonNull()) {
-            // No screenshot avaiable.
-            return null;
-          }
-          final JsonObject result = response.getAsJsonObject("result");
-
-          return getScreenshotFromJson(result);
-        }));
-    }
-
-    @NotNull
-    private Screenshot getScreenshotFromJson(JsonObject result) {
-      final String imageString = result.getAsJsonPrimitive("image").getAsString();
-      // create a buffered image
-      final Base64.Decoder decoder = Base64.getDecoder();
-      final byte[] imageBytes = decoder.decode(imageString);
-      final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(imageBytes);
-      final BufferedImage image;
-      try {
-        image = ImageIO.read(byteArrayInputStream);
-        byteArrayInputStream.close();
-      }
-      catch (IOException e) {
-        throw new RuntimeException("Error decoding image: " + e.getMessage());
-      }
-
-      final TransformedRect transformedRect = new TransformedRect(result.getAsJsonObject("transformedRect"));
-      return new Screenshot(image, transformedRect);
+      final ScreenshotCache.Key key = new ScreenshotCache.Key(String.valueOf(ref.getId()), null, width, height, maxPixelRatio, frameNumber);
+      return screenshotCache.get(key, () -> {
+        final JsonObject params = new JsonObject();
+        params.addProperty("width", width);
+        params.addProperty("height", height);
+        params.addProperty("maxPixelRatio", maxPixelRatio);
+        params.addProperty("id", ref.getId());
+
+        return nullIfDisposed(
+          () -> inspectorLibrary.invokeServiceMethod("ext.flutter.inspector.screenshot", params)
+            .thenComposeAsync((JsonObject response) -> {
+              if (response == null || response.get("result").isJsonNull()) {
+                // No screenshot avaiable.
+                return CompletableFuture.completedFuture(null);
+              }
+              return ScreenshotCache.decodeAsync(response.getAsJsonObject("result"));
+            }));
+      });
     }
 
     CompletableFuture<InstanceRef> invokeEval(String methodName, InspectorInstanceRef arg) {
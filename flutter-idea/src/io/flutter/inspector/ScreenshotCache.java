@@ -0,0 +1,168 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.inspector;
+
+import com.google.gson.JsonObject;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates and caches screenshot requests made through an {@link InspectorService}.
+ * <p>
+ * Entries are keyed by what was captured (an element id or a source location),
+ * the requested size and the Flutter frame the request was issued for. Previews
+ * that ask for a screenshot many times per frame share a single request, and a
+ * screenshot is only fetched again once the app has rendered a new frame.
+ * <p>
+ * Methods on this class may be called from any thread.
+ */
+class ScreenshotCache {
+  /**
+   * Maximum number of screenshots retained for the current frame.
+   */
+  static final int MAX_ENTRIES = 16;
+
+  /**
+   * Screenshots are decoded off the UI thread on a small dedicated pool so
+   * that large PNGs do not starve the common fork join pool.
+   */
+  private static final ExecutorService decodeExecutor =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("FlutterScreenshotDecoder", 2);
+
+  private final Map<Key, CompletableFuture<?>> entries = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<?>> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  private long latestFrame = -1;
+
+  /**
+   * Returns the cached or in-flight result for {@code key}, issuing
+   * {@code request} only if there is none.
+   * <p>
+   * Failed requests and requests completing with null are not cached.
+   */
+  @SuppressWarnings("unchecked")
+  <T> CompletableFuture<T> get(@NotNull Key key, @NotNull Supplier<CompletableFuture<T>> request) {
+    final CompletableFuture<T> future;
+    synchronized (this) {
+      if (key.frame > latestFrame) {
+        // Screenshots from earlier frames are stale and will never be asked for again.
+        latestFrame = key.frame;
+        entries.keySet().removeIf((existing) -> existing.frame < latestFrame);
+      }
+      final CompletableFuture<T> existing = (CompletableFuture<T>)entries.get(key);
+      if (existing != null) {
+        return existing;
+      }
+      future = request.get();
+      entries.put(key, future);
+    }
+    future.whenComplete((value, error) -> {
+      if (error != null || value == null) {
+        remove(key, future);
+      }
+    });
+    return future;
+  }
+
+  private synchronized void remove(@NotNull Key key, @NotNull CompletableFuture<?> future) {
+    entries.remove(key, future);
+  }
+
+  /**
+   * Drops all entries whose results reference objects in the given object
+   * group. Called when the group is disposed.
+   */
+  synchronized void invalidateGroup(@NotNull String groupName) {
+    final Iterator<Key> it = entries.keySet().iterator();
+    while (it.hasNext()) {
+      if (groupName.equals(it.next().groupName)) {
+        it.remove();
+      }
+    }
+  }
+
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Decodes the Base64 PNG returned by the screenshot service extensions on
+   * the decode pool.
+   */
+  static CompletableFuture<Screenshot> decodeAsync(@NotNull JsonObject result) {
+    return CompletableFuture.supplyAsync(() -> decode(result), decodeExecutor);
+  }
+
+  @NotNull
+  static Screenshot decode(@NotNull JsonObject result) {
+    final String imageString = result.getAsJsonPrimitive("image").getAsString();
+    final byte[] imageBytes = Base64.getDecoder().decode(imageString);
+    final BufferedImage image;
+    try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(imageBytes)) {
+      image = ImageIO.read(byteArrayInputStream);
+    }
+    catch (IOException e) {
+      throw new RuntimeException("Error decoding image: " + e.getMessage());
+    }
+
+    final TransformedRect transformedRect = new TransformedRect(result.getAsJsonObject("transformedRect"));
+    return new Screenshot(image, transformedRect);
+  }
+
+  static class Key {
+    @NotNull final String target;
+    @Nullable final String groupName;
+    final int width;
+    final int height;
+    final double maxPixelRatio;
+    final long frame;
+
+    Key(@NotNull String target, @Nullable String groupName, int width, int height, double maxPixelRatio, long frame) {
+      this.target = target;
+      this.groupName = groupName;
+      this.width = width;
+      this.height = height;
+      this.maxPixelRatio = maxPixelRatio;
+      this.frame = frame;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      final Key other = (Key)o;
+      return width == other.width &&
+             height == other.height &&
+             Double.compare(maxPixelRatio, other.maxPixelRatio) == 0 &&
+             frame == other.frame &&
+             target.equals(other.target) &&
+             Objects.equals(groupName, other.groupName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(target, groupName, width, height, maxPixelRatio, frame);
+    }
+  }
+}
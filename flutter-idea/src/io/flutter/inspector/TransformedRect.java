@@ -11,28 +11,77 @@ import io.flutter.utils.math.Matrix4;
 
 import java.awt.geom.Rectangle2D;
 
+/**
+ * A rect and the transform that maps it to the root of the render tree.
+ * <p>
+ * The JSON is parsed once, the first time each part is requested, so that
+ * highlights can be painted on every frame without re-reading it.
+ */
 public class TransformedRect {
   final JsonObject json;
 
+  /**
+   * The rect as left, top, width, height.
+   */
+  private volatile double[] rect;
+  private volatile Matrix4 transform;
+
   public TransformedRect(JsonObject json) {
     this.json = json;
   }
 
   public Rectangle2D getRectangle() {
-    return new Rectangle2D.Double(
-      json.getAsJsonPrimitive("left").getAsDouble(),
-      json.getAsJsonPrimitive("top").getAsDouble(),
-      json.getAsJsonPrimitive("width").getAsDouble(),
-      json.getAsJsonPrimitive("height").getAsDouble()
-    );
+    final double[] rect = getRect();
+    return new Rectangle2D.Double(rect[0], rect[1], rect[2], rect[3]);
+  }
+
+  /**
+   * Copies the rect into [out] at [offset] as left, top, width, height, the
+   * layout expected by {@link Matrix4#transformRects}.
+   */
+  public void getRect(double[] out, int offset) {
+    System.arraycopy(getRect(), 0, out, offset, 4);
   }
 
   public Matrix4 getTransform() {
-    final JsonArray data = json.getAsJsonArray("transform");
-    final double[] storage = new double[16];
-    for (int i = 0; i < 16; i++) {
-      storage[i] = data.get(i).getAsDouble();
+    return getTransform(null);
+  }
+
+  /**
+   * Copies the transform into [out], or into a new matrix if [out] is null.
+   */
+  public Matrix4 getTransform(Matrix4 out) {
+    if (out == null) {
+      out = Matrix4.identity();
+    }
+    return getParsedTransform().copyInto(out);
+  }
+
+  private double[] getRect() {
+    double[] rect = this.rect;
+    if (rect == null) {
+      rect = new double[]{
+        json.getAsJsonPrimitive("left").getAsDouble(),
+        json.getAsJsonPrimitive("top").getAsDouble(),
+        json.getAsJsonPrimitive("width").getAsDouble(),
+        json.getAsJsonPrimitive("height").getAsDouble()
+      };
+      this.rect = rect;
+    }
+    return rect;
+  }
+
+  private Matrix4 getParsedTransform() {
+    Matrix4 transform = this.transform;
+    if (transform == null) {
+      final JsonArray data = json.getAsJsonArray("transform");
+      final double[] storage = new double[16];
+      for (int i = 0; i < 16; i++) {
+        storage[i] = data.get(i).getAsDouble();
+      }
+      transform = new Matrix4(storage);
+      this.transform = transform;
     }
-    return new Matrix4(storage);
+    return transform;
   }
 }
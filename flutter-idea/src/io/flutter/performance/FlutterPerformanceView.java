@@ -33,6 +33,9 @@ import io.flutter.bazel.WorkspaceCache;
 import io.flutter.devtools.DevToolsUrl;
 import io.flutter.run.FlutterDevice;
 import io.flutter.run.FlutterLaunchMode;
+import io.flutter.run.daemon.DevToolsInstance;
+import io.flutter.run.daemon.DevToolsServer;
+import io.flutter.run.daemon.DevToolsServerPool;
 import io.flutter.run.daemon.DevToolsService;
 import io.flutter.run.daemon.FlutterApp;
 import io.flutter.sdk.FlutterSdk;
@@ -50,6 +53,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class FlutterPerformanceView implements Disposable {
   public static final String TOOL_WINDOW_ID = "Flutter Performance";
@@ -205,6 +209,21 @@ public class FlutterPerformanceView implements Disposable {
       runModeLabel.setToolTipText("Note: debug mode frame rendering times are not indicative of release mode performance");
     }
 
+    // Startup metrics for the DevTools server, which is shared by projects using the same SDK.
+    final JBLabel devToolsStatusLabel = new JBLabel("", SwingConstants.CENTER);
+    devToolsStatusLabel.setForeground(UIUtil.getLabelDisabledForeground());
+    // Only reports on a server that is already running or starting; opening the view doesn't start one.
+    updateDevToolsStatus(app.getProject(), devToolsStatusLabel);
+    final DevToolsServer devToolsServer = DevToolsServerPool.getInstance().getServer(app.getProject());
+    final CompletableFuture<DevToolsInstance> devToolsStart = devToolsServer == null ? null : devToolsServer.getLatestStart();
+    if (devToolsStart != null && !devToolsStart.isDone()) {
+      AsyncUtils.whenCompleteUiThread(devToolsStart, (instance, ex) -> {
+        if (!app.getProject().isDisposed()) {
+          updateDevToolsStatus(app.getProject(), devToolsStatusLabel);
+        }
+      });
+    }
+
     final LinkLabel<String> openDevtools = new LinkLabel<>("Open DevTools...", null);
     openDevtools.setListener((linkLabel, data) -> {
       AsyncUtils.whenCompleteUiThread(DevToolsService.getInstance(app.getProject()).getDevToolsInstance(), (instance, ex) -> {
@@ -216,6 +235,7 @@ public class FlutterPerformanceView implements Disposable {
           LOG.error(ex);
           return;
         }
+        updateDevToolsStatus(app.getProject(), devToolsStatusLabel);
 
         FlutterSdk flutterSdk = FlutterSdk.getFlutterSdk(app.getProject());
         BrowserLauncher.getInstance().browse(
@@ -226,6 +246,7 @@ public class FlutterPerformanceView implements Disposable {
     }, null);
 
     footer.add(runModeLabel, BorderLayout.WEST);
+    footer.add(devToolsStatusLabel, BorderLayout.CENTER);
     footer.add(openDevtools, BorderLayout.EAST);
 
     mainContentPanel.add(footer, BorderLayout.SOUTH);
@@ -260,6 +281,25 @@ public class FlutterPerformanceView implements Disposable {
     }
   }
 
+  private static void updateDevToolsStatus(@NotNull Project project, @NotNull JLabel label) {
+    final DevToolsServer server = DevToolsServerPool.getInstance().getServer(project);
+    if (server == null || server.getStartupMillis() < 0) {
+      label.setText("");
+      return;
+    }
+
+    final StringBuilder text = new StringBuilder("DevTools server started in " + server.getStartupMillis() + " ms");
+    final int projectCount = server.getProjectCount();
+    if (projectCount > 1) {
+      text.append(", shared by ").append(projectCount).append(" projects");
+    }
+    final int restartCount = server.getRestartCount();
+    if (restartCount > 0) {
+      text.append(", restarted ").append(restartCount).append(restartCount == 1 ? " time" : " times");
+    }
+    label.setText(text.toString());
+  }
+
   private DefaultActionGroup createToolbar(@NotNull ToolWindow toolWindow,
                                            @NotNull FlutterApp app,
                                            Disposable parentDisposable) {
@@ -19,15 +19,14 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
+import java.awt.event.MouseEvent;
 import java.awt.geom.Path2D;
 import java.text.DecimalFormat;
 import java.util.List;
 import java.util.*;
 
-// TODO(devoncarew): We have a drawing artifacts issue - tall frame columns can be left behind
-// as artifacts when they scroll off the screen.
-
 public class FrameRenderingDisplay {
   static final DecimalFormat df = new DecimalFormat();
 
@@ -36,13 +35,19 @@ public class FrameRenderingDisplay {
   }
 
   public static JPanel createJPanelView(@NotNull Disposable parentDisposable, @NotNull FlutterApp app) {
-    final JPanel panel = new JPanel(new StackLayout());
+    final JPanel panel = new JPanel(new StackLayout()) {
+      @Override
+      public boolean isOptimizedDrawingEnabled() {
+        // The children overlap, so the target label has to be repainted along with the frames under it.
+        return false;
+      }
+    };
     panel.setDoubleBuffered(true);
 
     assert app.getVMServiceManager() != null;
     final FlutterFramesMonitor flutterFramesMonitor = app.getVMServiceManager().getFlutterFramesMonitor();
 
-    final FrameRenderingPanel frameRenderingPanel = new FrameRenderingPanel(flutterFramesMonitor, app.getDisplayRefreshRateManager());
+    final FrameRenderingPanel frameRenderingPanel = new FrameRenderingPanel(app.getDisplayRefreshRateManager());
 
     final JBLabel targetFrameTimeLabel = new JBLabel();
     targetFrameTimeLabel.setFont(UIUtil.getLabelFont(UIUtil.FontSize.SMALL));
@@ -73,14 +78,15 @@ public class FrameRenderingDisplay {
     panel.add(frameRenderingPanel);
     panel.add(targetFrameTimePanel);
 
-    final FlutterFramesMonitor.Listener listener = event -> {
-      frameRenderingPanel.update();
-
-      // Repaint this after each frame so that the label does not get painted over by the frame rendering panel.
-      SwingUtilities.invokeLater(targetFrameTimeLabel::repaint);
-    };
+    final FlutterFramesMonitor.Listener listener = event -> SwingUtilities.invokeLater(() -> frameRenderingPanel.addFrame(event));
 
+    // Frames recorded between adding the listener and copying the history are in both; the panel skips them.
     flutterFramesMonitor.addListener(listener);
+    final List<FlutterFramesMonitor.FlutterFrameEvent> frames;
+    synchronized (flutterFramesMonitor) {
+      frames = new ArrayList<>(flutterFramesMonitor.frames);
+    }
+    frameRenderingPanel.addRecentFrames(frames);
     Disposer.register(parentDisposable, () -> flutterFramesMonitor.removeListener(listener));
 
     return panel;
@@ -100,34 +106,109 @@ public class FrameRenderingDisplay {
   }
 }
 
+/**
+ * Draws a bar for each recent frame, newest on the right.
+ * <p>
+ * Frame timings are kept in a fixed-size buffer owned by the UI thread. Tooltips are computed when the mouse
+ * hovers over a bar, and repaints are limited to one per display frame, covering only the area under the bars.
+ */
 class FrameRenderingPanel extends JPanel {
-  private final FlutterFramesMonitor framesMonitor;
+  private static final int MAX_FRAMES = FlutterFramesMonitor.maxFrames;
 
   private final DisplayRefreshRateManager displayRefreshRateManager;
 
-  private final Map<FlutterFramesMonitor.FlutterFrameEvent, JComponent> frameWidgets = new HashMap<>();
+  // The most recent frames, as a ring buffer ending at newestIndex.
+  private final long[] elapsedMicros = new long[MAX_FRAMES];
+  private final boolean[] frameSetStarts = new boolean[MAX_FRAMES];
+  private int newestIndex = -1;
+  private int frameCount;
+
+  // The frames added by addRecentFrames(), until the listener delivers a frame that isn't one of them.
+  private final Set<FlutterFramesMonitor.FlutterFrameEvent> recentFrames = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  // The bars that fit in the panel, newest first; filled in by layoutBars().
+  private final int[] barX = new int[MAX_FRAMES];
+  private final int[] barHeights = new int[MAX_FRAMES];
+  private final int[] barFrames = new int[MAX_FRAMES];
 
-  private Rectangle lastSavedBounds;
+  // The top of the tallest bar last painted, which must be cleared when the bars move.
+  private int paintedTop = Integer.MAX_VALUE;
 
-  FrameRenderingPanel(@NotNull FlutterFramesMonitor framesMonitor, @NotNull DisplayRefreshRateManager displayRefreshRateManager) {
-    this.framesMonitor = framesMonitor;
+  private final Timer repaintTimer;
+
+  FrameRenderingPanel(@NotNull DisplayRefreshRateManager displayRefreshRateManager) {
     this.displayRefreshRateManager = displayRefreshRateManager;
 
     setLayout(null);
     final Color color = UIUtil.getLabelDisabledForeground();
     //noinspection UseJBColor
     setForeground(new Color(color.getRed(), color.getGreen(), color.getBlue(), 0x7f));
+
+    repaintTimer = new Timer(0, (e) -> repaintBars());
+    repaintTimer.setRepeats(false);
+    ToolTipManager.sharedInstance().registerComponent(this);
   }
 
-  public void update() {
-    SwingUtilities.invokeLater(this::updateFromFramesMonitor);
+  /**
+   * Adds the frames the monitor recorded before the panel was shown, newest first.
+   * <p>
+   * Must be called on the UI thread, before any frame is passed to {@link #addFrame(FlutterFramesMonitor.FlutterFrameEvent)}.
+   */
+  void addRecentFrames(@NotNull List<FlutterFramesMonitor.FlutterFrameEvent> newestFirst) {
+    for (ListIterator<FlutterFramesMonitor.FlutterFrameEvent> it = newestFirst.listIterator(newestFirst.size()); it.hasPrevious(); ) {
+      final FlutterFramesMonitor.FlutterFrameEvent frame = it.previous();
+      recentFrames.add(frame);
+      addFrame(frame.elapsedMicros, frame.frameSetStart);
+    }
+  }
+
+  /**
+   * Adds a frame delivered by the monitor, unless it was one of the recent frames.
+   * <p>
+   * Frames are compared by identity rather than number, since frame numbers start again when the app restarts.
+   * Must be called on the UI thread.
+   */
+  void addFrame(@NotNull FlutterFramesMonitor.FlutterFrameEvent frame) {
+    if (!recentFrames.isEmpty()) {
+      if (recentFrames.contains(frame)) {
+        return;
+      }
+      // The monitor delivers frames in order, so no recent frame comes after a new one.
+      recentFrames.clear();
+    }
+    addFrame(frame.elapsedMicros, frame.frameSetStart);
   }
 
-  public void doLayout() {
-    if (lastSavedBounds != null && !lastSavedBounds.equals(getBounds())) {
-      lastSavedBounds = null;
+  /**
+   * Adds a frame and schedules a repaint, unless one is already pending for this display frame.
+   * <p>
+   * Must be called on the UI thread.
+   */
+  void addFrame(long elapsed, boolean frameSetStart) {
+    newestIndex = (newestIndex + 1) % MAX_FRAMES;
+    elapsedMicros[newestIndex] = elapsed;
+    frameSetStarts[newestIndex] = frameSetStart;
+    frameCount = Math.min(frameCount + 1, MAX_FRAMES);
+
+    if (!repaintTimer.isRunning()) {
+      repaintTimer.setInitialDelay(Math.max(1, displayRefreshRateManager.getTargetMicrosPerFrame() / 1000));
+      repaintTimer.start();
+    }
+  }
 
-      SwingUtilities.invokeLater(this::updateFromFramesMonitor);
+  int getFrameCount() {
+    return frameCount;
+  }
+
+  private void repaintBars() {
+    final int height = getHeight();
+    final int count = layoutBars(getWidth(), height);
+    int top = paintedTop;
+    for (int i = 0; i < count; i++) {
+      top = Math.min(top, height - barHeights[i]);
+    }
+    if (top < height) {
+      repaint(0, top, getWidth(), height - top);
     }
   }
 
@@ -139,92 +220,108 @@ class FrameRenderingPanel extends JPanel {
   protected void paintComponent(Graphics g) {
     super.paintComponent(g);
 
-    final Rectangle bounds = getBounds();
-    final int height = bounds.height;
-
-    if (height <= 20) {
-      return;
-    }
-
+    final int width = getWidth();
+    final int height = getHeight();
     final Graphics2D g2 = (Graphics2D)g;
 
-    final float msPerPixel = (2.0f * 1000000.0f / 60.0f) / height;
-    final float y = displayRefreshRateManager.getTargetMicrosPerFrame() / msPerPixel;
-    final Stroke oldStroke = g2.getStroke();
-    try {
-      g2.setStroke(STROKE);
-      final Path2D path = new Path2D.Float();
-      // Slight left indent to allow space for [targetFrameTimeLabel].
-      path.moveTo(34, height - y);
-      path.lineTo(bounds.width, height - y);
-      g2.draw(path);
+    if (height > 20) {
+      final float msPerPixel = (2.0f * 1000000.0f / 60.0f) / height;
+      final float y = displayRefreshRateManager.getTargetMicrosPerFrame() / msPerPixel;
+      final Stroke oldStroke = g2.getStroke();
+      try {
+        g2.setStroke(STROKE);
+        final Path2D path = new Path2D.Float();
+        // Slight left indent to allow space for [targetFrameTimeLabel].
+        path.moveTo(34, height - y);
+        path.lineTo(width, height - y);
+        g2.draw(path);
+      }
+      finally {
+        g2.setStroke(oldStroke);
+      }
     }
-    finally {
-      g2.setStroke(oldStroke);
+
+    final int count = layoutBars(width, height);
+    final int barWidth = getBarWidth(height);
+    final int targetMicros = displayRefreshRateManager.getTargetMicrosPerFrame();
+    final Rectangle clip = g.getClipBounds();
+    final Color slowColor = JBColor.RED;
+    final Color normalColor = UIUtil.getLabelForeground();
+    Color current = null;
+    int top = height;
+    for (int i = 0; i < count; i++) {
+      final int x = barX[i];
+      final int barHeight = barHeights[i];
+      top = Math.min(top, height - barHeight);
+      if (clip != null && (x + barWidth <= clip.x || x >= clip.x + clip.width || height - barHeight >= clip.y + clip.height)) {
+        continue;
+      }
+      final Color color = elapsedMicros[barFrames[i]] > targetMicros ? slowColor : normalColor;
+      if (color != current) {
+        g.setColor(color);
+        current = color;
+      }
+      g.fillRect(x, height - barHeight, barWidth, barHeight);
     }
+    paintedTop = top;
   }
 
-  void updateFromFramesMonitor() {
-    final Set<FlutterFramesMonitor.FlutterFrameEvent> frames = new HashSet<>(frameWidgets.keySet());
+  @Override
+  public String getToolTipText(MouseEvent event) {
+    final int height = getHeight();
+    final int count = layoutBars(getWidth(), height);
+    final int barWidth = getBarWidth(height);
+    for (int i = 0; i < count; i++) {
+      if (event.getX() >= barX[i] && event.getX() < barX[i] + barWidth && event.getY() >= height - barHeights[i]) {
+        return getFrameDescription(elapsedMicros[barFrames[i]]);
+      }
+    }
+    return null;
+  }
 
-    final Rectangle bounds = getBounds();
-    lastSavedBounds = bounds;
+  @NotNull
+  private String getFrameDescription(long elapsed) {
+    final String time = FrameRenderingDisplay.df.format(elapsed / 1000.0d);
+    if (elapsed > displayRefreshRateManager.getTargetMicrosPerFrame()) {
+      return "This frame took " + time + "ms to render, which\ncan cause frame rate to drop below " +
+             Math.round(displayRefreshRateManager.getCurrentDisplayRefreshRateRaw()) + " FPS.";
+    }
+    return "This frame took " + time + "ms to render.";
+  }
 
-    final int height = bounds.height;
+  /**
+   * Computes the position and height of the bars that fit in the panel, newest first, and returns how many there are.
+   */
+  private int layoutBars(int width, int height) {
     final int inc = height <= 20 ? 1 : 2;
+    final int barWidth = getBarWidth(height);
+    final float msPerPixel = (2.0f * 1000000.0f / 60.0f) / height;
 
-    int x = bounds.width;
-
-    final int widgetWidth = Math.min(Math.max(Math.round(height / 8.0f), 2), 5);
-
-    synchronized (framesMonitor) {
-      for (FlutterFramesMonitor.FlutterFrameEvent frame : framesMonitor.frames) {
-        if (x + widgetWidth < 0) {
-          break;
-        }
-
-        x -= (widgetWidth + inc);
-
-        final float msPerPixel = (2.0f * 1000000.0f / 60.0f) / height;
-        JComponent widget = frameWidgets.get(frame);
-        if (widget != null) {
-          frames.remove(frame);
-        }
-        else {
-          widget = new JLabel();
-          widget.setOpaque(true);
-          widget.setBackground(frame.isSlowFrame() ? JBColor.RED : UIUtil.getLabelForeground());
-          widget.setToolTipText(frame.isSlowFrame()
-                                ? "This frame took " +
-                                  FrameRenderingDisplay.df.format(frame.elapsedMicros / 1000.0d) +
-                                  "ms to render, which\ncan cause frame rate to drop below " +
-                                  Math.round(displayRefreshRateManager.getCurrentDisplayRefreshRateRaw()) + " FPS."
-                                : "This frame took " + FrameRenderingDisplay.df.format(frame.elapsedMicros / 1000.0d) + "ms to render.");
-          frameWidgets.put(frame, widget);
-          add(widget);
-        }
-
-        int pixelHeight = Math.round(frame.elapsedMicros / msPerPixel);
-        if (pixelHeight > height) {
-          pixelHeight = height;
-        }
-        pixelHeight = Math.max(1, pixelHeight);
-        widget.setPreferredSize(new Dimension(widgetWidth, pixelHeight));
-        widget.setBounds(x, height - pixelHeight, widgetWidth, pixelHeight);
-
-        // Add a gap between sets of frames.
-        if (frame.frameSetStart) {
-          x -= widgetWidth;
-        }
+    int x = width;
+    int count = 0;
+    for (int i = 0; i < frameCount; i++) {
+      if (x + barWidth < 0) {
+        break;
       }
-    }
 
-    if (!frames.isEmpty()) {
-      for (FlutterFramesMonitor.FlutterFrameEvent frame : frames) {
-        final JComponent widget = frameWidgets.remove(frame);
-        remove(widget);
+      x -= (barWidth + inc);
+
+      final int index = (newestIndex - i + MAX_FRAMES) % MAX_FRAMES;
+      barX[count] = x;
+      barHeights[count] = Math.max(1, Math.min(height, Math.round(elapsedMicros[index] / msPerPixel)));
+      barFrames[count] = index;
+      count++;
+
+      // Add a gap between sets of frames.
+      if (frameSetStarts[index]) {
+        x -= barWidth;
       }
     }
+    return count;
+  }
+
+  private static int getBarWidth(int height) {
+    return Math.min(Math.max(Math.round(height / 8.0f), 2), 5);
   }
 }
 
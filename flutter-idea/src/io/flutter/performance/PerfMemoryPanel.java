@@ -15,6 +15,7 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.HierarchyEvent;
 
 public class PerfMemoryPanel extends JBPanel<PerfMemoryPanel> {
   private static final Logger LOG = Logger.getInstance(PerfMemoryPanel.class);
@@ -23,6 +24,8 @@ public class PerfMemoryPanel extends JBPanel<PerfMemoryPanel> {
 
   static final int HEIGHT = 140;
 
+  private boolean isPolling = false;
+
   PerfMemoryPanel(@NotNull FlutterApp app, @NotNull Disposable parentDisposable) {
     setLayout(new BorderLayout());
     setBorder(BorderFactory.createTitledBorder(BorderFactory.createEtchedBorder(), MEMORY_TAB_LABEL));
@@ -32,14 +35,28 @@ public class PerfMemoryPanel extends JBPanel<PerfMemoryPanel> {
     final JPanel heapDisplay = HeapDisplay.createJPanelView(parentDisposable, app);
     add(heapDisplay, BorderLayout.CENTER);
 
-    if (app.getVMServiceManager() != null) {
-      app.getVMServiceManager().getHeapMonitor().addPollingClient();
-    }
-
-    Disposer.register(parentDisposable, () -> {
-      if (app.getVMServiceManager() != null) {
-        app.getVMServiceManager().getHeapMonitor().removePollingClient();
+    // Only ask the heap monitor to poll while the panel is actually showing;
+    // GC events keep the graph up to date in the background.
+    addHierarchyListener(e -> {
+      if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+        setPolling(app, isShowing());
       }
     });
+    setPolling(app, isShowing());
+
+    Disposer.register(parentDisposable, () -> setPolling(app, false));
+  }
+
+  private void setPolling(@NotNull FlutterApp app, boolean polling) {
+    if (polling == isPolling || app.getVMServiceManager() == null) {
+      return;
+    }
+    isPolling = polling;
+    if (polling) {
+      app.getVMServiceManager().getHeapMonitor().addPollingClient();
+    }
+    else {
+      app.getVMServiceManager().getHeapMonitor().removePollingClient();
+    }
   }
 }
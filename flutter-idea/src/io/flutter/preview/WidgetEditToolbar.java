@@ -209,6 +209,8 @@ public class WidgetEditToolbar {
     actionExtractWidget = new ExtractWidgetAction();
 
     this.activeOutlines = activeOutlines;
+    // Called on the thread that sets the outlines, such as StableWidgetTracker's shared match thread, so the
+    // listener only clears the cached assists and requests new ones on a pooled thread.
     activeOutlines.listen(this::activeOutlineChanged);
   }
 
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.pub;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.util.PathUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The packages listed in a package config file, indexed by name.
+ * <p>
+ * An index is built once for each version of a .dart_tool/package_config.json or .packages file, and
+ * kept by the project's {@link PubRootCache} until the file changes. The lib directories of the
+ * packages are resolved to VirtualFiles all at once, the first time they are asked for.
+ * <p>
+ * Safe to use from any thread.
+ */
+public class PackageIndex {
+  /**
+   * Lib directories resolved while the VFS had the given structure modification count.
+   */
+  private static class LibDirs {
+    final long structureModificationCount;
+    @NotNull final Map<String, VirtualFile> dirs;
+
+    LibDirs(long structureModificationCount, @NotNull Map<String, VirtualFile> dirs) {
+      this.structureModificationCount = structureModificationCount;
+      this.dirs = dirs;
+    }
+  }
+
+  @Nullable private final VirtualFile configFile;
+  private final long configStamp;
+
+  // Package name to the path of its lib directory, in the order of the config file.
+  @NotNull private final Map<String, String> libPaths;
+
+  @Nullable private volatile LibDirs libDirs;
+
+  PackageIndex(long configStamp, @NotNull Map<String, String> packagesMap) {
+    this(null, configStamp, packagesMap);
+  }
+
+  private PackageIndex(@Nullable VirtualFile configFile, long configStamp, @NotNull Map<String, String> packagesMap) {
+    this.configFile = configFile;
+    this.configStamp = configStamp;
+
+    final Map<String, String> libPaths = new LinkedHashMap<>();
+    for (Map.Entry<String, String> entry : packagesMap.entrySet()) {
+      libPaths.put(entry.getKey(), StringUtil.trimEnd(entry.getValue(), "/"));
+    }
+    this.libPaths = Collections.unmodifiableMap(libPaths);
+  }
+
+  /**
+   * Returns the index for a config file, reusing the cached one if it was built from the same version of the file.
+   * <p>
+   * Returns null if the file can't be parsed.
+   */
+  @Nullable
+  static PackageIndex forConfigFile(@NotNull VirtualFile configFile,
+                                    @Nullable PackageIndex cached,
+                                    @NotNull Function<VirtualFile, Map<String, String>> parser) {
+    final long stamp = configFile.getModificationStamp();
+    if (cached != null && configFile.equals(cached.configFile) && cached.configStamp == stamp) {
+      return cached;
+    }
+
+    final Map<String, String> packagesMap = parser.apply(configFile);
+    return packagesMap == null ? null : new PackageIndex(configFile, stamp, packagesMap);
+  }
+
+  /**
+   * Returns the path of the lib directory of each package, by package name.
+   */
+  @NotNull
+  public Map<String, String> getPackagesMap() {
+    return libPaths;
+  }
+
+  @Nullable
+  public String getLibPath(@NotNull String packageName) {
+    return libPaths.get(packageName);
+  }
+
+  /**
+   * Returns the root directory of a package, which is the parent of its lib directory.
+   */
+  @Nullable
+  public String getPackagePath(@NotNull String packageName) {
+    final String libPath = libPaths.get(packageName);
+    return libPath == null ? null : PathUtil.getParentPath(libPath);
+  }
+
+  /**
+   * Returns the lib directories that exist, by path.
+   * <p>
+   * They are resolved again after any file is created, deleted, moved or renamed, so directories that
+   * appear later are found and deleted ones are dropped. Packages from the pub cache are usually siblings,
+   * so each directory containing packages is looked up once and the packages are found among its children.
+   */
+  @NotNull
+  public Map<String, VirtualFile> getLibDirs() {
+    // Read before resolving, so that a change made while resolving is picked up by the next call.
+    final long count = VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS.getModificationCount();
+    LibDirs result = libDirs;
+    if (result == null || result.structureModificationCount != count) {
+      result = new LibDirs(count, Collections.unmodifiableMap(resolveLibDirs()));
+      libDirs = result;
+    }
+    return result.dirs;
+  }
+
+  @NotNull
+  private Map<String, VirtualFile> resolveLibDirs() {
+    final LocalFileSystem fileSystem = LocalFileSystem.getInstance();
+    final Map<String, VirtualFile> containers = new HashMap<>();
+    final Map<String, VirtualFile> result = new HashMap<>();
+    for (String libPath : new HashSet<>(libPaths.values())) {
+      final String packagePath = PathUtil.getParentPath(libPath);
+      final String containerPath = PathUtil.getParentPath(packagePath);
+
+      final VirtualFile libDir;
+      if (containerPath.isEmpty()) {
+        libDir = fileSystem.findFileByPath(libPath);
+      }
+      else {
+        final VirtualFile container;
+        if (containers.containsKey(containerPath)) {
+          container = containers.get(containerPath);
+        }
+        else {
+          container = fileSystem.findFileByPath(containerPath);
+          containers.put(containerPath, container);
+        }
+        final VirtualFile packageDir = container == null ? null : container.findChild(PathUtil.getFileName(packagePath));
+        libDir = packageDir == null ? null : packageDir.findChild(PathUtil.getFileName(libPath));
+      }
+
+      if (libDir != null && libDir.isDirectory()) {
+        result.put(libPath, libDir);
+      }
+    }
+    return result;
+  }
+}
@@ -15,6 +15,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VfsUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.jetbrains.lang.dart.util.DotPackagesFileUtil;
@@ -22,6 +23,7 @@ import io.flutter.FlutterUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -205,6 +207,25 @@ public class PubRoot {
     return forDirectoryWithRefresh(root);
   }
 
+  /**
+   * Refreshes the pubroot directory and the package config that 'flutter pub get' writes, and returns an up-to-date snapshot.
+   * <p>
+   * Everything is refreshed in one pass, so listeners see the new package config in a single batch of changes.
+   * <p>
+   * Returns null if the directory or pubspec file is no longer there.
+   */
+  @Nullable
+  public PubRoot refreshPackages() {
+    final List<VirtualFile> files = new ArrayList<>();
+    files.add(root);
+    final VirtualFile tools = root.findChild(".dart_tool");
+    if (tools != null) {
+      files.add(tools);
+    }
+    VfsUtil.markDirtyAndRefresh(false, false, true, files.toArray(VirtualFile.EMPTY_ARRAY));
+    return forDirectory(root);
+  }
+
   @NotNull
   public VirtualFile getRoot() {
     return root;
@@ -282,14 +303,26 @@ public class PubRoot {
   }
 
   public @Nullable Map<String, String> getPackagesMap() {
+    final PackageIndex index = readPackageIndex(null);
+    return index == null ? null : index.getPackagesMap();
+  }
+
+  /**
+   * Returns the packages this pub root depends on, or null if there is no package config.
+   * <p>
+   * The config file is only parsed if it isn't the one the cached index was built from, or has changed
+   * since. Use {@link PubRootCache#getPackageIndex} to share the index between lookups.
+   */
+  @Nullable
+  PackageIndex readPackageIndex(@Nullable PackageIndex cached) {
     final var packageConfigFile = getPackageConfigFile();
     if (packageConfigFile != null) {
-      return DotPackagesFileUtil.getPackagesMapFromPackageConfigJsonFile(packageConfigFile);
+      return PackageIndex.forConfigFile(packageConfigFile, cached, DotPackagesFileUtil::getPackagesMapFromPackageConfigJsonFile);
     }
 
     final var packagesFile = getPackagesFile();
     if (packagesFile != null) {
-      return DotPackagesFileUtil.getPackagesMap(packagesFile);
+      return PackageIndex.forConfigFile(packagesFile, cached, DotPackagesFileUtil::getPackagesMap);
     }
 
     return null;
@@ -5,21 +5,46 @@
  */
 package io.flutter.pub;
 
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
 import com.intellij.psi.PsiFile;
+import com.intellij.util.PathUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Cache the information computed from pubspecs in the project.
+ * <p>
+ * Safe to use from any thread. Every directory that has been looked up is indexed to the directory
+ * of its nearest pubspec, so finding the root of a file only walks up to the nearest indexed
+ * ancestor. The package index of each pub root is kept too, so that package lookups don't parse the
+ * package config again. Entries are dropped when a pubspec, .packages or package_config.json file
+ * changes, or when a directory above them is moved, renamed or deleted.
  */
-public class PubRootCache {
+public class PubRootCache implements Disposable {
+  private static final String PUBSPEC = "pubspec.yaml";
+  private static final String PACKAGES = ".packages";
+  private static final String PACKAGE_CONFIG = "package_config.json";
+
   @NotNull
   public static PubRootCache getInstance(@NotNull final Project project) {
     return Objects.requireNonNull(project.getService(PubRootCache.class));
@@ -27,10 +52,38 @@ public class PubRootCache {
 
   @NotNull final Project project;
 
-  private final Map<VirtualFile, PubRoot> cache = new HashMap<>();
+  /**
+   * Pub roots by their directory. Empty for content roots that aren't pub roots.
+   */
+  private final Map<VirtualFile, Optional<PubRoot>> roots = new ConcurrentHashMap<>();
+
+  /**
+   * The directory of the nearest pubspec at or above each indexed directory. Empty if there is none.
+   */
+  private final Map<VirtualFile, Optional<VirtualFile>> pubspecDirs = new ConcurrentHashMap<>();
+
+  /**
+   * The index of the package config of each pub root, by the root's directory.
+   */
+  private final Map<VirtualFile, PackageIndex> packageIndexes = new ConcurrentHashMap<>();
 
-  private PubRootCache(@NotNull final Project project) {
+  /**
+   * Incremented by each invalidation, so that a lookup that raced with one doesn't add stale entries.
+   * <p>
+   * Guarded by this, as are all writes to the maps.
+   */
+  private long generation;
+
+  PubRootCache(@NotNull final Project project) {
     this.project = project;
+
+    // VFS events are published on the application bus; connecting to it also lets the cache be used without a project.
+    ApplicationManager.getApplication().getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        filesChanged(events);
+      }
+    });
   }
 
   @Nullable
@@ -45,19 +98,12 @@ public class PubRootCache {
 
   @Nullable
   public PubRoot getRoot(VirtualFile file) {
-    file = findPubspecDir(file);
-    if (file == null) {
+    final VirtualFile dir = findPubspecDir(file);
+    if (dir == null) {
       return null;
     }
 
-    PubRoot root = cache.get(file);
-
-    if (root == null) {
-      cache.put(file, PubRoot.forDirectory(file));
-      root = cache.get(file);
-    }
-
-    return root;
+    return getRootForDirectory(dir);
   }
 
   @NotNull
@@ -65,13 +111,7 @@ public class PubRootCache {
     final List<PubRoot> result = new ArrayList<>();
 
     for (VirtualFile dir : ModuleRootManager.getInstance(module).getContentRoots()) {
-      PubRoot root = cache.get(dir);
-
-      if (root == null) {
-        cache.put(dir, PubRoot.forDirectory(dir));
-        root = cache.get(dir);
-      }
-
+      final PubRoot root = getRootForDirectory(dir);
       if (root != null) {
         result.add(root);
       }
@@ -89,19 +129,208 @@ public class PubRootCache {
     return result;
   }
 
+  /**
+   * Returns the packages a pub root depends on, or null if it has no package config.
+   * <p>
+   * The index is shared by every PubRoot for the same directory, and the config file is only parsed
+   * again after it changes.
+   */
   @Nullable
-  private VirtualFile findPubspecDir(VirtualFile file) {
+  public PackageIndex getPackageIndex(@NotNull PubRoot root) {
+    final VirtualFile dir = root.getRoot();
+    final long start = getGeneration();
+    final PackageIndex index = root.readPackageIndex(packageIndexes.get(dir));
+    synchronized (this) {
+      if (index == null) {
+        packageIndexes.remove(dir);
+      }
+      else if (generation == start) {
+        packageIndexes.put(dir, index);
+      }
+    }
+    return index;
+  }
+
+  @Nullable
+  private PubRoot getRootForDirectory(@NotNull VirtualFile dir) {
+    final Optional<PubRoot> cached = roots.get(dir);
+    if (cached != null) {
+      return cached.orElse(null);
+    }
+
+    final long start = getGeneration();
+    final PubRoot root = PubRoot.forDirectory(dir);
+    synchronized (this) {
+      if (generation == start) {
+        roots.put(dir, Optional.ofNullable(root));
+      }
+    }
+    return root;
+  }
+
+  @Nullable
+  private VirtualFile findPubspecDir(@Nullable VirtualFile file) {
     if (file == null) {
       return null;
     }
 
-    if (file.isDirectory()) {
-      final VirtualFile pubspec = file.findChild("pubspec.yaml");
-      if (pubspec != null && pubspec.exists() && !pubspec.isDirectory()) {
-        return file;
+    final VirtualFile start = file.isDirectory() ? file : file.getParent();
+    if (start == null) {
+      return null;
+    }
+    final Optional<VirtualFile> cached = pubspecDirs.get(start);
+    if (cached != null) {
+      return cached.orElse(null);
+    }
+
+    // Walk up to the first directory that has a pubspec or is already indexed.
+    final long startGeneration = getGeneration();
+    final List<VirtualFile> visited = new ArrayList<>();
+    Optional<VirtualFile> found = Optional.empty();
+    for (VirtualFile dir = start; dir != null; dir = dir.getParent()) {
+      final Optional<VirtualFile> indexed = pubspecDirs.get(dir);
+      if (indexed != null) {
+        found = indexed;
+        break;
+      }
+      visited.add(dir);
+      if (hasPubspec(dir)) {
+        found = Optional.of(dir);
+        break;
+      }
+    }
+
+    synchronized (this) {
+      if (generation == startGeneration) {
+        for (VirtualFile dir : visited) {
+          pubspecDirs.put(dir, found);
+        }
+      }
+    }
+    return found.orElse(null);
+  }
+
+  private static boolean hasPubspec(@NotNull VirtualFile dir) {
+    final VirtualFile pubspec = dir.findChild(PUBSPEC);
+    return pubspec != null && pubspec.exists() && !pubspec.isDirectory();
+  }
+
+  /**
+   * Returns a number that changes each time cached entries are invalidated.
+   */
+  @VisibleForTesting
+  synchronized long getGeneration() {
+    return generation;
+  }
+
+  private void filesChanged(@NotNull List<? extends VFileEvent> events) {
+    // Directories whose index entries (and those of their descendants) are out of date.
+    final Set<String> changedDirs = new HashSet<>();
+    // Directories whose PubRoot is out of date.
+    final Set<String> changedRoots = new HashSet<>();
+
+    for (VFileEvent event : events) {
+      if (event instanceof VFileContentChangeEvent) {
+        addRootForFile(changedRoots, event.getPath());
+      }
+      else if (event instanceof VFileCreateEvent) {
+        addDirForFile(changedDirs, event.getPath());
+        addRootForFile(changedRoots, event.getPath());
+      }
+      else if (event instanceof VFileCopyEvent) {
+        final VFileCopyEvent copy = (VFileCopyEvent)event;
+        final String path = copy.getNewParent().getPath() + "/" + copy.getNewChildName();
+        addDirForFile(changedDirs, path);
+        addRootForFile(changedRoots, path);
+      }
+      else if (event instanceof VFileDeleteEvent) {
+        addDirForRemoval(changedDirs, event, event.getPath());
+        addDirForFile(changedDirs, event.getPath());
+        addRootForFile(changedRoots, event.getPath());
+      }
+      else if (event instanceof VFileMoveEvent) {
+        final VFileMoveEvent move = (VFileMoveEvent)event;
+        for (String path : List.of(move.getOldPath(), move.getNewPath())) {
+          addDirForRemoval(changedDirs, event, path);
+          addDirForFile(changedDirs, path);
+          addRootForFile(changedRoots, path);
+        }
       }
+      else if (event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent)event).isRename()) {
+        final VFilePropertyChangeEvent rename = (VFilePropertyChangeEvent)event;
+        for (String path : List.of(rename.getOldPath(), rename.getNewPath())) {
+          addDirForRemoval(changedDirs, event, path);
+          addDirForFile(changedDirs, path);
+          addRootForFile(changedRoots, path);
+        }
+      }
+    }
+
+    if (!changedDirs.isEmpty() || !changedRoots.isEmpty()) {
+      invalidate(changedDirs, changedRoots);
     }
+  }
+
+  /**
+   * Adds a directory that was deleted, moved or renamed, since the pubspecs inside it are not
+   * reported separately. Other files can't be indexed directories, so they are skipped.
+   */
+  private static void addDirForRemoval(@NotNull Set<String> changedDirs, @NotNull VFileEvent event, @NotNull String path) {
+    final VirtualFile file = event.getFile();
+    if (file != null && file.isDirectory()) {
+      changedDirs.add(path);
+    }
+  }
+
+  /**
+   * Adds the directory of a pubspec that was added or removed.
+   */
+  private static void addDirForFile(@NotNull Set<String> changedDirs, @NotNull String path) {
+    if (PUBSPEC.equals(PathUtil.getFileName(path))) {
+      changedDirs.add(PathUtil.getParentPath(path));
+    }
+  }
+
+  /**
+   * Adds the root directory that a pubspec, .packages or package_config.json file belongs to.
+   */
+  private static void addRootForFile(@NotNull Set<String> changedRoots, @NotNull String path) {
+    final String name = PathUtil.getFileName(path);
+    if (PUBSPEC.equals(name) || PACKAGES.equals(name)) {
+      changedRoots.add(PathUtil.getParentPath(path));
+    }
+    else if (PACKAGE_CONFIG.equals(name)) {
+      // The file is in the root's .dart_tool directory.
+      changedRoots.add(PathUtil.getParentPath(PathUtil.getParentPath(path)));
+    }
+  }
+
+  private synchronized void invalidate(@NotNull Set<String> changedDirs, @NotNull Set<String> changedRoots) {
+    generation++;
+    pubspecDirs.keySet().removeIf((dir) -> isStale(dir, changedDirs));
+    roots.keySet().removeIf((dir) -> isStale(dir, changedDirs) || changedRoots.contains(dir.getPath()));
+    packageIndexes.keySet().removeIf((dir) -> isStale(dir, changedDirs) || changedRoots.contains(dir.getPath()));
+  }
+
+  private static boolean isStale(@NotNull VirtualFile dir, @NotNull Set<String> changedDirs) {
+    if (!dir.isValid()) {
+      return true;
+    }
+    // Moved and renamed directories keep their VirtualFile, so the new path is checked as well as the old one.
+    final String path = dir.getPath();
+    for (String changed : changedDirs) {
+      if (FileUtil.isAncestor(changed, path, false)) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-    return findPubspecDir(file.getParent());
+  @Override
+  public synchronized void dispose() {
+    generation++;
+    pubspecDirs.clear();
+    roots.clear();
+    packageIndexes.clear();
   }
 }
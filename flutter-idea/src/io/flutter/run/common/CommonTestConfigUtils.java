@@ -20,8 +20,10 @@ import com.jetbrains.lang.dart.psi.DartCallExpression;
 import com.jetbrains.lang.dart.psi.DartStringLiteralExpression;
 import io.flutter.dart.DartSyntax;
 import io.flutter.editor.ActiveEditorsOutlineService;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.dartlang.analysis.server.protocol.ElementKind;
 import org.dartlang.analysis.server.protocol.FlutterOutline;
@@ -67,54 +69,51 @@ public abstract class CommonTestConfigUtils {
     return null;
   }
 
-  private final Map<String, OutlineCache> cache = new HashMap<>();
+  private final Map<String, OutlineCache> cache = new ConcurrentHashMap<>();
 
   private void clearCachedInfo(String path) {
-    synchronized (this) {
-      cache.remove(path);
-    }
+    cache.remove(path);
   }
 
   /**
-   * Gets the elements from the outline that are runnable tests.
+   * Gets the index of the runnable tests in the file's outline.
    */
   @NotNull
-  private Map<Integer, TestType> getTestsFromOutline(@NotNull PsiFile file) {
+  private TestCallIndex getTestsFromOutline(@NotNull PsiFile file) {
     final Project project = file.getProject();
     final ActiveEditorsOutlineService outlineService = getActiveEditorsOutlineService(project);
     if (outlineService == null) {
-      return new HashMap<>();
+      return TestCallIndex.EMPTY;
     }
 
     final FlutterOutline outline = outlineService.getIfUpdated(file);
     final String path = file.getVirtualFile().getPath();
-    final boolean outlineOutdated;
-    synchronized (this) {
-      final OutlineCache entry = cache.get(path);
-      outlineOutdated = cache.containsKey(path) && outline != entry.outline;
+    final OutlineCache entry = cache.get(path);
+    if (entry != null && outline == entry.outline) {
+      return entry.index;
     }
     // If the outline is outdated, then request a new pass to generate line markers.
-    if (outline == null || outlineOutdated) {
+    if (outline == null || entry != null) {
       clearCachedInfo(path);
       final LineMarkerUpdatingListener listener = getListenerForFile(file);
       if (listener != null) {
         outlineService.addListener(listener);
       }
-      return new HashMap<>();
+      return TestCallIndex.EMPTY;
     }
 
-    synchronized (this) {
-      final OutlineCache entry = new OutlineCache(outline, file);
-      cache.put(path, entry);
-      return entry.callToTestType;
-    }
+    // Indexes built concurrently for the same outline are equivalent, so either may be kept.
+    final OutlineCache created = new OutlineCache(outline, file);
+    cache.put(path, created);
+    return created.index;
   }
 
   @Nullable
   protected TestType findNamedTestCall(@NotNull PsiElement element) {
     if (element instanceof DartCallExpression) {
       final DartCallExpression call = (DartCallExpression)element;
-      return getTestsFromOutline(element.getContainingFile()).get(call.getTextOffset());
+      final TestCallIndex.Call testCall = getTestsFromOutline(element.getContainingFile()).getCallAt(call.getTextOffset());
+      return testCall == null ? null : testCall.getType();
     }
     return null;
   }
@@ -126,9 +125,15 @@ public abstract class CommonTestConfigUtils {
   public String findTestName(@Nullable PsiElement elt) {
     if (elt == null) return null;
 
-    final DartCallExpression call = findEnclosingTestCall(elt, getTestsFromOutline(elt.getContainingFile()));
-    if (call == null) return null;
+    final TestCallIndex.Call call = getTestsFromOutline(elt.getContainingFile()).findEnclosingCall(elt.getTextOffset());
+    return call == null ? null : call.getName();
+  }
 
+  /**
+   * Returns the name passed to a test or group call, or null if it isn't a plain string literal.
+   */
+  @Nullable
+  private static String getTestName(@NotNull DartCallExpression call) {
     final DartStringLiteralExpression lit = DartSyntax.getArgument(call, 0, DartStringLiteralExpression.class);
     if (lit == null) return null;
 
@@ -138,26 +143,6 @@ public abstract class CommonTestConfigUtils {
     return StringEscapeUtils.unescapeJava(name);
   }
 
-  /**
-   * Finds the {@link DartCallExpression} in the key set of {@param callToTestType} and also the closest parent of {@param element}.
-   */
-  @Nullable
-  private DartCallExpression findEnclosingTestCall(@NotNull PsiElement element, @NotNull Map<Integer, TestType> callToTestType) {
-    while (element != null) {
-      if (element instanceof DartCallExpression) {
-        final DartCallExpression call = (DartCallExpression)element;
-        if (callToTestType.containsKey(call.getTextOffset())) {
-          return call;
-        }
-        // If we found nothing, move up to the element's parent before finding the enclosing function call.
-        // This avoids an infinite loop found during testing.
-        element = element.getParent();
-      }
-      element = DartSyntax.findClosestEnclosingFunctionCall(element);
-    }
-    return null;
-  }
-
   @VisibleForTesting
   @Nullable
   protected ActiveEditorsOutlineService getActiveEditorsOutlineService(@NotNull Project project) {
@@ -167,65 +152,64 @@ public abstract class CommonTestConfigUtils {
   /**
    * The cache of listeners for the path of each {@link PsiFile} that has an outded {@link FlutterOutline}.
    */
-  private static final Map<String, LineMarkerUpdatingListener> listenerCache = new HashMap<>();
+  private static final Map<String, LineMarkerUpdatingListener> listenerCache = new ConcurrentHashMap<>();
 
+  @Nullable
   private LineMarkerUpdatingListener getListenerForFile(@NotNull final PsiFile file) {
     final String path = file.getVirtualFile().getCanonicalPath();
     final ActiveEditorsOutlineService service = getActiveEditorsOutlineService(file.getProject());
-    if (!listenerCache.containsKey(path) && service != null) {
-      listenerCache.put(path, new LineMarkerUpdatingListener(this, file.getProject(), service));
+    if (path == null || service == null) {
+      return null;
     }
-    return listenerCache.get(path);
+    return listenerCache.computeIfAbsent(path, (key) -> new LineMarkerUpdatingListener(this, file.getProject(), service));
   }
 
   private static class OutlineCache {
-    final Map<Integer, TestType> callToTestType;
+    final TestCallIndex index;
     final FlutterOutline outline;
 
     private OutlineCache(FlutterOutline outline, PsiFile file) {
-      this.callToTestType = new HashMap<>();
       this.outline = outline;
 
-      populateTestTypeMap(outline, file);
+      final List<TestCallIndex.Call> calls = new ArrayList<>();
+      collectTestCalls(outline, file, calls);
+      this.index = new TestCallIndex(calls);
     }
 
     /**
-     * Traverses the {@param outline} tree and adds to {@link OutlineCache#callToTestType } the {@link DartCallExpression}s that are tests or test groups.
+     * Traverses the {@param outline} tree and adds to {@param calls} the {@link DartCallExpression}s that are tests or test groups.
      */
-    private void populateTestTypeMap(@NotNull FlutterOutline outline, @NotNull PsiFile file) {
+    private static void collectTestCalls(@NotNull FlutterOutline outline, @NotNull PsiFile file, @NotNull List<TestCallIndex.Call> calls) {
       if (outline.getDartElement() != null) {
-        final PsiElement element;
-
+        final TestType type;
         switch (outline.getDartElement().getKind()) {
-          case UNIT_TEST_GROUP: {
+          case UNIT_TEST_GROUP:
             // We found a test group.
-            element = file.findElementAt(outline.getOffset());
-            final DartCallExpression enclosingCall = DartSyntax.findClosestEnclosingFunctionCall(element);
-            if (enclosingCall != null) {
-              callToTestType.put(enclosingCall.getTextOffset(), TestType.GROUP);
-            }
-          }
-          break;
-
-          case UNIT_TEST_TEST: {
+            type = TestType.GROUP;
+            break;
+          case UNIT_TEST_TEST:
             // We found a unit test.
-            element = file.findElementAt(outline.getOffset());
-            final DartCallExpression enclosingCall = DartSyntax.findClosestEnclosingFunctionCall(element);
-            if (enclosingCall != null) {
-              callToTestType.put(enclosingCall.getTextOffset(), TestType.SINGLE);
-            }
-          }
-          break;
-
+            type = TestType.SINGLE;
+            break;
           default:
             // We found no test.
+            type = null;
             break;
         }
+
+        if (type != null) {
+          final PsiElement element = file.findElementAt(outline.getOffset());
+          final DartCallExpression enclosingCall = DartSyntax.findClosestEnclosingFunctionCall(element);
+          if (enclosingCall != null) {
+            calls.add(new TestCallIndex.Call(enclosingCall.getTextOffset(), enclosingCall.getTextRange().getEndOffset(), type,
+                                             getTestName(enclosingCall)));
+          }
+        }
       }
 
       if (outline.getChildren() != null) {
         for (FlutterOutline child : outline.getChildren()) {
-          populateTestTypeMap(child, file);
+          collectTestCalls(child, file, calls);
         }
       }
     }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.common;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The test and group calls in one version of a Dart file, indexed by offset and by name.
+ * <p>
+ * Calls are expected to nest properly, as calls in source code do. Looking up the call at or
+ * around an offset takes a binary search and looking up a call by the names of its enclosing
+ * groups is a hash lookup, so large generated test files don't need a walk of the PSI tree per
+ * query.
+ * <p>
+ * Indexes and calls are immutable and safe to share between threads; a call's parent and name path
+ * are kept by the index, so the same calls may be put in more than one index. Callers are
+ * responsible for building a new index when the file changes.
+ */
+public class TestCallIndex {
+  public static final TestCallIndex EMPTY = new TestCallIndex(Collections.emptyList());
+
+  /**
+   * A test or group call.
+   */
+  public static class Call {
+    private final int startOffset;
+    private final int endOffset;
+    @NotNull private final TestType type;
+    @Nullable private final String name;
+
+    public Call(int startOffset, int endOffset, @NotNull TestType type, @Nullable String name) {
+      this.startOffset = startOffset;
+      this.endOffset = endOffset;
+      this.type = type;
+      this.name = name;
+    }
+
+    public int getStartOffset() {
+      return startOffset;
+    }
+
+    public int getEndOffset() {
+      return endOffset;
+    }
+
+    @NotNull
+    public TestType getType() {
+      return type;
+    }
+
+    /**
+     * The name passed to the call, or null if it isn't a string literal.
+     */
+    @Nullable
+    public String getName() {
+      return name;
+    }
+
+    private boolean contains(int offset) {
+      return startOffset <= offset && offset < endOffset;
+    }
+  }
+
+  @NotNull private final Call[] calls;
+
+  /**
+   * For each call, the position in {@link #calls} of the innermost call containing it, or -1.
+   */
+  @NotNull private final int[] parents;
+
+  @NotNull private final List<List<String>> namePaths;
+  @NotNull private final Map<List<String>, Call> byNamePath = new HashMap<>();
+
+  public TestCallIndex(@NotNull List<Call> calls) {
+    final List<Call> sorted = new ArrayList<>(calls);
+    // Outer calls before the calls they contain.
+    sorted.sort(Comparator.comparingInt(Call::getStartOffset).thenComparing(Comparator.comparingInt(Call::getEndOffset).reversed()));
+    this.calls = sorted.toArray(new Call[0]);
+    this.parents = new int[this.calls.length];
+
+    final List<List<String>> namePaths = new ArrayList<>(this.calls.length);
+    final List<Integer> enclosing = new ArrayList<>();
+    for (int i = 0; i < this.calls.length; i++) {
+      final Call call = this.calls[i];
+      while (!enclosing.isEmpty() && this.calls[enclosing.get(enclosing.size() - 1)].endOffset <= call.startOffset) {
+        enclosing.remove(enclosing.size() - 1);
+      }
+      parents[i] = enclosing.isEmpty() ? -1 : enclosing.get(enclosing.size() - 1);
+      int group = parents[i];
+      while (group >= 0 && this.calls[group].type != TestType.GROUP) {
+        group = parents[group];
+      }
+      final List<String> path = new ArrayList<>(group < 0 ? Collections.emptyList() : namePaths.get(group));
+      path.add(call.name);
+      final List<String> namePath = Collections.unmodifiableList(path);
+      namePaths.add(namePath);
+      // Outer group names may be left out of a lookup. Like a search of the file, the first call
+      // matching a lookup wins.
+      for (int j = 0; j < path.size(); j++) {
+        byNamePath.putIfAbsent(namePath.subList(j, path.size()), call);
+      }
+      enclosing.add(i);
+    }
+    this.namePaths = namePaths;
+  }
+
+  @NotNull
+  public List<Call> getCalls() {
+    return List.of(calls);
+  }
+
+  public boolean isEmpty() {
+    return calls.length == 0;
+  }
+
+  /**
+   * Returns the call that starts at the given offset, or null if none does.
+   */
+  @Nullable
+  public Call getCallAt(int startOffset) {
+    final int index = findLastStartingAtOrBefore(startOffset);
+    return index < 0 || calls[index].startOffset != startOffset ? null : calls[index];
+  }
+
+  /**
+   * Returns the innermost call containing the given offset, or null if none does.
+   */
+  @Nullable
+  public Call findEnclosingCall(int offset) {
+    int index = findLastStartingAtOrBefore(offset);
+    while (index >= 0 && !calls[index].contains(offset)) {
+      index = parents[index];
+    }
+    return index < 0 ? null : calls[index];
+  }
+
+  /**
+   * Returns the innermost call containing the given one, or null if it is top-level or not in this index.
+   */
+  @Nullable
+  public Call getParent(@NotNull Call call) {
+    final int index = indexOf(call);
+    return index < 0 || parents[index] < 0 ? null : calls[parents[index]];
+  }
+
+  /**
+   * Returns the names of the group calls enclosing the given one followed by its own name, or an empty list if it
+   * is not in this index. Null names are kept.
+   */
+  @NotNull
+  public List<String> getNamePath(@NotNull Call call) {
+    final int index = indexOf(call);
+    return index < 0 ? Collections.emptyList() : namePaths.get(index);
+  }
+
+  /**
+   * Returns the first call whose name path ends with the given names, or null if there is none.
+   */
+  @Nullable
+  public Call findByNamePath(@NotNull List<String> namePath) {
+    return byNamePath.get(namePath);
+  }
+
+  private int indexOf(@NotNull Call call) {
+    for (int index = findLastStartingAtOrBefore(call.startOffset); index >= 0 && calls[index].startOffset == call.startOffset; index--) {
+      if (calls[index] == call) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private int findLastStartingAtOrBefore(int offset) {
+    int low = 0;
+    int high = calls.length - 1;
+    int result = -1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (calls[mid].startOffset <= offset) {
+        result = mid;
+        low = mid + 1;
+      }
+      else {
+        high = mid - 1;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,547 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.daemon;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.*;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import io.flutter.FlutterInitializer;
+import io.flutter.console.FlutterConsoles;
+import io.flutter.sdk.FlutterCommand;
+import io.flutter.sdk.FlutterSdk;
+import io.flutter.utils.JsonUtils;
+import io.flutter.utils.MostlySilentColoredProcessHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A DevTools server process, shared by every open project that would start it the same way.
+ * <p>
+ * Servers are owned by {@link DevToolsServerPool}. A server that has stopped or no longer accepts
+ * connections is restarted, either when the pool checks its health or when an instance is next
+ * requested, so callers asking for an instance get a live one.
+ */
+public class DevToolsServer {
+  private static final Logger LOG = Logger.getInstance(DevToolsServer.class);
+
+  private static final int CONNECT_TIMEOUT_MS = 2000;
+  private static final int FAILED_CHECKS_BEFORE_RESTART = 2;
+
+  /**
+   * How a server is started.
+   */
+  public static class Launch {
+    enum Kind {DART, DAEMON, PUB}
+
+    @NotNull final Kind kind;
+    @Nullable final GeneralCommandLine command;
+    @Nullable final FlutterSdk sdk;
+
+    private Launch(@NotNull Kind kind, @Nullable GeneralCommandLine command, @Nullable FlutterSdk sdk) {
+      this.kind = kind;
+      this.command = command;
+      this.sdk = sdk;
+    }
+
+    /**
+     * Runs a DevTools server that prints its address as a JSON event, like `dart devtools --machine`.
+     */
+    static Launch dart(@NotNull GeneralCommandLine command) {
+      return new Launch(Kind.DART, command, null);
+    }
+
+    /**
+     * Asks a Flutter daemon to serve DevTools.
+     */
+    static Launch daemon(@NotNull GeneralCommandLine command) {
+      return new Launch(Kind.DAEMON, command, null);
+    }
+
+    /**
+     * Activates DevTools with pub and runs it with `pub global run`, for older Flutter SDKs.
+     */
+    static Launch pub(@NotNull FlutterSdk sdk) {
+      return new Launch(Kind.PUB, null, sdk);
+    }
+
+    /**
+     * Projects whose launches have the same key share a server.
+     */
+    @NotNull
+    String getKey() {
+      if (command != null) {
+        return kind + ":" + command.getWorkDirectory() + ":" + command.getCommandLineString();
+      }
+      assert sdk != null;
+      return kind + ":" + sdk.getHomePath();
+    }
+  }
+
+  /**
+   * Starts, stops, and probes server processes, and reports how starting them went. Tests replace it
+   * with a fake.
+   */
+  interface Host {
+    /**
+     * Starts a process for the server, reporting it with {@link #setProcess} and its address with
+     * {@link #complete}, or failing the start with {@link #logExceptionAndComplete}.
+     */
+    void start(@NotNull DevToolsServer server, @NotNull CompletableFuture<DevToolsInstance> starting, @Nullable Project requester);
+
+    /**
+     * Stops a process that the server no longer uses.
+     */
+    void stop(@NotNull ProcessHandler process, @Nullable DaemonApi daemonApi);
+
+    /**
+     * Returns true if the server accepts connections.
+     */
+    boolean canConnect(@NotNull DevToolsInstance instance);
+
+    void reportStarted(long millis, boolean restarted);
+
+    void reportFailure(@NotNull Exception exception);
+  }
+
+  @NotNull private final Launch launch;
+  @NotNull private final Host host;
+  private final Set<Project> projects = ConcurrentHashMap.newKeySet();
+
+  // The fields below are guarded by this.
+  @Nullable private CompletableFuture<DevToolsInstance> future;
+  @Nullable private ProcessHandler process;
+  @Nullable private DaemonApi daemonApi;
+  private long startedAt;
+  private long startupMillis = -1;
+  private int restartCount;
+  private int failedChecks;
+  private boolean shutdown;
+
+  DevToolsServer(@NotNull Launch launch) {
+    this(launch, new ProcessHost());
+  }
+
+  @VisibleForTesting
+  DevToolsServer(@NotNull Launch launch, @NotNull Host host) {
+    this.launch = launch;
+    this.host = host;
+  }
+
+  @NotNull
+  String getKey() {
+    return launch.getKey();
+  }
+
+  void addProject(@NotNull Project project) {
+    projects.add(project);
+  }
+
+  /**
+   * Returns true if no projects use this server any more.
+   */
+  boolean removeProject(@NotNull Project project) {
+    projects.remove(project);
+    return projects.isEmpty();
+  }
+
+  /**
+   * Returns the number of open projects sharing this server.
+   */
+  public int getProjectCount() {
+    return projects.size();
+  }
+
+  /**
+   * Returns how long the last start of this server took to report its address, or -1 if it hasn't yet.
+   */
+  public synchronized long getStartupMillis() {
+    return startupMillis;
+  }
+
+  /**
+   * Returns the number of times this server was started again after its first start.
+   */
+  public synchronized int getRestartCount() {
+    return restartCount;
+  }
+
+  /**
+   * Returns the latest start of this server, which may still be in progress, without starting it.
+   * Returns null if it was never started.
+   */
+  @Nullable
+  public synchronized CompletableFuture<DevToolsInstance> getLatestStart() {
+    return future;
+  }
+
+  /**
+   * Returns the running server, starting it if it isn't running or failed to start.
+   *
+   * @param requester the project to show errors in, if starting fails
+   */
+  @NotNull
+  synchronized CompletableFuture<DevToolsInstance> getInstance(@Nullable Project requester) {
+    if (shutdown || future == null || future.isCompletedExceptionally() || future.isCancelled() || isProcessStopped()) {
+      start(requester);
+    }
+    return future;
+  }
+
+  /**
+   * Like {@link #getInstance}, but also starts the server again if it is still starting.
+   */
+  @NotNull
+  synchronized CompletableFuture<DevToolsInstance> getInstanceWithForcedRestart(@Nullable Project requester) {
+    if (future != null && !future.isDone()) {
+      future.cancel(true);
+    }
+    return getInstance(requester);
+  }
+
+  /**
+   * Restarts the server if it has stopped or stopped accepting connections since it started.
+   * <p>
+   * Called on a background thread.
+   */
+  void checkHealth() {
+    final DevToolsInstance instance;
+    synchronized (this) {
+      if (shutdown || future == null || !future.isDone() || future.isCompletedExceptionally() || future.isCancelled()) {
+        // Not running, or still starting; the next request starts it.
+        return;
+      }
+      instance = future.getNow(null);
+    }
+
+    final boolean healthy = !isProcessStopped() && host.canConnect(instance);
+    synchronized (this) {
+      if (healthy) {
+        failedChecks = 0;
+        return;
+      }
+      if (++failedChecks < FAILED_CHECKS_BEFORE_RESTART && !isProcessStopped()) {
+        return;
+      }
+      LOG.info("DevTools server at " + instance.host + ":" + instance.port + " is not responding; restarting it");
+      start(null);
+    }
+  }
+
+  /**
+   * Stops the server. It is not started again.
+   */
+  void shutdown() {
+    synchronized (this) {
+      shutdown = true;
+      if (future != null && !future.isDone()) {
+        future.cancel(true);
+      }
+      stopProcess();
+    }
+  }
+
+  private void start(@Nullable Project requester) {
+    if (shutdown) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(new IllegalStateException("DevTools server was shut down"));
+      return;
+    }
+    if (future != null) {
+      restartCount++;
+      if (!future.isDone()) {
+        future.cancel(true);
+      }
+    }
+    stopProcess();
+
+    final CompletableFuture<DevToolsInstance> starting = new CompletableFuture<>();
+    future = starting;
+    startedAt = System.currentTimeMillis();
+    failedChecks = 0;
+
+    host.start(this, starting, requester);
+  }
+
+  private void stopProcess() {
+    final ProcessHandler oldProcess = process;
+    final DaemonApi oldDaemonApi = daemonApi;
+    process = null;
+    daemonApi = null;
+    if (oldProcess == null || oldProcess.isProcessTerminated()) {
+      return;
+    }
+    host.stop(oldProcess, oldDaemonApi);
+  }
+
+  private synchronized boolean isProcessStopped() {
+    return process != null && process.isProcessTerminated();
+  }
+
+  /**
+   * Records the process for the given start, unless a newer start has replaced it.
+   */
+  synchronized boolean setProcess(@NotNull CompletableFuture<DevToolsInstance> starting,
+                                          @NotNull ProcessHandler handler,
+                                          @Nullable DaemonApi api) {
+    if (future != starting || starting.isDone()) {
+      return false;
+    }
+    process = handler;
+    daemonApi = api;
+    return true;
+  }
+
+  private void setUpWithDart(@NotNull CompletableFuture<DevToolsInstance> starting) {
+    assert launch.command != null;
+    try {
+      final ProcessHandler handler = new MostlySilentColoredProcessHandler(launch.command);
+      handler.addProcessListener(new ServerStartedListener(starting, handler, true));
+      if (!setProcess(starting, handler, null)) {
+        return;
+      }
+      handler.startNotify();
+    }
+    catch (ExecutionException e) {
+      logExceptionAndComplete(starting, e);
+    }
+  }
+
+  private void setUpWithDaemon(@NotNull CompletableFuture<DevToolsInstance> starting) {
+    assert launch.command != null;
+    try {
+      final ProcessHandler handler = new MostlySilentColoredProcessHandler(launch.command);
+      final DaemonApi api = new DaemonApi(handler);
+      if (!setProcess(starting, handler, api)) {
+        return;
+      }
+      api.listen(handler, new DaemonEvent.Listener() {
+      });
+      handler.addProcessListener(new ServerStartedListener(starting, handler, false));
+      api.devToolsServe().thenAccept((DaemonApi.DevToolsAddress address) -> {
+        if (address == null) {
+          logExceptionAndComplete(starting, "DevTools address was null");
+        }
+        else {
+          complete(starting, new DevToolsInstance(address.host, address.port));
+        }
+      });
+    }
+    catch (ExecutionException e) {
+      logExceptionAndComplete(starting, e);
+    }
+  }
+
+  private void setUpWithPub(@NotNull CompletableFuture<DevToolsInstance> starting, @Nullable Project requester) {
+    final FlutterSdk sdk = launch.sdk;
+    assert sdk != null;
+
+    if (!pubActivateDevTools(sdk, requester)) {
+      logExceptionAndComplete(starting, "pub activate of DevTools failed");
+      return;
+    }
+
+    final FlutterCommand command = sdk.flutterPub(null, "global", "run", "devtools", "--machine", "--port=0");
+    final ColoredProcessHandler handler = command.startProcessOrShowError(requester);
+    if (handler == null) {
+      logExceptionAndComplete(starting, "Handler was null for pub global run command");
+      return;
+    }
+    handler.addProcessListener(new ServerStartedListener(starting, handler, false));
+    if (!setProcess(starting, handler, null)) {
+      handler.destroyProcess();
+      return;
+    }
+    handler.startNotify();
+  }
+
+  private static boolean pubActivateDevTools(@NotNull FlutterSdk sdk, @Nullable Project requester) {
+    final FlutterCommand command = sdk.flutterPub(null, "global", "activate", "devtools");
+
+    final Process process = command.start((ProcessOutput output) -> {
+      if (output.getExitCode() != 0 && requester != null && !requester.isDisposed()) {
+        final String message = (output.getStdout() + "\n" + output.getStderr()).trim();
+        FlutterConsoles.displayMessage(requester, null, message, true);
+      }
+    }, null);
+    if (process == null) {
+      return false;
+    }
+
+    try {
+      return process.waitFor() == 0;
+    }
+    catch (RuntimeException | InterruptedException re) {
+      return false;
+    }
+  }
+
+  /**
+   * Completes the given start, unless a newer start has replaced it.
+   */
+  void complete(@NotNull CompletableFuture<DevToolsInstance> starting, @NotNull DevToolsInstance instance) {
+    final long millis;
+    final boolean restarted;
+    synchronized (this) {
+      if (future != starting || !starting.complete(instance)) {
+        return;
+      }
+      millis = System.currentTimeMillis() - startedAt;
+      startupMillis = millis;
+      restarted = restartCount > 0;
+    }
+    host.reportStarted(millis, restarted);
+  }
+
+  private void logExceptionAndComplete(@NotNull CompletableFuture<DevToolsInstance> starting, @NotNull String message) {
+    logExceptionAndComplete(starting, new Exception(message));
+  }
+
+  /**
+   * Fails the given start, unless it already finished.
+   */
+  void logExceptionAndComplete(@NotNull CompletableFuture<DevToolsInstance> starting, @NotNull Exception exception) {
+    if (starting.isDone()) {
+      return;
+    }
+    LOG.info(exception);
+    host.reportFailure(exception);
+    starting.completeExceptionally(exception);
+  }
+
+  /**
+   * Runs servers as processes on pooled threads.
+   */
+  private static class ProcessHost implements Host {
+    @Override
+    public void start(@NotNull DevToolsServer server, @NotNull CompletableFuture<DevToolsInstance> starting, @Nullable Project requester) {
+      ApplicationManager.getApplication().executeOnPooledThread(() -> {
+        switch (server.launch.kind) {
+          case DART:
+            server.setUpWithDart(starting);
+            break;
+          case DAEMON:
+            server.setUpWithDaemon(starting);
+            break;
+          case PUB:
+            server.setUpWithPub(starting, requester);
+            break;
+        }
+      });
+    }
+
+    @Override
+    public void stop(@NotNull ProcessHandler process, @Nullable DaemonApi daemonApi) {
+      ApplicationManager.getApplication().executeOnPooledThread(() -> {
+        if (daemonApi != null) {
+          try {
+            daemonApi.daemonShutdown().get(5, TimeUnit.SECONDS);
+            return;
+          }
+          catch (InterruptedException | java.util.concurrent.ExecutionException | TimeoutException e) {
+            LOG.info("DevTools daemon did not shut down normally: " + e);
+          }
+        }
+        if (!process.isProcessTerminated()) {
+          process.destroyProcess();
+        }
+      });
+    }
+
+    @Override
+    public boolean canConnect(@NotNull DevToolsInstance instance) {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(instance.host, instance.port), CONNECT_TIMEOUT_MS);
+        return true;
+      }
+      catch (IOException e) {
+        return false;
+      }
+    }
+
+    @Override
+    public void reportStarted(long millis, boolean restarted) {
+      FlutterInitializer.getAnalytics().sendTiming("devtools-service", restarted ? "restart" : "start", millis);
+    }
+
+    @Override
+    public void reportFailure(@NotNull Exception exception) {
+      FlutterInitializer.getAnalytics().sendExpectedException("devtools-service", exception);
+    }
+  }
+
+  /**
+   * Reads the server address from JSON output and fails the start if the process exits first.
+   */
+  private class ServerStartedListener extends ProcessAdapter {
+    @NotNull private final CompletableFuture<DevToolsInstance> starting;
+    @NotNull private final ProcessHandler handler;
+    private final boolean checkEventName;
+
+    ServerStartedListener(@NotNull CompletableFuture<DevToolsInstance> starting, @NotNull ProcessHandler handler, boolean checkEventName) {
+      this.starting = starting;
+      this.handler = handler;
+      this.checkEventName = checkEventName;
+    }
+
+    @Override
+    public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+      if (starting.isDone() || launch.kind == Launch.Kind.DAEMON) {
+        return;
+      }
+      final String text = event.getText().trim();
+
+      if (text.startsWith("{") && text.endsWith("}")) {
+        // {"event":"server.started","params":{"host":"127.0.0.1","port":9100}}
+
+        try {
+          final JsonElement element = JsonUtils.parseString(text);
+          final JsonObject obj = element.getAsJsonObject();
+          if (checkEventName && !"server.started".equals(JsonUtils.getStringMember(obj, "event"))) {
+            return;
+          }
+
+          final JsonObject params = obj.getAsJsonObject("params");
+          final String host = JsonUtils.getStringMember(params, "host");
+          final int port = JsonUtils.getIntMember(params, "port");
+
+          if (port != -1) {
+            complete(starting, new DevToolsInstance(host, port));
+          }
+          else {
+            logExceptionAndComplete(starting, "DevTools port was invalid");
+            handler.destroyProcess();
+          }
+        }
+        catch (JsonSyntaxException e) {
+          logExceptionAndComplete(starting, e);
+          handler.destroyProcess();
+        }
+      }
+    }
+
+    @Override
+    public void processTerminated(@NotNull ProcessEvent event) {
+      logExceptionAndComplete(starting, "DevTools server exited with code " + event.getExitCode());
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.daemon;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DevTools servers used by open projects.
+ * <p>
+ * Projects that start DevTools the same way, usually because they use the same SDK, share one
+ * server. Running servers are health-checked in the background and restarted if they stop
+ * responding. A server is stopped when the last project using it is closed.
+ */
+public class DevToolsServerPool implements Disposable {
+  private static final long HEALTH_CHECK_INTERVAL_SECONDS = 30;
+
+  @NotNull
+  public static DevToolsServerPool getInstance() {
+    return ApplicationManager.getApplication().getService(DevToolsServerPool.class);
+  }
+
+  private final Map<String, DevToolsServer> servers = new HashMap<>();
+  private final Map<Project, DevToolsServer> serverForProject = new HashMap<>();
+  @Nullable private ScheduledFuture<?> healthCheck;
+
+  /**
+   * Returns the server to use for the given project, sharing it with other projects that start
+   * DevTools the same way.
+   */
+  @NotNull
+  synchronized DevToolsServer acquire(@NotNull Project project, @NotNull DevToolsServer.Launch launch) {
+    final DevToolsServer current = serverForProject.get(project);
+    if (current != null && current.getKey().equals(launch.getKey())) {
+      return current;
+    }
+    if (current != null) {
+      // The project's SDK changed.
+      release(project);
+    }
+
+    final DevToolsServer server = servers.computeIfAbsent(launch.getKey(), (key) -> new DevToolsServer(launch));
+    server.addProject(project);
+    serverForProject.put(project, server);
+
+    if (healthCheck == null) {
+      healthCheck = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(
+        this::checkHealth, HEALTH_CHECK_INTERVAL_SECONDS, HEALTH_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+    return server;
+  }
+
+  /**
+   * Stops using a server for the given project, stopping the server if no other project uses it.
+   */
+  synchronized void release(@NotNull Project project) {
+    final DevToolsServer server = serverForProject.remove(project);
+    if (server != null && server.removeProject(project)) {
+      servers.remove(server.getKey());
+      server.shutdown();
+    }
+    if (servers.isEmpty() && healthCheck != null) {
+      healthCheck.cancel(false);
+      healthCheck = null;
+    }
+  }
+
+  /**
+   * Returns the server used by the given project, or null if it hasn't asked for one.
+   */
+  @Nullable
+  public synchronized DevToolsServer getServer(@NotNull Project project) {
+    return serverForProject.get(project);
+  }
+
+  private void checkHealth() {
+    final List<DevToolsServer> toCheck;
+    synchronized (this) {
+      toCheck = new ArrayList<>(servers.values());
+    }
+    for (DevToolsServer server : toCheck) {
+      server.checkHealth();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    final List<DevToolsServer> toStop;
+    synchronized (this) {
+      if (healthCheck != null) {
+        healthCheck.cancel(false);
+        healthCheck = null;
+      }
+      toStop = new ArrayList<>(servers.values());
+      servers.clear();
+      serverForProject.clear();
+    }
+    for (DevToolsServer server : toStop) {
+      server.shutdown();
+    }
+  }
+}
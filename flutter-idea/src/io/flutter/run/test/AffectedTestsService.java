@@ -0,0 +1,420 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.test;
+
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessListener;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.jetbrains.lang.dart.util.PubspecYamlUtil;
+import io.flutter.pub.PubRoot;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Finds the test files affected by the Dart files edited since the tests last passed.
+ * <p>
+ * An import graph is built for a pub root the first time its affected tests are requested. After
+ * that, VFS events mark edited files as changed and the graph only re-reads those files. A test is
+ * affected if it has not passed since one of the files it depends on changed, or has never passed
+ * in this session.
+ * <p>
+ * VFS events are handled in a write action, so the service's lock is only held to update its own
+ * bookkeeping. Each graph is guarded by its own lock, and is read and searched without holding the
+ * service's.
+ */
+public class AffectedTestsService implements Disposable {
+  private static final Logger LOG = Logger.getInstance(AffectedTestsService.class);
+
+  /**
+   * How the files of a pub root are read.
+   */
+  interface FileSource {
+    @Nullable
+    String getPackageName(@NotNull String rootPath);
+
+    @NotNull
+    List<String> findDartFiles(@NotNull String rootPath);
+
+    /**
+     * Returns the contents of a file, or null if it doesn't exist.
+     */
+    @Nullable
+    CharSequence loadText(@NotNull String path);
+  }
+
+  @NotNull
+  public static AffectedTestsService getInstance(@NotNull final Project project) {
+    return Objects.requireNonNull(project.getService(AffectedTestsService.class));
+  }
+
+  @NotNull private final FileSource fileSource;
+
+  /**
+   * Import graphs by pub root path.
+   */
+  private final Map<String, DartImportGraph> graphs = new HashMap<>();
+
+  /**
+   * Files whose edges need to be re-read before the graph is next used.
+   */
+  private final Set<String> stale = new HashSet<>();
+
+  /**
+   * The generation at which each directory changed, until the files the graph has in it are marked changed.
+   */
+  private final Map<String, Long> changedDirs = new HashMap<>();
+
+  /**
+   * The generation at which each file last changed, for files changed since their tests passed.
+   */
+  private final Map<String, Long> changedAt = new HashMap<>();
+
+  /**
+   * The generation at which each test file last passed.
+   */
+  private final Map<String, Long> passedAt = new HashMap<>();
+
+  private long generation;
+
+  private AffectedTestsService(@NotNull Project project) {
+    this(new VfsFileSource());
+    project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        final List<String> paths = new ArrayList<>();
+        for (VFileEvent event : events) {
+          paths.add(event.getPath());
+          if (event instanceof VFileMoveEvent) {
+            paths.add(((VFileMoveEvent)event).getOldPath());
+          }
+          else if (event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent)event).isRename()) {
+            paths.add(((VFilePropertyChangeEvent)event).getOldPath());
+          }
+        }
+        filesChanged(paths);
+      }
+    });
+  }
+
+  @VisibleForTesting
+  AffectedTestsService(@NotNull FileSource fileSource) {
+    this.fileSource = fileSource;
+  }
+
+  /**
+   * Returns a marker for the changes seen so far, to pass to {@link #testsPassed}.
+   */
+  public synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Returns the test files among the given ones that are affected by changes since they last passed.
+   * <p>
+   * Builds the import graph of the pub root the first time it is called for that root, which reads
+   * every Dart file in it, so it should not be called on the UI thread.
+   *
+   * @param testFiles paths relative to the pub root
+   */
+  @NotNull
+  public List<String> findAffectedTests(@NotNull PubRoot root, @NotNull List<String> testFiles) {
+    return findAffectedTests(root.getPath(), testFiles);
+  }
+
+  @NotNull
+  List<String> findAffectedTests(@NotNull String rootPath, @NotNull List<String> testFiles) {
+    final DartImportGraph graph = getGraph(rootPath);
+    final Map<String, Long> changed;
+    final Map<String, Long> passed;
+    synchronized (this) {
+      changed = new HashMap<>(changedAt);
+      passed = new HashMap<>(passedAt);
+    }
+
+    final Map<String, Long> dependentChangedAt = new HashMap<>();
+    // Changes that every test depending on them has passed since.
+    final List<String> settled = new ArrayList<>();
+    synchronized (graph) {
+      for (Map.Entry<String, Long> entry : changed.entrySet()) {
+        if (!graph.contains(entry.getKey())) {
+          continue;
+        }
+        boolean needed = false;
+        for (String dependent : graph.findDependents(List.of(entry.getKey()))) {
+          if (isTestFile(dependent) && passed.getOrDefault(dependent, -1L) < entry.getValue()) {
+            dependentChangedAt.merge(dependent, entry.getValue(), Math::max);
+            needed = true;
+          }
+        }
+        if (!needed) {
+          settled.add(entry.getKey());
+        }
+      }
+    }
+
+    synchronized (this) {
+      for (String path : settled) {
+        // Unless the file changed again meanwhile.
+        changedAt.remove(path, changed.get(path));
+      }
+    }
+
+    final List<String> affected = new ArrayList<>();
+    for (String file : testFiles) {
+      final String path = toAbsolutePath(graph, file);
+      if (!passed.containsKey(path) || dependentChangedAt.containsKey(path)) {
+        affected.add(file);
+      }
+    }
+    return affected;
+  }
+
+  /**
+   * Records that the given test files passed, taking into account the changes seen up to the given
+   * generation.
+   *
+   * @param testFiles paths relative to the pub root
+   */
+  public void testsPassed(@NotNull PubRoot root, @NotNull List<String> testFiles, long generationAtStart) {
+    testsPassed(root.getPath(), testFiles, generationAtStart);
+  }
+
+  synchronized void testsPassed(@NotNull String rootPath, @NotNull List<String> testFiles, long generationAtStart) {
+    final DartImportGraph graph = graphs.get(rootPath);
+    if (graph == null) {
+      return;
+    }
+    for (String file : testFiles) {
+      passedAt.merge(toAbsolutePath(graph, file), generationAtStart, Math::max);
+    }
+  }
+
+  /**
+   * Returns a listener that records the given test files as passed if the process running them succeeds.
+   *
+   * @param generationAtStart the generation when the test files were chosen
+   */
+  @NotNull
+  public ProcessListener recordPassesOnSuccess(@NotNull PubRoot root, @NotNull List<String> testFiles, long generationAtStart) {
+    return recordPassesOnSuccess(root.getPath(), testFiles, generationAtStart);
+  }
+
+  @NotNull
+  ProcessListener recordPassesOnSuccess(@NotNull String rootPath, @NotNull List<String> testFiles, long generationAtStart) {
+    return new ProcessAdapter() {
+      @Override
+      public void processTerminated(@NotNull ProcessEvent event) {
+        if (event.getExitCode() == 0) {
+          testsPassed(rootPath, testFiles, generationAtStart);
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the number of files whose change some test hasn't passed since.
+   */
+  @VisibleForTesting
+  synchronized int getPendingChangeCount() {
+    return changedAt.size();
+  }
+
+  @NotNull
+  private DartImportGraph getGraph(@NotNull String rootPath) {
+    DartImportGraph graph;
+    final List<String> toRead = new ArrayList<>();
+    final Map<String, Long> dirs = new HashMap<>();
+    synchronized (this) {
+      graph = graphs.get(rootPath);
+      if (graph != null) {
+        for (Iterator<String> it = stale.iterator(); it.hasNext(); ) {
+          final String path = it.next();
+          if (graph.contains(path)) {
+            toRead.add(path);
+            it.remove();
+          }
+        }
+        for (Iterator<Map.Entry<String, Long>> it = changedDirs.entrySet().iterator(); it.hasNext(); ) {
+          final Map.Entry<String, Long> entry = it.next();
+          if (graph.contains(entry.getKey())) {
+            dirs.put(entry.getKey(), entry.getValue());
+            it.remove();
+          }
+        }
+      }
+    }
+
+    // Files are read without holding the lock, since VFS events are delivered in a write action.
+    // A file that changes meanwhile is marked stale again and re-read next time.
+    if (graph == null) {
+      final DartImportGraph created = new DartImportGraph(rootPath, fileSource.getPackageName(rootPath));
+      toRead.addAll(fileSource.findDartFiles(rootPath));
+      synchronized (this) {
+        // If another thread built the graph first, bring it up to date with what was read here.
+        graph = graphs.putIfAbsent(rootPath, created);
+        if (graph == null) {
+          graph = created;
+        }
+      }
+    }
+
+    if (!dirs.isEmpty()) {
+      // Only the graph knows which files were in a changed directory.
+      final Map<String, Long> filesInDirs = new HashMap<>();
+      synchronized (graph) {
+        for (Map.Entry<String, Long> entry : dirs.entrySet()) {
+          for (String file : graph.getFilesUnder(entry.getKey())) {
+            filesInDirs.merge(file, entry.getValue(), Math::max);
+          }
+        }
+      }
+      synchronized (this) {
+        for (Map.Entry<String, Long> entry : filesInDirs.entrySet()) {
+          changedAt.merge(entry.getKey(), entry.getValue(), Math::max);
+        }
+      }
+      toRead.addAll(filesInDirs.keySet());
+    }
+
+    final Map<String, CharSequence> contents = new HashMap<>();
+    for (String path : toRead) {
+      contents.put(path, fileSource.loadText(path));
+    }
+
+    synchronized (graph) {
+      for (Map.Entry<String, CharSequence> entry : contents.entrySet()) {
+        if (entry.getValue() == null) {
+          graph.remove(entry.getKey());
+        }
+        else {
+          graph.update(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return graph;
+  }
+
+  @VisibleForTesting
+  synchronized void filesChanged(@NotNull List<String> paths) {
+    for (String path : paths) {
+      boolean tracked = false;
+      for (DartImportGraph graph : graphs.values()) {
+        tracked |= graph.contains(path);
+      }
+      if (!tracked) {
+        continue;
+      }
+      generation++;
+      if (path.endsWith(".dart")) {
+        stale.add(path);
+        changedAt.put(path, generation);
+      }
+      else {
+        // A directory. Its files are marked changed when the graph is next used; new files in it are
+        // found when they are imported or run.
+        changedDirs.put(path, generation);
+      }
+    }
+  }
+
+  private static boolean isTestFile(@NotNull String path) {
+    return path.endsWith("_test.dart");
+  }
+
+  @NotNull
+  private static String toAbsolutePath(@NotNull DartImportGraph graph, @NotNull String relativePath) {
+    return graph.getRootPath() + "/" + relativePath;
+  }
+
+  @Override
+  public void dispose() {
+  }
+
+  /**
+   * Reads files through the VFS. Each file is read in its own read action, so a write action doesn't wait for a whole pub
+   * root to be read, and reading stops when the progress indicator is cancelled.
+   */
+  private static class VfsFileSource implements FileSource {
+    @Nullable
+    @Override
+    public String getPackageName(@NotNull String rootPath) {
+      return ReadAction.compute(() -> {
+        final VirtualFile pubspec = LocalFileSystem.getInstance().findFileByPath(rootPath + "/" + PubspecYamlUtil.PUBSPEC_YAML);
+        return pubspec == null ? null : PubspecYamlUtil.getDartProjectName(pubspec);
+      });
+    }
+
+    @NotNull
+    @Override
+    public List<String> findDartFiles(@NotNull String rootPath) {
+      return ReadAction.compute(() -> {
+        final List<String> files = new ArrayList<>();
+        final VirtualFile root = LocalFileSystem.getInstance().findFileByPath(rootPath);
+        if (root == null) {
+          return files;
+        }
+        VfsUtilCore.visitChildrenRecursively(root, new VirtualFileVisitor<Void>() {
+          @Override
+          public boolean visitFile(@NotNull VirtualFile file) {
+            ProgressManager.checkCanceled();
+            if (file.isDirectory()) {
+              return !file.getName().startsWith(".") && !file.getName().equals("build");
+            }
+            if (file.getName().endsWith(".dart")) {
+              files.add(file.getPath());
+            }
+            return true;
+          }
+        });
+        return files;
+      });
+    }
+
+    @Nullable
+    @Override
+    public CharSequence loadText(@NotNull String path) {
+      ProgressManager.checkCanceled();
+      return ReadAction.compute(() -> {
+        final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(path);
+        if (file == null || !file.isValid()) {
+          return null;
+        }
+        try {
+          return VfsUtilCore.loadText(file);
+        }
+        catch (IOException e) {
+          LOG.info("Unable to read " + path + ": " + e.getMessage());
+          return null;
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.test;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The import, export and part directives between the Dart files of a pub root.
+ * <p>
+ * Files are identified by absolute path. Only files within the pub root are tracked; imports of
+ * the SDK and of other packages are ignored. The graph is updated one file at a time as files
+ * change, and keeps reverse edges so that the files depending on a change can be found without
+ * visiting the rest of the package.
+ * <p>
+ * Not thread safe.
+ */
+class DartImportGraph {
+  private static final Pattern DIRECTIVE = Pattern.compile(
+    "^\\s*(?:import|export|part)\\s+(?:['\"]([^'\"]+)['\"])((?:\\s*if\\s*\\([^)]*\\)\\s*['\"][^'\"]+['\"])*)",
+    Pattern.MULTILINE);
+  private static final Pattern CONDITIONAL_URI = Pattern.compile("if\\s*\\([^)]*\\)\\s*['\"]([^'\"]+)['\"]");
+
+  @NotNull private final String rootPath;
+  @Nullable private final String packageName;
+
+  private final Map<String, Set<String>> imports = new HashMap<>();
+  private final Map<String, Set<String>> importedBy = new HashMap<>();
+
+  DartImportGraph(@NotNull String rootPath, @Nullable String packageName) {
+    this.rootPath = rootPath.endsWith("/") ? rootPath.substring(0, rootPath.length() - 1) : rootPath;
+    this.packageName = packageName;
+  }
+
+  @NotNull
+  String getRootPath() {
+    return rootPath;
+  }
+
+  boolean contains(@NotNull String path) {
+    return path.startsWith(rootPath + "/");
+  }
+
+  /**
+   * Replaces the outgoing edges of a file with the directives in its new contents.
+   */
+  void update(@NotNull String path, @NotNull CharSequence contents) {
+    final Set<String> targets = new HashSet<>();
+    for (String uri : parseUris(contents)) {
+      final String target = resolve(path, uri);
+      if (target != null) {
+        targets.add(target);
+      }
+    }
+    setImports(path, targets);
+  }
+
+  /**
+   * Forgets the outgoing edges of a file that was deleted. Files that import it keep their edges, so
+   * that they are found as dependents if it comes back.
+   */
+  void remove(@NotNull String path) {
+    setImports(path, new HashSet<>());
+    imports.remove(path);
+  }
+
+  /**
+   * Returns the tracked files within a directory.
+   */
+  @NotNull
+  List<String> getFilesUnder(@NotNull String dirPath) {
+    final String prefix = dirPath.endsWith("/") ? dirPath : dirPath + "/";
+    final List<String> result = new ArrayList<>();
+    for (String path : imports.keySet()) {
+      if (path.startsWith(prefix)) {
+        result.add(path);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the given files and all files that import, export or include them, directly or not.
+   */
+  @NotNull
+  Set<String> findDependents(@NotNull Collection<String> changed) {
+    final Set<String> seen = new HashSet<>(changed);
+    final Deque<String> todo = new ArrayDeque<>(changed);
+    while (!todo.isEmpty()) {
+      final Set<String> dependents = importedBy.get(todo.remove());
+      if (dependents == null) {
+        continue;
+      }
+      for (String dependent : dependents) {
+        if (seen.add(dependent)) {
+          todo.add(dependent);
+        }
+      }
+    }
+    return seen;
+  }
+
+  private void setImports(@NotNull String path, @NotNull Set<String> targets) {
+    final Set<String> previous = imports.put(path, targets);
+    if (previous != null) {
+      for (String target : previous) {
+        if (!targets.contains(target)) {
+          final Set<String> sources = importedBy.get(target);
+          if (sources != null) {
+            sources.remove(path);
+            if (sources.isEmpty()) {
+              importedBy.remove(target);
+            }
+          }
+        }
+      }
+    }
+    for (String target : targets) {
+      importedBy.computeIfAbsent(target, (key) -> new HashSet<>()).add(path);
+    }
+  }
+
+  /**
+   * Returns the URIs of the import, export and part directives in a Dart file, including the
+   * alternatives of conditional imports.
+   */
+  @NotNull
+  static List<String> parseUris(@NotNull CharSequence contents) {
+    final List<String> uris = new ArrayList<>();
+    final Matcher matcher = DIRECTIVE.matcher(contents);
+    while (matcher.find()) {
+      uris.add(matcher.group(1));
+      final String conditions = matcher.group(2);
+      if (conditions != null && !conditions.isEmpty()) {
+        final Matcher conditional = CONDITIONAL_URI.matcher(conditions);
+        while (conditional.find()) {
+          uris.add(conditional.group(1));
+        }
+      }
+    }
+    return uris;
+  }
+
+  /**
+   * Returns the absolute path of the file a URI in the given file refers to, or null if it is
+   * outside the pub root.
+   */
+  @Nullable
+  String resolve(@NotNull String fromPath, @NotNull String uri) {
+    final String path;
+    if (uri.startsWith("package:")) {
+      final String prefix = "package:" + packageName + "/";
+      if (packageName == null || !uri.startsWith(prefix)) {
+        return null;
+      }
+      path = rootPath + "/lib/" + uri.substring(prefix.length());
+    }
+    else if (uri.contains(":")) {
+      // dart: and other schemes.
+      return null;
+    }
+    else if (uri.startsWith("/")) {
+      path = uri;
+    }
+    else {
+      path = fromPath.substring(0, fromPath.lastIndexOf('/') + 1) + uri;
+    }
+    final String normalized = normalize(path);
+    return normalized != null && contains(normalized) ? normalized : null;
+  }
+
+  @Nullable
+  private static String normalize(@NotNull String path) {
+    final Deque<String> parts = new ArrayDeque<>();
+    for (String part : path.split("/")) {
+      if (part.isEmpty() || part.equals(".")) {
+        continue;
+      }
+      if (part.equals("..")) {
+        if (parts.isEmpty()) {
+          return null;
+        }
+        parts.removeLast();
+      }
+      else {
+        parts.addLast(part);
+      }
+    }
+    // Keep Windows drive letters, which VFS paths start with instead of a slash.
+    return (path.startsWith("/") ? "/" : "") + String.join("/", parts);
+  }
+}
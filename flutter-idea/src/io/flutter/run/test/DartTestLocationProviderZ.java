@@ -14,6 +14,8 @@ import com.intellij.execution.testframework.sm.runner.SMTestLocator;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.project.DumbAware;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -23,9 +25,14 @@ import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.PsiElementProcessor;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.lang.dart.ide.runner.util.TestUtil;
 import com.jetbrains.lang.dart.psi.*;
+import io.flutter.run.common.TestCallIndex;
+import io.flutter.run.common.TestType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -45,6 +52,11 @@ public class DartTestLocationProviderZ implements SMTestLocator, DumbAware {
   public static final Type STRING_LIST_TYPE = new TypeToken<List<String>>() {
   }.getType();
 
+  /**
+   * Each provider has its own key, since subclasses can recognize more calls as tests.
+   */
+  private final Key<CachedValue<TestCallIndex>> testCallIndexKey = Key.create("DartTestLocationProviderZ.testCallIndex");
+
   @NotNull
   @Override
   @SuppressWarnings("rawtypes")
@@ -115,6 +127,45 @@ public class DartTestLocationProviderZ implements SMTestLocator, DumbAware {
 
   @SuppressWarnings("rawtypes")
   protected List<Location> getLocationByGroupAndTestNames(final PsiFile psiFile, final List<String> nodes) {
+    if (psiFile instanceof DartFile && !nodes.isEmpty()) {
+      final TestCallIndex index = CachedValuesManager.getCachedValue(
+        psiFile, testCallIndexKey, () -> CachedValueProvider.Result.create(buildTestCallIndex(psiFile), psiFile));
+      final TestCallIndex.Call call = index.findByNamePath(nodes);
+      final DartCallExpression expression =
+        call == null ? null : PsiTreeUtil.findElementOfClassAtOffset(psiFile, call.getStartOffset(), DartCallExpression.class, true);
+      if (expression != null) {
+        return Collections.singletonList(new PsiLocation<>(expression));
+      }
+    }
+
+    // Calls that are only recognized as tests once the file's outline is available may be missing
+    // from an index built earlier, so fall back to searching the file.
+    return searchByGroupAndTestNames(psiFile, nodes);
+  }
+
+  /**
+   * Indexes the test and group calls in a file by name, so that each test in a run's results
+   * doesn't need its own walk of the file.
+   */
+  @NotNull
+  private TestCallIndex buildTestCallIndex(@NotNull PsiFile psiFile) {
+    final List<TestCallIndex.Call> calls = new ArrayList<>();
+    PsiTreeUtil.processElements(psiFile, element -> {
+      if (element instanceof DartCallExpression) {
+        final DartCallExpression expression = (DartCallExpression)element;
+        final TestType type = isTest(expression) ? TestType.SINGLE : TestUtil.isGroup(expression) ? TestType.GROUP : null;
+        if (type != null) {
+          final TextRange range = expression.getTextRange();
+          calls.add(new TestCallIndex.Call(range.getStartOffset(), range.getEndOffset(), type, getTestLabel(expression)));
+        }
+      }
+      return true;
+    });
+    return new TestCallIndex(calls);
+  }
+
+  @SuppressWarnings("rawtypes")
+  private List<Location> searchByGroupAndTestNames(final PsiFile psiFile, final List<String> nodes) {
     final List<Location> locations = new ArrayList<>();
 
     if (psiFile instanceof DartFile && !nodes.isEmpty()) {
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merges the {@code --machine} output of several {@code flutter test} shards into a single stream
+ * that looks like the output of one run.
+ * <p>
+ * Each shard numbers its suites, groups and tests from zero, so ids are remapped to
+ * {@code id * shardCount + shard}. Only the first {@code start} event is kept and the shards'
+ * {@code done} events are replaced by one created once every shard has finished. The suite
+ * counts of {@code allSuites} events are added up.
+ * <p>
+ * The merger also measures how long each test file took, for balancing later runs.
+ * <p>
+ * Not thread safe; callers serialize calls to {@link #processLine}.
+ */
+class ShardedTestOutputMerger {
+  private final int shardCount;
+  @NotNull private final String pubRootPath;
+
+  private boolean startSeen;
+  private final int[] suiteCounts;
+  private final boolean[] succeeded;
+  private long lastTime;
+
+  private final Map<Long, String> suitePaths = new HashMap<>();
+  private final Map<Long, Long> suiteStartTimes = new HashMap<>();
+  private final Map<Long, Long> suiteEndTimes = new HashMap<>();
+  private final Map<Long, Long> testSuites = new HashMap<>();
+
+  ShardedTestOutputMerger(int shardCount, @NotNull String pubRootPath) {
+    this.shardCount = shardCount;
+    this.pubRootPath = pubRootPath.endsWith("/") ? pubRootPath : pubRootPath + "/";
+    suiteCounts = new int[shardCount];
+    succeeded = new boolean[shardCount];
+  }
+
+  /**
+   * Returns the line to show for a line of output from the given shard, or null to drop it.
+   */
+  @Nullable
+  String processLine(int shard, @NotNull String line) {
+    final String trimmed = line.trim();
+    if (!trimmed.startsWith("{") || !trimmed.endsWith("}")) {
+      return line;
+    }
+    final JsonObject event;
+    try {
+      event = JsonParser.parseString(trimmed).getAsJsonObject();
+    }
+    catch (JsonParseException | IllegalStateException e) {
+      return line;
+    }
+    final JsonElement typeElement = event.get("type");
+    if (typeElement == null || !typeElement.isJsonPrimitive()) {
+      return line;
+    }
+    final JsonElement timeElement = event.get("time");
+    final long time = timeElement != null && timeElement.isJsonPrimitive() ? timeElement.getAsLong() : 0;
+    lastTime = Math.max(lastTime, time);
+
+    switch (typeElement.getAsString()) {
+      case "start":
+        if (startSeen) {
+          return null;
+        }
+        startSeen = true;
+        return line;
+      case "done":
+        final JsonElement success = event.get("success");
+        succeeded[shard] = success != null && success.isJsonPrimitive() && success.getAsBoolean();
+        return null;
+      case "allSuites":
+        suiteCounts[shard] = getInt(event, "count");
+        int total = 0;
+        for (int count : suiteCounts) {
+          total += count;
+        }
+        event.addProperty("count", total);
+        break;
+      case "suite": {
+        final JsonObject suite = event.getAsJsonObject("suite");
+        final long id = remap(suite, "id", shard);
+        final JsonElement path = suite.get("path");
+        if (path != null && path.isJsonPrimitive()) {
+          suitePaths.put(id, toRelativePath(path.getAsString()));
+          suiteStartTimes.put(id, time);
+        }
+        break;
+      }
+      case "group": {
+        final JsonObject group = event.getAsJsonObject("group");
+        remap(group, "id", shard);
+        remap(group, "suiteID", shard);
+        remap(group, "parentID", shard);
+        break;
+      }
+      case "testStart": {
+        final JsonObject test = event.getAsJsonObject("test");
+        final long id = remap(test, "id", shard);
+        final long suiteId = remap(test, "suiteID", shard);
+        testSuites.put(id, suiteId);
+        final JsonElement groupIds = test.get("groupIDs");
+        if (groupIds != null && groupIds.isJsonArray()) {
+          final JsonArray remapped = new JsonArray();
+          for (JsonElement groupId : groupIds.getAsJsonArray()) {
+            remapped.add(groupId.getAsLong() * shardCount + shard);
+          }
+          test.add("groupIDs", remapped);
+        }
+        break;
+      }
+      case "testDone": {
+        final long id = remap(event, "testID", shard);
+        final Long suiteId = testSuites.remove(id);
+        if (suiteId != null) {
+          suiteEndTimes.merge(suiteId, time, Math::max);
+        }
+        break;
+      }
+      case "print":
+      case "error":
+        remap(event, "testID", shard);
+        break;
+      case "debug":
+        remap(event, "suiteID", shard);
+        break;
+      default:
+        return line;
+    }
+    return event.toString();
+  }
+
+  /**
+   * Creates the {@code done} event reported once all shards have finished.
+   */
+  @NotNull
+  String createDoneEvent() {
+    boolean success = true;
+    for (boolean shardSucceeded : succeeded) {
+      success &= shardSucceeded;
+    }
+    final JsonObject done = new JsonObject();
+    done.addProperty("success", success);
+    done.addProperty("type", "done");
+    done.addProperty("time", lastTime);
+    return done.toString();
+  }
+
+  /**
+   * Returns how long each test file that finished took, keyed by path relative to the pub root.
+   */
+  @NotNull
+  Map<String, Long> getFileDurations() {
+    final Map<String, Long> durations = new HashMap<>();
+    for (Map.Entry<Long, Long> entry : suiteEndTimes.entrySet()) {
+      final String path = suitePaths.get(entry.getKey());
+      final Long start = suiteStartTimes.get(entry.getKey());
+      if (path != null && start != null) {
+        durations.put(path, Math.max(0, entry.getValue() - start));
+      }
+    }
+    return durations;
+  }
+
+  private long remap(@NotNull JsonObject object, @NotNull String key, int shard) {
+    final JsonElement value = object.get(key);
+    if (value == null || !value.isJsonPrimitive()) {
+      return -1;
+    }
+    final long id = value.getAsLong() * shardCount + shard;
+    object.add(key, new JsonPrimitive(id));
+    return id;
+  }
+
+  private static int getInt(@NotNull JsonObject object, @NotNull String key) {
+    final JsonElement value = object.get(key);
+    return value == null || !value.isJsonPrimitive() ? 0 : value.getAsInt();
+  }
+
+  @NotNull
+  private String toRelativePath(@NotNull String path) {
+    final String normalized = path.replace('\\', '/');
+    return normalized.startsWith(pubRootPath) ? normalized.substring(pubRootPath.length()) : normalized;
+  }
+}
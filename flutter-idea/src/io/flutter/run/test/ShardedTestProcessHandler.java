@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.test;
+
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.openapi.util.Key;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs several {@code flutter test} processes as one, merging their machine output so that the
+ * test console shows a single tree of results.
+ * <p>
+ * Output is forwarded a line at a time so that lines from different shards don't interleave. The
+ * handler terminates once every shard has, with the exit code of the first shard that failed.
+ */
+class ShardedTestProcessHandler extends ProcessHandler {
+  @NotNull private final List<ProcessHandler> shards;
+  @NotNull private final String pubRootPath;
+
+  private final Object lock = new Object();
+  @NotNull private final ShardedTestOutputMerger merger;
+  private final List<Map<Key, StringBuilder>> partialLines = new ArrayList<>();
+  private int running;
+  private int exitCode;
+  private volatile boolean detaching;
+
+  ShardedTestProcessHandler(@NotNull List<ProcessHandler> shards, @NotNull String pubRootPath) {
+    this.shards = shards;
+    this.pubRootPath = pubRootPath;
+    merger = new ShardedTestOutputMerger(shards.size(), pubRootPath);
+    running = shards.size();
+
+    for (int i = 0; i < shards.size(); i++) {
+      final int shard = i;
+      partialLines.add(new HashMap<>());
+      shards.get(i).addProcessListener(new ProcessAdapter() {
+        @Override
+        public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+          textAvailable(shard, event.getText(), outputType);
+        }
+
+        @Override
+        public void processTerminated(@NotNull ProcessEvent event) {
+          shardTerminated(shard, event.getExitCode());
+        }
+      });
+    }
+  }
+
+  @Override
+  public void startNotify() {
+    super.startNotify();
+    // Start reading the shards' output only once our own listeners are attached.
+    for (ProcessHandler shard : shards) {
+      shard.startNotify();
+    }
+  }
+
+  private void textAvailable(int shard, @NotNull String text, @NotNull Key outputType) {
+    synchronized (lock) {
+      final StringBuilder partial = partialLines.get(shard).computeIfAbsent(outputType, (key) -> new StringBuilder());
+      partial.append(text);
+      int start = 0;
+      int newline;
+      while ((newline = partial.indexOf("\n", start)) >= 0) {
+        forwardLine(shard, partial.substring(start, newline + 1), outputType);
+        start = newline + 1;
+      }
+      partial.delete(0, start);
+    }
+  }
+
+  private void forwardLine(int shard, @NotNull String line, @NotNull Key outputType) {
+    final String text = outputType == ProcessOutputTypes.STDOUT ? merger.processLine(shard, line) : line;
+    if (text != null) {
+      notifyTextAvailable(text.endsWith("\n") ? text : text + "\n", outputType);
+    }
+  }
+
+  private void shardTerminated(int shard, int shardExitCode) {
+    synchronized (lock) {
+      for (Map.Entry<Key, StringBuilder> entry : partialLines.get(shard).entrySet()) {
+        if (entry.getValue().length() > 0) {
+          forwardLine(shard, entry.getValue().toString(), entry.getKey());
+          entry.getValue().setLength(0);
+        }
+      }
+      if (exitCode == 0) {
+        exitCode = shardExitCode;
+      }
+      if (--running > 0) {
+        return;
+      }
+      notifyTextAvailable(merger.createDoneEvent() + "\n", ProcessOutputTypes.STDOUT);
+    }
+
+    TestShards.updateTimings(pubRootPath, merger.getFileDurations());
+    if (detaching) {
+      notifyProcessDetached();
+    }
+    else {
+      notifyProcessTerminated(exitCode);
+    }
+  }
+
+  @Override
+  protected void destroyProcessImpl() {
+    for (ProcessHandler shard : shards) {
+      shard.destroyProcess();
+    }
+  }
+
+  @Override
+  protected void detachProcessImpl() {
+    detaching = true;
+    for (ProcessHandler shard : shards) {
+      shard.detachProcess();
+    }
+  }
+
+  @Override
+  public boolean detachIsDefault() {
+    return false;
+  }
+
+  @Nullable
+  @Override
+  public OutputStream getProcessInput() {
+    return null;
+  }
+}
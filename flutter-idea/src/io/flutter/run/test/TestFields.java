@@ -8,11 +8,16 @@ package io.flutter.run.test;
 import com.google.common.annotations.VisibleForTesting;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.configurations.RuntimeConfigurationError;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.InvalidDataException;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.util.execution.ParametersListUtil;
 import io.flutter.pub.PubRoot;
 import io.flutter.run.FlutterDevice;
@@ -44,6 +49,8 @@ public class TestFields {
   @Nullable
   private String additionalArgs;
   private boolean useRegexp = false;
+  private int shards = 1;
+  private boolean affectedOnly = false;
 
   private TestFields(@Nullable String testName, @Nullable String testFile, @Nullable String testDir, @Nullable String additionalArgs) {
     if (testFile == null && testDir == null) {
@@ -71,8 +78,32 @@ public class TestFields {
     return useRegexp;
   }
 
+  /**
+   * Sets how many {@code flutter test} processes split the files of a directory between them.
+   */
+  public TestFields shards(int shards) {
+    this.shards = shards;
+    return this;
+  }
+
+  public int getShards() {
+    return shards;
+  }
+
+  /**
+   * Sets whether to only run the tests in a directory that are affected by changes since they last passed.
+   */
+  public TestFields affectedOnly(boolean affectedOnly) {
+    this.affectedOnly = affectedOnly;
+    return this;
+  }
+
+  public boolean isAffectedOnly() {
+    return affectedOnly;
+  }
+
   public TestFields copy() {
-    return new TestFields(testName, testFile, testDir, additionalArgs).useRegexp(useRegexp);
+    return new TestFields(testName, testFile, testDir, additionalArgs).useRegexp(useRegexp).shards(shards).affectedOnly(affectedOnly);
   }
 
   /**
@@ -222,6 +253,8 @@ public class TestFields {
     ElementIO.addOption(elt, "testDir", testDir);
     ElementIO.addOption(elt, "useRegexp", useRegexp ? "true" : "false");
     ElementIO.addOption(elt, "additionalArgs", additionalArgs);
+    ElementIO.addOption(elt, "shards", shards > 1 ? Integer.toString(shards) : null);
+    ElementIO.addOption(elt, "affectedOnly", affectedOnly ? "true" : null);
   }
 
   /**
@@ -236,8 +269,12 @@ public class TestFields {
     final String testDir = options.get("testDir");
     final String useRegexp = options.get("useRegexp");
     final String additionalArgs = options.get("additionalArgs");
+    final String shards = options.get("shards");
+    final String affectedOnly = options.get("affectedOnly");
     try {
-      return new TestFields(testName, testFile, testDir, additionalArgs).useRegexp("true".equals(useRegexp));
+      return new TestFields(testName, testFile, testDir, additionalArgs).useRegexp("true".equals(useRegexp))
+        .shards(shards == null ? 1 : Integer.parseInt(shards))
+        .affectedOnly("true".equals(affectedOnly));
     }
     catch (IllegalArgumentException e) {
       throw new InvalidDataException(e.getMessage());
@@ -252,6 +289,9 @@ public class TestFields {
   void checkRunnable(@NotNull Project project) throws RuntimeConfigurationError {
     checkSdk(project);
     getScope().checkRunnable(this, project);
+    if (shards < 1) {
+      throw new RuntimeConfigurationError("The number of shards must be at least 1");
+    }
   }
 
   /**
@@ -280,6 +320,126 @@ public class TestFields {
     return sdk.flutterTest(root, fileOrDir, testName, mode, args, getScope(), useRegexp).startProcess(project);
   }
 
+  /**
+   * Starts running a selection of the test files in a directory: those affected by recent changes,
+   * split between several concurrent {@code flutter test} processes, or both.
+   * <p>
+   * Returns null if the directory should be run as a whole instead.
+   */
+  @Nullable
+  ProcessHandler runFiles(@NotNull Project project, @NotNull RunMode mode) throws ExecutionException {
+    final FlutterSdk sdk = FlutterSdk.getFlutterSdk(project);
+    final VirtualFile dir = getFileOrDir();
+    final PubRoot root = getPubRoot(project);
+    if (sdk == null || dir == null || root == null || getScope() != Scope.DIRECTORY) {
+      return null;
+    }
+    // Debugging and coverage need a single process; each shard would need its own debugger
+    // connection and would overwrite the others' coverage data. Integration tests run on a device,
+    // which can't be shared between processes either.
+    final VirtualFile integrationTestDir = root.getIntegrationTestDir();
+    final boolean sharded = shards > 1 && mode == RunMode.RUN &&
+                            (integrationTestDir == null || !VfsUtilCore.isAncestor(integrationTestDir, dir, false));
+    if (!sharded && !affectedOnly) {
+      return null;
+    }
+
+    final AffectedTestsService affectedTests = AffectedTestsService.getInstance(project);
+    final long generation = affectedTests.getGeneration();
+    final List<String> files = findFilesToRun(project, root, dir, affectedTests);
+    if (files.isEmpty()) {
+      if (affectedOnly) {
+        throw new ExecutionException("No tests are affected by changes since they last passed");
+      }
+      // Passing no files would run the whole test directory, so let flutter test report that this one has none.
+      return null;
+    }
+
+    final String args = adjustArgs(root, dir, project);
+    final ProcessHandler handler;
+    if (sharded && files.size() > 1) {
+      final List<List<String>> partition = TestShards.partition(files, TestShards.readTimings(root.getPath()), shards);
+      final List<ProcessHandler> handlers = new ArrayList<>();
+      for (List<String> shardFiles : partition) {
+        try {
+          handlers.add(startTestFiles(project, sdk, root, shardFiles, args, mode));
+        }
+        catch (ExecutionException e) {
+          for (ProcessHandler started : handlers) {
+            started.destroyProcess();
+          }
+          throw e;
+        }
+      }
+      handler = new ShardedTestProcessHandler(handlers, root.getPath());
+    }
+    else {
+      handler = startTestFiles(project, sdk, root, files, args, mode);
+    }
+
+    if (affectedOnly) {
+      handler.addProcessListener(affectedTests.recordPassesOnSuccess(root, files, generation));
+    }
+    return handler;
+  }
+
+  /**
+   * Returns the test files to run, relative to the pub root.
+   * <p>
+   * The first time affected tests are asked for, every Dart file in the pub root is read to build its
+   * import graph, so this is done in a background task that can be cancelled.
+   */
+  @NotNull
+  private List<String> findFilesToRun(@NotNull Project project,
+                                      @NotNull PubRoot root,
+                                      @NotNull VirtualFile dir,
+                                      @NotNull AffectedTestsService affectedTests) throws ExecutionException {
+    try {
+      return ProgressManager.getInstance().runProcessWithProgressSynchronously(() -> {
+        final List<String> files = ReadAction.compute(() -> findTestFiles(root, dir));
+        return affectedOnly ? affectedTests.findAffectedTests(root, files) : files;
+      }, "Finding Tests to Run", true, project);
+    }
+    catch (ProcessCanceledException e) {
+      throw new ExecutionException("Cancelled while finding the tests to run");
+    }
+  }
+
+  @NotNull
+  private static ProcessHandler startTestFiles(@NotNull Project project, @NotNull FlutterSdk sdk, @NotNull PubRoot root,
+                                               @NotNull List<String> files, @Nullable String args, @NotNull RunMode mode)
+    throws ExecutionException {
+    final FlutterCommandStartResult result = sdk.flutterTestFiles(root, files, args, mode).startProcess(project);
+    if (result.processHandler == null) {
+      throw result.exception != null ? result.exception : new ExecutionException("Unable to start flutter test");
+    }
+    return result.processHandler;
+  }
+
+  /**
+   * Returns the paths relative to the pub root of the test files within a directory.
+   */
+  @NotNull
+  private static List<String> findTestFiles(@NotNull PubRoot root, @NotNull VirtualFile dir) {
+    final List<String> files = new ArrayList<>();
+    VfsUtilCore.visitChildrenRecursively(dir, new VirtualFileVisitor<Void>() {
+      @Override
+      public boolean visitFile(@NotNull VirtualFile file) {
+        if (file.isDirectory()) {
+          return !file.getName().startsWith(".") && !file.getName().equals("build");
+        }
+        if (file.getName().endsWith("_test.dart")) {
+          final String path = root.getRelativePath(file);
+          if (path != null) {
+            files.add(path);
+          }
+        }
+        return true;
+      }
+    });
+    return files;
+  }
+
   @Nullable
   private String adjustArgs(@NotNull PubRoot root, @NotNull VirtualFile fileOrDir, @NotNull Project project) {
     final VirtualFile testDir = root.getIntegrationTestDir();
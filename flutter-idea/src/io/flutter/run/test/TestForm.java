@@ -43,9 +43,15 @@ public class TestForm extends SettingsEditor<TestConfig> {
 
   private com.intellij.ui.components.fields.ExpandableTextField additionalArgs;
 
+  private JLabel shardsLabel;
+  private JSpinner shards;
+  private JLabel shardsHintLabel;
+  private JCheckBox affectedOnly;
+
   private Scope displayedScope;
 
   TestForm(@NotNull Project project) {
+    shards.setModel(new SpinnerNumberModel(1, 1, 64, 1));
     scope.setModel(new DefaultComboBoxModel<>(new Scope[]{DIRECTORY, FILE, NAME}));
     scope.addActionListener((ActionEvent e) -> {
       final Scope next = getScope();
@@ -91,6 +97,8 @@ public class TestForm extends SettingsEditor<TestConfig> {
         break;
     }
     additionalArgs.setText(fields.getAdditionalArgs());
+    shards.setValue(fields.getShards());
+    affectedOnly.setSelected(fields.isAffectedOnly());
     render(next);
   }
 
@@ -105,7 +113,7 @@ public class TestForm extends SettingsEditor<TestConfig> {
         fields = TestFields.forFile(testFile.getText());
         break;
       case DIRECTORY:
-        fields = TestFields.forDir(testDir.getText());
+        fields = TestFields.forDir(testDir.getText()).shards((Integer)shards.getValue()).affectedOnly(affectedOnly.isSelected());
         break;
       default:
         throw new ConfigurationException("unexpected scope: " + scope.getSelectedItem());
@@ -164,6 +172,11 @@ public class TestForm extends SettingsEditor<TestConfig> {
     testNameHintLabel.setVisible(next == Scope.NAME);
     testName.setVisible(next == Scope.NAME);
 
+    shardsLabel.setVisible(next == Scope.DIRECTORY);
+    shardsHintLabel.setVisible(next == Scope.DIRECTORY);
+    shards.setVisible(next == Scope.DIRECTORY);
+    affectedOnly.setVisible(next == Scope.DIRECTORY);
+
     displayedScope = next;
   }
 }
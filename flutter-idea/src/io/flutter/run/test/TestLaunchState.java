@@ -93,6 +93,13 @@ class TestLaunchState extends CommandLineState {
   @Override
   protected ProcessHandler startProcess() throws ExecutionException {
     final RunMode mode = RunMode.fromEnv(getEnvironment());
+    if (testConsoleEnabled && (fields.getShards() > 1 || fields.isAffectedOnly())) {
+      final ProcessHandler handler = fields.runFiles(getEnvironment().getProject(), mode);
+      if (handler != null) {
+        processHandler = handler;
+        return handler;
+      }
+    }
     final FlutterCommandStartResult result = fields.run(getEnvironment().getProject(), mode);
     switch (result.status) {
       case OK:
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits test files into shards that are run by concurrent {@code flutter test} processes.
+ * <p>
+ * Files are balanced using how long they took in earlier runs, which is kept per pub root in
+ * {@code .dart_tool/flutter_intellij/test_timings.json}. Files without a recorded duration are
+ * assumed to take as long as the median known file.
+ */
+class TestShards {
+  private static final Logger LOG = Logger.getInstance(TestShards.class);
+
+  /**
+   * Duration assumed for every file when nothing has been recorded yet.
+   */
+  static final long DEFAULT_DURATION_MS = 1000;
+
+  static final String TIMINGS_PATH = ".dart_tool/flutter_intellij/test_timings.json";
+
+  private TestShards() {
+  }
+
+  /**
+   * Assigns each file to one of {@code shardCount} shards so that the estimated durations of the
+   * shards are as even as possible.
+   * <p>
+   * Uses the longest-processing-time-first heuristic: files are taken from slowest to fastest and
+   * each is added to the shard with the smallest total so far. Empty shards are left out.
+   */
+  @NotNull
+  static List<List<String>> partition(@NotNull List<String> files, @NotNull Map<String, Long> durations, int shardCount) {
+    final long defaultDuration = getMedian(files, durations);
+    final List<String> sorted = new ArrayList<>(files);
+    sorted.sort(Comparator.<String>comparingLong((file) -> durations.getOrDefault(file, defaultDuration)).reversed()
+                  .thenComparing(Comparator.naturalOrder()));
+
+    final List<List<String>> shards = new ArrayList<>();
+    final long[] totals = new long[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards.add(new ArrayList<>());
+    }
+    for (String file : sorted) {
+      int smallest = 0;
+      for (int i = 1; i < shardCount; i++) {
+        if (totals[i] < totals[smallest]) {
+          smallest = i;
+        }
+      }
+      shards.get(smallest).add(file);
+      totals[smallest] += durations.getOrDefault(file, defaultDuration);
+    }
+    shards.removeIf(List::isEmpty);
+    return shards;
+  }
+
+  private static long getMedian(@NotNull List<String> files, @NotNull Map<String, Long> durations) {
+    final List<Long> known = new ArrayList<>();
+    for (String file : files) {
+      final Long duration = durations.get(file);
+      if (duration != null) {
+        known.add(duration);
+      }
+    }
+    if (known.isEmpty()) {
+      return DEFAULT_DURATION_MS;
+    }
+    known.sort(null);
+    return known.get(known.size() / 2);
+  }
+
+  /**
+   * Reads the recorded durations, keyed by path relative to the pub root.
+   */
+  @NotNull
+  static Map<String, Long> readTimings(@NotNull String pubRootPath) {
+    final Path file = Paths.get(pubRootPath, TIMINGS_PATH);
+    if (!Files.exists(file)) {
+      return new HashMap<>();
+    }
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      final Map<String, Long> timings = new Gson().fromJson(reader, new TypeToken<Map<String, Long>>() {
+      }.getType());
+      return timings == null ? new HashMap<>() : new HashMap<>(timings);
+    }
+    catch (IOException | JsonParseException e) {
+      LOG.info("Unable to read test timings: " + e.getMessage());
+      return new HashMap<>();
+    }
+  }
+
+  /**
+   * Records the durations of the files that were just run, keeping those of other files.
+   */
+  static void updateTimings(@NotNull String pubRootPath, @NotNull Map<String, Long> durations) {
+    if (durations.isEmpty()) {
+      return;
+    }
+    final Map<String, Long> timings = readTimings(pubRootPath);
+    timings.putAll(durations);
+
+    final Path file = Paths.get(pubRootPath, TIMINGS_PATH);
+    try {
+      Files.createDirectories(file.getParent());
+      try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        new Gson().toJson(timings, writer);
+      }
+    }
+    catch (IOException e) {
+      LOG.info("Unable to save test timings: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.sdk;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import io.flutter.FlutterUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import static com.jetbrains.lang.dart.util.PubspecYamlUtil.PUBSPEC_YAML;
+
+/**
+ * Remembers which of a project's packages are Flutter plugins, keyed by the path of each package's lib folder.
+ * <p>
+ * A pubspec is only parsed again when its modification stamp changes and its contents differ from those last
+ * classified. Packages the project no longer depends on are dropped by {@link #retainOnly}.
+ */
+class FlutterPluginClassifier {
+  private static class PackageInfo {
+    final long pubspecStamp;
+    final int pubspecHash;
+    @Nullable final String pluginPath;
+
+    PackageInfo(long pubspecStamp, int pubspecHash, @Nullable String pluginPath) {
+      this.pubspecStamp = pubspecStamp;
+      this.pubspecHash = pubspecHash;
+      this.pluginPath = pluginPath;
+    }
+  }
+
+  private final Map<String, PackageInfo> packageInfos = new ConcurrentHashMap<>();
+
+  @NotNull
+  private final Predicate<VirtualFile> isPluginPubspec;
+
+  FlutterPluginClassifier() {
+    this(FlutterUtils::isFlutterPlugin);
+  }
+
+  FlutterPluginClassifier(@NotNull Predicate<VirtualFile> isPluginPubspec) {
+    this.isPluginPubspec = isPluginPubspec;
+  }
+
+  /**
+   * Returns the root of the package with the given lib folder if it is a Flutter plugin.
+   */
+  @Nullable
+  String getFlutterPluginPath(@NotNull String packagePath, @Nullable VirtualFile libFolder) {
+    final VirtualFile packageDir = libFolder == null ? null : libFolder.getParent();
+    final VirtualFile pubspec = packageDir == null ? null : packageDir.findChild(PUBSPEC_YAML);
+    if (pubspec == null || pubspec.isDirectory()) {
+      packageInfos.remove(packagePath);
+      return null;
+    }
+
+    final PackageInfo cached = packageInfos.get(packagePath);
+    final long stamp = pubspec.getModificationStamp();
+    if (cached != null && cached.pubspecStamp == stamp) {
+      return cached.pluginPath;
+    }
+
+    final int hash;
+    try {
+      hash = Arrays.hashCode(pubspec.contentsToByteArray(true /* cache contents */));
+    }
+    catch (IOException e) {
+      return null;
+    }
+
+    final String pluginPath;
+    if (cached != null && cached.pubspecHash == hash) {
+      // Rewritten with the same contents, as pub sometimes does.
+      pluginPath = cached.pluginPath;
+    }
+    else {
+      pluginPath = isPluginPubspec.test(pubspec) ? packageDir.getPath() : null;
+    }
+    packageInfos.put(packagePath, new PackageInfo(stamp, hash, pluginPath));
+    return pluginPath;
+  }
+
+  /**
+   * Forgets every package other than the given ones.
+   */
+  void retainOnly(@NotNull Collection<String> packagePaths) {
+    packageInfos.keySet().retainAll(packagePaths);
+  }
+
+  int size() {
+    return packageInfos.size();
+  }
+}
@@ -12,7 +12,8 @@ import com.google.gson.JsonSyntaxException;
 import com.intellij.ProjectTopics;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ModalityState;
-import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootEvent;
 import com.intellij.openapi.roots.ModuleRootListener;
@@ -21,18 +22,18 @@ import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.*;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.io.URLUtil;
 import com.jetbrains.lang.dart.util.DotPackagesFileUtil;
+import io.flutter.pub.PackageIndex;
 import io.flutter.pub.PubRoot;
+import io.flutter.pub.PubRootCache;
 import io.flutter.pub.PubRoots;
 import io.flutter.utils.JsonUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.jetbrains.lang.dart.util.PubspecYamlUtil.PUBSPEC_YAML;
 
@@ -45,7 +46,8 @@ import static com.jetbrains.lang.dart.util.PubspecYamlUtil.PUBSPEC_YAML;
  */
 public class FlutterPluginsLibraryManager extends AbstractLibraryManager<FlutterPluginLibraryProperties> {
 
-  private final AtomicBoolean isUpdating = new AtomicBoolean(false);
+  @NotNull
+  private final FlutterPluginClassifier classifier = new FlutterPluginClassifier();
 
   public FlutterPluginsLibraryManager(@NotNull Project project) {
     super(project);
@@ -105,58 +107,48 @@ public class FlutterPluginsLibraryManager extends AbstractLibraryManager<Flutter
   }
 
   private void scheduleUpdate() {
-    if (isUpdating.get()) {
-      return;
-    }
-
-    final Runnable runnable = this::updateFlutterPlugins;
-    DumbService.getInstance(getProject()).smartInvokeLater(runnable, ModalityState.NON_MODAL);
-  }
-
-  private void updateFlutterPlugins() {
-    if (!isUpdating.compareAndSet(false, true)) {
-      return;
-    }
-
-    try {
-      updateFlutterPluginsImpl();
-    }
-    finally {
-      isUpdating.set(false);
-    }
+    // The package maps are read and classified in the background; only the library update runs on the UI thread.
+    ReadAction.nonBlocking(this::computeFlutterPluginUrls)
+      .inSmartMode(getProject())
+      .coalesceBy(this)
+      .expireWith(getProject())
+      .finishOnUiThread(ModalityState.NON_MODAL, this::updateLibraryContent)
+      .submit(AppExecutorUtil.getAppExecutorService());
   }
 
-  private void updateFlutterPluginsImpl() {
-    final Set<String> flutterPluginPaths = getFlutterPluginPaths(PubRoots.forProject(getProject()));
+  @NotNull
+  private Set<String> computeFlutterPluginUrls() {
     final Set<String> flutterPluginUrls = new HashSet<>();
-    for (String path : flutterPluginPaths) {
+    for (String path : getFlutterPluginPaths(PubRoots.forProject(getProject()))) {
       flutterPluginUrls.add(VfsUtilCore.pathToUrl(path));
     }
-    updateLibraryContent(flutterPluginUrls);
+    return flutterPluginUrls;
   }
 
-  private static Set<String> getFlutterPluginPaths(List<PubRoot> roots) {
-    final Set<String> paths = new HashSet<>();
-
+  private Set<String> getFlutterPluginPaths(List<PubRoot> roots) {
+    // Pub roots in the same project usually share most of their dependencies, so collect them first.
+    // Lib folders that don't exist are kept as null so that their cached classification is dropped.
+    final Map<String, VirtualFile> libFolders = new HashMap<>();
+    final PubRootCache cache = PubRootCache.getInstance(getProject());
     for (PubRoot pubRoot : roots) {
-      final var packagesMap = pubRoot.getPackagesMap();
-      if (packagesMap == null) {
-        continue;
+      final PackageIndex index = cache.getPackageIndex(pubRoot);
+      if (index != null) {
+        final Map<String, VirtualFile> resolved = index.getLibDirs();
+        for (String packagePath : index.getPackagesMap().values()) {
+          libFolders.putIfAbsent(packagePath, resolved.get(packagePath));
+        }
       }
+    }
 
-      for (String packagePath : packagesMap.values()) {
-        final VirtualFile libFolder = LocalFileSystem.getInstance().findFileByPath(packagePath);
-        if (libFolder == null) {
-          continue;
-        }
-        final PubRoot pluginRoot = PubRoot.forDirectory(libFolder.getParent());
-        if (pluginRoot == null) {
-          continue;
-        }
+    // Only the packages the project still depends on are remembered.
+    classifier.retainOnly(libFolders.keySet());
 
-        if (pluginRoot.isFlutterPlugin()) {
-          paths.add(pluginRoot.getPath());
-        }
+    final Set<String> paths = new HashSet<>();
+    for (Map.Entry<String, VirtualFile> entry : libFolders.entrySet()) {
+      ProgressManager.checkCanceled();
+      final String pluginPath = classifier.getFlutterPluginPath(entry.getKey(), entry.getValue());
+      if (pluginPath != null) {
+        paths.add(pluginPath);
       }
     }
 
@@ -413,6 +413,31 @@ public class FlutterSdk {
     return new FlutterCommand(this, root.getRoot(), FlutterCommand.Type.TEST, args.toArray(new String[]{ }));
   }
 
+  /**
+   * Runs the tests in the given files, which are relative to the pub root, in machine mode.
+   */
+  public FlutterCommand flutterTestFiles(@NotNull PubRoot root, @NotNull List<String> relativePaths, @Nullable String additionalArgs,
+                                         @NotNull RunMode mode) {
+    final List<String> args = new ArrayList<>();
+    args.add("--machine");
+    if (mode == RunMode.DEBUG) {
+      args.add("--start-paused");
+    }
+    if (FlutterSettings.getInstance().isVerboseLogging()) {
+      args.add("--verbose");
+    }
+    if (additionalArgs != null && !additionalArgs.trim().isEmpty()) {
+      args.addAll(Arrays.asList(additionalArgs.trim().split(" ")));
+    }
+    if (mode == RunMode.COVERAGE && !args.contains("--coverage")) {
+      args.add("--coverage");
+    }
+    for (String path : relativePaths) {
+      args.add(FileUtil.toSystemDependentName(path));
+    }
+    return new FlutterCommand(this, root.getRoot(), FlutterCommand.Type.TEST, args.toArray(new String[]{ }));
+  }
+
   /**
    * Runs flutter create and waits for it to finish.
    * <p>
@@ -468,7 +493,7 @@ public class FlutterSdk {
     // Ensure pubspec is saved.
     FileDocumentManager.getInstance().saveAllDocuments();
     // Refresh afterwards to ensure Dart Plugin doesn't mistakenly nag to run pub.
-    return flutterPackagesGet(root).startInModuleConsole(module, root::refresh, null);
+    return flutterPackagesGet(root).startInModuleConsole(module, root::refreshPackages, null);
   }
 
   /**
@@ -483,7 +508,7 @@ public class FlutterSdk {
     if (module == null) return null;
     // Ensure pubspec is saved.
     FileDocumentManager.getInstance().saveAllDocuments();
-    return flutterPackagesUpgrade(root).startInModuleConsole(module, root::refresh, null);
+    return flutterPackagesUpgrade(root).startInModuleConsole(module, root::refreshPackages, null);
   }
 
   /**
@@ -29,7 +29,9 @@ import com.intellij.util.Urls;
 import com.jetbrains.lang.dart.sdk.DartSdkUpdateOption;
 import io.flutter.FlutterBundle;
 import io.flutter.dart.DartPlugin;
+import io.flutter.pub.PackageIndex;
 import io.flutter.pub.PubRoot;
+import io.flutter.pub.PubRootCache;
 import io.flutter.pub.PubRoots;
 import io.flutter.utils.FlutterModuleUtils;
 import io.flutter.utils.JsonUtils;
@@ -40,8 +42,6 @@ import org.jetbrains.annotations.Nullable;
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.*;
 
 public class FlutterSdkUtil {
@@ -302,19 +302,14 @@ public class FlutterSdkUtil {
       // TODO(messick): Configure the test framework to have proper pub data so we don't need this.
       return "testData/sdk";
     }
-    final JsonArray packages = getPackagesFromPackageConfig(PubRoots.forProject(project));
-    for (int i = 0; i < packages.size(); i++) {
-      final JsonObject pack = packages.get(i).getAsJsonObject();
-      if ("cupertino_icons".equals(JsonUtils.getStringMember(pack, "name"))) {
-        final String uri = JsonUtils.getStringMember(pack, "rootUri");
-        if (uri == null) {
-          continue;
-        }
-        try {
-          return new URI(uri).getPath();
-        }
-        catch (URISyntaxException ignored) {
-        }
+    // Called for each icon reference. The project's pub root cache keeps the package index of each root,
+    // so the package config is only parsed again after it changes.
+    final PubRootCache cache = PubRootCache.getInstance(project);
+    for (PubRoot pubRoot : PubRoots.forProject(project)) {
+      final PackageIndex index = cache.getPackageIndex(pubRoot);
+      final String path = index == null ? null : index.getPackagePath("cupertino_icons");
+      if (path != null) {
+        return path;
       }
     }
     return null;
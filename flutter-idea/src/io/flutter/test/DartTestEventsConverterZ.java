@@ -12,17 +12,16 @@ import com.intellij.util.PathUtil;
 import com.jetbrains.lang.dart.ide.runner.util.DartTestLocationProvider;
 import com.jetbrains.lang.dart.util.DartUrlResolver;
 import gnu.trove.TIntLongHashMap;
+import gnu.trove.TIntObjectHashMap;
 import io.flutter.utils.JsonUtils;
 import jetbrains.buildServer.messages.serviceMessages.ServiceMessageVisitor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.VisibleForTesting;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,6 +31,14 @@ import java.util.regex.Pattern;
  * NOTE: The test runner runs tests asynchronously. It is possible to get a 'testDone'
  * event followed some time later by an 'error' event for that same test. That should
  * convert a successful test into a failure. That case is not being handled.
+ * <p>
+ * Suites with more than {@link #LARGE_SUITE_TEST_COUNT} tests are run in a collapsed mode: a test is
+ * only added to the results tree once it prints, fails or is skipped, and passing tests are
+ * summarized in a single line of output when the run is done. This keeps the results tree from
+ * falling behind the test runner and lets the converter forget about tests once they have passed.
+ * Only the name and group of a passed test are kept, so that a late error or print can still be
+ * reported against it. Collapsed tests are taken out of the expected test count so the progress
+ * bar still completes.
  */
 @SuppressWarnings({"Duplicates", "FieldMayBeFinal", "LocalCanBeFinal", "SameReturnValue"})
 public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter {
@@ -89,16 +96,32 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
 
   private static final Gson GSON = new Gson();
 
+  /**
+   * Number of tests above which passing tests are collapsed rather than shown in the results tree.
+   */
+  static final int LARGE_SUITE_TEST_COUNT = 5000;
+
+  /**
+   * Number of collapsed tests after which the expected test count is corrected.
+   */
+  private static final int COLLAPSED_COUNT_BATCH_SIZE = 100;
+
   @NotNull private final DartUrlResolver myUrlResolver;
 
   private String myLocation;
   private Key myCurrentOutputType;
   private ServiceMessageVisitor myCurrentVisitor;
   private final TIntLongHashMap myTestIdToTimestamp;
-  private final Map<Integer, Test> myTestData;
-  private final Map<Integer, Group> myGroupData;
-  private final Map<Integer, Suite> mySuiteData;
+  private final TIntObjectHashMap<Test> myTestData;
+  private final TIntObjectHashMap<Group> myGroupData;
+  private final TIntObjectHashMap<Suite> mySuiteData;
   private int mySuitCount;
+  private int myTotalTestCount;
+  private int myCollapsedPassedCount;
+  // The number of collapsed tests already taken out of the expected test count.
+  private int myUncountedTestCount;
+  // Tests that were forgotten after passing in collapsed mode.
+  private final TIntObjectHashMap<PassedTest> myPassedTests;
 
   public DartTestEventsConverterZ(@NotNull final String testFrameworkName,
                                   @NotNull final TestConsoleProperties consoleProperties,
@@ -106,9 +129,10 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     super(testFrameworkName, consoleProperties);
     myUrlResolver = urlResolver;
     myTestIdToTimestamp = new TIntLongHashMap();
-    myTestData = new HashMap<>();
-    myGroupData = new HashMap<>();
-    mySuiteData = new HashMap<>();
+    myTestData = new TIntObjectHashMap<>();
+    myGroupData = new TIntObjectHashMap<>();
+    mySuiteData = new TIntObjectHashMap<>();
+    myPassedTests = new TIntObjectHashMap<>();
   }
 
   @Override
@@ -123,20 +147,19 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
 
   @SuppressWarnings("SimplifiableIfStatement")
   private boolean processEventText(final String text) throws JsonSyntaxException, ParseException {
+    // Most output of a large run is events, but plain output lines are common
+    // too. Only attempt a parse for text that can be JSON, rather than paying
+    // for a failed parse and an exception on every plain line.
+    if (!mayBeJson(text)) {
+      return processNonJsonText(text);
+    }
+
     JsonElement elem;
     try {
       elem = JsonUtils.parseString(text);
     }
     catch (JsonSyntaxException ex) {
-      if (text.contains("\"json\" is not an allowed value for option \"reporter\"")) {
-        final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted("Failed to start");
-        final ServiceMessageBuilder testFailed = ServiceMessageBuilder.testFailed("Failed to start");
-        testFailed.addAttribute("message", "Please update your pubspec.yaml dependency on package:test to version 0.12.9 or later.");
-        final ServiceMessageBuilder testFinished = ServiceMessageBuilder.testFinished("Failed to start");
-        return finishMessage(testStarted, 1, 0) & finishMessage(testFailed, 1, 0) & finishMessage(testFinished, 1, 0);
-      }
-
-      return doProcessServiceMessages(text);
+      return processNonJsonText(text);
     }
 
     if (elem != null && elem.isJsonArray()) return process(elem.getAsJsonArray());
@@ -145,6 +168,31 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     return process(elem.getAsJsonObject());
   }
 
+  private boolean processNonJsonText(final String text) throws ParseException {
+    if (text.contains("\"json\" is not an allowed value for option \"reporter\"")) {
+      final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted("Failed to start");
+      final ServiceMessageBuilder testFailed = ServiceMessageBuilder.testFailed("Failed to start");
+      testFailed.addAttribute("message", "Please update your pubspec.yaml dependency on package:test to version 0.12.9 or later.");
+      final ServiceMessageBuilder testFinished = ServiceMessageBuilder.testFinished("Failed to start");
+      return finishMessage(testStarted, 1, 0) & finishMessage(testFailed, 1, 0) & finishMessage(testFinished, 1, 0);
+    }
+
+    return doProcessServiceMessages(text);
+  }
+
+  /**
+   * Returns whether the first non-whitespace character of {@code text} could start a JSON object or array.
+   */
+  static boolean mayBeJson(@NotNull String text) {
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        return c == '{' || c == '[';
+      }
+    }
+    return false;
+  }
+
   /**
    * Hook to process arrays.
    */
@@ -152,44 +200,49 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     return false;
   }
 
-  private boolean doProcessServiceMessages(@NotNull final String text) throws ParseException {
+  @VisibleForTesting
+  boolean doProcessServiceMessages(@NotNull final String text) throws ParseException {
     LOG.debug(">>> " + text);
     return super.processServiceMessages(text, myCurrentOutputType, myCurrentVisitor);
   }
 
   @SuppressWarnings("SimplifiableIfStatement")
   private boolean process(JsonObject obj) throws JsonSyntaxException, ParseException {
-    String type = obj.get(JSON_TYPE).getAsString();
-    if (TYPE_TEST_START.equals(type)) {
-      return handleTestStart(obj);
-    }
-    else if (TYPE_TEST_DONE.equals(type)) {
-      return handleTestDone(obj);
-    }
-    else if (TYPE_ERROR.equals(type)) {
-      return handleError(obj);
-    }
-    else if (TYPE_PRINT.equals(type)) {
-      return handlePrint(obj);
-    }
-    else if (TYPE_GROUP.equals(type)) {
-      return handleGroup(obj);
-    }
-    else if (TYPE_SUITE.equals(type)) {
-      return handleSuite(obj);
-    }
-    else if (TYPE_ALL_SUITES.equals(type)) {
-      return handleAllSuites(obj);
-    }
-    else if (TYPE_START.equals(type)) {
-      return handleStart(obj);
-    }
-    else if (TYPE_DONE.equals(type)) {
-      return handleDone(obj);
-    }
-    else {
+    final JsonElement typeElement = obj.get(JSON_TYPE);
+    if (typeElement == null || !typeElement.isJsonPrimitive()) {
       return true;
     }
+    // A string switch dispatches on the hash of the type rather than
+    // comparing against each event type in turn.
+    switch (typeElement.getAsString()) {
+      case TYPE_TEST_START:
+        return handleTestStart(obj);
+      case TYPE_TEST_DONE:
+        return handleTestDone(obj);
+      case TYPE_ERROR:
+        return handleError(obj);
+      case TYPE_PRINT:
+        return handlePrint(obj);
+      case TYPE_GROUP:
+        return handleGroup(obj);
+      case TYPE_SUITE:
+        return handleSuite(obj);
+      case TYPE_ALL_SUITES:
+        return handleAllSuites(obj);
+      case TYPE_START:
+        return handleStart(obj);
+      case TYPE_DONE:
+        return handleDone(obj);
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Whether passing tests should be left out of the results tree.
+   */
+  boolean isCollapsingPassedTests() {
+    return myTotalTestCount > LARGE_SUITE_TEST_COUNT;
   }
 
   private boolean handleTestStart(JsonObject obj) throws ParseException {
@@ -217,6 +270,15 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
       return true;
     }
 
+    final Metadata metadata = Metadata.from(testObj.getAsJsonObject(DEF_METADATA));
+    if (isCollapsingPassedTests() && !metadata.skip) {
+      // Wait to see whether the test prints or fails before adding it to the tree.
+      preprocessTestStart(test);
+      test.myTestStartReported = false;
+      test.myTestStartDeferred = true;
+      return true;
+    }
+
     final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted(test.getBaseName());
     test.myTestStartReported = true;
 
@@ -225,7 +287,6 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     addLocationHint(testStarted, test);
     boolean result = finishMessage(testStarted, test.getId(), test.getValidParentId());
 
-    final Metadata metadata = Metadata.from(testObj.getAsJsonObject(DEF_METADATA));
     if (metadata.skip) {
       final ServiceMessageBuilder message = ServiceMessageBuilder.testIgnored(test.getBaseName());
       if (metadata.skipReason != null) message.addAttribute("message", metadata.skipReason);
@@ -235,6 +296,18 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     return result;
   }
 
+  /**
+   * Reports the start of a test that was not reported when its testStart event arrived.
+   */
+  private boolean reportLateTestStart(@NotNull Test test) throws ParseException {
+    final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted(test.getBaseName());
+    test.myTestStartReported = true;
+    if (test.myTestStartDeferred) {
+      addLocationHint(testStarted, test);
+    }
+    return finishMessage(testStarted, test.getId(), test.getValidParentId());
+  }
+
   /**
    * Hook to preprocess tests before adding location info and generating a service message.
    */
@@ -255,14 +328,30 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
 
   private boolean handleTestDone(JsonObject obj) throws ParseException {
     final Test test = getTest(obj);
+    if (test == null) return true;
 
-    if (!test.myTestStartReported) return true;
+    if (!test.myTestStartReported && !test.myTestStartDeferred) return true;
 
     String result = getResult(obj);
     if (!result.equals(RESULT_SUCCESS) && !result.equals(RESULT_FAILURE) && !result.equals(RESULT_ERROR)) {
       throw new ParseException("Unknown result: " + obj, 0);
     }
 
+    if (!test.myTestStartReported) {
+      if (result.equals(RESULT_SUCCESS)) {
+        // A collapsed test that passed without output.
+        test.testDone();
+        myCollapsedPassedCount++;
+        forgetTest(test);
+        boolean done = true;
+        if (myCollapsedPassedCount - myUncountedTestCount >= COLLAPSED_COUNT_BATCH_SIZE) {
+          done = updateTestCount();
+        }
+        return done && checkGroupDone(test.getParent());
+      }
+      reportLateTestStart(test);
+    }
+
     test.testDone();
 
     //if (test.getMetadata().skip) return true; // skipped tests are reported as ignored in handleTestStart(). testFinished signal must follow
@@ -271,7 +360,55 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     long duration = getTimestamp(obj) - myTestIdToTimestamp.get(test.getId());
     testFinished.addAttribute("duration", Long.toString(duration));
 
-    return finishMessage(testFinished, test.getId(), test.getValidParentId()) && checkGroupDone(test.getParent());
+    final boolean finished = finishMessage(testFinished, test.getId(), test.getValidParentId());
+    if (isCollapsingPassedTests() && result.equals(RESULT_SUCCESS)) {
+      forgetTest(test);
+    }
+    return finished && checkGroupDone(test.getParent());
+  }
+
+  /**
+   * Drops a finished test in collapsed mode so memory does not grow with the number of tests run.
+   */
+  private void forgetTest(@NotNull Test test) {
+    myTestData.remove(test.getId());
+    myTestIdToTimestamp.remove(test.getId());
+    myPassedTests.put(test.getId(), new PassedTest(test));
+  }
+
+  /**
+   * Returns a test that was forgotten after passing, so an event that arrives late can be reported against it.
+   */
+  @Nullable
+  private Test recallPassedTest(@NotNull JsonObject obj) {
+    final PassedTest passed = myPassedTests.get(Item.extractInt(obj, JSON_TEST_ID));
+    return passed == null ? null : passed.toTest();
+  }
+
+  /**
+   * Finishes a test that was recalled to report a late event, if that added it to the results tree.
+   */
+  private boolean finishRecalledTest(@NotNull Test test, boolean wasReported) throws ParseException {
+    myPassedTests.put(test.getId(), new PassedTest(test));
+    if (wasReported || !test.myTestStartReported) return true;
+
+    // The test is shown now, so it counts towards the expected test count again.
+    myCollapsedPassedCount--;
+    final ServiceMessageBuilder testFinished = ServiceMessageBuilder.testFinished(test.getBaseName());
+    return finishMessage(testFinished, test.getId(), test.getValidParentId());
+  }
+
+  /**
+   * Takes the tests that were collapsed since the last call out of the expected test count, or puts back the ones
+   * that were shown after all.
+   */
+  private boolean updateTestCount() throws ParseException {
+    final int change = myUncountedTestCount - myCollapsedPassedCount;
+    if (change == 0) return true;
+    myUncountedTestCount = myCollapsedPassedCount;
+    // See handleGroup(). The count of each message is added to the total.
+    final ServiceMessageBuilder testCount = new ServiceMessageBuilder("testCount").addAttribute("count", String.valueOf(change));
+    return doProcessServiceMessages(testCount.toString());
   }
 
   @SuppressWarnings("SimplifiableIfStatement")
@@ -290,6 +427,7 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
   protected boolean handleGroup(@NotNull Group group) throws ParseException {
     // From spec: The implicit group at the root of each test suite has null name and parentID attributes.
     if (group.getParent() == null && group.getTestCount() > 0) {
+      myTotalTestCount += group.getTestCount();
       // com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter.MyServiceMessageVisitor.KEY_TESTS_COUNT
       // and  com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter.MyServiceMessageVisitor.ATTR_KEY_TEST_COUNT
       final ServiceMessageBuilder testCount =
@@ -314,14 +452,19 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
   }
 
   private boolean handleError(JsonObject obj) throws ParseException {
-    final Test test = getTest(obj);
+    Test test = getTest(obj);
+    final boolean recalled = test == null;
+    if (recalled) {
+      // Tests that passed have been dropped in collapsed mode.
+      test = recallPassedTest(obj);
+      if (test == null) return true;
+    }
+    final boolean wasReported = test.myTestStartReported;
     final String message = getErrorMessage(obj);
     boolean result = true;
 
     if (!test.myTestStartReported) {
-      final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted(test.getBaseName());
-      test.myTestStartReported = true;
-      result = finishMessage(testStarted, test.getId(), test.getValidParentId());
+      result = reportLateTestStart(test);
     }
 
     if (test.myTestErrorReported) {
@@ -363,6 +506,9 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
       result &= finishMessage(stackTraceMessage, test.getId(), test.getValidParentId());
     }
 
+    if (recalled) {
+      result &= finishRecalledTest(test, wasReported);
+    }
     return result;
   }
 
@@ -379,7 +525,13 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
   }
 
   private boolean handlePrint(JsonObject obj) throws ParseException {
-    final Test test = getTest(obj);
+    Test test = getTest(obj);
+    final boolean recalled = test == null;
+    if (recalled) {
+      test = recallPassedTest(obj);
+      if (test == null) return true;
+    }
+    final boolean wasReported = test.myTestStartReported;
     boolean result = true;
 
     if (!test.myTestStartReported) {
@@ -387,15 +539,17 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
         return true; // output in successfully passing setUpAll/tearDownAll is not important enough to make these nodes visible
       }
 
-      final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted(test.getBaseName());
-      test.myTestStartReported = true;
-      result = finishMessage(testStarted, test.getId(), test.getValidParentId());
+      result = reportLateTestStart(test);
     }
 
     ServiceMessageBuilder message = ServiceMessageBuilder.testStdOut(test.getBaseName());
     message.addAttribute("out", appendLineBreakIfNeeded(getMessage(obj)));
 
-    return result & finishMessage(message, test.getId(), test.getValidParentId());
+    result &= finishMessage(message, test.getId(), test.getValidParentId());
+    if (recalled) {
+      result &= finishRecalledTest(test, wasReported);
+    }
+    return result;
   }
 
   private boolean handleStart(JsonObject obj) throws ParseException {
@@ -404,6 +558,10 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     myGroupData.clear();
     mySuiteData.clear();
     mySuitCount = 0;
+    myTotalTestCount = 0;
+    myCollapsedPassedCount = 0;
+    myUncountedTestCount = 0;
+    myPassedTests.clear();
 
     // TODO: Change to ServiceMessageBuilder.testsStarted() for 2020.1.
     return doProcessServiceMessages(new ServiceMessageBuilder("enteredTheMatrix").toString());
@@ -412,13 +570,20 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
   @SuppressWarnings("RedundantThrows")
   private boolean handleDone(JsonObject obj) throws ParseException {
     // The test runner has reached the end of the tests.
+    updateTestCount();
+    if (myCollapsedPassedCount > 0) {
+      final ServiceMessageBuilder summary = new ServiceMessageBuilder("message");
+      summary.addAttribute("text", myCollapsedPassedCount + " passing tests are not shown individually " +
+                                   "because the suite has more than " + LARGE_SUITE_TEST_COUNT + " tests.\n");
+      doProcessServiceMessages(summary.toString());
+    }
     processAllTestsDone();
     return true;
   }
 
   private void processAllTestsDone() {
     // All tests are done.
-    for (Group group : myGroupData.values()) {
+    myGroupData.forEachValue((group) -> {
       // For package: test prior to v. 0.12.9 there were no Group.testCount field, so need to finish them all at the end.
       // AFAIK the order does not matter. A depth-first post-order traversal of the tree would work
       // if order does matter. Note: Currently, there is no tree representation, just parent links.
@@ -431,12 +596,17 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
           // ignore it
         }
       }
-    }
+      return true;
+    });
     myTestIdToTimestamp.clear();
     myTestData.clear();
     myGroupData.clear();
     mySuiteData.clear();
     mySuitCount = 0;
+    myTotalTestCount = 0;
+    myCollapsedPassedCount = 0;
+    myUncountedTestCount = 0;
+    myPassedTests.clear();
   }
 
   private boolean processGroupDone(@NotNull final Group group) throws ParseException {
@@ -498,7 +668,7 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     return val.getAsBoolean();
   }
 
-  @NotNull
+  @Nullable
   private Test getTest(JsonObject obj) throws ParseException {
     return getItem(obj, myTestData);
   }
@@ -513,8 +683,8 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     return getItem(obj, mySuiteData);
   }
 
-  @NotNull
-  private <T extends Item> T getItem(JsonObject obj, Map<Integer, T> items) throws ParseException {
+  @Nullable
+  private <T extends Item> T getItem(JsonObject obj, TIntObjectHashMap<T> items) throws ParseException {
     if (obj == null) throw new ParseException("Unexpected null json object", 0);
     T item;
     JsonElement id = obj.get(JSON_ID);
@@ -609,7 +779,7 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
       return Metadata.from(obj.get(DEF_METADATA));
     }
 
-    static Suite lookupSuite(JsonObject obj, Map<Integer, Suite> suites) {
+    static Suite lookupSuite(JsonObject obj, TIntObjectHashMap<Suite> suites) {
       JsonElement suiteObj = obj.get(JSON_SUITE_ID);
       Suite suite = null;
       if (suiteObj != null && suiteObj.isJsonPrimitive()) {
@@ -740,13 +910,16 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
 
   protected static class Test extends Item {
     private boolean myTestStartReported = false;
+    private boolean myTestStartDeferred = false;
     private boolean myTestErrorReported = false;
 
-    static Test from(JsonObject obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
-      int[] groupIds = GSON.fromJson(obj.get(JSON_GROUP_IDS), (Type)int[].class);
+    static Test from(JsonObject obj, TIntObjectHashMap<Group> groups, TIntObjectHashMap<Suite> suites) {
+      // Only the innermost group is needed, so read it directly instead of binding the whole array.
+      final JsonElement groupIds = obj.get(JSON_GROUP_IDS);
       Group parent = null;
-      if (groupIds != null && groupIds.length > 0) {
-        parent = groups.get(groupIds[groupIds.length - 1]);
+      if (groupIds != null && groupIds.isJsonArray() && groupIds.getAsJsonArray().size() > 0) {
+        final JsonArray ids = groupIds.getAsJsonArray();
+        parent = groups.get(ids.get(ids.size() - 1).getAsInt());
       }
       Suite suite = lookupSuite(obj, suites);
       int line = extractInt(obj, JSON_ROOT_LINE);
@@ -770,11 +943,39 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
     }
   }
 
+  /**
+   * What is kept of a test that passed in collapsed mode.
+   */
+  private static class PassedTest {
+    private final int myId;
+    private final String myName;
+    private final Group myParent;
+    private final boolean myStartReported;
+    private final boolean myErrorReported;
+
+    PassedTest(@NotNull Test test) {
+      myId = test.getId();
+      myName = test.getName();
+      myParent = test.getParent();
+      myStartReported = test.myTestStartReported;
+      myErrorReported = test.myTestErrorReported;
+    }
+
+    @NotNull
+    Test toTest() {
+      final Test test = new Test(myId, myName, myParent, myParent == null ? null : myParent.getSuite(), Metadata.from(null), -1, -1, null);
+      test.myTestStartReported = myStartReported;
+      test.myTestStartDeferred = !myStartReported;
+      test.myTestErrorReported = myErrorReported;
+      return test;
+    }
+  }
+
   protected static class Group extends Item {
     private int myTestCount;
     private int myDoneTestsCount = 0;
 
-    static Group from(JsonObject obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
+    static Group from(JsonObject obj, TIntObjectHashMap<Group> groups, TIntObjectHashMap<Suite> suites) {
       JsonElement parentObj = obj.get(JSON_PARENT_ID);
       Group parent = null;
       if (parentObj != null && parentObj.isJsonPrimitive()) {
@@ -845,12 +1046,19 @@ public class DartTestEventsConverterZ extends OutputToGeneralTestEventsConverter
   }
 
   private static class Metadata {
-    @SuppressWarnings("unused") private boolean skip; // assigned by GSON via reflection
-    @SuppressWarnings("unused") private String skipReason; // assigned by GSON via reflection
+    private boolean skip;
+    private String skipReason;
 
     static Metadata from(JsonElement elem) {
-      if (elem == null) return new Metadata();
-      return GSON.fromJson(elem, (Type)Metadata.class);
+      final Metadata metadata = new Metadata();
+      // Read the two fields directly; reflective binding is measurable when done for every test.
+      if (elem == null || !elem.isJsonObject()) return metadata;
+      final JsonObject obj = elem.getAsJsonObject();
+      final JsonElement skip = obj.get("skip");
+      metadata.skip = skip != null && skip.isJsonPrimitive() && skip.getAsBoolean();
+      final JsonElement skipReason = obj.get("skipReason");
+      metadata.skipReason = skipReason == null || skipReason.isJsonNull() ? null : skipReason.getAsString();
+      return metadata;
     }
   }
 }
@@ -16,13 +16,14 @@ import org.jetbrains.annotations.Nullable;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CustomIconMaker {
   private static final Color normalColor = ColorUtil.fromHex("231F20");
 
-  private final Map<String, Icon> iconCache = new HashMap<>();
+  // Concurrent because inspector tree rows are prepared in the background.
+  private final Map<String, Icon> iconCache = new ConcurrentHashMap<>();
 
   public CustomIconMaker() {
 
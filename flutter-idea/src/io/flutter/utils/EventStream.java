@@ -7,9 +7,11 @@ package io.flutter.utils;
 
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
@@ -27,8 +29,22 @@ import java.util.function.Consumer;
  * The class is inspired by listen method on the Stream class in Dart.
  */
 public class EventStream<T> {
+  /**
+   * Streams with UI thread subscribers waiting for a value.
+   * <p>
+   * Updates for all streams are delivered by a single UI thread runnable, and
+   * each stream only delivers its latest value, so bursts of updates don't
+   * flood the UI thread's queue.
+   */
+  private static final Set<EventStream<?>> pendingUiDeliveries = new LinkedHashSet<>();
+  private static boolean uiDeliveryScheduled;
+
+  /**
+   * Copy-on-write so that values can be delivered without locking.
+   */
+  protected final List<StreamSubscription<T>> subscriptions = new CopyOnWriteArrayList<>();
 
-  protected final HashSet<StreamSubscription<T>> subscriptions = new LinkedHashSet<>();
+  private final AtomicBoolean uiDeliveryPending = new AtomicBoolean();
 
   private volatile T currentValue;
 
@@ -48,41 +64,62 @@ public class EventStream<T> {
    * Returns whether the value was changed.
    */
   public boolean setValue(T value) {
-    final List<StreamSubscription<T>> regularSubscriptions = new ArrayList<>();
-    final List<StreamSubscription<T>> uiThreadSubscriptions = new ArrayList<>();
     synchronized (this) {
       if (currentValue == value) {
         return false;
       }
       currentValue = value;
-      for (StreamSubscription<T> subscription : subscriptions) {
-        if (subscription.onUIThread) {
-          uiThreadSubscriptions.add(subscription);
-        }
-        else {
-          regularSubscriptions.add(subscription);
-        }
+    }
+    boolean hasUiSubscriptions = false;
+    for (StreamSubscription<T> subscription : subscriptions) {
+      if (subscription.onUIThread) {
+        hasUiSubscriptions = true;
       }
-      for (StreamSubscription<T> subscription : regularSubscriptions) {
-        subscription.notify(value);
+      else {
+        subscription.deliverLatest(this::getValue);
       }
     }
-    if (!uiThreadSubscriptions.isEmpty()) {
-      AsyncUtils.invokeLater(() -> {
-        synchronized (this) {
-          if (value != currentValue) {
-            // This update is obsolete.
-            return;
-          }
-          for (StreamSubscription<T> subscription : uiThreadSubscriptions) {
-            subscription.notify(value);
-          }
-        }
-      });
+    if (hasUiSubscriptions && uiDeliveryPending.compareAndSet(false, true)) {
+      scheduleUiDelivery(this);
     }
     return true;
   }
 
+  private static void scheduleUiDelivery(EventStream<?> stream) {
+    synchronized (pendingUiDeliveries) {
+      pendingUiDeliveries.add(stream);
+      if (uiDeliveryScheduled) {
+        return;
+      }
+      uiDeliveryScheduled = true;
+    }
+    AsyncUtils.invokeLater(EventStream::deliverPendingUiValues);
+  }
+
+  private static void deliverPendingUiValues() {
+    final List<EventStream<?>> streams;
+    synchronized (pendingUiDeliveries) {
+      streams = new ArrayList<>(pendingUiDeliveries);
+      pendingUiDeliveries.clear();
+      uiDeliveryScheduled = false;
+    }
+    for (EventStream<?> stream : streams) {
+      stream.deliverUiValue();
+    }
+  }
+
+  private void deliverUiValue() {
+    uiDeliveryPending.set(false);
+    final T value = currentValue;
+    for (StreamSubscription<T> subscription : subscriptions) {
+      // Skip subscribers that already have this value, for example because
+      // they subscribed after it was set.
+      if (subscription.onUIThread && !subscription.hasLastValue(value)) {
+        subscription.notify(value);
+      }
+    }
+  }
+
   /**
    * Listens for changes to the value tracked by the EventStream.
    * onData is always called immediately with the current value specified
@@ -112,7 +149,12 @@ public class EventStream<T> {
       subscriptions.add(subscription);
     }
 
-    onData.accept(cachedCurrentValue);
+    if (onUIThread) {
+      subscription.notify(cachedCurrentValue);
+    }
+    else {
+      subscription.deliverLatest(this::getValue);
+    }
     return subscription;
   }
 
@@ -7,7 +7,9 @@ package io.flutter.utils;
 
 import com.intellij.openapi.Disposable;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class StreamSubscription<T> implements Disposable {
   private final Consumer<T> onData;
@@ -18,6 +20,13 @@ public class StreamSubscription<T> implements Disposable {
   protected final boolean onUIThread;
   private EventStream<T> owner;
   private volatile boolean disposed = false;
+  private volatile T lastValue;
+  private volatile boolean hasLastValue;
+
+  /**
+   * Calls to {@link #deliverLatest} not yet handled by the thread that is delivering.
+   */
+  private final AtomicInteger pendingDeliveries = new AtomicInteger();
 
   protected StreamSubscription(Consumer<T> onData, boolean onUIThread, EventStream<T> owner) {
     this.onData = onData;
@@ -40,7 +49,45 @@ public class StreamSubscription<T> implements Disposable {
     // calls to notify if the subscription has lready been closed so no events
     // get through after the dispose method is called.
     if (!disposed) {
+      lastValue = value;
+      hasLastValue = true;
       onData.accept(value);
     }
   }
+
+  /**
+   * Passes the stream's current value to onData unless it has it already.
+   * <p>
+   * Only one thread delivers at a time, without holding a lock while onData runs. A thread that
+   * finds another one delivering returns at once, and the delivering thread reads the current
+   * value again before it stops, so the last value delivered is the latest one.
+   */
+  protected void deliverLatest(Supplier<T> currentValue) {
+    if (pendingDeliveries.getAndIncrement() != 0) {
+      return;
+    }
+    int pending = 1;
+    try {
+      do {
+        final T value = currentValue.get();
+        if (!hasLastValue(value)) {
+          notify(value);
+        }
+        pending = pendingDeliveries.addAndGet(-pending);
+      }
+      while (pending != 0);
+    }
+    catch (RuntimeException | Error e) {
+      // Let the next call deliver again.
+      pendingDeliveries.set(0);
+      throw e;
+    }
+  }
+
+  /**
+   * Whether the most recent value passed to onData is {@code value}.
+   */
+  protected boolean hasLastValue(T value) {
+    return hasLastValue && lastValue == value;
+  }
 }
@@ -755,7 +755,14 @@ public class Matrix4 {
    * Gets the [row] of the matrix
    */
   public Vector4 getRow(int row) {
-    final Vector4 r = new Vector4();
+    return getRow(row, null);
+  }
+
+  /**
+   * Stores the [row] of the matrix in [out], or in a new vector if [out] is null.
+   */
+  public Vector4 getRow(int row, Vector4 out) {
+    final Vector4 r = out == null ? new Vector4() : out;
     final double[] rStorage = r._v4storage;
     rStorage[0] = _m4storage[index(row, 0)];
     rStorage[1] = _m4storage[index(row, 1)];
@@ -780,7 +787,14 @@ public class Matrix4 {
    * Gets the [column] of the matrix
    */
   public Vector4 getColumn(int column) {
-    final Vector4 r = new Vector4();
+    return getColumn(column, null);
+  }
+
+  /**
+   * Stores the [column] of the matrix in [out], or in a new vector if [out] is null.
+   */
+  public Vector4 getColumn(int column, Vector4 out) {
+    final Vector4 r = out == null ? new Vector4() : out;
     final double[] rStorage = r._v4storage;
     final int entry = column * 4;
     rStorage[3] = _m4storage[entry + 3];
@@ -824,12 +838,22 @@ public class Matrix4 {
   }
 
   /**
-   * Returns new matrix -this
+   * Returns new matrix -this. If a [out] parameter is supplied, the result is
+   * stored in [out] instead.
    */
   public Matrix4 operatorNegate() {
-    final Matrix4 ret = clone();
-    ret.negate();
-    return ret;
+    return operatorNegate(null);
+  }
+
+  public Matrix4 operatorNegate(Matrix4 out) {
+    if (out == null) {
+      out = new Matrix4();
+    }
+    final double[] outStorage = out._m4storage;
+    for (int i = 0; i < 16; i++) {
+      outStorage[i] = -_m4storage[i];
+    }
+    return out;
   }
 
   /**
@@ -839,6 +863,13 @@ public class Matrix4 {
     return scaled(arg);
   }
 
+  /**
+   * Stores [this] scaled by [arg] in [out], or in a new matrix if [out] is null.
+   */
+  Matrix4 operatorMultiply(double arg, Matrix4 out) {
+    return scaled(arg, out);
+  }
+
   public Vector4 operatorMultiply(Vector4 arg) {
     return transformed(arg);
   }
@@ -852,21 +883,51 @@ public class Matrix4 {
   }
 
   /**
-   * Returns new matrix after component wise [this] + [arg]
+   * Stores [this] * [arg] in [out], or in a new matrix if [out] is null.
+   * [out] may be [this] or [arg].
+   */
+  public Matrix4 operatorMultiply(Matrix4 arg, Matrix4 out) {
+    return multiplied(arg, out);
+  }
+
+  /**
+   * Returns new matrix after component wise [this] + [arg]. If a [out]
+   * parameter is supplied, the result is stored in [out] instead.
    */
   public Matrix4 operatorAdd(Matrix4 arg) {
-    final Matrix4 ret = clone();
-    ret.add(arg);
-    return ret;
+    return operatorAdd(arg, null);
+  }
+
+  public Matrix4 operatorAdd(Matrix4 arg, Matrix4 out) {
+    if (out == null) {
+      out = new Matrix4();
+    }
+    final double[] argStorage = arg._m4storage;
+    final double[] outStorage = out._m4storage;
+    for (int i = 0; i < 16; i++) {
+      outStorage[i] = _m4storage[i] + argStorage[i];
+    }
+    return out;
   }
 
   /**
-   * Returns new matrix after component wise [this] - [arg]
+   * Returns new matrix after component wise [this] - [arg]. If a [out]
+   * parameter is supplied, the result is stored in [out] instead.
    */
   public Matrix4 operatorSub(Matrix4 arg) {
-    final Matrix4 ret = clone();
-    ret.sub(arg);
-    return ret;
+    return operatorSub(arg, null);
+  }
+
+  public Matrix4 operatorSub(Matrix4 arg, Matrix4 out) {
+    if (out == null) {
+      out = new Matrix4();
+    }
+    final double[] argStorage = arg._m4storage;
+    final double[] outStorage = out._m4storage;
+    for (int i = 0; i < 16; i++) {
+      outStorage[i] = _m4storage[i] - argStorage[i];
+    }
+    return out;
   }
 
   /**
@@ -1133,14 +1194,33 @@ public class Matrix4 {
     return scaled(x, 1, 1);
   }
 
+  public Matrix4 scaled(double x, Matrix4 out) {
+    return scaled(x, 1, 1, out);
+  }
+
   public Matrix4 scaled(double x, double y) {
     return scaled(x, y, 1);
   }
 
+  public Matrix4 scaled(double x, double y, Matrix4 out) {
+    return scaled(x, y, 1, out);
+  }
+
   public Matrix4 scaled(double x, double y, double z) {
-    final Matrix4 ret = clone();
-    ret.scale(x, y, z);
-    return ret;
+    return scaled(x, y, z, null);
+  }
+
+  /**
+   * Scales [this] by [x], [y] and [z] into [out], or into a new matrix if
+   * [out] is null.
+   */
+  public Matrix4 scaled(double x, double y, double z, Matrix4 out) {
+    if (out == null) {
+      out = new Matrix4();
+    }
+    copyInto(out);
+    out.scale(x, y, z);
+    return out;
   }
 
   /**
@@ -1191,9 +1271,21 @@ public class Matrix4 {
    * Returns the tranpose of this.
    */
   public Matrix4 transposed() {
-    final Matrix4 ret = clone();
-    ret.transpose();
-    return ret;
+    return transposed(null);
+  }
+
+  /**
+   * Stores the transpose of this in [out], or in a new matrix if [out] is null.
+   */
+  public Matrix4 transposed(Matrix4 out) {
+    if (out == null) {
+      out = new Matrix4();
+    }
+    if (out != this) {
+      copyInto(out);
+    }
+    out.transpose();
+    return out;
   }
 
   public void transpose() {
@@ -1222,7 +1314,15 @@ public class Matrix4 {
    * Returns the component wise absolute value of this.
    */
   public Matrix4 absolute() {
-    final Matrix4 r = new Matrix4();
+    return absolute(null);
+  }
+
+  /**
+   * Stores the component wise absolute value of this in [out], or in a new
+   * matrix if [out] is null.
+   */
+  public Matrix4 absolute(Matrix4 out) {
+    final Matrix4 r = out == null ? new Matrix4() : out;
     final double[] rStorage = r._m4storage;
     rStorage[0] = Math.abs(_m4storage[0]);
     rStorage[1] = Math.abs(_m4storage[1]);
@@ -1800,64 +1900,81 @@ public class Matrix4 {
    * Multiply [this] by [arg].
    */
   public void multiply(Matrix4 arg) {
-    final double m00 = _m4storage[0];
-    final double m01 = _m4storage[4];
-    final double m02 = _m4storage[8];
-    final double m03 = _m4storage[12];
-    final double m10 = _m4storage[1];
-    final double m11 = _m4storage[5];
-    final double m12 = _m4storage[9];
-    final double m13 = _m4storage[13];
-    final double m20 = _m4storage[2];
-    final double m21 = _m4storage[6];
-    final double m22 = _m4storage[10];
-    final double m23 = _m4storage[14];
-    final double m30 = _m4storage[3];
-    final double m31 = _m4storage[7];
-    final double m32 = _m4storage[11];
-    final double m33 = _m4storage[15];
-    final double[] argStorage = arg._m4storage;
-    final double n00 = argStorage[0];
-    final double n01 = argStorage[4];
-    final double n02 = argStorage[8];
-    final double n03 = argStorage[12];
-    final double n10 = argStorage[1];
-    final double n11 = argStorage[5];
-    final double n12 = argStorage[9];
-    final double n13 = argStorage[13];
-    final double n20 = argStorage[2];
-    final double n21 = argStorage[6];
-    final double n22 = argStorage[10];
-    final double n23 = argStorage[14];
-    final double n30 = argStorage[3];
-    final double n31 = argStorage[7];
-    final double n32 = argStorage[11];
-    final double n33 = argStorage[15];
-    _m4storage[0] = (m00 * n00) + (m01 * n10) + (m02 * n20) + (m03 * n30);
-    _m4storage[4] = (m00 * n01) + (m01 * n11) + (m02 * n21) + (m03 * n31);
-    _m4storage[8] = (m00 * n02) + (m01 * n12) + (m02 * n22) + (m03 * n32);
-    _m4storage[12] = (m00 * n03) + (m01 * n13) + (m02 * n23) + (m03 * n33);
-    _m4storage[1] = (m10 * n00) + (m11 * n10) + (m12 * n20) + (m13 * n30);
-    _m4storage[5] = (m10 * n01) + (m11 * n11) + (m12 * n21) + (m13 * n31);
-    _m4storage[9] = (m10 * n02) + (m11 * n12) + (m12 * n22) + (m13 * n32);
-    _m4storage[13] = (m10 * n03) + (m11 * n13) + (m12 * n23) + (m13 * n33);
-    _m4storage[2] = (m20 * n00) + (m21 * n10) + (m22 * n20) + (m23 * n30);
-    _m4storage[6] = (m20 * n01) + (m21 * n11) + (m22 * n21) + (m23 * n31);
-    _m4storage[10] = (m20 * n02) + (m21 * n12) + (m22 * n22) + (m23 * n32);
-    _m4storage[14] = (m20 * n03) + (m21 * n13) + (m22 * n23) + (m23 * n33);
-    _m4storage[3] = (m30 * n00) + (m31 * n10) + (m32 * n20) + (m33 * n30);
-    _m4storage[7] = (m30 * n01) + (m31 * n11) + (m32 * n21) + (m33 * n31);
-    _m4storage[11] = (m30 * n02) + (m31 * n12) + (m32 * n22) + (m33 * n32);
-    _m4storage[15] = (m30 * n03) + (m31 * n13) + (m32 * n23) + (m33 * n33);
+    multiply(_m4storage, arg._m4storage, _m4storage);
+  }
+
+  /**
+   * Stores [a] * [b] in [out]. All values are read before any are written, so
+   * [out] may be the same array as [a] or [b].
+   */
+  private static void multiply(double[] a, double[] b, double[] out) {
+    final double m00 = a[0];
+    final double m01 = a[4];
+    final double m02 = a[8];
+    final double m03 = a[12];
+    final double m10 = a[1];
+    final double m11 = a[5];
+    final double m12 = a[9];
+    final double m13 = a[13];
+    final double m20 = a[2];
+    final double m21 = a[6];
+    final double m22 = a[10];
+    final double m23 = a[14];
+    final double m30 = a[3];
+    final double m31 = a[7];
+    final double m32 = a[11];
+    final double m33 = a[15];
+    final double n00 = b[0];
+    final double n01 = b[4];
+    final double n02 = b[8];
+    final double n03 = b[12];
+    final double n10 = b[1];
+    final double n11 = b[5];
+    final double n12 = b[9];
+    final double n13 = b[13];
+    final double n20 = b[2];
+    final double n21 = b[6];
+    final double n22 = b[10];
+    final double n23 = b[14];
+    final double n30 = b[3];
+    final double n31 = b[7];
+    final double n32 = b[11];
+    final double n33 = b[15];
+    out[0] = (m00 * n00) + (m01 * n10) + (m02 * n20) + (m03 * n30);
+    out[4] = (m00 * n01) + (m01 * n11) + (m02 * n21) + (m03 * n31);
+    out[8] = (m00 * n02) + (m01 * n12) + (m02 * n22) + (m03 * n32);
+    out[12] = (m00 * n03) + (m01 * n13) + (m02 * n23) + (m03 * n33);
+    out[1] = (m10 * n00) + (m11 * n10) + (m12 * n20) + (m13 * n30);
+    out[5] = (m10 * n01) + (m11 * n11) + (m12 * n21) + (m13 * n31);
+    out[9] = (m10 * n02) + (m11 * n12) + (m12 * n22) + (m13 * n32);
+    out[13] = (m10 * n03) + (m11 * n13) + (m12 * n23) + (m13 * n33);
+    out[2] = (m20 * n00) + (m21 * n10) + (m22 * n20) + (m23 * n30);
+    out[6] = (m20 * n01) + (m21 * n11) + (m22 * n21) + (m23 * n31);
+    out[10] = (m20 * n02) + (m21 * n12) + (m22 * n22) + (m23 * n32);
+    out[14] = (m20 * n03) + (m21 * n13) + (m22 * n23) + (m23 * n33);
+    out[3] = (m30 * n00) + (m31 * n10) + (m32 * n20) + (m33 * n30);
+    out[7] = (m30 * n01) + (m31 * n11) + (m32 * n21) + (m33 * n31);
+    out[11] = (m30 * n02) + (m31 * n12) + (m32 * n22) + (m33 * n32);
+    out[15] = (m30 * n03) + (m31 * n13) + (m32 * n23) + (m33 * n33);
   }
 
   /**
    * Multiply a copy of [this] with [arg].
    */
   public Matrix4 multiplied(Matrix4 arg) {
-    final Matrix4 ret = clone();
-    ret.multiply(arg);
-    return ret;
+    return multiplied(arg, null);
+  }
+
+  /**
+   * Stores [this] multiplied by [arg] in [out], or in a new matrix if [out] is
+   * null. [out] may be [this] or [arg].
+   */
+  public Matrix4 multiplied(Matrix4 arg, Matrix4 out) {
+    if (out == null) {
+      out = new Matrix4();
+    }
+    multiply(_m4storage, arg._m4storage, out._m4storage);
+    return out;
   }
 
   /**
@@ -2212,6 +2329,45 @@ public class Matrix4 {
     return arg;
   }
 
+  /**
+   * Transforms the corners of packed rects using the perspective
+   * transformation defined by [this].
+   * <p>
+   * [in] holds rects as left, top, width, height. For each rect, [out]
+   * receives the x and y of its top left, top right, bottom right and bottom
+   * left corners, so it needs twice the length of [in]. No objects are
+   * allocated, so many rects can be transformed in a paint loop.
+   */
+  public void transformRects(double[] in, double[] out) {
+    transformRects(in, 0, out, 0, in.length / 4);
+  }
+
+  public void transformRects(double[] in, int inOffset, double[] out, int outOffset, int count) {
+    final double m0 = _m4storage[0];
+    final double m1 = _m4storage[1];
+    final double m3 = _m4storage[3];
+    final double m4 = _m4storage[4];
+    final double m5 = _m4storage[5];
+    final double m7 = _m4storage[7];
+    final double m12 = _m4storage[12];
+    final double m13 = _m4storage[13];
+    final double m15 = _m4storage[15];
+    int j = outOffset;
+    for (int i = inOffset, end = inOffset + count * 4; i < end; i += 4) {
+      final double left = in[i];
+      final double top = in[i + 1];
+      final double right = left + in[i + 2];
+      final double bottom = top + in[i + 3];
+      for (int corner = 0; corner < 4; corner++) {
+        final double x = corner == 0 || corner == 3 ? left : right;
+        final double y = corner < 2 ? top : bottom;
+        final double w = 1.0 / ((m3 * x) + (m7 * y) + m15);
+        out[j++] = ((m0 * x) + (m4 * y) + m12) * w;
+        out[j++] = ((m1 * x) + (m5 * y) + m13) * w;
+      }
+    }
+  }
+
   /**
    * Transform a copy of [arg] of type [Vector4] using the transformation
    * defined by [this]. If a [out] parameter is supplied, the copy is stored in
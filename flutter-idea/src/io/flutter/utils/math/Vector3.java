@@ -179,48 +179,58 @@ public class Vector3 implements Vector {
   }
 
   /**
-   * Negate
+   * Negate. If [out] is given, the result is stored in it instead of a new vector.
    */
   public Vector3 operatorNegate() {
-    final Vector3 ret = clone();
-    ret.negate();
-    return ret;
+    return operatorNegate(null);
+  }
+
+  public Vector3 operatorNegate(Vector3 out) {
+    return scaled(-1.0, out);
   }
 
   /**
-   * Subtract two vectors.
+   * Subtract two vectors. If [out] is given, the result is stored in it instead of a new vector.
    */
   public Vector3 operatorSub(Vector3 other) {
-    final Vector3 ret = clone();
-    ret.sub(other);
-    return ret;
+    return operatorSub(other, null);
+  }
+
+  public Vector3 operatorSub(Vector3 other, Vector3 out) {
+    return setSum(other, -1.0, out);
   }
 
   /**
-   * Add two vectors.
+   * Add two vectors. If [out] is given, the result is stored in it instead of a new vector.
    */
   public Vector3 operatorAdd(Vector3 other) {
-    final Vector3 ret = clone();
-    ret.add(other);
-    return ret;
+    return operatorAdd(other, null);
+  }
+
+  public Vector3 operatorAdd(Vector3 other, Vector3 out) {
+    return setSum(other, 1.0, out);
   }
 
   /**
-   * Scale.
+   * Scale by 1 / [scale]. If [out] is given, the result is stored in it instead of a new vector.
    */
   public Vector3 operatorDiv(double scale) {
-    final Vector3 ret = clone();
-    ret.scaled(1.0 / scale);
-    return ret;
+    return operatorDiv(scale, null);
+  }
+
+  public Vector3 operatorDiv(double scale, Vector3 out) {
+    return scaled(1.0 / scale, out);
   }
 
   /**
-   * Scale by [scale].
+   * Scale by [scale]. If [out] is given, the result is stored in it instead of a new vector.
    */
   public Vector3 operatorScaled(double scale) {
-    final Vector3 ret = clone();
-    ret.scaled(scale);
-    return ret;
+    return scaled(scale, null);
+  }
+
+  public Vector3 operatorScaled(double scale, Vector3 out) {
+    return scaled(scale, out);
   }
 
   /**
@@ -389,7 +399,7 @@ public class Vector3 implements Vector {
    * Reflect [this].
    */
   public Vector3 reflect(Vector3 normal) {
-    sub(normal.scaled(2.0 * normal.dot(this)));
+    addScaled(normal, -2.0 * normal.dot(this));
     return this;
   }
 
@@ -587,9 +597,37 @@ public class Vector3 implements Vector {
    * Create a copy of [this] and scale it by [arg].
    */
   public Vector3 scaled(double arg) {
-    final Vector3 ret = clone();
-    ret.scale(arg);
-    return ret;
+    return scaled(arg, null);
+  }
+
+  /**
+   * Stores [this] scaled by [arg] in [out], or in a new vector if [out] is null.
+   */
+  public Vector3 scaled(double arg, Vector3 out) {
+    if (out == null) {
+      out = new Vector3();
+    }
+    final double[] outStorage = out._v3storage;
+    outStorage[0] = _v3storage[0] * arg;
+    outStorage[1] = _v3storage[1] * arg;
+    outStorage[2] = _v3storage[2] * arg;
+    return out;
+  }
+
+  /**
+   * Stores [this] + [other] * [factor] in [out], or in a new vector if [out] is null.
+   * [out] may be [this] or [other].
+   */
+  private Vector3 setSum(Vector3 other, double factor, Vector3 out) {
+    if (out == null) {
+      out = new Vector3();
+    }
+    final double[] otherStorage = other._v3storage;
+    final double[] outStorage = out._v3storage;
+    outStorage[0] = _v3storage[0] + otherStorage[0] * factor;
+    outStorage[1] = _v3storage[1] + otherStorage[1] * factor;
+    outStorage[2] = _v3storage[2] + otherStorage[2] * factor;
+    return out;
   }
 
   /**
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.view;
+
+import com.google.gson.JsonObject;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.SimpleTextAttributes;
+import io.flutter.editor.FlutterMaterialIcons;
+import io.flutter.inspector.DiagnosticLevel;
+import io.flutter.inspector.DiagnosticsNode;
+import io.flutter.utils.ColorIconMaker;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.flutter.utils.JsonUtils.getIntMember;
+
+/**
+ * The text fragments and icons an inspector tree row shows for a {@link DiagnosticsNode}.
+ * <p>
+ * A spec only depends on the node and on settings of the panel showing it, so it is computed once per
+ * node, usually in the background as the node is added to the tree. Highlighting depends on the
+ * selection and on the linked tree, so it is worked out when the row is painted.
+ */
+public class DiagnosticsNodeRenderSpec {
+  // TODO(jacobr): enable this experiment once we make the link actually clickable.
+  private static final boolean SHOW_RENDER_OBJECT_PROPERTIES_AS_LINKS = false;
+
+  /**
+   * Split text into two groups, word characters at the start of a string and all other
+   * characters. Skip an <code>-</code> or <code>#</code> between the two groups.
+   */
+  private static final Pattern primaryDescriptionPattern = Pattern.compile("([\\w ]+)[-#]?(.*)");
+
+  /**
+   * Either a text fragment or an icon placed after the text before it.
+   */
+  private static class Part {
+    @Nullable final String text;
+    @Nullable final SimpleTextAttributes attributes;
+    @Nullable final Icon icon;
+
+    Part(@Nullable String text, @Nullable SimpleTextAttributes attributes, @Nullable Icon icon) {
+      this.text = text;
+      this.attributes = attributes;
+      this.icon = icon;
+    }
+  }
+
+  private final boolean detailsSubtree;
+  private final boolean highlightNodesShownInBothTrees;
+  private final List<Part> parts = new ArrayList<>();
+  @Nullable private Icon leadingIcon;
+
+  // Whether the node's value is shown in linkedPanel, as of linkedGeneration. Only used on the UI thread.
+  @Nullable private InspectorPanel linkedPanel;
+  private int linkedGeneration;
+  private boolean linked;
+
+  private DiagnosticsNodeRenderSpec(@NotNull InspectorPanel panel) {
+    this(panel.detailsSubtree, panel.isHighlightNodesShownInBothTrees());
+  }
+
+  @VisibleForTesting
+  DiagnosticsNodeRenderSpec(boolean detailsSubtree, boolean highlightNodesShownInBothTrees) {
+    this.detailsSubtree = detailsSubtree;
+    this.highlightNodesShownInBothTrees = highlightNodesShownInBothTrees;
+  }
+
+  /**
+   * Returns whether the spec was computed with the panel's current settings.
+   */
+  boolean isCurrent(@NotNull InspectorPanel panel) {
+    return detailsSubtree == panel.detailsSubtree && highlightNodesShownInBothTrees == panel.isHighlightNodesShownInBothTrees();
+  }
+
+  /**
+   * Returns whether the value of the node is shown in another panel, checking again only if that panel's tree changed.
+   */
+  boolean isValueShownIn(@NotNull InspectorPanel panel, @NotNull DiagnosticsNode node) {
+    final int generation = panel.getValueToTreeNodeGeneration();
+    if (panel != linkedPanel || generation != linkedGeneration) {
+      linkedPanel = panel;
+      linkedGeneration = generation;
+      linked = panel.hasDiagnosticsValue(node.getValueRef());
+    }
+    return linked;
+  }
+
+  void render(@NotNull DiagnosticsTreeCellRenderer renderer) {
+    for (Part part : parts) {
+      if (part.icon != null) {
+        renderer.addIcon(part.icon);
+      }
+      else {
+        assert part.text != null && part.attributes != null;
+        renderer.appendText(part.text, part.attributes);
+      }
+    }
+    if (leadingIcon != null) {
+      renderer.setIcon(leadingIcon);
+    }
+  }
+
+  private void appendText(@NotNull String text, @NotNull SimpleTextAttributes attributes) {
+    parts.add(new Part(text, attributes, null));
+  }
+
+  private void addIcon(@NotNull Icon icon) {
+    parts.add(new Part(null, null, icon));
+  }
+
+  /**
+   * Computes the spec for a node shown in the given panel. Safe to call from any thread.
+   */
+  @NotNull
+  static DiagnosticsNodeRenderSpec compute(@NotNull DiagnosticsNode node,
+                                           @NotNull InspectorPanel panel,
+                                           @NotNull ColorIconMaker colorIconMaker) {
+    final DiagnosticsNodeRenderSpec spec = new DiagnosticsNodeRenderSpec(panel);
+
+    final String name = node.getName();
+    SimpleTextAttributes textAttributes = InspectorPanel.textAttributesForLevel(node.getLevel());
+    if (node.isProperty()) {
+      // Display of inline properties.
+      final String propertyType = node.getPropertyType();
+      final JsonObject properties = node.getValuePropertiesJson();
+      if (panel.isCreatedByLocalProject(node)) {
+        textAttributes = textAttributes
+          .derive(SimpleTextAttributes.REGULAR_ITALIC_ATTRIBUTES.getStyle(), null, null, null);
+      }
+
+      if (StringUtils.isNotEmpty(name) && node.getShowName()) {
+        spec.appendText(name + node.getSeparator() + " ", textAttributes);
+      }
+
+      String description = node.getDescription();
+      if (propertyType != null && properties != null) {
+        switch (propertyType) {
+          case "Color": {
+            final int alpha = getIntMember(properties, "alpha");
+            final int red = getIntMember(properties, "red");
+            final int green = getIntMember(properties, "green");
+            final int blue = getIntMember(properties, "blue");
+
+            if (alpha == 255) {
+              description = String.format("#%02x%02x%02x", red, green, blue);
+            }
+            else {
+              description = String.format("#%02x%02x%02x%02x", alpha, red, green, blue);
+            }
+
+            //noinspection UseJBColor
+            final Color color = new Color(red, green, blue, alpha);
+            spec.addIcon(colorIconMaker.getCustomIcon(color));
+            break;
+          }
+
+          case "IconData": {
+            final int codePoint = getIntMember(properties, "codePoint");
+            if (codePoint > 0) {
+              final Icon icon = FlutterMaterialIcons.getIconForCodePoint(codePoint);
+              if (icon != null) {
+                spec.addIcon(icon);
+              }
+            }
+            break;
+          }
+        }
+      }
+
+      if (SHOW_RENDER_OBJECT_PROPERTIES_AS_LINKS && propertyType.equals("RenderObject")) {
+        textAttributes = textAttributes
+          .derive(SimpleTextAttributes.LINK_ATTRIBUTES.getStyle(), JBColor.blue, null, null);
+      }
+
+      // TODO(jacobr): custom display for units, iterables, and padding.
+      spec.appendText(description, textAttributes);
+      if (node.getLevel().equals(DiagnosticLevel.fine) && node.hasDefaultValue()) {
+        spec.appendText(" ", textAttributes);
+        spec.addIcon(panel.defaultIcon);
+      }
+    }
+    else {
+      // Non property, regular node case.
+      if (StringUtils.isNotEmpty(name) && node.getShowName() && !name.equals("child")) {
+        if (name.startsWith("child ")) {
+          spec.appendText(name, SimpleTextAttributes.GRAYED_ATTRIBUTES);
+        }
+        else {
+          spec.appendText(name, textAttributes);
+        }
+
+        if (node.getShowSeparator()) {
+          spec.appendText(node.getSeparator(), SimpleTextAttributes.GRAY_ATTRIBUTES);
+        }
+        else {
+          spec.appendText(" ", SimpleTextAttributes.GRAY_ATTRIBUTES);
+        }
+      }
+
+      if (panel.detailsSubtree && panel.isCreatedByLocalProject(node) && !spec.highlightNodesShownInBothTrees) {
+        textAttributes = textAttributes.derive(
+          SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES.getStyle(), null, null, null);
+      }
+
+      final String description = node.getDescription();
+      final Matcher match = primaryDescriptionPattern.matcher(description);
+      if (match.matches()) {
+        spec.appendText(" ", SimpleTextAttributes.GRAY_ATTRIBUTES);
+        spec.appendText(match.group(1), textAttributes);
+        spec.appendText(" ", textAttributes);
+        spec.appendText(match.group(2), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+      }
+      else if (!node.getDescription().isEmpty()) {
+        spec.appendText(" ", SimpleTextAttributes.GRAY_ATTRIBUTES);
+        spec.appendText(node.getDescription(), textAttributes);
+      }
+
+      // TODO(devoncarew): For widgets that are definied in the current project, we could consider
+      // appending the relative path to the defining library ('lib/src/foo_page.dart').
+
+      spec.leadingIcon = node.getIcon();
+    }
+    return spec;
+  }
+}
@@ -5,18 +5,14 @@
  */
 package io.flutter.view;
 
-import com.google.gson.JsonObject;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.ui.JBColor;
 import com.intellij.ui.SimpleTextAttributes;
 import com.intellij.ui.speedSearch.SpeedSearchSupply;
 import com.intellij.util.ui.UIUtil;
-import io.flutter.editor.FlutterMaterialIcons;
-import io.flutter.inspector.DiagnosticLevel;
 import io.flutter.inspector.DiagnosticsNode;
 import io.flutter.utils.ColorIconMaker;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
@@ -24,23 +20,10 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static io.flutter.utils.JsonUtils.getIntMember;
 
 class DiagnosticsTreeCellRenderer extends InspectorColoredTreeCellRenderer {
-  // TODO(jacobr): enable this experiment once we make the link actually clickable.
-  private static final boolean SHOW_RENDER_OBJECT_PROPERTIES_AS_LINKS = false;
-
   private final InspectorPanel panel;
 
-  /**
-   * Split text into two groups, word characters at the start of a string and all other
-   * characters. Skip an <code>-</code> or <code>#</code> between the two groups.
-   */
-  private final Pattern primaryDescriptionPattern = Pattern.compile("([\\w ]+)[-#]?(.*)");
-
   private JTree tree;
   private boolean selected;
 
@@ -60,6 +43,21 @@ class DiagnosticsTreeCellRenderer extends InspectorColoredTreeCellRenderer {
     this.panel = panel;
   }
 
+  /**
+   * Returns how the node is drawn, computing it if it hasn't been already or if the panel's settings changed.
+   * <p>
+   * Safe to call from any thread.
+   */
+  @NotNull
+  DiagnosticsNodeRenderSpec getRenderSpec(@NotNull DiagnosticsNode node) {
+    DiagnosticsNodeRenderSpec spec = node.getRenderSpec();
+    if (spec == null || !spec.isCurrent(panel)) {
+      spec = DiagnosticsNodeRenderSpec.compute(node, panel, colorIconMaker);
+      node.setRenderSpec(spec);
+    }
+    return spec;
+  }
+
   public void customizeCellRenderer(
     @NotNull final JTree tree,
     final Object value,
@@ -83,6 +81,7 @@ class DiagnosticsTreeCellRenderer extends InspectorColoredTreeCellRenderer {
     }
     if (!(userObject instanceof DiagnosticsNode)) return;
     final DiagnosticsNode node = (DiagnosticsNode)userObject;
+    final DiagnosticsNodeRenderSpec spec = getRenderSpec(node);
 
     boolean highlight = selected;
     boolean isLinkedChild = false;
@@ -90,11 +89,11 @@ class DiagnosticsTreeCellRenderer extends InspectorColoredTreeCellRenderer {
     // show how the trees are linked together.
     if (!highlight && panel.isHighlightNodesShownInBothTrees()) {
       if (panel.detailsSubtree && panel.isCreatedByLocalProject(node)) {
-        isLinkedChild = panel.parentTree.hasDiagnosticsValue(node.getValueRef());
+        isLinkedChild = panel.parentTree != null && spec.isValueShownIn(panel.parentTree, node);
       }
       else {
         if (panel.subtreePanel != null) {
-          isLinkedChild = panel.subtreePanel.hasDiagnosticsValue(node.getValueRef());
+          isLinkedChild = spec.isValueShownIn(panel.subtreePanel, node);
         }
       }
     }
@@ -112,119 +111,10 @@ class DiagnosticsTreeCellRenderer extends InspectorColoredTreeCellRenderer {
       setBackground(panel.currentShowNode == value ? SHOW_MATCH_COLOR : LINKED_COLOR);
     }
 
-    final String name = node.getName();
-    SimpleTextAttributes textAttributes = InspectorPanel.textAttributesForLevel(node.getLevel());
-    if (node.isProperty()) {
-      // Display of inline properties.
-      final String propertyType = node.getPropertyType();
-      final JsonObject properties = node.getValuePropertiesJson();
-      if (panel.isCreatedByLocalProject(node)) {
-        textAttributes = textAttributes
-          .derive(SimpleTextAttributes.REGULAR_ITALIC_ATTRIBUTES.getStyle(), null, null, null);
-      }
-
-      if (StringUtils.isNotEmpty(name) && node.getShowName()) {
-        appendText(name + node.getSeparator() + " ", textAttributes);
-      }
-
-      String description = node.getDescription();
-      if (propertyType != null && properties != null) {
-        switch (propertyType) {
-          case "Color": {
-            final int alpha = getIntMember(properties, "alpha");
-            final int red = getIntMember(properties, "red");
-            final int green = getIntMember(properties, "green");
-            final int blue = getIntMember(properties, "blue");
-
-            if (alpha == 255) {
-              description = String.format("#%02x%02x%02x", red, green, blue);
-            }
-            else {
-              description = String.format("#%02x%02x%02x%02x", alpha, red, green, blue);
-            }
-
-            //noinspection UseJBColor
-            final Color color = new Color(red, green, blue, alpha);
-            this.addIcon(colorIconMaker.getCustomIcon(color));
-            this.setIconOpaque(false);
-            this.setTransparentIconBackground(true);
-            break;
-          }
-
-          case "IconData": {
-            final int codePoint = getIntMember(properties, "codePoint");
-            if (codePoint > 0) {
-              final Icon icon = FlutterMaterialIcons.getIconForHex(String.format("%1$04x", codePoint));
-              if (icon != null) {
-                this.addIcon(icon);
-                this.setIconOpaque(false);
-                this.setTransparentIconBackground(true);
-              }
-            }
-            break;
-          }
-        }
-      }
-
-      if (SHOW_RENDER_OBJECT_PROPERTIES_AS_LINKS && propertyType.equals("RenderObject")) {
-        textAttributes = textAttributes
-          .derive(SimpleTextAttributes.LINK_ATTRIBUTES.getStyle(), JBColor.blue, null, null);
-      }
-
-      // TODO(jacobr): custom display for units, iterables, and padding.
-      appendText(description, textAttributes);
-      if (node.getLevel().equals(DiagnosticLevel.fine) && node.hasDefaultValue()) {
-        appendText(" ", textAttributes);
-        this.addIcon(panel.defaultIcon);
-      }
-    }
-    else {
-      // Non property, regular node case.
-      if (StringUtils.isNotEmpty(name) && node.getShowName() && !name.equals("child")) {
-        if (name.startsWith("child ")) {
-          appendText(name, SimpleTextAttributes.GRAYED_ATTRIBUTES);
-        }
-        else {
-          appendText(name, textAttributes);
-        }
-
-        if (node.getShowSeparator()) {
-          appendText(node.getSeparator(), SimpleTextAttributes.GRAY_ATTRIBUTES);
-        }
-        else {
-          appendText(" ", SimpleTextAttributes.GRAY_ATTRIBUTES);
-        }
-      }
-
-      if (panel.detailsSubtree && panel.isCreatedByLocalProject(node) && !panel.isHighlightNodesShownInBothTrees()) {
-        textAttributes = textAttributes.derive(
-          SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES.getStyle(), null, null, null);
-      }
-
-      final String description = node.getDescription();
-      final Matcher match = primaryDescriptionPattern.matcher(description);
-      if (match.matches()) {
-        appendText(" ", SimpleTextAttributes.GRAY_ATTRIBUTES);
-        appendText(match.group(1), textAttributes);
-        appendText(" ", textAttributes);
-        appendText(match.group(2), SimpleTextAttributes.GRAYED_ATTRIBUTES);
-      }
-      else if (!node.getDescription().isEmpty()) {
-        appendText(" ", SimpleTextAttributes.GRAY_ATTRIBUTES);
-        appendText(node.getDescription(), textAttributes);
-      }
-
-      // TODO(devoncarew): For widgets that are definied in the current project, we could consider
-      // appending the relative path to the defining library ('lib/src/foo_page.dart').
-
-      final Icon icon = node.getIcon();
-      if (icon != null) {
-        setIcon(icon);
-      }
-    }
+    spec.render(this);
   }
 
-  private void appendText(@NotNull String text, @NotNull SimpleTextAttributes attributes) {
+  void appendText(@NotNull String text, @NotNull SimpleTextAttributes attributes) {
     appendFragmentsForSpeedSearch(tree, text, attributes, selected, this);
   }
 
@@ -20,6 +20,7 @@ import com.intellij.ui.treeStructure.Tree;
 import com.intellij.ui.treeStructure.treetable.ListTreeTableModelOnColumns;
 import com.intellij.util.ui.ColumnInfo;
 import com.intellij.util.ui.JBUI;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.ui.tree.TreeUtil;
 import com.intellij.xdebugger.XSourcePosition;
 import io.flutter.FlutterBundle;
@@ -51,6 +52,7 @@ import java.beans.PropertyChangeListener;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 public class InspectorPanel extends JPanel implements Disposable, InspectorService.InspectorServiceClient, InspectorTabPanel {
   /**
@@ -69,6 +71,11 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
 
   private static final Logger LOG = Logger.getInstance(InspectorPanel.class);
 
+  /**
+   * Computes render specs for new rows, one batch at a time for all panels.
+   */
+  private static final ExecutorService rowPreparer = AppExecutorUtil.createBoundedApplicationPoolExecutor("InspectorPanel rows", 1);
+
   protected final boolean detailsSubtree;
   protected final boolean isSummaryTree;
   /**
@@ -81,6 +88,7 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
   final Icon defaultIcon;
   final JBScrollPane treeScrollPane;
   private final InspectorTree myRootsTree;
+  private final DiagnosticsTreeCellRenderer cellRenderer = new DiagnosticsTreeCellRenderer(this);
   @Nullable private final PropertiesPanel myPropertiesPanel;
   private final Computable<Boolean> isApplicable;
   private final InspectorService.FlutterTreeType treeType;
@@ -126,12 +134,18 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
   private boolean isActive = false;
   private final Map<InspectorInstanceRef, DefaultMutableTreeNode> valueToTreeNode = new HashMap<>();
 
+  /**
+   * Incremented whenever valueToTreeNode changes, so renderers of other trees can cache whether a value is shown in this one.
+   */
+  private int valueToTreeNodeGeneration;
+
   /**
    * When visibleToUser is false we should dispose all allocated objects and
    * not perform any actions.
    */
   private boolean visibleToUser = false;
   private boolean highlightNodesShownInBothTrees = false;
+  private volatile boolean disposed = false;
 
   public InspectorPanel(FlutterView flutterView,
                         @NotNull FlutterApp flutterApp,
@@ -416,6 +430,10 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
     return valueToTreeNode.containsKey(ref);
   }
 
+  int getValueToTreeNodeGeneration() {
+    return valueToTreeNodeGeneration;
+  }
+
   protected DiagnosticsNode findDiagnosticsValue(InspectorInstanceRef ref) {
     return getDiagnosticNode(valueToTreeNode.get(ref));
   }
@@ -509,6 +527,7 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
     }
     programaticSelectionChangeInProgress = false;
     valueToTreeNode.clear();
+    valueToTreeNodeGeneration++;
   }
 
   public void onIsolateStopped() {
@@ -627,6 +646,7 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
       }
     }
     valueToTreeNode.clear();
+    valueToTreeNodeGeneration++;
   }
 
   /**
@@ -752,6 +772,7 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
     // Properties do not have unique values so should not go in the valueToTreeNode map.
     if (valueRef.getId() != null && !diagnosticsNode.isProperty()) {
       valueToTreeNode.put(valueRef, node);
+      valueToTreeNodeGeneration++;
     }
     if (parentTree != null) {
       parentTree.maybeUpdateValueUI(valueRef);
@@ -792,6 +813,7 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
       setupTreeNode(childTreeNode, child, false);
       model.insertNodeInto(childTreeNode, treeNode, treeNode.getChildCount());
     }
+    prepareRows(inlineProperties, children);
     if (expandChildren) {
       programaticExpansionInProgress = true;
       expandAll(myRootsTree, new TreePath(treeNode.getPath()), false);
@@ -1153,8 +1175,29 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
     }
   }
 
+  /**
+   * Computes how the new rows are drawn in the background, so that scrolling to them doesn't have to.
+   */
+  private void prepareRows(@Nullable List<DiagnosticsNode> inlineProperties, @NotNull List<DiagnosticsNode> children) {
+    final List<DiagnosticsNode> nodes = new ArrayList<>(children);
+    if (inlineProperties != null) {
+      nodes.addAll(inlineProperties);
+    }
+    if (nodes.isEmpty()) {
+      return;
+    }
+    rowPreparer.execute(() -> {
+      for (DiagnosticsNode node : nodes) {
+        if (disposed) {
+          return;
+        }
+        cellRenderer.getRenderSpec(node);
+      }
+    });
+  }
+
   private void initTree(final Tree tree) {
-    tree.setCellRenderer(new DiagnosticsTreeCellRenderer(this));
+    tree.setCellRenderer(cellRenderer);
     tree.setShowsRootHandles(true);
     TreeUtil.installActions(tree);
 
@@ -1185,6 +1228,7 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
 
   @Override
   public void dispose() {
+    disposed = true;
     flutterIsolateSubscription.dispose();
 
     // TODO(jacobr): actually implement.
@@ -1345,7 +1389,7 @@ public class InspectorPanel extends JPanel implements Disposable, InspectorServi
               // IconData(U+0E88F)
               final int codePoint = getIntProperty(properties, "codePoint");
               if (codePoint > 0) {
-                final Icon icon = FlutterMaterialIcons.getIconForHex(String.format("%1$04x", codePoint));
+                final Icon icon = FlutterMaterialIcons.getIconForCodePoint(codePoint);
                 if (icon != null) {
                   this.setIcon(icon);
                   this.setIconOpaque(false);
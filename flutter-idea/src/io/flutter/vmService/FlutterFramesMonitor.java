@@ -19,7 +19,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class FlutterFramesMonitor {
-  static final int maxFrames = 200;
+  public static final int maxFrames = 200;
 
   private final DisplayRefreshRateManager displayRefreshRateManager;
 
@@ -5,24 +5,58 @@
  */
 package io.flutter.vmService;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.intellij.openapi.diagnostic.Logger;
+import io.flutter.utils.VmServiceListenerAdapter;
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.VmServiceListener;
 import org.dartlang.vm.service.consumer.GetMemoryUsageConsumer;
-import org.dartlang.vm.service.element.IsolateRef;
-import org.dartlang.vm.service.element.MemoryUsage;
-import org.dartlang.vm.service.element.RPCError;
-import org.dartlang.vm.service.element.Sentinel;
+import org.dartlang.vm.service.element.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Samples the heap usage of the isolates of a running app.
+ * <p>
+ * Heap usage is primarily taken from the GC events on the VM service {@link VmService#GC_STREAM_ID}
+ * stream, which carry the new and old space usage of the collected isolate and so need no extra
+ * RPCs. Polling with {@code getMemoryUsage} is only used as a fallback while a polling client (a
+ * visible memory panel) is registered, and its rate adapts: it backs off while the heap is not
+ * changing or while GC events are keeping the samples fresh.
+ */
 public class HeapMonitor {
   private static final Logger LOG = Logger.getInstance(HeapMonitor.class);
 
   private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
 
-  private static final int POLL_PERIOD_IN_MS = 1000;
+  /**
+   * Poll period used while the heap is changing.
+   */
+  private static final int MIN_POLL_PERIOD_IN_MS = 1000;
+
+  /**
+   * Poll period the monitor backs off to while the heap is stable.
+   */
+  private static final int MAX_POLL_PERIOD_IN_MS = 8000;
+
+  /**
+   * Polling is skipped if a GC event has been received within this window.
+   */
+  private static final int GC_EVENT_FRESHNESS_IN_MS = 2000;
+
+  /**
+   * GC events are coalesced so that listeners are notified at most once per this period.
+   */
+  private static final int GC_NOTIFY_PERIOD_IN_MS = MIN_POLL_PERIOD_IN_MS;
 
   public interface HeapListener {
     void handleMemoryUsage(List<MemoryUsage> memoryUsages);
@@ -39,10 +73,13 @@ public class HeapMonitor {
     public final long sampleTime;
 
     public HeapSample(int bytes, int external) {
+      this(bytes, external, System.currentTimeMillis());
+    }
+
+    public HeapSample(int bytes, int external, long sampleTime) {
       this.bytes = bytes;
       this.external = external;
-
-      this.sampleTime = System.currentTimeMillis();
+      this.sampleTime = sampleTime;
     }
 
     public int getBytes() {
@@ -59,8 +96,31 @@ public class HeapMonitor {
     }
   }
 
-  private final List<HeapMonitor.HeapListener> heapListeners = new ArrayList<>();
+  private final List<HeapMonitor.HeapListener> heapListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Latest known memory usage per isolate id.
+   */
+  private final Map<String, MemoryUsage> isolateUsages = new ConcurrentHashMap<>();
+
+  private final VmServiceListener gcListener = new VmServiceListenerAdapter() {
+    @Override
+    public void received(String streamId, Event event) {
+      if (VmService.GC_STREAM_ID.equals(streamId) && event.getKind() == EventKind.GC) {
+        onGcEvent(event);
+      }
+    }
+  };
+
   private ScheduledFuture<?> pollingScheduler;
+  private volatile boolean running;
+  private volatile boolean memoryApiSupported = true;
+  private boolean listeningToGcStream;
+  private volatile long lastGcEventTime;
+  private volatile long lastNotifyTime;
+  private final AtomicBoolean gcNotifyScheduled = new AtomicBoolean();
+  private int pollPeriodMs = MIN_POLL_PERIOD_IN_MS;
+  private long lastTotalUsage = -1;
 
   @NotNull private final VmServiceWrapper vmServiceWrapper;
 
@@ -73,31 +133,114 @@ public class HeapMonitor {
   }
 
   public void removeListener(@NotNull HeapMonitor.HeapListener listener) {
-    heapListeners.add(listener);
+    heapListeners.remove(listener);
   }
 
   public boolean hasListeners() {
     return !heapListeners.isEmpty();
   }
 
-  public void start() {
-    pollingScheduler = executor.scheduleWithFixedDelay(this::poll, 100, POLL_PERIOD_IN_MS, TimeUnit.MILLISECONDS);
+  public synchronized void start() {
+    running = true;
+    if (!listeningToGcStream) {
+      listeningToGcStream = true;
+      final VmService vmService = vmServiceWrapper.getVmService();
+      vmService.addVmServiceListener(gcListener);
+      vmService.streamListen(VmService.GC_STREAM_ID, VmServiceConsumers.EMPTY_SUCCESS_CONSUMER);
+    }
+    pollPeriodMs = MIN_POLL_PERIOD_IN_MS;
+    schedulePoll(100);
   }
 
   private int pollingClients = 0;
 
-  public void addPollingClient() {
+  /**
+   * Registers a client, such as a visible memory panel, that needs samples
+   * even if no GC events are arriving.
+   */
+  public synchronized void addPollingClient() {
     pollingClients++;
+    if (pollingClients == 1 && running) {
+      // Show fresh data as soon as a panel becomes visible.
+      pollPeriodMs = MIN_POLL_PERIOD_IN_MS;
+      schedulePoll(0);
+    }
   }
 
-  public void removePollingClient() {
+  public synchronized void removePollingClient() {
     pollingClients--;
   }
 
+  private synchronized void schedulePoll(long delayMs) {
+    if (!running) {
+      return;
+    }
+    if (pollingScheduler != null) {
+      pollingScheduler.cancel(false);
+    }
+    pollingScheduler = executor.schedule(this::poll, delayMs, TimeUnit.MILLISECONDS);
+  }
+
   private void poll() {
-    if (pollingClients > 0) {
+    final boolean shouldPoll;
+    synchronized (this) {
+      shouldPoll = pollingClients > 0 &&
+                   memoryApiSupported &&
+                   System.currentTimeMillis() - lastGcEventTime > GC_EVENT_FRESHNESS_IN_MS;
+    }
+    if (shouldPoll) {
       collectMemoryUsage();
     }
+
+    synchronized (this) {
+      if (!shouldPoll) {
+        // GC events are keeping the samples fresh or nobody is looking.
+        pollPeriodMs = MAX_POLL_PERIOD_IN_MS;
+      }
+      schedulePoll(pollPeriodMs);
+    }
+  }
+
+  private void onGcEvent(@NotNull Event event) {
+    final IsolateRef isolate = event.getIsolate();
+    final MemoryUsage usage = memoryUsageFromGcEvent(event.getJson());
+    if (isolate == null || usage == null) {
+      return;
+    }
+    lastGcEventTime = System.currentTimeMillis();
+    isolateUsages.put(isolate.getId(), usage);
+
+    // A busy app can collect garbage hundreds of times a second; listeners only see the latest usage.
+    if (gcNotifyScheduled.compareAndSet(false, true)) {
+      final long delayMs = Math.max(0, lastNotifyTime + GC_NOTIFY_PERIOD_IN_MS - lastGcEventTime);
+      executor.schedule(() -> {
+        gcNotifyScheduled.set(false);
+        notifyListeners();
+      }, delayMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Builds a {@link MemoryUsage} from the new and old heap spaces reported by a GC event.
+   */
+  @Nullable
+  static MemoryUsage memoryUsageFromGcEvent(@NotNull JsonObject json) {
+    final JsonElement newSpace = json.get("new");
+    final JsonElement oldSpace = json.get("old");
+    if (newSpace == null || !newSpace.isJsonObject() || oldSpace == null || !oldSpace.isJsonObject()) {
+      return null;
+    }
+    final JsonObject usage = new JsonObject();
+    usage.addProperty("type", "MemoryUsage");
+    usage.addProperty("heapUsage", getSpaceValue(newSpace, "used") + getSpaceValue(oldSpace, "used"));
+    usage.addProperty("heapCapacity", getSpaceValue(newSpace, "capacity") + getSpaceValue(oldSpace, "capacity"));
+    usage.addProperty("externalUsage", getSpaceValue(newSpace, "external") + getSpaceValue(oldSpace, "external"));
+    return new MemoryUsage(usage);
+  }
+
+  private static long getSpaceValue(@NotNull JsonElement space, @NotNull String name) {
+    final JsonElement value = space.getAsJsonObject().get(name);
+    return value == null || value.isJsonNull() ? 0 : value.getAsLong();
   }
 
   private void collectMemoryUsage() {
@@ -106,20 +249,21 @@ public class HeapMonitor {
       return;
     }
 
-    final List<MemoryUsage> memoryUsage = new ArrayList<>();
-
     final CountDownLatch latch = new CountDownLatch(isolateRefs.size());
+    final Set<String> liveIsolates = new HashSet<>();
 
     for (IsolateRef isolateRef : isolateRefs) {
+      liveIsolates.add(isolateRef.getId());
       vmServiceWrapper.getVmService().getMemoryUsage(isolateRef.getId(), new GetMemoryUsageConsumer() {
         @Override
         public void received(MemoryUsage usage) {
-          memoryUsage.add(usage);
+          isolateUsages.put(isolateRef.getId(), usage);
           latch.countDown();
         }
 
         @Override
         public void received(Sentinel sentinel) {
+          isolateUsages.remove(isolateRef.getId());
           latch.countDown();
         }
 
@@ -145,16 +289,41 @@ public class HeapMonitor {
     catch (InterruptedException ignored) {
     }
 
-    if (pollingScheduler != null) {
-      heapListeners.forEach(listener -> listener.handleMemoryUsage(memoryUsage));
+    isolateUsages.keySet().retainAll(liveIsolates);
+
+    long total = 0;
+    for (MemoryUsage usage : isolateUsages.values()) {
+      total += usage.getHeapUsage();
+    }
+    synchronized (this) {
+      // Poll quickly while the heap is changing and back off while it is stable.
+      pollPeriodMs = total == lastTotalUsage ? Math.min(pollPeriodMs * 2, MAX_POLL_PERIOD_IN_MS) : MIN_POLL_PERIOD_IN_MS;
+      lastTotalUsage = total;
     }
+
+    notifyListeners();
+  }
+
+  private void notifyListeners() {
+    if (!running || isolateUsages.isEmpty()) {
+      return;
+    }
+    lastNotifyTime = System.currentTimeMillis();
+    final List<MemoryUsage> memoryUsage = new ArrayList<>(isolateUsages.values());
+    heapListeners.forEach(listener -> listener.handleMemoryUsage(memoryUsage));
   }
 
   private void handleMemoryApiNotSupported() {
-    stop();
+    // GC events may still arrive so only stop polling.
+    memoryApiSupported = false;
   }
 
-  public void stop() {
+  public synchronized void stop() {
+    running = false;
+    if (listeningToGcStream) {
+      listeningToGcStream = false;
+      vmServiceWrapper.getVmService().removeVmServiceListener(gcListener);
+    }
     if (pollingScheduler != null) {
       pollingScheduler.cancel(false);
       pollingScheduler = null;
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.analytics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends analytics hits to a local stand-in for the collector and reports the time spent on the calling thread, the
+ * time until every hit is delivered, and the number of requests made.
+ * <pre>
+ * BatchingHttpTransportBenchmark [hits]
+ * </pre>
+ * The comparison posts each hit on the calling thread, as the transport did before hits were batched.
+ */
+public class BatchingHttpTransportBenchmark {
+  public static void main(String[] args) throws IOException {
+    final int hitCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+    final AtomicInteger requests = new AtomicInteger();
+    final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", (exchange) -> {
+      exchange.getRequestBody().readAllBytes();
+      requests.incrementAndGet();
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    server.start();
+    final String url = "http://localhost:" + server.getAddress().getPort() + "/collect";
+    final Path spoolFile = Files.createTempDirectory("analytics").resolve("spool.txt");
+
+    try {
+      // Warm up before measuring.
+      batched(url, spoolFile, hitCount / 10);
+      single(url, hitCount / 10);
+
+      requests.set(0);
+      long start = System.nanoTime();
+      final long callerNanos = batched(url, spoolFile, hitCount);
+      final long batchedNanos = System.nanoTime() - start;
+      final int batchedRequests = requests.getAndSet(0);
+
+      start = System.nanoTime();
+      single(url, hitCount);
+      final long singleNanos = System.nanoTime() - start;
+      final int singleRequests = requests.get();
+
+      System.out.println("hits: " + hitCount);
+      System.out.println("batchedCallerMicrosPerHit: " + TimeUnit.NANOSECONDS.toMicros(callerNanos) / (double)hitCount);
+      System.out.println("batchedDeliveryMillis: " + TimeUnit.NANOSECONDS.toMillis(batchedNanos) + ", requests: " + batchedRequests);
+      System.out.println("singleCallerMicrosPerHit: " + TimeUnit.NANOSECONDS.toMicros(singleNanos) / (double)hitCount);
+      System.out.println("singleDeliveryMillis: " + TimeUnit.NANOSECONDS.toMillis(singleNanos) + ", requests: " + singleRequests);
+    }
+    finally {
+      server.stop(0);
+      Files.deleteIfExists(spoolFile);
+      Files.deleteIfExists(spoolFile.getParent());
+    }
+  }
+
+  /**
+   * Returns the time spent in send().
+   */
+  private static long batched(String url, Path spoolFile, int hitCount) {
+    final BatchingHttpTransport transport = new BatchingHttpTransport(spoolFile, BatchingHttpTransport.FLUSH_DELAY_MS);
+    long callerNanos = 0;
+    for (int i = 0; i < hitCount; i++) {
+      final Map<String, String> values = hit(i);
+      final long start = System.nanoTime();
+      transport.send(url, values);
+      callerNanos += System.nanoTime() - start;
+    }
+    transport.flush();
+    transport.waitForDelivery();
+    return callerNanos;
+  }
+
+  private static void single(String url, int hitCount) throws IOException {
+    for (int i = 0; i < hitCount; i++) {
+      final byte[] body = BatchingHttpTransport.createPostData(hit(i)).getBytes(StandardCharsets.UTF_8);
+      final HttpURLConnection conn = (HttpURLConnection)new URL(url).openConnection();
+      conn.setRequestMethod("POST");
+      conn.setDoOutput(true);
+      try (OutputStream out = conn.getOutputStream()) {
+        out.write(body);
+      }
+      conn.getResponseCode();
+      conn.disconnect();
+    }
+  }
+
+  private static Map<String, String> hit(int i) {
+    final Map<String, String> values = new HashMap<>();
+    values.put("v", "1");
+    values.put("tid", "UA-67589403-7");
+    values.put("cid", "123e4567-e89b-12d3-a456-426655440000");
+    values.put("t", "event");
+    values.put("ec", "benchmark");
+    values.put("ea", "action " + i);
+    return values;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.analytics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BatchingHttpTransportTest {
+  private HttpServer server;
+  private final List<String> batches = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger status = new AtomicInteger(200);
+  private Path spoolFile;
+  private BatchingHttpTransport transport;
+
+  @Before
+  public void setUp() throws IOException {
+    // A local stand-in for the collector that records each batch it receives.
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/batch", (exchange) -> {
+      final int code = status.get();
+      if (code == 200) {
+        batches.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+      }
+      exchange.sendResponseHeaders(code, -1);
+      exchange.close();
+    });
+    server.start();
+
+    spoolFile = Files.createTempDirectory("analytics").resolve("spool.txt");
+    transport = new BatchingHttpTransport(spoolFile, 60 * 1000);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.stop(0);
+    Files.deleteIfExists(spoolFile);
+    Files.deleteIfExists(spoolFile.getParent());
+  }
+
+  private String collectUrl() {
+    return "http://localhost:" + server.getAddress().getPort() + "/collect";
+  }
+
+  private void sendHits(int count) {
+    for (int i = 0; i < count; i++) {
+      final Map<String, String> values = new HashMap<>();
+      values.put("t", "event");
+      values.put("ev", Integer.toString(i));
+      transport.send(collectUrl(), values);
+    }
+  }
+
+  @Test
+  public void sendsFullBatchWithoutWaitingForTimer() {
+    sendHits(BatchingHttpTransport.MAX_HITS_PER_BATCH);
+    transport.waitForDelivery();
+
+    assertEquals(1, batches.size());
+    assertEquals(BatchingHttpTransport.MAX_HITS_PER_BATCH, batches.get(0).split("\n").length);
+  }
+
+  @Test
+  public void flushSendsPartialBatch() {
+    sendHits(3);
+    transport.waitForDelivery();
+    assertTrue(batches.isEmpty());
+
+    transport.flush();
+    transport.waitForDelivery();
+    assertEquals(1, batches.size());
+    assertEquals(3, batches.get(0).split("\n").length);
+  }
+
+  @Test
+  public void spoolsWhileCollectorIsUnavailable() throws IOException {
+    status.set(503);
+    sendHits(5);
+    transport.flush();
+    transport.waitForDelivery();
+    assertTrue(batches.isEmpty());
+    assertEquals(5, Files.readAllLines(spoolFile).size());
+
+    status.set(200);
+    sendHits(1);
+    transport.flush();
+    transport.waitForDelivery();
+    assertEquals(1, batches.size());
+    assertEquals(6, batches.get(0).split("\n").length);
+    assertFalse(Files.exists(spoolFile));
+  }
+
+  @Test
+  public void spoolDropsOldestHits() throws IOException {
+    status.set(503);
+    sendHits(BatchingHttpTransport.MAX_SPOOLED_HITS + 10);
+    transport.flush();
+    transport.waitForDelivery();
+
+    final List<String> lines = Files.readAllLines(spoolFile);
+    assertEquals(BatchingHttpTransport.MAX_SPOOLED_HITS, lines.size());
+    assertTrue(lines.get(0).matches(".*\\bev=10(&.*)?"));
+  }
+
+  @Test
+  public void closeSpoolsPendingHits() throws IOException {
+    sendHits(3);
+    transport.close();
+    assertTrue(batches.isEmpty());
+    assertEquals(3, Files.readAllLines(spoolFile).size());
+
+    // Hits sent after closing are dropped.
+    sendHits(1);
+    transport.flush();
+    transport.waitForDelivery();
+    assertTrue(batches.isEmpty());
+
+    // The next session sends them.
+    transport = new BatchingHttpTransport(spoolFile, 60 * 1000);
+    sendHits(1);
+    transport.flush();
+    transport.waitForDelivery();
+    assertEquals(1, batches.size());
+    assertEquals(4, batches.get(0).split("\n").length);
+  }
+
+  @Test
+  public void mapsCollectUrlToBatchUrl() {
+    assertEquals("https://www.google-analytics.com/batch",
+                 BatchingHttpTransport.toBatchUrl("https://www.google-analytics.com/collect"));
+  }
+}
@@ -20,6 +20,7 @@ import io.flutter.FlutterInitializer;
 import io.flutter.testing.CodeInsightProjectFixture;
 import io.flutter.testing.Testing;
 import org.dartlang.analysis.server.protocol.AnalysisError;
+import org.dartlang.analysis.server.protocol.AnalysisErrorType;
 import org.dartlang.analysis.server.protocol.AnalysisStatus;
 import org.dartlang.analysis.server.protocol.PubStatus;
 import org.dartlang.analysis.server.protocol.RequestError;
@@ -27,6 +28,7 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -160,6 +162,23 @@ public class FlutterAnalysisServerListenerTest {
     assertEquals(INITIAL_COMPUTE_ERRORS_TIME, map.get("ec"));
   }
 
+  @Test
+  public void countErrorsByType() {
+    List<AnalysisError> list = new ArrayList<>();
+    list.add(new AnalysisError("ERROR", AnalysisErrorType.COMPILE_TIME_ERROR, null, "", "", "101", "", null, false));
+    list.add(new AnalysisError("ERROR", AnalysisErrorType.COMPILE_TIME_ERROR, null, "", "", "102", "", null, false));
+    list.add(new AnalysisError("INFO", AnalysisErrorType.LINT, null, "", "", "103", "", null, false));
+    list.add(new AnalysisError("INFO", AnalysisErrorType.TODO, null, "", "", "104", "", null, false));
+    int[] counts = FlutterAnalysisServerListener.countErrorsByType(list);
+    assertNotNull(counts);
+    assertEquals(2, counts[Arrays.asList(ERROR_TYPES).indexOf(AnalysisErrorType.COMPILE_TIME_ERROR)]);
+    assertEquals(1, counts[Arrays.asList(ERROR_TYPES).indexOf(AnalysisErrorType.LINT)]);
+    assertEquals(3, Arrays.stream(counts).sum());
+
+    // Files with only TODOs do not need any counts.
+    assertNull(FlutterAnalysisServerListener.countErrorsByType(list.subList(3, 4)));
+  }
+
   @SuppressWarnings("ConstantConditions")
   @Test
   public void serverStatus() throws Exception {
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.dart;
+
+import com.google.gson.JsonObject;
+import io.flutter.utils.JsonUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class AnalysisRequestTrackerTest {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final FakeAnalysisServer server = new FakeAnalysisServer(new AnalysisRequestTracker(scheduler));
+
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void completesWithTheParsedResult() throws Exception {
+    final CompletableFuture<String> future = server.send(null, 10000);
+    server.reply("{\"id\":\"" + server.lastId() + "\",\"result\":{\"value\":\"hello\"}}");
+    assertEquals("hello", future.get(1, TimeUnit.SECONDS));
+    assertEquals(0, server.tracker.getPendingCount());
+  }
+
+  @Test
+  public void failsOnErrorResponses() {
+    final CompletableFuture<String> future = server.send(null, 10000);
+    server.reply("{\"id\":\"" + server.lastId() + "\",\"error\":{\"code\":\"INVALID_EXPRESSION\",\"message\":\"Bad\"}}");
+    final Throwable error = getError(future);
+    assertTrue(error instanceof AnalysisRequestTracker.RequestErrorException);
+    assertEquals("INVALID_EXPRESSION", ((AnalysisRequestTracker.RequestErrorException)error).getCode());
+    assertEquals(0, server.tracker.getPendingCount());
+  }
+
+  @Test
+  public void failsWhenTheResultCannotBeParsed() {
+    final CompletableFuture<String> future = server.send(null, 10000);
+    server.reply("{\"id\":\"" + server.lastId() + "\",\"result\":{}}");
+    assertTrue(getError(future) instanceof NullPointerException);
+    assertEquals(0, server.tracker.getPendingCount());
+  }
+
+  @Test
+  public void failsAfterTheDeadline() {
+    final CompletableFuture<String> future = server.send(null, 10);
+    assertTrue(getError(future) instanceof TimeoutException);
+    assertEquals(0, server.tracker.getPendingCount());
+  }
+
+  @Test
+  public void cancelsSupersededRequests() throws Exception {
+    final CompletableFuture<String> first = server.send("description", 10000);
+    final String firstId = server.lastId();
+    final CompletableFuture<String> second = server.send("description", 10000);
+    final CompletableFuture<String> other = server.send("other", 10000);
+    assertTrue(first.isCancelled());
+    assertFalse(second.isDone());
+    assertFalse(other.isDone());
+
+    // A late response to the cancelled request is ignored.
+    assertFalse(server.tracker.handleResponse(firstId, JsonUtils.parseString("{\"result\":{\"value\":\"late\"}}").getAsJsonObject()));
+    server.reply("{\"id\":\"" + server.ids.get(1) + "\",\"result\":{\"value\":\"latest\"}}");
+    assertEquals("latest", second.get(1, TimeUnit.SECONDS));
+    assertEquals(1, server.tracker.getPendingCount());
+  }
+
+  @Test
+  public void failsPendingRequestsWhenTheServerRestarts() {
+    final CompletableFuture<String> first = server.send(null, 10000);
+    final CompletableFuture<String> second = server.send("description", 10000);
+    server.restart();
+    assertTrue(getError(first) instanceof AnalysisRequestTracker.RequestErrorException);
+    assertTrue(getError(second) instanceof AnalysisRequestTracker.RequestErrorException);
+    assertEquals(0, server.tracker.getPendingCount());
+  }
+
+  @Test
+  public void forgetsRequestsCancelledByTheCaller() {
+    final CompletableFuture<String> future = server.send(null, 10000);
+    future.cancel(false);
+    assertEquals(0, server.tracker.getPendingCount());
+  }
+
+  private static Throwable getError(CompletableFuture<?> future) {
+    try {
+      future.get(1, TimeUnit.SECONDS);
+      fail("Expected the request to fail");
+      return null;
+    }
+    catch (ExecutionException e) {
+      return e.getCause();
+    }
+    catch (Exception e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Stands in for the analysis server and FlutterDartAnalysisServer, which route responses to the tracker.
+   */
+  private static class FakeAnalysisServer {
+    final AnalysisRequestTracker tracker;
+    final List<String> ids = new ArrayList<>();
+
+    FakeAnalysisServer(AnalysisRequestTracker tracker) {
+      this.tracker = tracker;
+    }
+
+    CompletableFuture<String> send(String supersedeKey, long timeoutMs) {
+      final String id = Integer.toString(ids.size());
+      ids.add(id);
+      return tracker.register(id, supersedeKey, timeoutMs, (result) -> result.get("value").getAsString());
+    }
+
+    String lastId() {
+      return ids.get(ids.size() - 1);
+    }
+
+    void reply(String json) {
+      final JsonObject response = JsonUtils.parseString(json).getAsJsonObject();
+      tracker.handleResponse(response.get("id").getAsString(), response);
+    }
+
+    void restart() {
+      tracker.failAll("Analysis server restarted");
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.dart;
+
+import io.flutter.testing.Benchmark;
+import io.flutter.utils.JsonUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs a sample of analysis server traffic through the message filter and reports how many messages are
+ * parsed, and the time and memory it takes, with and without {@link FlutterDartAnalysisServer#mayBeHandled}.
+ * <pre>
+ * FlutterDartAnalysisServerBenchmark [traffic-file] [iterations]
+ * </pre>
+ * The traffic file holds one message per line, such as an analysis server instrumentation log; anything
+ * before the first '{' on a line is ignored. Without one, the sample is a session of edits to a Flutter
+ * app: errors, highlights and navigation for several files, completion results, an outline and the
+ * response to a pending widget description request per edit.
+ */
+public class FlutterDartAnalysisServerBenchmark {
+  // The pending request the sample answers, as when the property editor is open.
+  private static final Set<String> PENDING_IDS = Set.of("1042");
+
+  public static void main(String[] args) throws Exception {
+    final List<String> traffic = args.length > 0 && !args[0].isEmpty() ? readTraffic(args[0]) : sampleTraffic(50);
+    final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+    long chars = 0;
+    for (String message : traffic) {
+      chars += message.length();
+    }
+
+    final Benchmark.Result filtered = Benchmark.measure(iterations, () -> filtered(traffic));
+    final Benchmark.Result unfiltered = Benchmark.measure(iterations, () -> unfiltered(traffic));
+
+    Benchmark.report("messages", traffic.size());
+    Benchmark.report("chars", chars);
+    Benchmark.report("filteredMessagesParsed", filtered(traffic));
+    Benchmark.report("unfilteredMessagesParsed", unfiltered(traffic));
+    Benchmark.report("checksum", filtered.checksum + unfiltered.checksum);
+    filtered.report("filtered", "Sample", iterations);
+    unfiltered.report("unfiltered", "Sample", iterations);
+  }
+
+  /**
+   * Parses only the messages that pass the filter, as processString does now.
+   */
+  private static int filtered(List<String> traffic) {
+    int parsed = 0;
+    for (String message : traffic) {
+      if (FlutterDartAnalysisServer.mayBeHandled(message, PENDING_IDS)) {
+        parsed += JsonUtils.parseString(message).getAsJsonObject().size() > 0 ? 1 : 0;
+      }
+    }
+    return parsed;
+  }
+
+  /**
+   * Parses every message, as processString did before the filter.
+   */
+  private static int unfiltered(List<String> traffic) {
+    int parsed = 0;
+    for (String message : traffic) {
+      parsed += JsonUtils.parseString(message).getAsJsonObject().size() > 0 ? 1 : 0;
+    }
+    return parsed;
+  }
+
+  private static List<String> readTraffic(String path) throws IOException {
+    final List<String> traffic = new ArrayList<>();
+    for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+      final int start = line.indexOf('{');
+      if (start >= 0) {
+        traffic.add(line.substring(start));
+      }
+    }
+    return traffic;
+  }
+
+  private static List<String> sampleTraffic(int edits) {
+    final List<String> traffic = new ArrayList<>();
+    for (int edit = 0; edit < edits; edit++) {
+      traffic.add("{\"event\":\"server.status\",\"params\":{\"analysis\":{\"isAnalyzing\":true}}}");
+      for (int file = 0; file < 5; file++) {
+        final String path = "/app/lib/src/widget_" + file + ".dart";
+        traffic.add(errors(path, 10 + file));
+        traffic.add(regions("analysis.highlights", path, 400, "\"type\":\"IDENTIFIER_DEFAULT\""));
+        traffic.add(regions("analysis.navigation", path, 150, "\"targets\":[" + file + "]"));
+      }
+      traffic.add(completions(edit, 300));
+      traffic.add("{\"event\":\"flutter.outline\",\"params\":{\"file\":\"/app/lib/main.dart\",\"outline\":{\"kind\":\"COMPILATION_UNIT\"," +
+                  "\"offset\":0,\"length\":4000,\"codeOffset\":0,\"codeLength\":4000,\"children\":[]}}}");
+      if (edit % 5 == 0) {
+        traffic.add("{\"id\":\"1042\",\"result\":{\"properties\":[{\"documentation\":\"The text to display.\",\"expression\":\"'Hello'\"," +
+                    "\"id\":7,\"isRequired\":true,\"isSafeToUpdate\":true,\"name\":\"data\"}]}}");
+      }
+      traffic.add("{\"id\":\"" + (2000 + edit) + "\",\"result\":{\"id\":\"" + edit + "\"}}");
+      traffic.add("{\"event\":\"server.status\",\"params\":{\"analysis\":{\"isAnalyzing\":false}}}");
+    }
+    return traffic;
+  }
+
+  private static String errors(String path, int count) {
+    final StringBuilder json = new StringBuilder("{\"event\":\"analysis.errors\",\"params\":{\"file\":\"").append(path).append("\",\"errors\":[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) json.append(',');
+      json.append("{\"severity\":\"INFO\",\"type\":\"LINT\",\"location\":{\"file\":\"").append(path)
+        .append("\",\"offset\":").append(i * 40).append(",\"length\":5,\"startLine\":").append(i + 1)
+        .append(",\"startColumn\":3},\"message\":\"Prefer const with constant constructors.\",\"code\":\"prefer_const_constructors\"," +
+                "\"url\":\"https://dart.dev/lints/prefer_const_constructors\",\"hasFix\":true}");
+    }
+    return json.append("]}}").toString();
+  }
+
+  private static String regions(String event, String path, int count, String fields) {
+    final StringBuilder json = new StringBuilder("{\"event\":\"").append(event).append("\",\"params\":{\"file\":\"").append(path)
+      .append("\",\"regions\":[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) json.append(',');
+      json.append("{\"offset\":").append(i * 7).append(",\"length\":6,").append(fields).append('}');
+    }
+    return json.append("]}}").toString();
+  }
+
+  private static String completions(int id, int count) {
+    final StringBuilder json = new StringBuilder("{\"event\":\"completion.results\",\"params\":{\"id\":\"").append(id)
+      .append("\",\"replacementOffset\":120,\"replacementLength\":0,\"results\":[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) json.append(',');
+      json.append("{\"kind\":\"INVOCATION\",\"relevance\":").append(1100 - i).append(",\"completion\":\"Widget").append(i)
+        .append("\",\"selectionOffset\":8,\"selectionLength\":0,\"isDeprecated\":false,\"isPotential\":false}");
+    }
+    return json.append("],\"isLast\":true}}").toString();
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.dart;
+
+import com.google.dart.server.ResponseListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
+import org.dartlang.analysis.server.protocol.FlutterWidgetProperty;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class FlutterDartAnalysisServerTest {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  // A sample of analysis server traffic while editing a Flutter file.
+  private static final List<String> TRAFFIC = List.of(
+    "{\"event\":\"server.status\",\"params\":{\"analysis\":{\"isAnalyzing\":true}}}",
+    "{\"id\":\"12\",\"result\":{\"id\":\"0\"}}",
+    "{\"event\":\"analysis.errors\",\"params\":{\"file\":\"/app/lib/main.dart\",\"errors\":[{\"severity\":\"INFO\",\"type\":\"LINT\"," +
+    "\"location\":{\"file\":\"/app/lib/main.dart\",\"offset\":10,\"length\":3},\"message\":\"Prefer const\",\"code\":\"prefer_const\"}]}}",
+    "{\"event\":\"completion.results\",\"params\":{\"id\":\"0\",\"replacementOffset\":120,\"results\":[{\"kind\":\"INVOCATION\"," +
+    "\"completion\":\"Container\",\"relevance\":1100}],\"isLast\":true}}",
+    "{\"event\":\"flutter.outline\",\"params\":{\"file\":\"/app/lib/main.dart\",\"outline\":{\"kind\":\"COMPILATION_UNIT\"," +
+    "\"offset\":0,\"length\":500}}}",
+    "{\"id\" : \"13\", \"result\" : {\"properties\":[]}}",
+    "{\"event\":\"search.results\",\"params\":{\"id\":\"7\",\"results\":[],\"isLast\":true}}",
+    "{\"event\":\"server.status\",\"params\":{\"analysis\":{\"isAnalyzing\":false}}}"
+  );
+
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void keepsOutlineNotifications() {
+    assertTrue(FlutterDartAnalysisServer.mayBeHandled(TRAFFIC.get(4), Collections.emptySet()));
+  }
+
+  @Test
+  public void keepsResponsesToPendingRequests() {
+    assertTrue(FlutterDartAnalysisServer.mayBeHandled(TRAFFIC.get(5), Set.of("13")));
+    assertFalse(FlutterDartAnalysisServer.mayBeHandled(TRAFFIC.get(5), Set.of("1")));
+    assertFalse(FlutterDartAnalysisServer.mayBeHandled(TRAFFIC.get(5), Set.of("134")));
+    assertFalse(FlutterDartAnalysisServer.mayBeHandled(TRAFFIC.get(1), Set.of("13")));
+  }
+
+  @Test
+  public void skipsMostTraffic() {
+    int parsed = 0;
+    for (String message : TRAFFIC) {
+      if (FlutterDartAnalysisServer.mayBeHandled(message, Set.of("13"))) {
+        parsed++;
+      }
+    }
+    // Previously every message was parsed; now only the outline and the pending response are.
+    assertEquals(2, parsed);
+  }
+
+  @Test
+  public void toleratesTruncatedIds() {
+    assertFalse(FlutterDartAnalysisServer.mayBeHandled("{\"id\":\"13", Set.of("13")));
+    assertFalse(FlutterDartAnalysisServer.mayBeHandled("{\"id\"", Set.of("13")));
+  }
+
+  @Test
+  public void supersededDescriptionRequestsAreNotDelivered() {
+    final DartAnalysisServerService analysisService = mock(DartAnalysisServerService.class);
+    when(analysisService.generateUniqueId()).thenReturn("1", "2", "3");
+    // Messages are handled on the calling thread.
+    final FlutterDartAnalysisServer server = new FlutterDartAnalysisServer(mock(Project.class), analysisService, scheduler, Runnable::run);
+    final ArgumentCaptor<ResponseListener> responses = ArgumentCaptor.forClass(ResponseListener.class);
+    verify(analysisService).addResponseListener(responses.capture());
+    final FlutterDartAnalysisServer.CompatibleResponseListener listener =
+      (FlutterDartAnalysisServer.CompatibleResponseListener)responses.getValue();
+
+    final VirtualFile file = mock(VirtualFile.class);
+    when(file.getPath()).thenReturn("/app/lib/main.dart");
+    final List<String> delivered = new ArrayList<>();
+    final CompletableFuture<List<FlutterWidgetProperty>> first = server.getWidgetDescription(file, 10, "panel-1");
+    first.thenAccept((properties) -> delivered.add("first"));
+    final CompletableFuture<List<FlutterWidgetProperty>> second = server.getWidgetDescription(file, 20, "panel-1");
+    second.thenAccept((properties) -> delivered.add("second"));
+    // Another panel's request doesn't supersede the first panel's.
+    final CompletableFuture<List<FlutterWidgetProperty>> other = server.getWidgetDescription(file, 30, "panel-2");
+    other.thenAccept((properties) -> delivered.add("other"));
+    assertTrue(first.isCancelled());
+    assertFalse(second.isDone());
+
+    // The superseded request is answered anyway.
+    listener.onResponse(description("1", "superseded"));
+    listener.onResponse(description("2", "data"));
+    listener.onResponse(description("3", "child"));
+
+    assertEquals(List.of("second", "other"), delivered);
+    assertEquals("data", second.join().get(0).getName());
+    assertEquals("child", other.join().get(0).getName());
+  }
+
+  private static String description(String id, String propertyName) {
+    return "{\"id\":\"" + id + "\",\"result\":{\"properties\":[{\"id\":7,\"isRequired\":true,\"isSafeToUpdate\":true," +
+           "\"name\":\"" + propertyName + "\"}]}}";
+  }
+}
@@ -18,4 +18,17 @@ public class ExpressionParsingUtilsTest {
     assertThat(
       ExpressionParsingUtils.parseColorComponents("256, 255, 255, 255)", "", true), is(nullValue()));
   }
+
+  @Test
+  public void parseUnsignedIntLiteral() {
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral("255"), is(255L));
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral("0xFF42a5f5"), is(0xFF42A5F5L));
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral("0X10"), is(16L));
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral("4294967295"), is(0xFFFFFFFFL));
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral("4294967296"), is(-1L));
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral("0x1FF42A5F5"), is(-1L));
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral("0x"), is(-1L));
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral("1.0"), is(-1L));
+    assertThat(ExpressionParsingUtils.parseUnsignedIntLiteral(""), is(-1L));
+  }
 }
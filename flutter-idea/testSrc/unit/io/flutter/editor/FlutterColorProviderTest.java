@@ -16,7 +16,7 @@ import org.junit.Test;
 
 import java.awt.*;
 
-import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.*;
 
 public class FlutterColorProviderTest extends AbstractDartElementTest {
 
@@ -119,6 +119,36 @@ public class FlutterColorProviderTest extends AbstractDartElementTest {
     });
   }
 
+  @Test
+  public void readsColorFromLiteralArguments() throws Exception {
+    run(() -> {
+      final PsiElement testIdentifier =
+        setUpDartElement("main() { const Color.fromARGB(0x80, 66, /* blue */ 165, 245,); }", "Color", LeafPsiElement.class);
+      final Color color = new FlutterColorProvider().getColorFrom(testIdentifier);
+      assertNotNull(color);
+      assertEquals(0x8042a5f5, color.getRGB());
+    });
+  }
+
+  @Test
+  public void ignoresArgumentsThatAreNotLiterals() throws Exception {
+    run(() -> {
+      final PsiElement testIdentifier = setUpDartElement("main() { Color.fromRGBO(red, 0, 0, 1.0); }", "Color", LeafPsiElement.class);
+      assertNull(new FlutterColorProvider().getColorFrom(testIdentifier));
+    });
+  }
+
+  @Test
+  public void parsesColorArguments() {
+    assertEquals(0xff42a5f5, FlutterColorProvider.parseColorArguments("Color", new CharSequence[]{"0xFF42A5F5"}).getRGB());
+    assertEquals(0xff42a5f5, FlutterColorProvider.parseColorArguments("fromARGB", new CharSequence[]{"255", "66", "165", "245"}).getRGB());
+    assertEquals(0xff42a5f5, FlutterColorProvider.parseColorArguments("fromRGBO", new CharSequence[]{"66", "165", "245", "1.0"}).getRGB());
+    assertNull(FlutterColorProvider.parseColorArguments("fromARGB", new CharSequence[]{"256", "66", "165", "245"}));
+    assertNull(FlutterColorProvider.parseColorArguments("fromARGB", new CharSequence[]{"255", null, "165", "245"}));
+    assertNull(FlutterColorProvider.parseColorArguments("fromRGBO", new CharSequence[]{"66", "165", "245", "1.5"}));
+    assertNull(FlutterColorProvider.parseColorArguments("lerp", new CharSequence[]{"0xFF42A5F5"}));
+  }
+
   @Test
   public void locatesColorShadeReference() throws Exception {
     run(() -> {
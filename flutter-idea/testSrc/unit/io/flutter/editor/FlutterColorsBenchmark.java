@@ -0,0 +1,93 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import io.flutter.testing.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports how long it takes {@link FlutterColorProvider} to resolve the color references that a color-heavy Dart file
+ * shows in the gutter, and how much memory it allocates.
+ * <pre>
+ * FlutterColorsBenchmark [iterations]
+ * </pre>
+ * The references are split into tokens up front, as the provider reads them from the PSI, so the timed loop only
+ * covers the lookups and the parsing of literal arguments; finding the tokens needs a running IDE.
+ */
+public class FlutterColorsBenchmark {
+  private static final String[] families = {"red", "pink", "purple", "indigo", "blue", "teal", "green", "amber", "orange", "grey"};
+  private static final int[] shades = {50, 100, 200, 300, 400, 500, 600, 700, 800, 900};
+
+  /**
+   * One color reference, as the tokens the provider finds in the PSI.
+   */
+  private static class Reference {
+    final String platform;
+    final String name;
+    final CharSequence shade;
+    final int shadeStart;
+    final CharSequence[] arguments;
+
+    Reference(String platform, String name, CharSequence shade, int shadeStart, CharSequence[] arguments) {
+      this.platform = platform;
+      this.name = name;
+      this.shade = shade;
+      this.shadeStart = shadeStart;
+      this.arguments = arguments;
+    }
+
+    boolean resolves() {
+      if (arguments != null) {
+        return FlutterColorProvider.parseColorArguments(name, arguments) != null;
+      }
+      if (shade != null) {
+        return FlutterColorProvider.parseShade(name, shade, shadeStart, platform) != null;
+      }
+      return FlutterColorProvider.parseColorText(name, platform) != null;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    final List<Reference> references = sampleReferences();
+
+    final Benchmark.Result result = Benchmark.measure(iterations, () -> resolveAll(references));
+
+    Benchmark.report("references", references.size());
+    Benchmark.report("found", result.checksum);
+    result.report("resolve", "Lookup", (double)iterations * references.size());
+  }
+
+  private static int resolveAll(List<Reference> references) {
+    int found = 0;
+    for (Reference reference : references) {
+      if (reference.resolves()) found++;
+    }
+    return found;
+  }
+
+  /**
+   * Each family as Colors.blue, Colors.blue[200] and Colors.blue.shade200, a Cupertino color, and the Color
+   * constructors with literal arguments.
+   */
+  private static List<Reference> sampleReferences() {
+    final List<Reference> references = new ArrayList<>();
+    for (String family : families) {
+      references.add(new Reference("Colors", family, null, 0, null));
+      for (int shade : shades) {
+        references.add(new Reference("Colors", family, Integer.toString(shade), 0, null));
+        references.add(new Reference("Colors", family, "shade" + shade, "shade".length(), null));
+      }
+    }
+    references.add(new Reference("CupertinoColors", "systemGreen", null, 0, null));
+    references.add(new Reference("Color", "Color", null, 0, new CharSequence[]{"0xFF42A5F5"}));
+    references.add(new Reference("Color", "fromARGB", null, 0, new CharSequence[]{"255", "66", "165", "245"}));
+    references.add(new Reference("Color", "fromRGBO", null, 0, new CharSequence[]{"66", "165", "245", "0.5"}));
+    return references;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.*;
+
+public class FlutterColorsTest {
+  @Test
+  public void findsColorsByKey() {
+    final FlutterColors.FlutterColor shade = FlutterColors.getColor("blue[200]");
+    assertNotNull(shade);
+    assertFalse(shade.isPrimary());
+    assertEquals(0xff90caf9, shade.getAWTColor().getRGB());
+
+    final FlutterColors.FlutterColor black = FlutterColors.getColor("black");
+    assertNotNull(black);
+    assertEquals(0xff000000, black.getAWTColor().getRGB());
+
+    assertNull(FlutterColors.getColor("notAColor"));
+  }
+
+  @Test
+  public void findsPrimaryColorsByName() {
+    final FlutterColors.FlutterColor blue = FlutterColors.getColor("blue");
+    assertNotNull(blue);
+    assertTrue(blue.isPrimary());
+    assertEquals(0xff2196f3, blue.getAWTColor().getRGB());
+  }
+
+  @Test
+  public void findsShades() {
+    final FlutterColors.FlutterColor shade = FlutterColors.getColor("blue", 200);
+    assertNotNull(shade);
+    assertSame(shade, FlutterColors.getColor("blue[200]"));
+    assertSame(shade, FlutterColors.getColor("blue.shade200"));
+
+    assertNull(FlutterColors.getColor("blue", 250));
+    assertNull(FlutterColors.getColor("notAColor", 200));
+    assertNull(FlutterColors.getColor("blue.shade"));
+    assertNull(FlutterColors.getColor("blue.shadeX"));
+  }
+
+  @Test
+  public void findsCupertinoColors() {
+    final FlutterColors.FlutterColor green = FlutterCupertinoColors.getColor("systemGreen");
+    assertNotNull(green);
+    assertEquals(0xff34c759, green.getAWTColor().getRGB());
+    assertNull(FlutterCupertinoColors.getColor("systemGreen", 200));
+  }
+
+  @Test
+  public void namesColors() {
+    //noinspection UseJBColor
+    assertEquals("black", FlutterColors.getColorName(new Color(0, 0, 0)));
+    assertNull(FlutterColors.getColorName(null));
+  }
+
+  @Test
+  public void parsesDecimalDigits() {
+    assertEquals(200, ColorTable.parseInt("blue[200]", 5, 8));
+    assertEquals(700, ColorTable.parseInt("shade700", 5, 8));
+    assertEquals(-1, ColorTable.parseInt("0xC8", 0, 4));
+    assertEquals(-1, ColorTable.parseInt("", 0, 0));
+    assertEquals(-1, ColorTable.parseInt("12345678901", 0, 11));
+  }
+}
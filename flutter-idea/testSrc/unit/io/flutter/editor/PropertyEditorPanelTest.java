@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.util.Disposer;
+import io.flutter.dart.FlutterDartAnalysisServer;
+import io.flutter.inspector.InspectorGroupManagerService;
+import io.flutter.testing.ProjectFixture;
+import io.flutter.testing.Testing;
+import org.dartlang.analysis.server.protocol.FlutterWidgetProperty;
+import org.dartlang.analysis.server.protocol.FlutterWidgetPropertyEditor;
+import org.dartlang.analysis.server.protocol.FlutterWidgetPropertyEditorKind;
+import org.dartlang.analysis.server.protocol.FlutterWidgetPropertyValueEnumItem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class PropertyEditorPanelTest {
+  @Rule
+  public ProjectFixture fixture = Testing.makeEmptyProject();
+
+  private final Disposable disposable = Disposer.newDisposable();
+  private PropertyEditorPanel panel;
+
+  @Before
+  public void setUp() throws Exception {
+    Testing.runOnDispatchThread(() -> panel = new PropertyEditorPanel(
+      mock(InspectorGroupManagerService.class), fixture.getProject(), mock(FlutterDartAnalysisServer.class), false, false, disposable));
+  }
+
+  @After
+  public void tearDown() {
+    Disposer.dispose(disposable);
+  }
+
+  @Test
+  public void reusesRowsForPropertiesWithTheSameEditor() throws Exception {
+    Testing.runOnDispatchThread(() -> {
+      show(text("width", "10"), text("color", "Colors.red"), alignment("Alignment.start", "start", "end"));
+      final JComponent width = panel.getPropertyField("width");
+      final JComponent color = panel.getPropertyField("color");
+      final JComponent alignment = panel.getPropertyField("alignment");
+      assertTrue(color instanceof ColorField);
+      assertTrue(alignment instanceof ComboBox);
+
+      show(text("width", "20"), text("color", "Colors.blue"), alignment("Alignment.end", "start", "end"));
+      assertSame(width, panel.getPropertyField("width"));
+      assertSame(color, panel.getPropertyField("color"));
+      assertSame(alignment, panel.getPropertyField("alignment"));
+      assertEquals("20", ((JTextField)width).getText());
+      assertEquals("Colors.blue", ((JTextField)color).getText());
+    });
+  }
+
+  @Test
+  public void replacesRowsWhoseEditorChanged() throws Exception {
+    Testing.runOnDispatchThread(() -> {
+      show(text("width", "10"), alignment("Alignment.start", "start", "end"));
+      final JComponent width = panel.getPropertyField("width");
+      final JComponent alignment = panel.getPropertyField("alignment");
+
+      // The enum gained an item, so the combo box is built again; width is no longer shown.
+      show(alignment("Alignment.start", "start", "center", "end"));
+      assertNull(panel.getPropertyField("width"));
+      assertNotNull(panel.getPropertyField("alignment"));
+      assertNotSame(alignment, panel.getPropertyField("alignment"));
+      assertFalse(panel.isAncestorOf(width));
+
+      show(text("width", "10"), alignment("Alignment.start", "start", "center", "end"));
+      assertNotSame(width, panel.getPropertyField("width"));
+    });
+  }
+
+  @Test
+  public void colorFieldShowsNewerValues() throws Exception {
+    Testing.runOnDispatchThread(() -> {
+      final ColorField field = new ColorField(panel, "color", text("color", "Colors.black"), disposable);
+      assertNotNull(field.getCurrentColor());
+      assertEquals(0xff000000, field.getCurrentColor().getRGB());
+
+      field.setProperty(text("color", "Color(0xff00ff00)"));
+      assertEquals("Color(0xff00ff00)", field.getText());
+      assertNotNull(field.getCurrentColor());
+      assertEquals(0xff00ff00, field.getCurrentColor().getRGB());
+
+      field.setProperty(text("color", null));
+      assertEquals("", field.getText());
+      assertNull(field.getCurrentColor());
+    });
+  }
+
+  private void show(FlutterWidgetProperty... properties) {
+    panel.setProperties(List.of(properties));
+    panel.rebuildUi();
+  }
+
+  private static FlutterWidgetProperty text(String name, String expression) {
+    return new FlutterWidgetProperty(null, expression, 1, false, true, name, null, null, null);
+  }
+
+  private static FlutterWidgetProperty alignment(String expression, String... itemNames) {
+    final List<FlutterWidgetPropertyValueEnumItem> items = new ArrayList<>();
+    for (String itemName : itemNames) {
+      items.add(new FlutterWidgetPropertyValueEnumItem("package:app/alignment.dart", "Alignment", itemName, null));
+    }
+    final FlutterWidgetPropertyEditor editor = new FlutterWidgetPropertyEditor(FlutterWidgetPropertyEditorKind.ENUM, items);
+    return new FlutterWidgetProperty(null, expression, 2, false, true, "alignment", null, editor, null);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.editor;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.dartlang.analysis.server.protocol.FlutterWidgetProperty;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class WidgetDescriptionCacheTest {
+  private final VirtualFile file = mock(VirtualFile.class);
+  private final WidgetDescriptionCache cache = new WidgetDescriptionCache(2);
+
+  @Test
+  public void evictsTheLeastRecentlyUsedDescription() {
+    final WidgetDescriptionCache.Key first = key(1, 10);
+    final WidgetDescriptionCache.Key second = key(1, 20);
+    final WidgetDescriptionCache.Key third = key(1, 30);
+    final List<FlutterWidgetProperty> firstProperties = properties("first");
+
+    cache.put(first, firstProperties);
+    cache.put(second, properties("second"));
+    // Using the first description makes the second the eldest.
+    assertSame(firstProperties, cache.get(first));
+    cache.put(third, properties("third"));
+
+    assertEquals(2, cache.size());
+    assertSame(firstProperties, cache.get(first));
+    assertNull(cache.get(second));
+    assertNotNull(cache.get(third));
+  }
+
+  @Test
+  public void missesDescriptionsFromAnEarlierServer() {
+    cache.put(key(1, 10), properties("data"));
+
+    assertNotNull(cache.get(key(1, 10)));
+    assertNull(cache.get(key(2, 10)));
+  }
+
+  @Test
+  public void missesDescriptionsOfAnEarlierVersionOfTheFile() {
+    cache.put(new WidgetDescriptionCache.Key(file, 1, 1, 1, 10, 5), properties("data"));
+
+    assertNull(cache.get(new WidgetDescriptionCache.Key(file, 2, 1, 1, 10, 5)));
+    assertNull(cache.get(new WidgetDescriptionCache.Key(mock(VirtualFile.class), 1, 1, 1, 10, 5)));
+    assertNull(cache.get(new WidgetDescriptionCache.Key(file, 1, 1, 1, 10, 6)));
+  }
+
+  @Test
+  public void missesDescriptionsAfterOtherFilesChange() {
+    cache.put(new WidgetDescriptionCache.Key(file, 1, 1, 1, 10, 5), properties("data"));
+
+    // The widget's class may have been edited in another file.
+    assertNull(cache.get(new WidgetDescriptionCache.Key(file, 1, 2, 1, 10, 5)));
+  }
+
+  @Test
+  public void removesDescriptions() {
+    cache.put(key(1, 10), properties("data"));
+    cache.remove(key(1, 10));
+    assertNull(cache.get(key(1, 10)));
+    assertEquals(0, cache.size());
+  }
+
+  private WidgetDescriptionCache.Key key(int serverGeneration, int offset) {
+    return new WidgetDescriptionCache.Key(file, 1, 1, serverGeneration, offset, 5);
+  }
+
+  private static List<FlutterWidgetProperty> properties(String name) {
+    return List.of(new FlutterWidgetProperty(null, "'" + name + "'", 1, false, true, name, null, null, null));
+  }
+}
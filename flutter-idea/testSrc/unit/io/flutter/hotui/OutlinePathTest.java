@@ -0,0 +1,162 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.hotui;
+
+import org.dartlang.analysis.server.protocol.FlutterOutline;
+import org.dartlang.analysis.server.protocol.FlutterOutlineAttribute;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays sequences of edits, building the outline the analysis server would send for each version of the file.
+ */
+public class OutlinePathTest {
+  @Test
+  public void findsTheInnermostNodeAtAnOffset() {
+    final Snapshot snapshot = new Snapshot("Widget build() => Column(children: [Text('a'), Text('b')]);");
+    final FlutterOutline root = snapshot.root(snapshot.column(snapshot.text("a"), snapshot.text("b")));
+
+    final OutlinePath path = OutlinePath.findAtOffset(root, snapshot.offsetOf("Text('b')") + 1, IntUnaryOperator.identity());
+    assertEquals("'b'", label(path.getTarget()));
+    assertEquals(3, path.getNodes().size());
+
+    assertNull(OutlinePath.findAtOffset(root, snapshot.source.length() + 10, IntUnaryOperator.identity()).getTarget());
+    assertNull(OutlinePath.findAtOffset(null, 0, IntUnaryOperator.identity()).getTarget());
+  }
+
+  @Test
+  public void followsTheNodeThroughEdits() {
+    final Snapshot start = new Snapshot("Widget build() => Column(children: [Text('a'), Text('b')]);");
+    OutlinePath path = OutlinePath.findAtOffset(
+      start.root(start.column(start.text("a"), start.text("b"))), start.offsetOf("Text('b')") + 1, IntUnaryOperator.identity());
+    assertEquals("'b'", label(path.getTarget()));
+
+    // A sibling of the same class with the same length is inserted before the node.
+    final Snapshot inserted = new Snapshot("Widget build() => Column(children: [Text('z'), Text('a'), Text('b')]);");
+    path = path.match(inserted.root(inserted.column(inserted.text("z"), inserted.text("a"), inserted.text("b"))));
+    assertEquals("'b'", label(path.getTarget()));
+    assertEquals(inserted.offsetOf("Text('b')"), path.getTarget().getOffset());
+
+    // The node itself is edited.
+    final Snapshot edited = new Snapshot("Widget build() => Column(children: [Text('z'), Text('a'), Text('bb')]);");
+    path = path.match(edited.root(edited.column(edited.text("z"), edited.text("a"), edited.text("bb"))));
+    assertEquals("'bb'", label(path.getTarget()));
+
+    // The node is wrapped by a new widget.
+    final Snapshot wrapped = new Snapshot("Widget build() => Column(children: [Text('z'), Text('a'), Padding(child: Text('bb'))]);");
+    path = path.match(wrapped.root(wrapped.column(wrapped.text("z"), wrapped.text("a"), wrapped.widget("Padding", wrapped.text("bb")))));
+    assertEquals("'bb'", label(path.getTarget()));
+    assertEquals(Arrays.asList(null, "Column", "Padding", "Text"), classNames(path));
+
+    // The wrapping widget is removed again.
+    path = path.match(edited.root(edited.column(edited.text("z"), edited.text("a"), edited.text("bb"))));
+    assertEquals("'bb'", label(path.getTarget()));
+    assertEquals(Arrays.asList(null, "Column", "Text"), classNames(path));
+
+    // A sibling is added after the node.
+    final Snapshot appended = new Snapshot("Widget build() => Column(children: [Text('z'), Text('a'), Text('bb'), Text('c')]);");
+    path = path.match(appended.root(appended.column(appended.text("z"), appended.text("a"), appended.text("bb"), appended.text("c"))));
+    assertEquals("'bb'", label(path.getTarget()));
+  }
+
+  @Test
+  public void fallsBackToTheClosestNodeWhenTheNodeIsRemoved() {
+    final Snapshot start = new Snapshot("Widget build() => Column(children: [Text('a'), Icon(Icons.add)]);");
+    OutlinePath path = OutlinePath.findAtOffset(
+      start.root(start.column(start.text("a"), start.widget("Icon"))), start.offsetOf("Icon(") + 1, IntUnaryOperator.identity());
+    assertEquals("Icon", path.getTarget().getClassName());
+
+    final Snapshot removed = new Snapshot("Widget build() => Column(children: [Text('a')]);");
+    path = path.match(removed.root(removed.column(removed.text("a"))));
+    assertEquals("'a'", label(path.getTarget()));
+
+    final Snapshot empty = new Snapshot("Widget build() => Column(children: []);");
+    path = path.match(empty.root(empty.column()));
+    assertEquals("Column", path.getTarget().getClassName());
+
+    assertNull(path.match(null).getTarget());
+  }
+
+  private static String label(FlutterOutline node) {
+    assertNotNull(node);
+    assertNotNull(node.getAttributes());
+    return node.getAttributes().get(0).getLabel();
+  }
+
+  private static List<String> classNames(OutlinePath path) {
+    final List<String> names = new ArrayList<>();
+    for (FlutterOutline node : path.getNodes()) {
+      names.add(node.getClassName());
+    }
+    return names;
+  }
+
+  /**
+   * One version of a file. Each widget is found in the source by its text, which must be unique.
+   */
+  private static class Snapshot {
+    final String source;
+
+    Snapshot(String source) {
+      this.source = source;
+    }
+
+    int offsetOf(String text) {
+      final int offset = source.indexOf(text);
+      assertTrue(text, offset >= 0);
+      return offset;
+    }
+
+    FlutterOutline root(FlutterOutline... children) {
+      return new FlutterOutline("DART_ELEMENT", 0, source.length(), 0, source.length(), "build", null, null, null, null, null,
+                                Arrays.asList(children));
+    }
+
+    FlutterOutline column(FlutterOutline... children) {
+      // The column runs from its name to the bracket closing its children.
+      final int offset = offsetOf("Column(");
+      final int end = source.lastIndexOf("])") + 2;
+      return node("Column", offset, end - offset, null, children);
+    }
+
+    FlutterOutline text(String value) {
+      final String text = "Text('" + value + "')";
+      final List<FlutterOutlineAttribute> attributes =
+        Collections.singletonList(new FlutterOutlineAttribute("data", "'" + value + "'", null, null, value, null, null));
+      return node("Text", offsetOf(text), text.length(), attributes);
+    }
+
+    FlutterOutline widget(String className, FlutterOutline... children) {
+      final int offset = offsetOf(className + "(");
+      // Runs to the parenthesis matching the one after the class name.
+      int depth = 0;
+      int end = offset + className.length();
+      do {
+        final char c = source.charAt(end++);
+        if (c == '(') depth++;
+        if (c == ')') depth--;
+      }
+      while (depth > 0);
+      return node(className, offset, end - offset, null, children);
+    }
+
+    private static FlutterOutline node(String className,
+                                       int offset,
+                                       int length,
+                                       List<FlutterOutlineAttribute> attributes,
+                                       FlutterOutline... children) {
+      return new FlutterOutline("NEW_INSTANCE", offset, length, offset, length, null, null, attributes, className, null, null,
+                                Arrays.asList(children));
+    }
+  }
+}
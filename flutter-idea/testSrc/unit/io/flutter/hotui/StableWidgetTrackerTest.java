@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.hotui;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VirtualFile;
+import io.flutter.dart.FlutterDartAnalysisServer;
+import io.flutter.dart.FlutterOutlineListener;
+import io.flutter.inspector.InspectorService;
+import io.flutter.preview.OutlineOffsetConverter;
+import org.dartlang.analysis.server.protocol.FlutterOutline;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class StableWidgetTrackerTest {
+  private static final String PATH = "/app/lib/main.dart";
+
+  private final Disposable disposable = Disposer.newDisposable();
+  private final List<Runnable> queued = new ArrayList<>();
+  private final List<List<FlutterOutline>> published = new ArrayList<>();
+  private StableWidgetTracker tracker;
+  private FlutterOutlineListener listener;
+
+  @Before
+  public void setUp() {
+    final VirtualFile file = mock(VirtualFile.class);
+    when(file.getPath()).thenReturn(PATH);
+    final OutlineOffsetConverter converter = mock(OutlineOffsetConverter.class);
+    when(converter.getConvertedFileOffset(anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+    final FlutterDartAnalysisServer server = mock(FlutterDartAnalysisServer.class);
+
+    tracker = new StableWidgetTracker(new InspectorService.Location(file, 1, 1, 15), server, converter, queued::add, disposable);
+
+    final ArgumentCaptor<FlutterOutlineListener> captor = ArgumentCaptor.forClass(FlutterOutlineListener.class);
+    verify(server).addOutlineListener(anyString(), captor.capture());
+    listener = captor.getValue();
+
+    tracker.getCurrentOutlines().listen(published::add);
+    // The listener is called with the initial value at once.
+    published.clear();
+  }
+
+  @After
+  public void tearDown() {
+    Disposer.dispose(disposable);
+  }
+
+  @Test
+  public void matchesOnlyTheLatestOfQueuedOutlines() {
+    final FlutterOutline first = outline(10);
+    final FlutterOutline second = outline(12);
+    final FlutterOutline third = outline(14);
+    listener.outlineUpdated(PATH, first, null);
+    listener.outlineUpdated(PATH, second, null);
+    listener.outlineUpdated(PATH, third, null);
+    assertEquals(1, queued.size());
+
+    runQueued();
+    assertEquals(1, published.size());
+    assertSame(third.getChildren().get(0), published.get(0).get(0));
+    assertTrue(tracker.isValid());
+  }
+
+  @Test
+  public void schedulesAgainOnceTheQueuedOutlineIsMatched() {
+    listener.outlineUpdated(PATH, outline(10), null);
+    runQueued();
+
+    final FlutterOutline edited = outline(20);
+    listener.outlineUpdated(PATH, edited, null);
+    assertEquals(1, queued.size());
+    runQueued();
+    assertEquals(2, published.size());
+    assertSame(edited.getChildren().get(0), published.get(1).get(0));
+  }
+
+  @Test
+  public void ignoresOtherFilesAndOutlinesAfterDispose() {
+    listener.outlineUpdated("/app/lib/other.dart", outline(10), null);
+    assertEquals(0, queued.size());
+
+    listener.outlineUpdated(PATH, outline(10), null);
+    Disposer.dispose(disposable);
+    runQueued();
+    assertEquals(0, published.size());
+  }
+
+  private void runQueued() {
+    final List<Runnable> tasks = new ArrayList<>(queued);
+    queued.clear();
+    for (Runnable task : tasks) {
+      task.run();
+    }
+  }
+
+  /**
+   * A build method returning a widget that starts at the given offset and covers the tracked offset.
+   */
+  private static FlutterOutline outline(int widgetOffset) {
+    final FlutterOutline widget =
+      new FlutterOutline("NEW_INSTANCE", widgetOffset, 20, widgetOffset, 20, null, null, null, "Text", null, null, Collections.emptyList());
+    return new FlutterOutline("DART_ELEMENT", 0, 100, 0, 100, "build", null, null, null, null, null, Collections.singletonList(widget));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.inspector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HeapSamplesTest {
+  @Test
+  public void trimsSamplesOutsideWindow() {
+    final HeapSamples samples = new HeapSamples(1000, 16, 0);
+    samples.add(0, 1, 0);
+    samples.add(1000, 2, 0);
+    samples.add(2000, 3, 0);
+    assertEquals(3, samples.size());
+
+    // The window is 1000ms plus 2000ms of slack.
+    samples.add(3500, 4, 0);
+    assertEquals(3, samples.size());
+    assertEquals(1000, samples.getTime(0));
+    assertEquals(4, samples.getLastBytes());
+  }
+
+  @Test
+  public void overwritesOldestWhenFull() {
+    final HeapSamples samples = new HeapSamples(60 * 1000, 4, 0);
+    for (int i = 0; i < 10; i++) {
+      samples.add(i, i, 0);
+    }
+    assertEquals(4, samples.size());
+    assertEquals(6, samples.getBytes(0));
+    assertEquals(9, samples.getLastBytes());
+    assertEquals(9, samples.getMaxBytes());
+  }
+
+  @Test
+  public void downsampleKeepsMinAndMaxPerBucket() {
+    final HeapSamples samples = new HeapSamples(60 * 1000, 64, 0);
+    samples.add(0, 10, 0);
+    samples.add(10, 30, 0);
+    samples.add(20, 20, 0);
+    samples.add(90, 5, 0);
+
+    final int[] min = new int[4];
+    final int[] max = new int[4];
+    samples.downsample(0, 100, min, max);
+
+    assertArrayEquals(new int[]{10, -1, -1, 5}, min);
+    assertArrayEquals(new int[]{30, -1, -1, 5}, max);
+  }
+
+  @Test
+  public void keepsSamplesAtAFixedRate() {
+    final HeapSamples samples = new HeapSamples(60 * 1000, 16, 100);
+    samples.add(0, 1, 0);
+    samples.add(10, 2, 0);
+    samples.add(99, 3, 0);
+    assertEquals(1, samples.size());
+    assertEquals(0, samples.getTime(0));
+    assertEquals(3, samples.getLastBytes());
+
+    samples.add(100, 4, 0);
+    assertEquals(2, samples.size());
+    assertEquals(100, samples.getTime(1));
+  }
+
+  @Test
+  public void burstsDoNotShrinkTheWindow() {
+    // One GC event per millisecond for the whole window still leaves its start in the buffer.
+    final HeapSamples samples = new HeapSamples(60 * 1000);
+    for (int time = 0; time <= 60 * 1000; time++) {
+      samples.add(time, time, 0);
+    }
+    assertTrue(samples.size() <= HeapSamples.DEFAULT_CAPACITY);
+    assertEquals(0, samples.getTime(0));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.inspector;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ScreenshotCacheTest {
+  private final ScreenshotCache cache = new ScreenshotCache();
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private CompletableFuture<String> request(ScreenshotCache.Key key, CompletableFuture<String> result) {
+    return cache.get(key, () -> {
+      requests.incrementAndGet();
+      return result;
+    });
+  }
+
+  @Test
+  public void concurrentRequestsForSameKeyAreShared() {
+    final CompletableFuture<String> pending = new CompletableFuture<>();
+    final CompletableFuture<String> first = request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), pending);
+    final CompletableFuture<String> second = request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), new CompletableFuture<>());
+    assertSame(first, second);
+    assertEquals(1, requests.get());
+
+    pending.complete("image");
+    assertEquals("image", request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), new CompletableFuture<>()).join());
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void differentSizesAreRequestedSeparately() {
+    request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), CompletableFuture.completedFuture("small"));
+    request(new ScreenshotCache.Key("a", "g", 100, 200, 1.0, 1), CompletableFuture.completedFuture("large"));
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void newFrameInvalidatesEarlierScreenshots() {
+    request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), CompletableFuture.completedFuture("frame1"));
+    final CompletableFuture<String> next =
+      request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 2), CompletableFuture.completedFuture("frame2"));
+    assertEquals("frame2", next.join());
+    assertEquals(2, requests.get());
+
+    // A late request for the earlier frame does not see a stale entry.
+    request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), CompletableFuture.completedFuture("frame1"));
+    assertEquals(3, requests.get());
+  }
+
+  @Test
+  public void nullAndFailedResultsAreNotCached() {
+    request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), CompletableFuture.completedFuture(null));
+    request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), CompletableFuture.failedFuture(new RuntimeException()));
+    request(new ScreenshotCache.Key("a", "g", 10, 20, 1.0, 1), CompletableFuture.completedFuture("image"));
+    assertEquals(3, requests.get());
+  }
+
+  @Test
+  public void disposingGroupDropsItsEntries() {
+    request(new ScreenshotCache.Key("a", "g1", 10, 20, 1.0, 1), CompletableFuture.completedFuture("image"));
+    request(new ScreenshotCache.Key("a", "g2", 10, 20, 1.0, 1), CompletableFuture.completedFuture("image"));
+    cache.invalidateGroup("g1");
+
+    request(new ScreenshotCache.Key("a", "g1", 10, 20, 1.0, 1), CompletableFuture.completedFuture("image"));
+    request(new ScreenshotCache.Key("a", "g2", 10, 20, 1.0, 1), CompletableFuture.completedFuture("image"));
+    assertEquals(3, requests.get());
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.performance;
+
+import io.flutter.testing.Benchmark;
+import io.flutter.vmService.FlutterFramesMonitor;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Reports how long the frame rendering panel takes to paint a full history of frames.
+ * <pre>
+ * FrameRenderingPanelBenchmark [iterations] [width] [height]
+ * </pre>
+ * The default size is wide enough to show every frame the monitor keeps.
+ */
+public class FrameRenderingPanelBenchmark {
+  public static void main(String[] args) throws Exception {
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    final int width = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+    final int height = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+    final FrameRenderingPanel panel = new FrameRenderingPanel(FrameRenderingPanelTest.mockRefreshRate());
+    panel.setSize(width, height);
+    final Random random = new Random(0);
+    for (int i = 0; i < FlutterFramesMonitor.maxFrames; i++) {
+      // Mostly fast frames, with the occasional slow one and a new set of frames every so often.
+      final long elapsed = random.nextInt(10) == 0 ? 20000 + random.nextInt(40000) : 2000 + random.nextInt(10000);
+      panel.addFrame(elapsed, random.nextInt(30) == 0);
+    }
+
+    final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = image.createGraphics();
+    try {
+      final Benchmark.Result result = Benchmark.measure(iterations, () -> {
+        panel.paint(g);
+        return 0;
+      });
+
+      Benchmark.report("frames", panel.getFrameCount());
+      result.report("panel", "Paint", iterations);
+    }
+    finally {
+      g.dispose();
+    }
+  }
+}
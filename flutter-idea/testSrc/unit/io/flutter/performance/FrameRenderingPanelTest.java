@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.performance;
+
+import io.flutter.vmService.DisplayRefreshRateManager;
+import io.flutter.vmService.FlutterFramesMonitor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FrameRenderingPanelTest {
+  private FrameRenderingPanel panel;
+
+  @Before
+  public void setUp() {
+    panel = new FrameRenderingPanel(mockRefreshRate());
+    panel.setSize(400, 100);
+  }
+
+  @Test
+  public void keepsOnlyTheMostRecentFrames() {
+    for (int i = 0; i < FlutterFramesMonitor.maxFrames + 50; i++) {
+      panel.addFrame(1000, false);
+    }
+    assertEquals(FlutterFramesMonitor.maxFrames, panel.getFrameCount());
+  }
+
+  @Test
+  public void skipsRecentFramesDeliveredAgain() {
+    final FlutterFramesMonitor.FlutterFrameEvent first = frame(1);
+    final FlutterFramesMonitor.FlutterFrameEvent second = frame(2);
+    panel.addRecentFrames(List.of(second, first));
+    assertEquals(2, panel.getFrameCount());
+
+    panel.addFrame(second);
+    assertEquals(2, panel.getFrameCount());
+    panel.addFrame(frame(3));
+    assertEquals(3, panel.getFrameCount());
+  }
+
+  @Test
+  public void keepsAddingFramesAfterARestart() {
+    panel.addRecentFrames(List.of(frame(41), frame(40)));
+    panel.addFrame(frame(42));
+
+    // Frame numbers start again after a hot restart.
+    panel.addFrame(frame(1));
+    panel.addFrame(frame(2));
+    assertEquals(5, panel.getFrameCount());
+  }
+
+  @Test
+  public void describesTheFrameUnderTheMouse() {
+    panel.addFrame(40000, false);
+    panel.addFrame(8000, false);
+
+    // With a height of 100 the bars are 5 pixels wide with a 2 pixel gap, newest on the right.
+    assertEquals("This frame took 8ms to render.", panel.getToolTipText(mouseAt(396, 99)));
+    assertTrue(panel.getToolTipText(mouseAt(389, 99)).startsWith("This frame took 40ms to render, which"));
+
+    // Above the bar and between bars.
+    assertNull(panel.getToolTipText(mouseAt(396, 10)));
+    assertNull(panel.getToolTipText(mouseAt(399, 99)));
+  }
+
+  private MouseEvent mouseAt(int x, int y) {
+    return new MouseEvent(panel, MouseEvent.MOUSE_MOVED, 0, 0, x, y, 0, false);
+  }
+
+  private static FlutterFramesMonitor.FlutterFrameEvent frame(int frameId) {
+    // The panel tells frames apart by identity, so the number only names the mock.
+    return mock(FlutterFramesMonitor.FlutterFrameEvent.class, "frame" + frameId);
+  }
+
+  static DisplayRefreshRateManager mockRefreshRate() {
+    final DisplayRefreshRateManager manager = mock(DisplayRefreshRateManager.class);
+    when(manager.getTargetMicrosPerFrame()).thenReturn(16666);
+    when(manager.getCurrentDisplayRefreshRateRaw()).thenReturn(60.0);
+    return manager;
+  }
+}
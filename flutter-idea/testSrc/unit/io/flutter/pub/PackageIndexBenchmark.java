@@ -0,0 +1,61 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.pub;
+
+import io.flutter.testing.Benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports how long it takes to look up the path of every package in a large package config, with an index that is
+ * kept between lookups and with one built for each lookup.
+ * <pre>
+ * PackageIndexBenchmark [packages] [iterations]
+ * </pre>
+ * A new index for each lookup is what happened while every fresh PubRoot kept its own. Parsing the config and
+ * resolving lib directories need the IDE's file system, so they aren't measured here.
+ */
+public class PackageIndexBenchmark {
+  public static void main(String[] args) throws Exception {
+    final int packageCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+    final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+    final Map<String, String> packages = new LinkedHashMap<>();
+    final List<String> names = new ArrayList<>();
+    for (int i = 0; i < packageCount; i++) {
+      packages.put("package_" + i, "/home/user/.pub-cache/hosted/pub.dev/package_" + i + "-1.0." + i + "/lib");
+      names.add("package_" + i);
+    }
+    final PackageIndex index = new PackageIndex(0, packages);
+
+    final Benchmark.Result shared = Benchmark.measure(iterations, () -> shared(index, names));
+    final Benchmark.Result rebuilt = Benchmark.measure(iterations, () -> rebuilt(packages, names));
+
+    Benchmark.report("packages", packageCount);
+    Benchmark.report("found", shared.checksum + rebuilt.checksum);
+    shared.report("shared", "Config", iterations);
+    rebuilt.report("rebuilt", "Config", iterations);
+  }
+
+  private static int shared(PackageIndex index, List<String> names) {
+    int found = 0;
+    for (String name : names) {
+      if (index.getPackagePath(name) != null) found++;
+    }
+    return found;
+  }
+
+  private static int rebuilt(Map<String, String> packages, List<String> names) {
+    int found = 0;
+    for (String name : names) {
+      if (new PackageIndex(0, packages).getPackagePath(name) != null) found++;
+    }
+    return found;
+  }
+}
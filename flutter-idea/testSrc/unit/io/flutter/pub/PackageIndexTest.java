@@ -0,0 +1,125 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.pub;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import io.flutter.testing.TestDir;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PackageIndexTest {
+  @Rule
+  public final TestDir tmp = new TestDir();
+
+  @Test
+  public void looksUpPackagesByName() {
+    final Map<String, String> packages = new LinkedHashMap<>();
+    packages.put("flutter", "/sdk/packages/flutter/lib");
+    packages.put("cupertino_icons", "/cache/hosted/pub.dev/cupertino_icons-1.0.5/lib/");
+    packages.put("app", "/work/app/lib");
+    final PackageIndex index = new PackageIndex(1, packages);
+
+    assertEquals(new ArrayList<>(packages.keySet()), new ArrayList<>(index.getPackagesMap().keySet()));
+    assertEquals("/cache/hosted/pub.dev/cupertino_icons-1.0.5/lib", index.getLibPath("cupertino_icons"));
+    assertEquals("/cache/hosted/pub.dev/cupertino_icons-1.0.5", index.getPackagePath("cupertino_icons"));
+    assertNull(index.getLibPath("missing"));
+    assertNull(index.getPackagePath("missing"));
+  }
+
+  @Test
+  public void parsesTheConfigOnlyWhenItChanges() throws Exception {
+    final AtomicInteger parses = new AtomicInteger();
+    final VirtualFile config = tmp.writeFile("app/.dart_tool/package_config.json", "{}");
+    final PackageIndex first = PackageIndex.forConfigFile(config, null, (file) -> {
+      parses.incrementAndGet();
+      return Map.of("app", "/work/app/lib");
+    });
+    assertNotNull(first);
+    assertSame(first, PackageIndex.forConfigFile(config, first, (file) -> {
+      parses.incrementAndGet();
+      return Map.of("app", "/work/app/lib");
+    }));
+    assertEquals(1, parses.get());
+
+    tmp.writeFile("app/.dart_tool/package_config.json", "{\"configVersion\": 2}");
+    final PackageIndex second = PackageIndex.forConfigFile(config, first, (file) -> {
+      parses.incrementAndGet();
+      return Map.of("other", "/work/other/lib");
+    });
+    assertNotNull(second);
+    assertNotSame(first, second);
+    assertEquals(2, parses.get());
+    assertEquals("/work/other/lib", second.getLibPath("other"));
+
+    assertNull(PackageIndex.forConfigFile(config, second, (file) -> null));
+  }
+
+  @Test
+  public void parsesAnotherConfigFile() throws Exception {
+    final VirtualFile config = tmp.writeFile("app/.dart_tool/package_config.json", "{}");
+    final VirtualFile otherConfig = tmp.writeFile("other/.dart_tool/package_config.json", "{}");
+    final PackageIndex first = PackageIndex.forConfigFile(config, null, (file) -> Map.of("app", "/work/app/lib"));
+
+    final PackageIndex other = PackageIndex.forConfigFile(otherConfig, first, (file) -> Map.of("other", "/work/other/lib"));
+    assertNotNull(other);
+    assertNotSame(first, other);
+    assertEquals("/work/other/lib", other.getLibPath("other"));
+  }
+
+  @Test
+  public void resolvesLibDirsThatExist() throws Exception {
+    final List<String> names = List.of("a", "b", "c");
+    final Map<String, String> packages = new LinkedHashMap<>();
+    for (String name : names) {
+      tmp.writeFile("cache/" + name + "-1.0.0/lib/" + name + ".dart", "");
+      packages.put(name, tmp.pathAt("cache/" + name + "-1.0.0/lib"));
+    }
+    packages.put("missing", tmp.pathAt("cache/missing-1.0.0/lib"));
+    packages.put("local", tmp.pathAt("local/lib"));
+    tmp.ensureDir("local/lib");
+
+    final Map<String, VirtualFile> libDirs = new PackageIndex(1, packages).getLibDirs();
+    assertEquals(4, libDirs.size());
+    for (String name : names) {
+      final VirtualFile dir = libDirs.get(packages.get(name));
+      assertNotNull(name, dir);
+      assertNotNull(dir.findChild(name + ".dart"));
+    }
+    assertNotNull(libDirs.get(packages.get("local")));
+    assertNull(libDirs.get(packages.get("missing")));
+  }
+
+  @Test
+  public void resolvesLibDirsAgainAfterFilesChange() throws Exception {
+    tmp.ensureDir("cache/a-1.0.0/lib");
+    final Map<String, String> packages = new LinkedHashMap<>();
+    packages.put("a", tmp.pathAt("cache/a-1.0.0/lib"));
+    packages.put("b", tmp.pathAt("cache/b-1.0.0/lib"));
+    final PackageIndex index = new PackageIndex(1, packages);
+
+    assertEquals(Set.of(packages.get("a")), index.getLibDirs().keySet());
+    assertSame(index.getLibDirs(), index.getLibDirs());
+
+    // The package is downloaded after the index was first used.
+    tmp.ensureDir("cache/b-1.0.0/lib");
+    assertEquals(Set.of(packages.get("a"), packages.get("b")), index.getLibDirs().keySet());
+
+    tmp.deleteFile("cache/a-1.0.0");
+    assertEquals(Set.of(packages.get("b")), index.getLibDirs().keySet());
+    for (VirtualFile dir : index.getLibDirs().values()) {
+      assertTrue(dir.isValid());
+    }
+  }
+}
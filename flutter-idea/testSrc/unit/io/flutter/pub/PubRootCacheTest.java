@@ -0,0 +1,220 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.pub;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.vfs.VirtualFile;
+import io.flutter.testing.TestDir;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class PubRootCacheTest {
+  @Rule
+  public final TestDir tmp = new TestDir();
+
+  private PubRootCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new PubRootCache(mock(Project.class));
+  }
+
+  @After
+  public void tearDown() {
+    Disposer.dispose(cache);
+  }
+
+  @Test
+  public void findsTheNearestRoot() throws Exception {
+    final VirtualFile app = tmp.ensureDir("app");
+    tmp.writeFile("app/pubspec.yaml", "name: app");
+    final VirtualFile main = tmp.writeFile("app/lib/main.dart", "");
+    final VirtualFile widget = tmp.writeFile("app/lib/src/widget.dart", "");
+    final VirtualFile outside = tmp.writeFile("notes.txt", "");
+
+    assertEquals(app, rootDir(main));
+    assertEquals(app, rootDir(widget));
+    assertEquals(app, rootDir(app));
+    assertNull(cache.getRoot(outside));
+  }
+
+  @Test
+  public void seesPubspecsAddedAndRemoved() throws Exception {
+    final VirtualFile app = tmp.ensureDir("app");
+    tmp.writeFile("app/pubspec.yaml", "name: app");
+    final VirtualFile plugin = tmp.ensureDir("app/plugin");
+    final VirtualFile source = tmp.writeFile("app/plugin/lib/plugin.dart", "");
+    assertEquals(app, rootDir(source));
+
+    tmp.writeFile("app/plugin/pubspec.yaml", "name: plugin");
+    assertEquals(plugin, rootDir(source));
+
+    tmp.deleteFile("app/plugin/pubspec.yaml");
+    assertEquals(app, rootDir(source));
+
+    tmp.deleteFile("app/pubspec.yaml");
+    assertNull(cache.getRoot(source));
+  }
+
+  @Test
+  public void ignoresChangesToOtherFiles() throws Exception {
+    tmp.writeFile("app/pubspec.yaml", "name: app");
+    final VirtualFile main = tmp.writeFile("app/lib/main.dart", "");
+    tmp.writeFile("app/lib/scratch.dart", "");
+    final PubRoot before = cache.getRoot(main);
+    assertNotNull(before);
+    final long generation = cache.getGeneration();
+
+    tmp.writeFile("app/lib/scratch.dart", "void main() {}");
+    tmp.writeFile("app/lib/other.dart", "");
+    tmp.deleteFile("app/lib/scratch.dart");
+    assertEquals(generation, cache.getGeneration());
+    assertSame(before, cache.getRoot(main));
+  }
+
+  @Test
+  public void seesDirectoriesDeleted() throws Exception {
+    final VirtualFile app = tmp.ensureDir("app");
+    tmp.writeFile("app/pubspec.yaml", "name: app");
+    final VirtualFile plugin = tmp.ensureDir("app/plugin");
+    tmp.writeFile("app/plugin/pubspec.yaml", "name: plugin");
+    final VirtualFile source = tmp.writeFile("app/plugin/lib/plugin.dart", "");
+    assertEquals(plugin, rootDir(source));
+    final long generation = cache.getGeneration();
+
+    // Only the directory's deletion is reported, not that of the pubspec inside it.
+    tmp.deleteFile("app/plugin");
+    assertNotEquals(generation, cache.getGeneration());
+    assertEquals(app, rootDir(app));
+  }
+
+  @Test
+  public void refreshesRootsWhenPackagesChange() throws Exception {
+    tmp.writeFile("app/pubspec.yaml", "name: app");
+    final VirtualFile main = tmp.writeFile("app/lib/main.dart", "");
+    final PubRoot before = cache.getRoot(main);
+    assertNotNull(before);
+    assertSame(before, cache.getRoot(main));
+
+    tmp.writeFile("app/.dart_tool/package_config.json", "{}");
+    final PubRoot after = cache.getRoot(main);
+    assertNotNull(after);
+    assertNotSame(before, after);
+    assertNotNull(after.getPackageConfigFile());
+  }
+
+  @Test
+  public void staysConsistentWhileRootsChange() throws Exception {
+    final VirtualFile app = tmp.ensureDir("app");
+    tmp.writeFile("app/pubspec.yaml", "name: app");
+    final VirtualFile plugin = tmp.ensureDir("app/plugin");
+    final List<VirtualFile> sources = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      sources.add(tmp.writeFile("app/plugin/lib/src" + i + "/file.dart", ""));
+    }
+
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final AtomicInteger lookups = new AtomicInteger();
+    final List<Thread> readers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      final Thread reader = new Thread(() -> {
+        try {
+          while (!done.get()) {
+            for (VirtualFile source : sources) {
+              // A lookup that races with a deletion can find the pubspec gone, so null is allowed here.
+              final VirtualFile dir = rootDir(source);
+              if (dir != null && !app.equals(dir) && !plugin.equals(dir)) {
+                throw new AssertionError("unexpected root for " + source.getPath() + ": " + dir);
+              }
+              lookups.incrementAndGet();
+            }
+          }
+        }
+        catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        }
+      });
+      reader.start();
+      readers.add(reader);
+    }
+
+    try {
+      for (int i = 0; i < 25; i++) {
+        tmp.writeFile("app/plugin/pubspec.yaml", "name: plugin");
+        tmp.deleteFile("app/plugin/pubspec.yaml");
+      }
+      tmp.writeFile("app/plugin/pubspec.yaml", "name: plugin");
+    }
+    finally {
+      done.set(true);
+      for (Thread reader : readers) {
+        reader.join();
+      }
+    }
+
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+    assertTrue(lookups.get() > 0);
+
+    // Once the changes stop, every lookup sees the final state.
+    for (VirtualFile source : sources) {
+      assertEquals(plugin, rootDir(source));
+    }
+  }
+
+  @Test
+  public void sharesThePackageIndexBetweenPubRoots() throws Exception {
+    final VirtualFile app = tmp.ensureDir("app");
+    tmp.writeFile("app/pubspec.yaml", "name: app");
+    tmp.writeFile("app/.dart_tool/package_config.json", packageConfig("app"));
+
+    // PubRoots.forProject builds a new PubRoot for each call.
+    final PubRoot first = PubRoot.forDirectory(app);
+    final PubRoot second = PubRoot.forDirectory(app);
+    assertNotNull(first);
+    assertNotNull(second);
+    assertNotSame(first, second);
+    final PackageIndex index = cache.getPackageIndex(first);
+    assertNotNull(index);
+    assertSame(index, cache.getPackageIndex(second));
+
+    tmp.writeFile("app/.dart_tool/package_config.json", packageConfig("app", "other"));
+    final PackageIndex updated = cache.getPackageIndex(PubRoot.forDirectory(app));
+    assertNotNull(updated);
+    assertNotSame(index, updated);
+    assertNotNull(updated.getLibPath("other"));
+
+    tmp.deleteFile("app/.dart_tool/package_config.json");
+    assertNull(cache.getPackageIndex(PubRoot.forDirectory(app)));
+  }
+
+  private VirtualFile rootDir(VirtualFile file) {
+    final PubRoot root = cache.getRoot(file);
+    return root == null ? null : root.getRoot();
+  }
+
+  private static String packageConfig(String... names) {
+    final List<String> packages = new ArrayList<>();
+    for (String name : names) {
+      packages.add("{\"name\": \"" + name + "\", \"rootUri\": \"../" + name + "\", \"packageUri\": \"lib/\"}");
+    }
+    return "{\"configVersion\": 2, \"packages\": [" + String.join(", ", packages) + "]}";
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.common;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestCallIndexTest {
+  // group('a', () {           0..100
+  //   test('one', () {});     10..30
+  //   group('b', () {         40..90
+  //     test('two', () {});   50..70
+  //   });
+  // });
+  // test('two', () {});       110..130
+  private final TestCallIndex.Call groupA = new TestCallIndex.Call(0, 100, TestType.GROUP, "a");
+  private final TestCallIndex.Call testOne = new TestCallIndex.Call(10, 30, TestType.SINGLE, "one");
+  private final TestCallIndex.Call groupB = new TestCallIndex.Call(40, 90, TestType.GROUP, "b");
+  private final TestCallIndex.Call nestedTwo = new TestCallIndex.Call(50, 70, TestType.SINGLE, "two");
+  private final TestCallIndex.Call topLevelTwo = new TestCallIndex.Call(110, 130, TestType.SINGLE, "two");
+
+  private final TestCallIndex index = new TestCallIndex(List.of(topLevelTwo, nestedTwo, groupB, testOne, groupA));
+
+  @Test
+  public void findsCallsByStartOffset() {
+    assertSame(groupB, index.getCallAt(40));
+    assertSame(topLevelTwo, index.getCallAt(110));
+    assertNull(index.getCallAt(45));
+  }
+
+  @Test
+  public void findsInnermostEnclosingCall() {
+    assertSame(nestedTwo, index.findEnclosingCall(55));
+    assertSame(groupB, index.findEnclosingCall(80));
+    assertSame(groupA, index.findEnclosingCall(35));
+    assertSame(groupA, index.findEnclosingCall(95));
+    assertNull(index.findEnclosingCall(100));
+    assertNull(index.findEnclosingCall(105));
+    assertNull(TestCallIndex.EMPTY.findEnclosingCall(0));
+  }
+
+  @Test
+  public void buildsNamePaths() {
+    assertEquals(List.of("a", "b", "two"), index.getNamePath(nestedTwo));
+    assertEquals(List.of("two"), index.getNamePath(topLevelTwo));
+    assertSame(groupB, index.getParent(nestedTwo));
+    assertNull(index.getParent(groupA));
+  }
+
+  @Test
+  public void callsCanBeSharedBetweenIndexes() {
+    final TestCallIndex withoutGroupA = new TestCallIndex(List.of(nestedTwo, groupB));
+    assertEquals(List.of("b", "two"), withoutGroupA.getNamePath(nestedTwo));
+    assertEquals(List.of("a", "b", "two"), index.getNamePath(nestedTwo));
+    assertNull(withoutGroupA.getParent(groupB));
+    assertSame(groupA, index.getParent(groupB));
+    assertEquals(List.of(), withoutGroupA.getNamePath(groupA));
+  }
+
+  @Test
+  public void findsCallsByNamePath() {
+    assertSame(nestedTwo, index.findByNamePath(List.of("a", "b", "two")));
+    assertSame(testOne, index.findByNamePath(List.of("a", "one")));
+    assertSame(groupB, index.findByNamePath(List.of("a", "b")));
+    // Outer groups may be left out; the first match in the file wins.
+    assertSame(nestedTwo, index.findByNamePath(List.of("two")));
+    assertSame(nestedTwo, index.findByNamePath(List.of("b", "two")));
+    assertNull(index.findByNamePath(List.of("b", "one")));
+  }
+}
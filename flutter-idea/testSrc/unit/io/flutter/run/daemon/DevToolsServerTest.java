@@ -0,0 +1,220 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.daemon;
+
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DevToolsServerTest {
+  private final FakeHost host = new FakeHost();
+  private final DevToolsServer server =
+    new DevToolsServer(DevToolsServer.Launch.dart(command("/sdk", "/sdk/bin/dart", "devtools", "--machine")), host);
+
+  @Test
+  public void launchesWithTheSameCommandShareAKey() {
+    final DevToolsServer.Launch a = DevToolsServer.Launch.dart(command("/sdk", "/sdk/bin/dart", "devtools", "--machine"));
+    final DevToolsServer.Launch b = DevToolsServer.Launch.dart(command("/sdk", "/sdk/bin/dart", "devtools", "--machine"));
+    final DevToolsServer.Launch otherSdk = DevToolsServer.Launch.dart(command("/sdk2", "/sdk2/bin/dart", "devtools", "--machine"));
+    final DevToolsServer.Launch daemon = DevToolsServer.Launch.daemon(command("/sdk", "/sdk/bin/dart", "devtools", "--machine"));
+
+    assertEquals(a.getKey(), b.getKey());
+    assertNotEquals(a.getKey(), otherSdk.getKey());
+    assertNotEquals(a.getKey(), daemon.getKey());
+  }
+
+  @Test
+  public void tracksTheProjectsUsingAServer() {
+    final Project first = mock(Project.class);
+    final Project second = mock(Project.class);
+
+    server.addProject(first);
+    server.addProject(second);
+    server.addProject(second);
+    assertEquals(2, server.getProjectCount());
+    assertFalse(server.removeProject(first));
+    assertTrue(server.removeProject(second));
+    assertEquals(-1, server.getStartupMillis());
+    assertEquals(0, server.getRestartCount());
+  }
+
+  @Test
+  public void startsOnceForConcurrentRequests() {
+    assertNull(server.getLatestStart());
+
+    final CompletableFuture<DevToolsInstance> first = server.getInstance(null);
+    assertSame(first, server.getInstance(null));
+    assertSame(first, server.getLatestStart());
+    assertEquals(1, host.starts.size());
+
+    run(host.starts.get(0), 9100);
+    assertEquals(9100, first.join().port);
+    assertSame(first, server.getInstance(null));
+    assertTrue(server.getStartupMillis() >= 0);
+    assertEquals(List.of(false), host.reportedStarts);
+  }
+
+  @Test
+  public void forcedRestartSupersedesTheStartInProgress() {
+    final CompletableFuture<DevToolsInstance> first = server.getInstance(null);
+    final CompletableFuture<DevToolsInstance> second = server.getInstanceWithForcedRestart(null);
+    assertNotSame(first, second);
+    assertTrue(first.isCancelled());
+    assertEquals(2, host.starts.size());
+
+    // The replaced process reports in late; it must not become the server.
+    assertFalse(server.setProcess(host.starts.get(0), mock(ProcessHandler.class), null));
+    server.complete(host.starts.get(0), new DevToolsInstance("127.0.0.1", 9100));
+    assertFalse(second.isDone());
+
+    run(host.starts.get(1), 9101);
+    assertEquals(9101, second.join().port);
+    assertEquals(1, server.getRestartCount());
+    assertEquals(List.of(true), host.reportedStarts);
+  }
+
+  @Test
+  public void failedStartIsRetriedOnTheNextRequest() {
+    final CompletableFuture<DevToolsInstance> first = server.getInstance(null);
+    server.logExceptionAndComplete(host.starts.get(0), new Exception("no dart"));
+    assertTrue(first.isCompletedExceptionally());
+    assertEquals(1, host.failures.size());
+
+    final CompletableFuture<DevToolsInstance> second = server.getInstance(null);
+    assertNotSame(first, second);
+    assertEquals(2, host.starts.size());
+  }
+
+  @Test
+  public void healthCheckRestartsAfterRepeatedFailures() {
+    final ProcessHandler process = run(server.getInstance(null), 9100);
+
+    host.reachable = false;
+    server.checkHealth();
+    assertEquals(1, host.starts.size());
+
+    // A passing check starts the count again.
+    host.reachable = true;
+    server.checkHealth();
+    host.reachable = false;
+    server.checkHealth();
+    assertEquals(1, host.starts.size());
+
+    server.checkHealth();
+    assertEquals(2, host.starts.size());
+    assertEquals(List.of(process), host.stopped);
+    assertEquals(1, server.getRestartCount());
+    assertSame(host.starts.get(1), server.getInstance(null));
+  }
+
+  @Test
+  public void healthCheckRestartsAStoppedProcessAtOnce() {
+    final ProcessHandler process = run(server.getInstance(null), 9100);
+    when(process.isProcessTerminated()).thenReturn(true);
+
+    server.checkHealth();
+    assertEquals(2, host.starts.size());
+    // There is nothing left to stop.
+    assertEquals(List.of(), host.stopped);
+  }
+
+  @Test
+  public void healthCheckIgnoresAServerThatIsStarting() {
+    server.checkHealth();
+    assertEquals(0, host.starts.size());
+
+    server.getInstance(null);
+    host.reachable = false;
+    server.checkHealth();
+    server.checkHealth();
+    assertEquals(1, host.starts.size());
+  }
+
+  @Test
+  public void requestRestartsAStoppedProcess() {
+    final CompletableFuture<DevToolsInstance> first = server.getInstance(null);
+    final ProcessHandler process = run(first, 9100);
+    when(process.isProcessTerminated()).thenReturn(true);
+
+    assertNotSame(first, server.getInstance(null));
+    assertEquals(2, host.starts.size());
+  }
+
+  @Test
+  public void shutDownServerIsNotRestarted() {
+    final ProcessHandler process = run(server.getInstance(null), 9100);
+
+    server.shutdown();
+    assertEquals(List.of(process), host.stopped);
+
+    host.reachable = false;
+    server.checkHealth();
+    server.checkHealth();
+    assertTrue(server.getInstance(null).isCompletedExceptionally());
+    assertEquals(1, host.starts.size());
+  }
+
+  /**
+   * Reports a live process for the start and completes it with the given port.
+   */
+  private ProcessHandler run(@NotNull CompletableFuture<DevToolsInstance> starting, int port) {
+    final ProcessHandler process = mock(ProcessHandler.class);
+    assertTrue(server.setProcess(starting, process, null));
+    server.complete(starting, new DevToolsInstance("127.0.0.1", port));
+    return process;
+  }
+
+  private static GeneralCommandLine command(String workDir, String exe, String... args) {
+    return new GeneralCommandLine(exe).withWorkDirectory(workDir).withParameters(args);
+  }
+
+  /**
+   * Records what the server asks of its processes, which the tests start and stop by hand.
+   */
+  private static class FakeHost implements DevToolsServer.Host {
+    final List<CompletableFuture<DevToolsInstance>> starts = new ArrayList<>();
+    final List<ProcessHandler> stopped = new ArrayList<>();
+    final List<Boolean> reportedStarts = new ArrayList<>();
+    final List<Exception> failures = new ArrayList<>();
+    boolean reachable = true;
+
+    @Override
+    public void start(@NotNull DevToolsServer server, @NotNull CompletableFuture<DevToolsInstance> starting, @Nullable Project requester) {
+      starts.add(starting);
+    }
+
+    @Override
+    public void stop(@NotNull ProcessHandler process, @Nullable DaemonApi daemonApi) {
+      stopped.add(process);
+    }
+
+    @Override
+    public boolean canConnect(@NotNull DevToolsInstance instance) {
+      return reachable;
+    }
+
+    @Override
+    public void reportStarted(long millis, boolean restarted) {
+      reportedStarts.add(restarted);
+    }
+
+    @Override
+    public void reportFailure(@NotNull Exception exception) {
+      failures.add(exception);
+    }
+  }
+}
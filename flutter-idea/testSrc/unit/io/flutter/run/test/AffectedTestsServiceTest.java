@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.test;
+
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessHandler;
+import com.intellij.execution.process.ProcessListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class AffectedTestsServiceTest {
+  private static final String ROOT = "/app";
+  private static final List<String> TESTS = List.of("test/model_test.dart", "test/widgets_test.dart", "test/other_test.dart");
+
+  private final Map<String, String> files = new HashMap<>();
+  private final List<String> reads = new ArrayList<>();
+  private AffectedTestsService service;
+
+  @Before
+  public void setUp() {
+    files.put("/app/lib/model.dart", "");
+    files.put("/app/lib/widgets.dart", "import 'model.dart';");
+    files.put("/app/lib/other.dart", "");
+    files.put("/app/test/model_test.dart", "import 'package:app/model.dart';");
+    files.put("/app/test/widgets_test.dart", "import 'package:app/widgets.dart';");
+    files.put("/app/test/other_test.dart", "import 'package:app/other.dart';");
+
+    service = new AffectedTestsService(new AffectedTestsService.FileSource() {
+      @Override
+      public String getPackageName(@NotNull String rootPath) {
+        return "app";
+      }
+
+      @NotNull
+      @Override
+      public List<String> findDartFiles(@NotNull String rootPath) {
+        return new ArrayList<>(files.keySet());
+      }
+
+      @Nullable
+      @Override
+      public CharSequence loadText(@NotNull String path) {
+        reads.add(path);
+        return files.get(path);
+      }
+    });
+  }
+
+  @Test
+  public void testsThatNeverPassedAreAffected() {
+    assertEquals(TESTS, service.findAffectedTests(ROOT, TESTS));
+  }
+
+  @Test
+  public void changesAffectTheTestsThatDependOnThem() {
+    service.findAffectedTests(ROOT, TESTS);
+    service.testsPassed(ROOT, TESTS, service.getGeneration());
+    assertEquals(List.of(), service.findAffectedTests(ROOT, TESTS));
+
+    final long before = service.getGeneration();
+    service.filesChanged(List.of("/app/lib/model.dart"));
+    assertEquals(before + 1, service.getGeneration());
+    assertEquals(List.of("test/model_test.dart", "test/widgets_test.dart"), service.findAffectedTests(ROOT, TESTS));
+  }
+
+  @Test
+  public void changesWhileTestsRunKeepThemAffected() {
+    service.findAffectedTests(ROOT, TESTS);
+    final long generationAtStart = service.getGeneration();
+    service.filesChanged(List.of("/app/lib/other.dart"));
+    service.testsPassed(ROOT, TESTS, generationAtStart);
+
+    assertEquals(List.of("test/other_test.dart"), service.findAffectedTests(ROOT, TESTS));
+  }
+
+  @Test
+  public void changesAreForgottenOnceTheirTestsPass() {
+    service.findAffectedTests(ROOT, TESTS);
+    service.filesChanged(List.of("/app/lib/model.dart", "/app/lib/other.dart"));
+    assertEquals(2, service.getPendingChangeCount());
+
+    service.testsPassed(ROOT, List.of("test/other_test.dart"), service.getGeneration());
+    service.findAffectedTests(ROOT, TESTS);
+    assertEquals(1, service.getPendingChangeCount());
+
+    service.testsPassed(ROOT, List.of("test/model_test.dart", "test/widgets_test.dart"), service.getGeneration());
+    service.findAffectedTests(ROOT, TESTS);
+    assertEquals(0, service.getPendingChangeCount());
+  }
+
+  @Test
+  public void changedFilesAreReadAgain() {
+    service.findAffectedTests(ROOT, TESTS);
+    service.testsPassed(ROOT, TESTS, service.getGeneration());
+
+    // The widgets no longer use the model.
+    files.put("/app/lib/widgets.dart", "import 'other.dart';");
+    service.filesChanged(List.of("/app/lib/widgets.dart"));
+    reads.clear();
+    assertEquals(List.of("test/widgets_test.dart"), service.findAffectedTests(ROOT, TESTS));
+    assertEquals(List.of("/app/lib/widgets.dart"), reads);
+
+    service.testsPassed(ROOT, TESTS, service.getGeneration());
+    service.filesChanged(List.of("/app/lib/model.dart"));
+    assertEquals(List.of("test/model_test.dart"), service.findAffectedTests(ROOT, TESTS));
+  }
+
+  @Test
+  public void directoryChangesAffectTheFilesInThem() {
+    service.findAffectedTests(ROOT, TESTS);
+    service.testsPassed(ROOT, TESTS, service.getGeneration());
+
+    service.filesChanged(List.of("/app/lib"));
+    assertEquals(TESTS, service.findAffectedTests(ROOT, TESTS));
+  }
+
+  @Test
+  public void changesOutsideThePubRootAreIgnored() {
+    service.findAffectedTests(ROOT, TESTS);
+    final long before = service.getGeneration();
+    service.filesChanged(List.of("/elsewhere/lib/model.dart"));
+    assertEquals(before, service.getGeneration());
+  }
+
+  @Test
+  public void passesAreOnlyRecordedWhenTheProcessSucceeds() {
+    service.findAffectedTests(ROOT, TESTS);
+    final ProcessHandler handler = mock(ProcessHandler.class);
+
+    final ProcessListener failed = service.recordPassesOnSuccess(ROOT, TESTS, service.getGeneration());
+    failed.processTerminated(new ProcessEvent(handler, 1));
+    assertEquals(TESTS, service.findAffectedTests(ROOT, TESTS));
+
+    final ProcessListener passed = service.recordPassesOnSuccess(ROOT, TESTS, service.getGeneration());
+    passed.processTerminated(new ProcessEvent(handler, 0));
+    assertEquals(List.of(), service.findAffectedTests(ROOT, TESTS));
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.test;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DartImportGraphTest {
+
+  @Test
+  public void parsesDirectives() {
+    final String source = "library foo;\n" +
+                          "import 'dart:async';\n" +
+                          "import \"package:app/src/model.dart\" as model;\n" +
+                          "export 'src/widgets.dart' show Button;\n" +
+                          "import 'stub.dart' if (dart.library.io) 'io.dart' if (dart.library.html) 'web.dart';\n" +
+                          "part 'foo.g.dart';\n" +
+                          "part of 'other.dart';\n" +
+                          "// import 'commented.dart';\n";
+    assertEquals(List.of("dart:async", "package:app/src/model.dart", "src/widgets.dart", "stub.dart", "io.dart", "web.dart", "foo.g.dart"),
+                 DartImportGraph.parseUris(source));
+  }
+
+  @Test
+  public void resolvesUrisWithinThePubRoot() {
+    final DartImportGraph graph = new DartImportGraph("/app", "app");
+    assertEquals("/app/lib/src/model.dart", graph.resolve("/app/test/a_test.dart", "package:app/src/model.dart"));
+    assertEquals("/app/test/helpers.dart", graph.resolve("/app/test/a_test.dart", "helpers.dart"));
+    assertEquals("/app/lib/main.dart", graph.resolve("/app/test/a_test.dart", "../lib/main.dart"));
+    assertNull(graph.resolve("/app/test/a_test.dart", "package:flutter/material.dart"));
+    assertNull(graph.resolve("/app/test/a_test.dart", "dart:io"));
+    assertNull(graph.resolve("/app/test/a_test.dart", "../../outside.dart"));
+  }
+
+  @Test
+  public void findsTransitiveDependents() {
+    final DartImportGraph graph = new DartImportGraph("/app", "app");
+    graph.update("/app/lib/model.dart", "");
+    graph.update("/app/lib/widgets.dart", "import 'model.dart';");
+    graph.update("/app/lib/other.dart", "");
+    graph.update("/app/test/widgets_test.dart", "import 'package:app/widgets.dart';");
+    graph.update("/app/test/other_test.dart", "import 'package:app/other.dart';");
+
+    assertEquals(Set.of("/app/lib/model.dart", "/app/lib/widgets.dart", "/app/test/widgets_test.dart"),
+                 graph.findDependents(List.of("/app/lib/model.dart")));
+
+    // Edges are replaced when a file changes.
+    graph.update("/app/lib/widgets.dart", "import 'other.dart';");
+    assertEquals(Set.of("/app/lib/model.dart"), graph.findDependents(List.of("/app/lib/model.dart")));
+    assertEquals(Set.of("/app/lib/other.dart", "/app/lib/widgets.dart", "/app/test/widgets_test.dart", "/app/test/other_test.dart"),
+                 graph.findDependents(List.of("/app/lib/other.dart")));
+
+    graph.remove("/app/test/other_test.dart");
+    assertEquals(Set.of("/app/lib/other.dart", "/app/lib/widgets.dart", "/app/test/widgets_test.dart"),
+                 graph.findDependents(List.of("/app/lib/other.dart")));
+  }
+}
@@ -98,6 +98,22 @@ public class TestFieldsTest {
     assertEquals("test/dir", after.getTestDir());
   }
 
+  @Test
+  public void roundTripShouldPreserveFileSelection() {
+    final Element elt = new Element("test");
+    TestFields.forDir("test/dir").shards(4).affectedOnly(true).writeTo(elt);
+
+    final TestFields after = TestFields.readFrom(elt);
+    assertEquals(Scope.DIRECTORY, after.getScope());
+    assertEquals(4, after.getShards());
+    assertTrue(after.isAffectedOnly());
+
+    final Element unsharded = new Element("test");
+    TestFields.forDir("test/dir").writeTo(unsharded);
+    assertEquals(1, TestFields.readFrom(unsharded).getShards());
+    assertFalse(TestFields.readFrom(unsharded).isAffectedOnly());
+  }
+
   private void addOption(Element elt, String name, String value) {
     final Element child = new Element("option");
     child.setAttribute("name", name);
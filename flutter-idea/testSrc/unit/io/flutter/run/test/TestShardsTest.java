@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.run.test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestShardsTest {
+
+  @Test
+  public void partitionBalancesKnownDurations() {
+    final Map<String, Long> durations = Map.of("a_test.dart", 8000L, "b_test.dart", 5000L, "c_test.dart", 4000L, "d_test.dart", 3000L);
+    final List<List<String>> shards =
+      TestShards.partition(List.of("a_test.dart", "b_test.dart", "c_test.dart", "d_test.dart"), durations, 2);
+
+    assertEquals(List.of(List.of("a_test.dart", "d_test.dart"), List.of("b_test.dart", "c_test.dart")), shards);
+  }
+
+  @Test
+  public void partitionLeavesOutEmptyShards() {
+    final List<List<String>> shards = TestShards.partition(List.of("a_test.dart", "b_test.dart"), Map.of(), 4);
+    assertEquals(List.of(List.of("a_test.dart"), List.of("b_test.dart")), shards);
+  }
+
+  @Test
+  public void partitionAssumesMedianForUnknownFiles() {
+    final Map<String, Long> durations = Map.of("a_test.dart", 9000L, "b_test.dart", 1000L, "c_test.dart", 2000L);
+    final List<List<String>> shards =
+      TestShards.partition(List.of("a_test.dart", "b_test.dart", "c_test.dart", "new_test.dart"), durations, 2);
+
+    assertEquals(List.of(List.of("a_test.dart"), List.of("c_test.dart", "new_test.dart", "b_test.dart")), shards);
+  }
+
+  @Test
+  public void mergerRemapsIdsAndCombinesDoneEvents() {
+    final ShardedTestOutputMerger merger = new ShardedTestOutputMerger(2, "/app");
+
+    assertNotNull(merger.processLine(0, "{\"protocolVersion\":\"0.1.1\",\"type\":\"start\",\"time\":0}"));
+    assertNull(merger.processLine(1, "{\"protocolVersion\":\"0.1.1\",\"type\":\"start\",\"time\":0}"));
+
+    assertEquals(1, parse(merger.processLine(0, "{\"count\":1,\"type\":\"allSuites\",\"time\":1}")).get("count").getAsInt());
+    assertEquals(3, parse(merger.processLine(1, "{\"count\":2,\"type\":\"allSuites\",\"time\":1}")).get("count").getAsInt());
+
+    final JsonObject suite = parse(merger.processLine(1, "{\"suite\":{\"id\":0,\"path\":\"/app/test/b_test.dart\"},\"type\":\"suite\",\"time\":10}"));
+    assertEquals(1, suite.getAsJsonObject("suite").get("id").getAsInt());
+
+    final JsonObject group = parse(merger.processLine(1, "{\"group\":{\"id\":2,\"suiteID\":0,\"parentID\":null},\"type\":\"group\",\"time\":12}"));
+    assertEquals(5, group.getAsJsonObject("group").get("id").getAsInt());
+    assertEquals(1, group.getAsJsonObject("group").get("suiteID").getAsInt());
+
+    final JsonObject test =
+      parse(merger.processLine(1, "{\"test\":{\"id\":3,\"suiteID\":0,\"groupIDs\":[2]},\"type\":\"testStart\",\"time\":15}"));
+    assertEquals(7, test.getAsJsonObject("test").get("id").getAsInt());
+    assertEquals(5, test.getAsJsonObject("test").getAsJsonArray("groupIDs").get(0).getAsInt());
+
+    assertEquals(7, parse(merger.processLine(1, "{\"testID\":3,\"messageType\":\"print\",\"message\":\"hi\",\"type\":\"print\",\"time\":20}"))
+      .get("testID").getAsInt());
+    assertEquals(7, parse(merger.processLine(1, "{\"testID\":3,\"result\":\"success\",\"type\":\"testDone\",\"time\":110}"))
+      .get("testID").getAsInt());
+
+    assertEquals("Running tests...\n", merger.processLine(0, "Running tests...\n"));
+    assertNull(merger.processLine(0, "{\"success\":true,\"type\":\"done\",\"time\":200}"));
+    assertNull(merger.processLine(1, "{\"success\":false,\"type\":\"done\",\"time\":150}"));
+
+    final JsonObject done = parse(merger.createDoneEvent());
+    assertFalse(done.get("success").getAsBoolean());
+    assertEquals(200, done.get("time").getAsLong());
+
+    assertEquals(Map.of("test/b_test.dart", 100L), merger.getFileDurations());
+  }
+
+  private static JsonObject parse(String line) {
+    assertNotNull(line);
+    return JsonParser.parseString(line).getAsJsonObject();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.sdk;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FlutterPluginClassifierTest {
+  private final List<VirtualFile> parsed = new ArrayList<>();
+  private final FlutterPluginClassifier classifier = new FlutterPluginClassifier(pubspec -> {
+    parsed.add(pubspec);
+    return contentsOf(pubspec).contains("plugin:");
+  });
+
+  @Test
+  public void classifiesEachPubspecOnce() throws IOException {
+    final VirtualFile lib = libFolder("/cache/camera", 1, "flutter:\n  plugin:\n");
+    final VirtualFile otherLib = libFolder("/cache/path", 1, "name: path\n");
+
+    assertEquals("/cache/camera", classifier.getFlutterPluginPath("/cache/camera/lib", lib));
+    assertNull(classifier.getFlutterPluginPath("/cache/path/lib", otherLib));
+    assertEquals("/cache/camera", classifier.getFlutterPluginPath("/cache/camera/lib", lib));
+    assertNull(classifier.getFlutterPluginPath("/cache/path/lib", otherLib));
+    assertEquals(2, parsed.size());
+  }
+
+  @Test
+  public void sameContentsWithANewStampAreNotParsedAgain() throws IOException {
+    final VirtualFile lib = libFolder("/cache/camera", 1, "flutter:\n  plugin:\n");
+    classifier.getFlutterPluginPath("/cache/camera/lib", lib);
+
+    // Pub rewrote the file without changing it.
+    final VirtualFile rewritten = libFolder("/cache/camera", 2, "flutter:\n  plugin:\n");
+    assertEquals("/cache/camera", classifier.getFlutterPluginPath("/cache/camera/lib", rewritten));
+    assertEquals(1, parsed.size());
+  }
+
+  @Test
+  public void changedContentsAreParsedAgain() throws IOException {
+    classifier.getFlutterPluginPath("/app/lib", libFolder("/app", 1, "flutter:\n  plugin:\n"));
+
+    assertNull(classifier.getFlutterPluginPath("/app/lib", libFolder("/app", 2, "name: app\n")));
+    assertEquals(2, parsed.size());
+  }
+
+  @Test
+  public void missingPubspecsAreNotPlugins() throws IOException {
+    classifier.getFlutterPluginPath("/cache/camera/lib", libFolder("/cache/camera", 1, "flutter:\n  plugin:\n"));
+    assertEquals(1, classifier.size());
+
+    final VirtualFile packageDir = mock(VirtualFile.class);
+    final VirtualFile lib = mock(VirtualFile.class);
+    when(lib.getParent()).thenReturn(packageDir);
+    assertNull(classifier.getFlutterPluginPath("/cache/camera/lib", lib));
+    assertNull(classifier.getFlutterPluginPath("/cache/gone/lib", null));
+    assertEquals(0, classifier.size());
+  }
+
+  @Test
+  public void forgetsPackagesNoLongerUsed() throws IOException {
+    classifier.getFlutterPluginPath("/cache/camera/lib", libFolder("/cache/camera", 1, "flutter:\n  plugin:\n"));
+    classifier.getFlutterPluginPath("/cache/path/lib", libFolder("/cache/path", 1, "name: path\n"));
+
+    classifier.retainOnly(Set.of("/cache/path/lib"));
+    assertEquals(1, classifier.size());
+  }
+
+  private static VirtualFile libFolder(String packagePath, long stamp, String pubspecContents) throws IOException {
+    final VirtualFile pubspec = mock(VirtualFile.class);
+    when(pubspec.getModificationStamp()).thenReturn(stamp);
+    when(pubspec.contentsToByteArray(anyBoolean())).thenReturn(pubspecContents.getBytes(StandardCharsets.UTF_8));
+
+    final VirtualFile packageDir = mock(VirtualFile.class);
+    when(packageDir.getPath()).thenReturn(packagePath);
+    when(packageDir.findChild("pubspec.yaml")).thenReturn(pubspec);
+
+    final VirtualFile lib = mock(VirtualFile.class);
+    when(lib.getParent()).thenReturn(packageDir);
+    return lib;
+  }
+
+  private static String contentsOf(VirtualFile pubspec) {
+    try {
+      return new String(pubspec.contentsToByteArray(true), StandardCharsets.UTF_8);
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.test;
+
+import io.flutter.testing.Benchmark;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.flutter.test.RecordingTestEventsConverter.*;
+
+/**
+ * Replays the events of a test run through the converter and reports how long they take to convert and how many
+ * service messages they turn into.
+ * <pre>
+ * DartTestEventsConverterBenchmark [tests] [iterations]
+ * </pre>
+ * One test in a hundred prints and one in a thousand fails. The run is replayed once with a test count small enough
+ * for every test to be shown and once with a count large enough for passing tests to be collapsed.
+ */
+public class DartTestEventsConverterBenchmark {
+  public static void main(String[] args) throws Exception {
+    final int testCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    final List<String> events = recordRun(testCount);
+
+    final Benchmark.Result shown = Benchmark.measure(iterations, () -> replay(events, false, false));
+    final Benchmark.Result collapsed = Benchmark.measure(iterations, () -> replay(events, true, false));
+
+    Benchmark.report("tests", testCount);
+    Benchmark.report("events", events.size());
+    shown.report("shown", "Run", iterations);
+    Benchmark.report("shownMessagesPerRun", replay(events, false, true));
+    collapsed.report("collapsed", "Run", iterations);
+    Benchmark.report("collapsedMessagesPerRun", replay(events, true, true));
+  }
+
+  /**
+   * Returns the events of a run, with the root group's test count left to be filled in.
+   */
+  private static List<String> recordRun(int testCount) {
+    final List<String> events = new ArrayList<>();
+    events.add(start());
+    events.add(suite(0, "/project/test/large_test.dart"));
+    events.add(null);
+    for (int i = 0; i < testCount; i++) {
+      final int id = i + 2;
+      events.add(testStart(id, 0, 1, "large suite test " + i));
+      if (i % 100 == 0) {
+        events.add(print(id, "output of test " + i));
+      }
+      if (i % 1000 == 999) {
+        events.add(error(id, "Expected: true"));
+        events.add(testDone(id, "failure"));
+      }
+      else {
+        events.add(testDone(id, "success"));
+      }
+    }
+    events.add(done());
+    return events;
+  }
+
+  /**
+   * Returns the number of service messages produced.
+   */
+  private static int replay(List<String> events, boolean collapsed, boolean countMessages) throws ParseException {
+    final RecordingTestEventsConverter converter = new RecordingTestEventsConverter(countMessages);
+    final int declaredCount = collapsed ? DartTestEventsConverterZ.LARGE_SUITE_TEST_COUNT + 1 : 1;
+    for (String event : events) {
+      converter.send(event == null ? rootGroup(1, 0, declaredCount) : event);
+    }
+    return converter.messages.size();
+  }
+}
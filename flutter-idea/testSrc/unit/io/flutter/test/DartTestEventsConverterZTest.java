@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.test;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.List;
+
+import static io.flutter.test.RecordingTestEventsConverter.*;
+import static org.junit.Assert.*;
+
+public class DartTestEventsConverterZTest {
+  private static final int LARGE = DartTestEventsConverterZ.LARGE_SUITE_TEST_COUNT + 1;
+
+  @Test
+  public void reportsEveryTestInASmallSuite() throws ParseException {
+    final RecordingTestEventsConverter converter = startSuite(3);
+    converter.send(testStart(2, 0, 1, "passes"));
+    converter.send(testDone(2, "success"));
+    converter.send(done());
+
+    assertFalse(converter.isCollapsingPassedTests());
+    assertEquals(1, converter.messagesFor("testStarted", 2).size());
+    assertEquals(1, converter.messagesFor("testFinished", 2).size());
+  }
+
+  @Test
+  public void collapsesPassingTestsInALargeSuite() throws ParseException {
+    final RecordingTestEventsConverter converter = startSuite(LARGE);
+    assertTrue(converter.isCollapsingPassedTests());
+
+    converter.send(testStart(2, 0, 1, "passes"));
+    converter.send(testDone(2, "success"));
+    converter.send(testStart(3, 0, 1, "prints"));
+    converter.send(print(3, "hello"));
+    converter.send(testDone(3, "success"));
+    converter.send(testStart(4, 0, 1, "fails"));
+    converter.send(error(4, "boom"));
+    converter.send(testDone(4, "failure"));
+    converter.send(done());
+
+    assertTrue(converter.messagesFor("testStarted", 2).isEmpty());
+    assertEquals(1, converter.messagesFor("testStarted", 3).size());
+    assertEquals(1, converter.messagesFor("testStdOut", 3).size());
+    assertEquals(1, converter.messagesFor("testFinished", 3).size());
+    assertEquals(1, converter.messagesFor("testFailed", 4).size());
+    assertEquals(1, converter.messagesFor("testFinished", 4).size());
+
+    // The collapsed test is taken out of the expected count, so the progress completes.
+    final List<String> counts = converter.messagesOfType("testCount");
+    assertEquals(List.of("##teamcity[testCount count='" + LARGE + "']", "##teamcity[testCount count='-1']"), counts);
+    assertEquals(1, converter.messagesOfType("message").size());
+  }
+
+  @Test
+  public void reportsLateErrorsForCollapsedTests() throws ParseException {
+    final RecordingTestEventsConverter converter = startSuite(LARGE);
+    converter.send(testStart(2, 0, 1, "passes then fails"));
+    converter.send(testDone(2, "success"));
+    converter.send(testStart(3, 0, 1, "passes"));
+    converter.send(testDone(3, "success"));
+
+    converter.send(error(2, "late"));
+    assertEquals(1, converter.messagesFor("testStarted", 2).size());
+    assertEquals(1, converter.messagesFor("testFailed", 2).size());
+    assertEquals(1, converter.messagesFor("testFinished", 2).size());
+
+    // A second late error is added to the same node.
+    converter.send(error(2, "later"));
+    converter.send(print(2, "still running"));
+    assertEquals(1, converter.messagesFor("testStarted", 2).size());
+    assertEquals(1, converter.messagesFor("testFailed", 2).size());
+    assertEquals(1, converter.messagesFor("testFinished", 2).size());
+    assertEquals(1, converter.messagesFor("testStdOut", 2).size());
+
+    converter.send(done());
+    // Only the test that stayed hidden is taken out of the expected count.
+    assertEquals("##teamcity[testCount count='-1']", converter.messagesOfType("testCount").get(1));
+  }
+
+  @Test
+  public void correctsTheCountWhileTheSuiteRuns() throws ParseException {
+    final RecordingTestEventsConverter converter = startSuite(LARGE);
+    for (int id = 2; id < 252; id++) {
+      converter.send(testStart(id, 0, 1, "test " + id));
+      converter.send(testDone(id, "success"));
+    }
+    assertEquals(3, converter.messagesOfType("testCount").size());
+    assertEquals("##teamcity[testCount count='-100']", converter.messagesOfType("testCount").get(1));
+
+    converter.send(done());
+    assertEquals("##teamcity[testCount count='-50']", converter.messagesOfType("testCount").get(3));
+  }
+
+  @Test
+  public void ignoresEventsForUnknownTests() throws ParseException {
+    final RecordingTestEventsConverter converter = startSuite(LARGE);
+    final int before = converter.messages.size();
+    converter.send(error(99, "unknown"));
+    converter.send(print(99, "unknown"));
+    assertEquals(before, converter.messages.size());
+  }
+
+  private static RecordingTestEventsConverter startSuite(int testCount) throws ParseException {
+    final RecordingTestEventsConverter converter = new RecordingTestEventsConverter();
+    converter.send(start());
+    converter.send(suite(0, "/project/test/a_test.dart"));
+    converter.send(rootGroup(1, 0, testCount));
+    return converter;
+  }
+}
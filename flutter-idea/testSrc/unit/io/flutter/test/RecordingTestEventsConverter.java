@@ -0,0 +1,113 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.test;
+
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.execution.testframework.TestConsoleProperties;
+import com.jetbrains.lang.dart.util.DartUrlResolver;
+import org.jetbrains.annotations.NotNull;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * A converter that keeps the service messages it produces instead of passing them on, along with helpers
+ * that write the events package:test reports in its JSON format.
+ */
+class RecordingTestEventsConverter extends DartTestEventsConverterZ {
+  final List<String> messages = new ArrayList<>();
+  private final boolean keepMessages;
+
+  RecordingTestEventsConverter() {
+    this(true);
+  }
+
+  RecordingTestEventsConverter(boolean keepMessages) {
+    super("test", mock(TestConsoleProperties.class), mock(DartUrlResolver.class));
+    this.keepMessages = keepMessages;
+  }
+
+  void send(@NotNull String event) throws ParseException {
+    processServiceMessages(event, ProcessOutputTypes.STDOUT, null);
+  }
+
+  @Override
+  boolean doProcessServiceMessages(@NotNull String text) {
+    if (keepMessages) {
+      messages.add(text);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the messages of one type, such as testStarted, that are about a node.
+   */
+  @NotNull
+  List<String> messagesFor(@NotNull String type, int nodeId) {
+    final List<String> result = new ArrayList<>();
+    for (String message : messages) {
+      if (message.startsWith("##teamcity[" + type + " ") && message.contains(" nodeId='" + nodeId + "'")) {
+        result.add(message);
+      }
+    }
+    return result;
+  }
+
+  @NotNull
+  List<String> messagesOfType(@NotNull String type) {
+    final List<String> result = new ArrayList<>();
+    for (String message : messages) {
+      if (message.startsWith("##teamcity[" + type + " ")) {
+        result.add(message);
+      }
+    }
+    return result;
+  }
+
+  static String start() {
+    return "{\"protocolVersion\":\"0.1.1\",\"runnerVersion\":\"1.24.0\",\"pid\":1,\"type\":\"start\",\"time\":0}";
+  }
+
+  static String suite(int id, String path) {
+    return "{\"suite\":{\"id\":" + id + ",\"platform\":\"vm\",\"path\":\"" + path + "\"},\"type\":\"suite\",\"time\":0}";
+  }
+
+  /**
+   * The implicit group at the root of a suite.
+   */
+  static String rootGroup(int id, int suiteId, int testCount) {
+    return "{\"group\":{\"id\":" + id + ",\"suiteID\":" + suiteId + ",\"parentID\":null,\"name\":null," +
+           "\"metadata\":{\"skip\":false,\"skipReason\":null},\"testCount\":" + testCount + "," +
+           "\"line\":null,\"column\":null,\"url\":null},\"type\":\"group\",\"time\":0}";
+  }
+
+  static String testStart(int id, int suiteId, int groupId, String name) {
+    return "{\"test\":{\"id\":" + id + ",\"name\":\"" + name + "\",\"suiteID\":" + suiteId + ",\"groupIDs\":[" + groupId + "]," +
+           "\"metadata\":{\"skip\":false,\"skipReason\":null},\"line\":10,\"column\":3,\"url\":\"file:///project/test/a_test.dart\"}," +
+           "\"type\":\"testStart\",\"time\":" + id + "}";
+  }
+
+  static String testDone(int id, String result) {
+    return "{\"testID\":" + id + ",\"result\":\"" + result + "\",\"skipped\":false,\"hidden\":false,\"type\":\"testDone\",\"time\":" +
+           (id + 1) + "}";
+  }
+
+  static String error(int id, String message) {
+    return "{\"testID\":" + id + ",\"error\":\"" + message + "\",\"stackTrace\":\"package:a/a_test.dart 10:3\",\"isFailure\":true," +
+           "\"type\":\"error\",\"time\":" + (id + 1) + "}";
+  }
+
+  static String print(int id, String message) {
+    return "{\"testID\":" + id + ",\"messageType\":\"print\",\"message\":\"" + message + "\",\"type\":\"print\",\"time\":" + (id + 1) + "}";
+  }
+
+  static String done() {
+    return "{\"success\":true,\"type\":\"done\",\"time\":0}";
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.testing;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Timing and allocation counting for the benchmarks.
+ *
+ * <p>A benchmark is a class named {@code *Benchmark} with a main method, next to the tests of the code it measures.
+ * Benchmarks are compiled with the unit tests but aren't run by them; run one from the IDE, or with {@code java} and
+ * the test runtime classpath, passing the arguments its doc comment lists. Each measurement is warmed up with a tenth
+ * of its iterations first. Results are printed as "name: value" lines so that runs before and after a change can be
+ * compared; allocated bytes are only reported on JVMs that count them per thread.
+ */
+public class Benchmark {
+
+  private Benchmark() {
+  }
+
+  /**
+   * One iteration of a measured loop.
+   *
+   * <p>Returns a value derived from the work done, which is summed so that the JIT can't drop the work.
+   */
+  @FunctionalInterface
+  public interface Iteration {
+    double run() throws Exception;
+  }
+
+  /**
+   * The time and memory taken by a measured loop.
+   */
+  public static class Result {
+    /**
+     * The time taken by all iterations.
+     */
+    public final long nanos;
+
+    /**
+     * The bytes allocated by all iterations, or -1 if the JVM doesn't count them.
+     */
+    public final long allocatedBytes;
+
+    /**
+     * The sum of the values returned by the iterations.
+     */
+    public final double checksum;
+
+    Result(long nanos, long allocatedBytes, double checksum) {
+      this.nanos = nanos;
+      this.allocatedBytes = allocatedBytes;
+      this.checksum = checksum;
+    }
+
+    /**
+     * Prints the time, and the memory if it was counted, per operation.
+     *
+     * <p>For example, {@code report("table", "Response", count)} prints tableNanosPerResponse and
+     * tableBytesPerResponse.
+     */
+    public void report(@NotNull String name, @NotNull String operation, double operations) {
+      Benchmark.report(name + "NanosPer" + operation, nanos / operations);
+      if (allocatedBytes >= 0) {
+        Benchmark.report(name + "BytesPer" + operation, allocatedBytes / operations);
+      }
+    }
+  }
+
+  /**
+   * Runs the iteration a tenth of the given number of times to warm up, then the given number of times while
+   * measuring.
+   */
+  @NotNull
+  public static Result measure(int iterations, @NotNull Iteration iteration) throws Exception {
+    double checksum = 0;
+    for (int i = 0; i < iterations / 10 + 1; i++) {
+      checksum += iteration.run();
+    }
+
+    final long allocated = allocatedBytes();
+    final long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      checksum += iteration.run();
+    }
+    final long elapsed = System.nanoTime() - start;
+    final long bytes = allocated < 0 ? -1 : allocatedBytes() - allocated;
+    return new Result(elapsed, bytes, checksum);
+  }
+
+  /**
+   * Prints one result.
+   */
+  public static void report(@NotNull String name, Object value) {
+    System.out.println(name + ": " + value);
+  }
+
+  /**
+   * Returns the bytes allocated by this thread so far, or -1 if the JVM doesn't count them.
+   */
+  private static long allocatedBytes() {
+    final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+}
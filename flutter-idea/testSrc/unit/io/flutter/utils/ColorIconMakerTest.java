@@ -0,0 +1,65 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.utils;
+
+import org.junit.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("UseJBColor")
+public class ColorIconMakerTest {
+  @Test
+  public void reusesIconsForTheSameColor() {
+    final ColorIconMaker maker = new ColorIconMaker();
+    final Icon icon = maker.getCustomIcon(new Color(10, 20, 30));
+    assertSame(icon, maker.getCustomIcon(new Color(10, 20, 30)));
+    assertNotSame(icon, maker.getCustomIcon(new Color(10, 20, 31)));
+  }
+
+  @Test
+  public void forgetsTheLeastRecentlyUsedColors() {
+    final ColorIconMaker maker = new ColorIconMaker();
+    final Icon first = maker.getCustomIcon(new Color(0, 0, 0));
+    final Icon second = maker.getCustomIcon(new Color(0, 0, 1));
+    for (int i = 0; i < 1000; i++) {
+      // Keep using the first color so that it stays cached.
+      assertSame(first, maker.getCustomIcon(new Color(0, 0, 0)));
+      maker.getCustomIcon(new Color(1, i / 256, i % 256));
+    }
+    assertSame(first, maker.getCustomIcon(new Color(0, 0, 0)));
+    assertNotSame(second, maker.getCustomIcon(new Color(0, 0, 1)));
+  }
+
+  @Test
+  public void canBeUsedFromManyThreads() throws Exception {
+    final ColorIconMaker maker = new ColorIconMaker();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 5000; i++) {
+            assertNotNull(maker.getCustomIcon(new Color(i % 256, i % 7, 0)));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+}
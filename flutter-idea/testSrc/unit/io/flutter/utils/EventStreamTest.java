@@ -17,7 +17,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.TimerTask;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -113,6 +118,18 @@ public class EventStreamTest {
     checkLog("null", "200");
   }
 
+  @Test
+  public void uiThreadUpdatesAreCoalesced() throws Exception {
+    expectedEvents = 2;
+    SwingUtilities.invokeAndWait(() -> {
+      addLogValueListener(true);
+      eventStream.setValue(100);
+      eventStream.setValue(200);
+      eventStream.setValue(300);
+    });
+    checkLog("42", "300");
+  }
+
   @Test
   public void ignoreValuesAfterDispose() {
     expectedEvents = 5;
@@ -144,6 +161,77 @@ public class EventStreamTest {
     checkLog("42", "42", "100", "100", "200", "300");
   }
 
+  @Test
+  public void racingUpdatesEndWithTheLatestValue() throws Exception {
+    for (int round = 0; round < 1000; round++) {
+      final EventStream<Integer> stream = new EventStream<>(0);
+      final AtomicReference<Integer> lastDelivered = new AtomicReference<>();
+      stream.listen((Integer value) -> {
+        // Take longer for some values, so a delivery of an older value could finish last.
+        for (int i = 0; i < (value % 4) * 200; i++) {
+          Thread.onSpinWait();
+        }
+        lastDelivered.set(value);
+      }, false);
+
+      final CyclicBarrier start = new CyclicBarrier(4);
+      final List<Thread> threads = new ArrayList<>();
+      for (int i = 1; i <= 4; i++) {
+        final int value = i;
+        final Thread thread = new Thread(() -> {
+          try {
+            start.await();
+          }
+          catch (Exception e) {
+            return;
+          }
+          stream.setValue(value);
+        });
+        thread.start();
+        threads.add(thread);
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      assertThat(lastDelivered.get(), is(stream.getValue()));
+    }
+  }
+
+  @Test
+  public void slowSubscriberDoesNotBlockOtherUpdates() throws Exception {
+    final EventStream<Integer> stream = new EventStream<>(0);
+    final CountDownLatch inCallback = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<Integer> delivered = new CopyOnWriteArrayList<>();
+    stream.listen((Integer value) -> {
+      delivered.add(value);
+      if (value == 1) {
+        inCallback.countDown();
+        try {
+          release.await();
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }, false);
+
+    final CompletableFuture<Void> first = CompletableFuture.runAsync(() -> stream.setValue(1));
+    assertThat(inCallback.await(10, TimeUnit.SECONDS), is(true));
+
+    // The thread delivering 1 picks up the newer values once its callback returns.
+    CompletableFuture.runAsync(() -> {
+      stream.setValue(2);
+      stream.setValue(3);
+    }).get(10, TimeUnit.SECONDS);
+    assertThat(delivered, is(ImmutableList.of(0, 1)));
+
+    release.countDown();
+    first.get(10, TimeUnit.SECONDS);
+    assertThat(delivered, is(ImmutableList.of(0, 1, 3)));
+  }
+
   @Test
   public void eventsFromOtherThread() {
     expectedEvents = 6;
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.utils.math;
+
+import io.flutter.testing.Benchmark;
+
+/**
+ * Maps the corners of many widget boxes to screenshot coordinates, as the preview does when it highlights boxes, and
+ * reports the time and memory allocated per box.
+ * <pre>
+ * Matrix4Benchmark [boxes] [iterations]
+ * </pre>
+ * The comparison is the paint loop before transformRects, which built a matrix and a Vector3 for each corner of each
+ * box.
+ */
+public class Matrix4Benchmark {
+  public static void main(String[] args) throws Exception {
+    final int boxCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+    final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+    final Matrix4 screenshotTransform = Matrix4.identity();
+    screenshotTransform.translate(12.0, 40.0, 0.0);
+    screenshotTransform.scale(0.5, 0.5, 1.0);
+
+    // Boxes in a scrolled list, some of them rotated.
+    final Matrix4[] transforms = new Matrix4[boxCount];
+    final double[] rects = new double[boxCount * 4];
+    for (int i = 0; i < boxCount; i++) {
+      final Matrix4 transform = i % 7 == 0 ? Matrix4.rotationZ(0.1 * (i % 5)) : Matrix4.identity();
+      transform.translate(8.0 * (i % 10), 24.0 * i, 0.0);
+      transforms[i] = transform;
+      rects[i * 4] = i % 3;
+      rects[i * 4 + 1] = i % 5;
+      rects[i * 4 + 2] = 100.0 + i % 50;
+      rects[i * 4 + 3] = 20.0;
+    }
+
+    final Matrix4 scratch = Matrix4.identity();
+    final double[] corners = new double[8];
+    final double[] allCorners = new double[boxCount * 8];
+
+    final Benchmark.Result perBox = Benchmark.measure(iterations, () -> perBox(screenshotTransform, transforms, rects));
+    final Benchmark.Result reused =
+      Benchmark.measure(iterations, () -> reused(screenshotTransform, transforms, rects, scratch, corners));
+    final Benchmark.Result batched = Benchmark.measure(iterations, () -> batched(screenshotTransform, rects, allCorners));
+
+    final double boxes = (double)iterations * boxCount;
+    Benchmark.report("boxes", boxCount);
+    Benchmark.report("checksum", perBox.checksum + reused.checksum + batched.checksum);
+    perBox.report("perBox", "Box", boxes);
+    reused.report("transformRects", "Box", boxes);
+    batched.report("batchedTransformRects", "Box", boxes);
+  }
+
+  /**
+   * A new matrix for each box and a new Vector3 for each corner, as the paint loop did.
+   */
+  private static double perBox(Matrix4 screenshotTransform, Matrix4[] transforms, double[] rects) {
+    double sum = 0;
+    for (int i = 0; i < transforms.length; i++) {
+      final Matrix4 matrix = screenshotTransform.clone();
+      matrix.multiply(transforms[i]);
+      final double left = rects[i * 4];
+      final double top = rects[i * 4 + 1];
+      final double right = left + rects[i * 4 + 2];
+      final double bottom = top + rects[i * 4 + 3];
+      final Vector3[] points = new Vector3[]{
+        matrix.perspectiveTransform(new Vector3(new double[]{left, top, 0})),
+        matrix.perspectiveTransform(new Vector3(new double[]{right, top, 0})),
+        matrix.perspectiveTransform(new Vector3(new double[]{right, bottom, 0})),
+        matrix.perspectiveTransform(new Vector3(new double[]{left, bottom, 0}))
+      };
+      for (Vector3 point : points) {
+        sum += point.getX() + point.getY();
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * One scratch matrix and one corner array reused for every box, as the paint loop does now.
+   */
+  private static double reused(Matrix4 screenshotTransform, Matrix4[] transforms, double[] rects, Matrix4 scratch, double[] corners) {
+    double sum = 0;
+    for (int i = 0; i < transforms.length; i++) {
+      screenshotTransform.operatorMultiply(transforms[i], scratch).transformRects(rects, i * 4, corners, 0, 1);
+      for (double corner : corners) {
+        sum += corner;
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Every box mapped by one call, for boxes that share a transform.
+   */
+  private static double batched(Matrix4 transform, double[] rects, double[] corners) {
+    transform.transformRects(rects, corners);
+    double sum = 0;
+    for (double corner : corners) {
+      sum += corner;
+    }
+    return sum;
+  }
+}
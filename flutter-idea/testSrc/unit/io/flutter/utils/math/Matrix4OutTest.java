@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.utils.math;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the variants of {@link Matrix4} operations that write into an out parameter match the ones that allocate.
+ */
+public class Matrix4OutTest {
+  private static final double errorThreshold = 0.0005;
+
+  @Test()
+  public void testOperatorsWithOut() {
+    final Matrix4 a = testMatrix();
+    final Matrix4 b = Matrix4.rotationZ(0.7);
+    b.translate(3.0, -2.0, 1.0);
+
+    final Matrix4 out = Matrix4.zero();
+    assertSame(out, a.multiplied(b, out));
+    assertMatrixEquals(out, a.multiplied(b));
+    assertSame(out, a.operatorMultiply(b, out));
+    assertMatrixEquals(out, a.operatorMultiply(b));
+    assertSame(out, a.operatorAdd(b, out));
+    assertMatrixEquals(out, a.operatorAdd(b));
+    assertSame(out, a.operatorSub(b, out));
+    assertMatrixEquals(out, a.operatorSub(b));
+    assertSame(out, a.operatorNegate(out));
+    assertMatrixEquals(out, a.operatorNegate());
+    assertSame(out, a.scaled(2.0, 3.0, 4.0, out));
+    assertMatrixEquals(out, a.scaled(2.0, 3.0, 4.0));
+    assertSame(out, a.transposed(out));
+    assertMatrixEquals(out, a.transposed());
+    assertSame(out, a.absolute(out));
+    assertMatrixEquals(out, a.absolute());
+  }
+
+  @Test()
+  public void testScaledAndRowsWithOut() {
+    final Matrix4 a = testMatrix();
+    final Matrix4 out = Matrix4.zero();
+    assertSame(out, a.operatorMultiply(2.0, out));
+    assertMatrixEquals(out, a.operatorMultiply(2.0));
+    assertSame(out, a.scaled(2.0, out));
+    assertMatrixEquals(out, a.scaled(2.0));
+    assertSame(out, a.scaled(2.0, 3.0, out));
+    assertMatrixEquals(out, a.scaled(2.0, 3.0));
+
+    final Vector4 v = new Vector4();
+    for (int i = 0; i < 4; i++) {
+      assertSame(v, a.getRow(i, v));
+      assertEquals(a.getRow(i), v);
+      assertSame(v, a.getColumn(i, v));
+      assertEquals(a.getColumn(i), v);
+    }
+  }
+
+  @Test()
+  public void testOperatorsWithAliasedOut() {
+    final Matrix4 b = Matrix4.rotationZ(0.7);
+    b.translate(3.0, -2.0, 1.0);
+    final Matrix4 expected = testMatrix().multiplied(b);
+
+    Matrix4 a = testMatrix();
+    assertMatrixEquals(a.multiplied(b, a), expected);
+    assertMatrixEquals(a, expected);
+
+    a = testMatrix();
+    final Matrix4 c = b.clone();
+    assertMatrixEquals(a.multiplied(c, c), expected);
+
+    a = testMatrix();
+    assertMatrixEquals(a.operatorMultiply(b, a), expected);
+
+    a = testMatrix();
+    assertMatrixEquals(a.transposed(a), testMatrix().transposed());
+    a = testMatrix();
+    assertMatrixEquals(a.operatorSub(a, a), Matrix4.zero());
+  }
+
+  @Test()
+  public void testTransformRects() {
+    final Matrix4 m = testMatrix();
+    final double[] rects = new double[]{
+      1.0, 2.0, 10.0, 20.0,
+      -5.0, 0.5, 3.0, 0.25
+    };
+    final double[] corners = new double[16];
+    m.transformRects(rects, corners);
+    for (int r = 0; r < 2; r++) {
+      final double left = rects[r * 4];
+      final double top = rects[r * 4 + 1];
+      final double right = left + rects[r * 4 + 2];
+      final double bottom = top + rects[r * 4 + 3];
+      final double[][] expected = new double[][]{{left, top}, {right, top}, {right, bottom}, {left, bottom}};
+      for (int c = 0; c < 4; c++) {
+        final Vector3 point = m.perspectiveTransform(new Vector3(expected[c][0], expected[c][1], 0));
+        assertEquals(point.getX(), corners[r * 8 + c * 2], errorThreshold);
+        assertEquals(point.getY(), corners[r * 8 + c * 2 + 1], errorThreshold);
+      }
+    }
+
+    // Offsets select which rects are read and where the corners are written.
+    final double[] offsetCorners = new double[10];
+    m.transformRects(rects, 4, offsetCorners, 2, 1);
+    for (int i = 0; i < 8; i++) {
+      assertEquals(corners[8 + i], offsetCorners[2 + i], errorThreshold);
+    }
+  }
+
+  private static Matrix4 testMatrix() {
+    return new Matrix4(new double[]{
+      1.5, 0.25, -0.5, 0.001,
+      -0.75, 2.0, 0.125, 0.002,
+      0.3, -0.2, 1.0, 0.0,
+      12.0, -7.0, 3.0, 1.0
+    });
+  }
+
+  private static void assertMatrixEquals(Matrix4 output, Matrix4 expected) {
+    for (int i = 0; i < 16; i++) {
+      assertEquals(expected.get(i), output.get(i), errorThreshold);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.utils.math;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the variants of {@link Vector3} operations that write into an out parameter match the ones that allocate.
+ */
+public class Vector3OutTest {
+  private final Vector3 a = new Vector3(1.5, -2.0, 4.0);
+  private final Vector3 b = new Vector3(0.5, 3.0, -1.0);
+
+  @Test
+  public void operatorsWithOut() {
+    final Vector3 out = Vector3.zero();
+    assertSame(out, a.operatorNegate(out));
+    assertEquals(new Vector3(-1.5, 2.0, -4.0), out);
+    assertSame(out, a.operatorAdd(b, out));
+    assertEquals(new Vector3(2.0, 1.0, 3.0), out);
+    assertSame(out, a.operatorSub(b, out));
+    assertEquals(new Vector3(1.0, -5.0, 5.0), out);
+    assertSame(out, a.operatorScaled(2.0, out));
+    assertEquals(new Vector3(3.0, -4.0, 8.0), out);
+    assertSame(out, a.operatorDiv(2.0, out));
+    assertEquals(new Vector3(0.75, -1.0, 2.0), out);
+    assertSame(out, a.scaled(-1.0, out));
+    assertEquals(a.scaled(-1.0), out);
+
+    // The variants without out return the same values in a new vector.
+    assertEquals(new Vector3(2.0, 1.0, 3.0), a.operatorAdd(b));
+    assertEquals(new Vector3(0.75, -1.0, 2.0), a.operatorDiv(2.0));
+    assertEquals(new Vector3(3.0, -4.0, 8.0), a.operatorScaled(2.0));
+    assertEquals(new Vector3(1.5, -2.0, 4.0), a);
+  }
+
+  @Test
+  public void operatorsWithAliasedOut() {
+    final Vector3 c = a.clone();
+    assertSame(c, c.operatorSub(c, c));
+    assertEquals(Vector3.zero(), c);
+
+    final Vector3 d = b.clone();
+    assertSame(d, a.operatorAdd(d, d));
+    assertEquals(new Vector3(2.0, 1.0, 3.0), d);
+  }
+
+  @Test
+  public void reflect() {
+    final Vector3 v = new Vector3(1.0, -1.0, 0.0);
+    assertSame(v, v.reflect(new Vector3(0.0, 1.0, 0.0)));
+    assertEquals(new Vector3(1.0, 1.0, 0.0), v);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.view;
+
+import io.flutter.inspector.DiagnosticsNode;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DiagnosticsNodeRenderSpecTest {
+  private final DiagnosticsNode node = mock(DiagnosticsNode.class);
+
+  @Test
+  public void valueShownInIsCheckedAgainOnlyWhenTheTreeChanges() {
+    final InspectorPanel linked = mock(InspectorPanel.class);
+    when(linked.getValueToTreeNodeGeneration()).thenReturn(1);
+    when(linked.hasDiagnosticsValue(any())).thenReturn(true);
+
+    final DiagnosticsNodeRenderSpec spec = new DiagnosticsNodeRenderSpec(false, true);
+    assertTrue(spec.isValueShownIn(linked, node));
+
+    // The answer is kept while the linked tree is unchanged.
+    when(linked.hasDiagnosticsValue(any())).thenReturn(false);
+    assertTrue(spec.isValueShownIn(linked, node));
+    verify(linked, times(1)).hasDiagnosticsValue(any());
+
+    when(linked.getValueToTreeNodeGeneration()).thenReturn(2);
+    assertFalse(spec.isValueShownIn(linked, node));
+    verify(linked, times(2)).hasDiagnosticsValue(any());
+  }
+
+  @Test
+  public void valueShownInIsCheckedAgainForAnotherPanel() {
+    final InspectorPanel first = mock(InspectorPanel.class);
+    final InspectorPanel second = mock(InspectorPanel.class);
+    when(first.hasDiagnosticsValue(any())).thenReturn(true);
+
+    final DiagnosticsNodeRenderSpec spec = new DiagnosticsNodeRenderSpec(false, true);
+    assertTrue(spec.isValueShownIn(first, node));
+    assertFalse(spec.isValueShownIn(second, node));
+  }
+
+  @Test
+  public void specsFromOtherSettingsAreNotCurrent() {
+    // A mocked panel is not a details subtree.
+    final InspectorPanel panel = mock(InspectorPanel.class);
+    when(panel.isHighlightNodesShownInBothTrees()).thenReturn(true);
+
+    assertTrue(new DiagnosticsNodeRenderSpec(false, true).isCurrent(panel));
+    assertFalse(new DiagnosticsNodeRenderSpec(false, false).isCurrent(panel));
+    assertFalse(new DiagnosticsNodeRenderSpec(true, true).isCurrent(panel));
+
+    when(panel.isHighlightNodesShownInBothTrees()).thenReturn(false);
+    assertTrue(new DiagnosticsNodeRenderSpec(false, false).isCurrent(panel));
+  }
+}
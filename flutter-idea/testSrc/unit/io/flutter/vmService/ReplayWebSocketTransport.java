@@ -0,0 +1,196 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.dartlang.vm.service.internal.RecordingWebSocketTransport;
+import org.dartlang.vm.service.internal.WebSocketTransport;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A stand-in for a VM that answers requests from a session recorded by
+ * {@link RecordingWebSocketTransport}.
+ * <p>
+ * Each request is answered with the response recorded for the next unused request of the same
+ * method, followed by the stream events the VM sent before its next response. Recorded ids are
+ * replaced with the ids of the replayed requests. Messages are delivered on a separate thread, as
+ * a real connection would.
+ */
+public class ReplayWebSocketTransport implements WebSocketTransport {
+  private static class Exchange {
+    final long requestTime;
+    @Nullable JsonObject response;
+    long responseTime;
+    final List<Message> followingMessages = new ArrayList<>();
+
+    Exchange(long requestTime) {
+      this.requestTime = requestTime;
+    }
+  }
+
+  private static class Message {
+    final long time;
+    @NotNull final String text;
+
+    Message(long time, @NotNull String text) {
+      this.time = time;
+      this.text = text;
+    }
+  }
+
+  private final Map<String, Deque<Exchange>> exchangesByMethod = new HashMap<>();
+  private final List<Message> initialMessages = new ArrayList<>();
+  private final boolean preserveTiming;
+  private final ExecutorService deliveryThread = Executors.newSingleThreadExecutor();
+
+  private Listener listener;
+
+  /**
+   * @param preserveTiming whether to wait between messages as long as the VM did when recording,
+   *                       rather than replaying as fast as possible
+   */
+  public ReplayWebSocketTransport(@NotNull List<String> recording, boolean preserveTiming) {
+    this.preserveTiming = preserveTiming;
+
+    final Map<String, Exchange> exchangesById = new HashMap<>();
+    Exchange lastAnswered = null;
+    for (String line : recording) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      final String[] parts = line.split(" ", 3);
+      final long time = Long.parseLong(parts[0]);
+      final char direction = parts[1].charAt(0);
+      final JsonObject json = JsonParser.parseString(parts[2]).getAsJsonObject();
+
+      if (direction == RecordingWebSocketTransport.SENT) {
+        if (json.has("method") && json.has("id")) {
+          final Exchange exchange = new Exchange(time);
+          exchangesById.put(json.get("id").getAsString(), exchange);
+          exchangesByMethod.computeIfAbsent(json.get("method").getAsString(), (key) -> new ArrayDeque<>()).add(exchange);
+        }
+        // Replies to requests made by the VM are regenerated by the client.
+        continue;
+      }
+
+      final Exchange exchange = !json.has("method") && json.has("id") ? exchangesById.get(json.get("id").getAsString()) : null;
+      if (exchange != null) {
+        exchange.response = json;
+        exchange.responseTime = time;
+        lastAnswered = exchange;
+      }
+      else {
+        (lastAnswered == null ? initialMessages : lastAnswered.followingMessages).add(new Message(time, parts[2]));
+      }
+    }
+  }
+
+  @NotNull
+  public static List<String> readRecording(@NotNull Path file) throws IOException {
+    InputStream stream = Files.newInputStream(file);
+    if (file.getFileName().toString().endsWith(".gz")) {
+      stream = new GZIPInputStream(stream);
+    }
+    final List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  @Override
+  public void connect(URI uri, Listener listener) {
+    this.listener = listener;
+    deliveryThread.execute(() -> {
+      listener.onOpen();
+      deliver(0, initialMessages);
+    });
+  }
+
+  @Override
+  public void send(String text) {
+    final JsonObject request = JsonParser.parseString(text).getAsJsonObject();
+    if (!request.has("method") || !request.has("id")) {
+      return;
+    }
+    final String id = request.get("id").getAsString();
+    final Deque<Exchange> exchanges = exchangesByMethod.get(request.get("method").getAsString());
+    final Exchange exchange = exchanges == null ? null : exchanges.poll();
+
+    deliveryThread.execute(() -> {
+      if (exchange == null || exchange.response == null) {
+        listener.onMessage("{\"jsonrpc\":\"2.0\",\"id\":\"" + id + "\",\"error\":{\"code\":-32601,\"message\":\"Not in recording\"}}");
+        return;
+      }
+      sleep(exchange.responseTime - exchange.requestTime);
+      final JsonObject response = exchange.response.deepCopy();
+      response.addProperty("id", id);
+      listener.onMessage(response.toString());
+      deliver(exchange.responseTime, exchange.followingMessages);
+    });
+  }
+
+  private void deliver(long since, @NotNull List<Message> messages) {
+    long last = since;
+    for (Message message : messages) {
+      sleep(message.time - last);
+      last = message.time;
+      listener.onMessage(message.text);
+    }
+  }
+
+  private void sleep(long millis) {
+    if (!preserveTiming || millis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(millis);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    deliveryThread.execute(() -> listener.onClose());
+    deliveryThread.shutdown();
+  }
+
+  /**
+   * Waits until all messages queued so far have been delivered.
+   */
+  public void awaitDelivery() throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(1);
+    deliveryThread.execute(latch::countDown);
+    latch.await(10, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.consumer.ServiceExtensionConsumer;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.internal.RecordingWebSocketTransport;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded VM service session through the client stack and reports request throughput
+ * and latency.
+ * <p>
+ * Record a session by running the IDE with {@code -Dvm.service.record.dir=<dir>}, then run
+ * <pre>
+ * VmServiceReplayBenchmark &lt;recording&gt; [iterations] [baseline.properties]
+ * </pre>
+ * If the baseline file exists the results are compared against it, otherwise they are saved to it.
+ */
+public class VmServiceReplayBenchmark {
+  public static void main(String[] args) throws Exception {
+    final Path recordingFile = Paths.get(args.length > 0 ? args[0] : VmServiceReplayTest.INSPECTOR_SESSION);
+    final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    final Path baselineFile = args.length > 2 ? Paths.get(args[2]) : null;
+
+    final List<String> recording = ReplayWebSocketTransport.readRecording(recordingFile);
+    final List<JsonObject> requests = getRecordedRequests(recording);
+
+    // Warm up before measuring.
+    run(recording, requests, Math.max(1, iterations / 10));
+
+    final long start = System.nanoTime();
+    final long[] latencies = run(recording, requests, iterations);
+    final long elapsed = System.nanoTime() - start;
+
+    Arrays.sort(latencies);
+    final Properties results = new Properties();
+    results.setProperty("requestsPerSecond", Long.toString(latencies.length * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed)));
+    results.setProperty("p50Micros", Long.toString(TimeUnit.NANOSECONDS.toMicros(percentile(latencies, 0.5))));
+    results.setProperty("p99Micros", Long.toString(TimeUnit.NANOSECONDS.toMicros(percentile(latencies, 0.99))));
+    results.setProperty("maxMicros", Long.toString(TimeUnit.NANOSECONDS.toMicros(percentile(latencies, 1.0))));
+
+    for (String name : results.stringPropertyNames()) {
+      System.out.println(name + ": " + results.getProperty(name));
+    }
+
+    if (baselineFile == null) {
+      return;
+    }
+    if (Files.exists(baselineFile)) {
+      final Properties baseline = new Properties();
+      try (Reader reader = Files.newBufferedReader(baselineFile)) {
+        baseline.load(reader);
+      }
+      for (String name : results.stringPropertyNames()) {
+        final String previous = baseline.getProperty(name);
+        if (previous != null) {
+          final long before = Long.parseLong(previous);
+          final long after = Long.parseLong(results.getProperty(name));
+          System.out.println(name + ": " + before + " -> " + after + " (" + (before == 0 ? "n/a" : (after - before) * 100 / before + "%") + ")");
+        }
+      }
+    }
+    else {
+      try (Writer writer = Files.newBufferedWriter(baselineFile)) {
+        results.store(writer, "VM service replay baseline for " + recordingFile.getFileName());
+      }
+    }
+  }
+
+  /**
+   * Returns the requests the client made in the recording, other than the version check done while
+   * connecting.
+   */
+  @NotNull
+  private static List<JsonObject> getRecordedRequests(@NotNull List<String> recording) {
+    final List<JsonObject> requests = new ArrayList<>();
+    for (String line : recording) {
+      final String[] parts = line.split(" ", 3);
+      if (parts.length < 3 || parts[1].charAt(0) != RecordingWebSocketTransport.SENT) {
+        continue;
+      }
+      final JsonObject json = JsonParser.parseString(parts[2]).getAsJsonObject();
+      if (json.has("method") && json.has("id") && !"getVersion".equals(json.get("method").getAsString())) {
+        requests.add(json);
+      }
+    }
+    return requests;
+  }
+
+  /**
+   * Replays the session {@code iterations} times and returns the latency of every request.
+   */
+  private static long[] run(@NotNull List<String> recording, @NotNull List<JsonObject> requests, int iterations)
+    throws IOException, InterruptedException {
+    final long[] latencies = new long[requests.size() * iterations];
+    int index = 0;
+    for (int i = 0; i < iterations; i++) {
+      final VmService vmService = VmService.connect("ws://localhost:0/ws", new ReplayWebSocketTransport(recording, false));
+      final CountDownLatch done = new CountDownLatch(requests.size());
+      for (JsonObject request : requests) {
+        final JsonObject params = request.has("params") ? request.getAsJsonObject("params").deepCopy() : new JsonObject();
+        final String isolateId = params.has("isolateId") ? params.get("isolateId").getAsString() : null;
+        final int slot = index++;
+        final long start = System.nanoTime();
+        // Any method can be called this way; the replayed response is delivered as raw JSON.
+        vmService.callServiceExtension(isolateId, request.get("method").getAsString(), params, new ServiceExtensionConsumer() {
+          @Override
+          public void received(JsonObject result) {
+            latencies[slot] = System.nanoTime() - start;
+            done.countDown();
+          }
+
+          @Override
+          public void onError(RPCError error) {
+            latencies[slot] = System.nanoTime() - start;
+            done.countDown();
+          }
+        });
+      }
+      if (!done.await(30, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Replay did not complete");
+      }
+      vmService.disconnect();
+    }
+    return latencies;
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    return sorted[Math.min(sorted.length - 1, (int)(fraction * sorted.length))];
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package io.flutter.vmService;
+
+import com.google.gson.JsonObject;
+import io.flutter.utils.VmServiceListenerAdapter;
+import org.dartlang.vm.service.VmService;
+import org.dartlang.vm.service.consumer.ServiceExtensionConsumer;
+import org.dartlang.vm.service.consumer.SuccessConsumer;
+import org.dartlang.vm.service.consumer.VMConsumer;
+import org.dartlang.vm.service.element.Event;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.element.Success;
+import org.dartlang.vm.service.element.VM;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class VmServiceReplayTest {
+  static final String INSPECTOR_SESSION = "testData/vm_service/inspector_session.txt";
+
+  private ReplayWebSocketTransport transport;
+  private VmService vmService;
+
+  @Before
+  public void setUp() throws IOException {
+    transport = new ReplayWebSocketTransport(ReplayWebSocketTransport.readRecording(Paths.get(INSPECTOR_SESSION)), false);
+    vmService = VmService.connect("ws://localhost:0/ws", transport);
+  }
+
+  @After
+  public void tearDown() {
+    vmService.disconnect();
+  }
+
+  @Test
+  public void replaysResponsesAndEvents() throws Exception {
+    assertEquals(3, vmService.getRuntimeVersion().getMajor());
+
+    final List<String> frames = new ArrayList<>();
+    vmService.addVmServiceListener(new VmServiceListenerAdapter() {
+      @Override
+      public void received(String streamId, Event event) {
+        frames.add(event.getExtensionKind());
+      }
+    });
+
+    final CompletableFuture<Boolean> listening = new CompletableFuture<>();
+    vmService.streamListen(VmService.EXTENSION_STREAM_ID, new SuccessConsumer() {
+      @Override
+      public void received(Success response) {
+        listening.complete(true);
+      }
+
+      @Override
+      public void onError(RPCError error) {
+        listening.completeExceptionally(new RuntimeException(error.getMessage()));
+      }
+    });
+    assertTrue(listening.get(10, TimeUnit.SECONDS));
+
+    final CompletableFuture<VM> vm = new CompletableFuture<>();
+    vmService.getVM(new VMConsumer() {
+      @Override
+      public void received(VM response) {
+        vm.complete(response);
+      }
+
+      @Override
+      public void onError(RPCError error) {
+        vm.completeExceptionally(new RuntimeException(error.getMessage()));
+      }
+    });
+    assertEquals("isolates/1", vm.get(10, TimeUnit.SECONDS).getIsolates().get(0).getId());
+
+    transport.awaitDelivery();
+    assertEquals(List.of("Flutter.Frame", "Flutter.Frame"), frames);
+  }
+
+  @Test
+  public void unrecordedRequestsFail() throws Exception {
+    final CompletableFuture<Integer> errorCode = new CompletableFuture<>();
+    vmService.callServiceExtension("isolates/1", "ext.flutter.unknown", new ServiceExtensionConsumer() {
+      @Override
+      public void received(JsonObject result) {
+        errorCode.complete(0);
+      }
+
+      @Override
+      public void onError(RPCError error) {
+        errorCode.complete(error.getCode());
+      }
+    });
+    assertEquals(-32601, (int)errorCode.get(10, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import io.flutter.testing.Benchmark;
+import org.dartlang.vm.service.consumer.Consumer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatches every response type that VmService registers to a consumer of each consumer interface, and reports the
+ * cost per response.
+ * <pre>
+ * ResponseDispatcherBenchmark [iterations]
+ * </pre>
+ * The comparison tests the consumer against each interface in registration order, as the generated chain of
+ * {@code instanceof} checks did before responses went through the lookup table. The first round through a new
+ * dispatcher, which merges the handlers of each consumer class, is reported separately.
+ */
+public class ResponseDispatcherBenchmark {
+  public static void main(String[] args) throws Exception {
+    final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+    final Field dispatcherField = VmService.class.getDeclaredField("responseDispatcher");
+    dispatcherField.setAccessible(true);
+    final ResponseDispatcher dispatcher = (ResponseDispatcher)dispatcherField.get(null);
+    final Map<Class<? extends Consumer>, Map<String, ResponseDispatcher.Handler>> interfaceHandlers = dispatcher.getInterfaceHandlers();
+
+    // One consumer of each interface, paired with each response type it accepts.
+    final List<Consumer> consumers = new ArrayList<>();
+    final List<String> types = new ArrayList<>();
+    final List<JsonObject> responses = new ArrayList<>();
+    for (Map.Entry<Class<? extends Consumer>, Map<String, ResponseDispatcher.Handler>> entry : interfaceHandlers.entrySet()) {
+      final Consumer consumer = (Consumer)Proxy.newProxyInstance(
+        ResponseDispatcherBenchmark.class.getClassLoader(), new Class<?>[]{entry.getKey()}, (proxy, method, methodArgs) -> null);
+      for (String type : entry.getValue().keySet()) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("type", type);
+        consumers.add(consumer);
+        types.add(type);
+        responses.add(json);
+      }
+    }
+
+    final long start = System.nanoTime();
+    final ResponseDispatcher cold = new ResponseDispatcher();
+    for (Map.Entry<Class<? extends Consumer>, Map<String, ResponseDispatcher.Handler>> entry : interfaceHandlers.entrySet()) {
+      for (Map.Entry<String, ResponseDispatcher.Handler> handler : entry.getValue().entrySet()) {
+        cold.register(entry.getKey(), handler.getKey(), handler.getValue());
+      }
+    }
+    int dispatched = 0;
+    for (int i = 0; i < consumers.size(); i++) {
+      if (cold.dispatch(consumers.get(i), types.get(i), responses.get(i))) dispatched++;
+    }
+    final long coldNanos = System.nanoTime() - start;
+
+    final Benchmark.Result table = Benchmark.measure(iterations, () -> table(dispatcher, consumers, types, responses));
+    final Benchmark.Result scan = Benchmark.measure(iterations, () -> scan(interfaceHandlers, consumers, types, responses));
+
+    Benchmark.report("interfaces", interfaceHandlers.size());
+    Benchmark.report("responseTypes", consumers.size());
+    Benchmark.report("dispatched", dispatched + table.checksum + scan.checksum);
+    Benchmark.report("firstRoundMicros", TimeUnit.NANOSECONDS.toMicros(coldNanos));
+    final double responseCount = (double)iterations * consumers.size();
+    table.report("table", "Response", responseCount);
+    scan.report("scan", "Response", responseCount);
+  }
+
+  private static int table(ResponseDispatcher dispatcher, List<Consumer> consumers, List<String> types, List<JsonObject> responses) {
+    int dispatched = 0;
+    for (int i = 0; i < consumers.size(); i++) {
+      if (dispatcher.dispatch(consumers.get(i), types.get(i), responses.get(i))) dispatched++;
+    }
+    return dispatched;
+  }
+
+  private static int scan(Map<Class<? extends Consumer>, Map<String, ResponseDispatcher.Handler>> interfaceHandlers,
+                          List<Consumer> consumers,
+                          List<String> types,
+                          List<JsonObject> responses) {
+    int dispatched = 0;
+    for (int i = 0; i < consumers.size(); i++) {
+      final Consumer consumer = consumers.get(i);
+      for (Map.Entry<Class<? extends Consumer>, Map<String, ResponseDispatcher.Handler>> entry : interfaceHandlers.entrySet()) {
+        if (entry.getKey().isInstance(consumer)) {
+          final ResponseDispatcher.Handler handler = entry.getValue().get(types.get(i));
+          if (handler != null) {
+            handler.handle(consumer, responses.get(i));
+            dispatched++;
+            break;
+          }
+        }
+      }
+    }
+    return dispatched;
+  }
+}
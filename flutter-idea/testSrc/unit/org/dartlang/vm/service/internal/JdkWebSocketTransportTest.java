@@ -0,0 +1,305 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package org.dartlang.vm.service.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Connects the transport to a minimal WebSocket server running in the test.
+ */
+public class JdkWebSocketTransportTest {
+  private static final int OPCODE_CONTINUATION = 0x0;
+  private static final int OPCODE_TEXT = 0x1;
+  private static final int OPCODE_CLOSE = 0x8;
+
+  private StandInServer server;
+  private final RecordingListener listener = new RecordingListener();
+
+  @Before
+  public void setUp() throws IOException {
+    server = new StandInServer();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.close();
+  }
+
+  private JdkWebSocketTransport connect(int maxMessageLength, Duration closeTimeout) throws Exception {
+    final JdkWebSocketTransport transport = new JdkWebSocketTransport(Duration.ofSeconds(10), maxMessageLength, closeTimeout);
+    final CompletableFuture<Void> accepted = CompletableFuture.runAsync(() -> {
+      try {
+        server.accept();
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    transport.connect(server.getUri(), listener);
+    accepted.get(10, TimeUnit.SECONDS);
+    return transport;
+  }
+
+  @Test
+  public void joinsFragmentedMessages() throws Exception {
+    connect(1024, Duration.ofSeconds(5));
+    server.sendFrame(false, OPCODE_TEXT, "{\"id\":");
+    server.sendFrame(false, OPCODE_CONTINUATION, "\"1\",");
+    server.sendFrame(true, OPCODE_CONTINUATION, "\"result\":{}}");
+    server.sendFrame(true, OPCODE_TEXT, "next");
+
+    assertEquals("{\"id\":\"1\",\"result\":{}}", listener.messages.poll(10, TimeUnit.SECONDS));
+    assertEquals("next", listener.messages.poll(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void dropsTheConnectionWhenAMessageIsTooLarge() throws Exception {
+    connect(16, Duration.ofSeconds(5));
+    server.sendFrame(false, OPCODE_TEXT, "0123456789");
+    server.sendFrame(true, OPCODE_CONTINUATION, "0123456789");
+
+    assertTrue(listener.closed.await(10, TimeUnit.SECONDS));
+    assertTrue(listener.messages.isEmpty());
+    assertTrue(server.awaitDisconnect());
+  }
+
+  @Test
+  public void waitsForTheListenerBeforeDeliveringTheNextMessage() throws Exception {
+    connect(1024, Duration.ofSeconds(5));
+    final CountDownLatch release = new CountDownLatch(1);
+    listener.blockFirstMessage = release;
+    server.sendFrame(true, OPCODE_TEXT, "first");
+    server.sendFrame(true, OPCODE_TEXT, "second");
+
+    assertEquals("first", listener.messages.poll(10, TimeUnit.SECONDS));
+    assertNull(listener.messages.poll(200, TimeUnit.MILLISECONDS));
+
+    release.countDown();
+    assertEquals("second", listener.messages.poll(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void dropsTheConnectionWhenCloseIsNotAnswered() throws Exception {
+    final JdkWebSocketTransport transport = connect(1024, Duration.ofMillis(200));
+    transport.close();
+
+    final Frame frame = server.readFrame();
+    assertNotNull(frame);
+    assertEquals(OPCODE_CLOSE, frame.opcode);
+
+    // The stand-in never answers, so the transport gives up on the handshake.
+    assertTrue(server.awaitDisconnect());
+    assertTrue(listener.closed.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void answersCloseFromTheServer() throws Exception {
+    connect(1024, Duration.ofSeconds(5));
+    server.sendFrame(true, OPCODE_CLOSE, new byte[]{0x03, (byte)0xe8});
+
+    assertTrue(listener.closed.await(10, TimeUnit.SECONDS));
+    final Frame frame = server.readFrame();
+    assertNotNull(frame);
+    assertEquals(OPCODE_CLOSE, frame.opcode);
+  }
+
+  private static class RecordingListener implements WebSocketTransport.Listener {
+    final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+    final CountDownLatch closed = new CountDownLatch(1);
+    volatile CountDownLatch blockFirstMessage;
+
+    @Override
+    public void onOpen() {
+    }
+
+    @Override
+    public void onMessage(String text) {
+      messages.add(text);
+      final CountDownLatch block = blockFirstMessage;
+      if (block != null) {
+        blockFirstMessage = null;
+        try {
+          block.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    @Override
+    public void onClose() {
+      closed.countDown();
+    }
+  }
+
+  private static class Frame {
+    final int opcode;
+    final byte[] payload;
+
+    Frame(int opcode, byte[] payload) {
+      this.opcode = opcode;
+      this.payload = payload;
+    }
+  }
+
+  /**
+   * Accepts one connection and speaks just enough of RFC 6455 to exchange unextended frames with the client.
+   */
+  private static class StandInServer implements Closeable {
+    private final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    StandInServer() throws IOException {
+    }
+
+    URI getUri() {
+      return URI.create("ws://127.0.0.1:" + serverSocket.getLocalPort() + "/ws");
+    }
+
+    void accept() throws IOException {
+      socket = serverSocket.accept();
+      socket.setSoTimeout(10 * 1000);
+      in = socket.getInputStream();
+      out = socket.getOutputStream();
+
+      String key = null;
+      for (String line : readHeaders().split("\r\n")) {
+        final int colon = line.indexOf(':');
+        if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+          key = line.substring(colon + 1).trim();
+        }
+      }
+      assertNotNull(key);
+      final String response = "HTTP/1.1 101 Switching Protocols\r\n" +
+                              "Upgrade: websocket\r\n" +
+                              "Connection: Upgrade\r\n" +
+                              "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n";
+      out.write(response.getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+    }
+
+    private String readHeaders() throws IOException {
+      final ByteArrayOutputStream headers = new ByteArrayOutputStream();
+      int matched = 0;
+      while (matched < 4) {
+        final int b = in.read();
+        if (b < 0) throw new IOException("Connection closed during handshake");
+        headers.write(b);
+        matched = b == "\r\n\r\n".charAt(matched) ? matched + 1 : (b == '\r' ? 1 : 0);
+      }
+      return headers.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static String accept(String key) {
+      try {
+        final MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        final byte[] digest = sha1.digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(digest);
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    void sendFrame(boolean fin, int opcode, String text) throws IOException {
+      sendFrame(fin, opcode, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void sendFrame(boolean fin, int opcode, byte[] payload) throws IOException {
+      out.write((fin ? 0x80 : 0) | opcode);
+      if (payload.length < 126) {
+        out.write(payload.length);
+      }
+      else {
+        out.write(126);
+        out.write(payload.length >> 8);
+        out.write(payload.length & 0xff);
+      }
+      out.write(payload);
+      out.flush();
+    }
+
+    /**
+     * Returns the next frame from the client, or null if the connection was closed.
+     */
+    Frame readFrame() throws IOException {
+      final int first = in.read();
+      final int second = in.read();
+      if (first < 0 || second < 0) {
+        return null;
+      }
+      long length = second & 0x7f;
+      if (length == 126) {
+        length = (in.read() << 8) | in.read();
+      }
+      else if (length == 127) {
+        length = 0;
+        for (int i = 0; i < 8; i++) {
+          length = (length << 8) | in.read();
+        }
+      }
+      // Frames from a client are always masked.
+      final byte[] mask = in.readNBytes(4);
+      final byte[] payload = in.readNBytes((int)length);
+      for (int i = 0; i < payload.length; i++) {
+        payload[i] ^= mask[i % 4];
+      }
+      return new Frame(first & 0x0f, payload);
+    }
+
+    /**
+     * Reads and discards frames until the client drops the connection, and returns whether it did.
+     */
+    boolean awaitDisconnect() {
+      try {
+        while (readFrame() != null) {
+          // Keep reading.
+        }
+        return true;
+      }
+      catch (IOException e) {
+        // A reset connection was dropped too; a read timeout means it wasn't.
+        return !(e instanceof SocketTimeoutException);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (socket != null) {
+        socket.close();
+      }
+      serverSocket.close();
+    }
+  }
+}
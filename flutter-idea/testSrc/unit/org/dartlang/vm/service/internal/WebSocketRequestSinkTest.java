@@ -0,0 +1,210 @@
+/*
+ * Copyright 2023 The Chromium Authors. All rights reserved.
+ * Use of this source code is governed by a BSD-style license that can be
+ * found in the LICENSE file.
+ */
+package org.dartlang.vm.service.internal;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fills the request queue while the socket is stalled in a write.
+ */
+public class WebSocketRequestSinkTest {
+  private final StalledSocket socket = new StalledSocket();
+  private final BlockingQueue<JsonObject> errors = new LinkedBlockingQueue<>();
+  private WebSocketRequestSink sink;
+
+  @After
+  public void tearDown() {
+    socket.release();
+    if (sink != null) {
+      sink.close();
+    }
+  }
+
+  @Test
+  public void dropsRequestsThatDontFitAfterWaiting() throws Exception {
+    sink = new WebSocketRequestSink(socket, errors::add, 2, 50);
+    sink.add(request(1));
+    socket.awaitStall();
+    sink.add(request(2));
+    sink.add(request(3));
+    assertEquals(2, sink.getQueueDepth());
+
+    final long start = System.nanoTime();
+    sink.add(request(4));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(1, sink.getDroppedRequestCount());
+    assertEquals(2, sink.getQueueDepth());
+
+    final JsonObject error = errors.poll(10, TimeUnit.SECONDS);
+    assertNotNull(error);
+    assertEquals("4", error.get("id").getAsString());
+    assertEquals("Too many pending requests", error.getAsJsonObject("error").get("message").getAsString());
+
+    // The queued requests are still written once the socket catches up.
+    socket.release();
+    socket.awaitSent(3);
+    assertEquals(List.of("1", "2", "3"), socket.sentIds());
+    assertEquals(0, sink.getQueueDepth());
+  }
+
+  @Test
+  public void waitsForSpaceInTheQueue() throws Exception {
+    sink = new WebSocketRequestSink(socket, errors::add, 1, TimeUnit.SECONDS.toMillis(30));
+    sink.add(request(1));
+    socket.awaitStall();
+    sink.add(request(2));
+
+    final CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> sink.add(request(3)));
+    try {
+      blocked.get(100, TimeUnit.MILLISECONDS);
+      fail("the request was added to a full queue");
+    }
+    catch (TimeoutException expected) {
+    }
+
+    socket.release();
+    blocked.get(10, TimeUnit.SECONDS);
+    socket.awaitSent(3);
+    assertEquals(List.of("1", "2", "3"), socket.sentIds());
+    assertEquals(0, sink.getDroppedRequestCount());
+    assertTrue(errors.isEmpty());
+  }
+
+  @Test
+  public void uiThreadDoesNotWaitForSpace() throws Exception {
+    sink = new WebSocketRequestSink(socket, errors::add, 1, TimeUnit.SECONDS.toMillis(30));
+    sink.add(request(1));
+    socket.awaitStall();
+    sink.add(request(2));
+
+    SwingUtilities.invokeAndWait(() -> sink.add(request(3)));
+    assertEquals(1, sink.getDroppedRequestCount());
+    assertEquals("3", errors.poll(10, TimeUnit.SECONDS).get("id").getAsString());
+  }
+
+  @Test
+  public void closingDropsQueuedRequests() throws Exception {
+    sink = new WebSocketRequestSink(socket, errors::add, 4, 50);
+    sink.add(request(1));
+    socket.awaitStall();
+    sink.add(request(2));
+
+    sink.close();
+    sink.add(request(3));
+    assertEquals(2, sink.getDroppedRequestCount());
+    assertEquals(0, sink.getQueueDepth());
+    for (String id : List.of("2", "3")) {
+      final JsonObject error = errors.poll(10, TimeUnit.SECONDS);
+      assertNotNull(error);
+      assertEquals(id, error.get("id").getAsString());
+      assertEquals("Connection closed", error.getAsJsonObject("error").get("message").getAsString());
+    }
+  }
+
+  @Test
+  public void recordsWriteLatency() throws Exception {
+    sink = new WebSocketRequestSink(socket, errors::add, 4, 50);
+    assertEquals(0, sink.getLastWriteLatencyNanos());
+    assertEquals(0, sink.getMaxWriteLatencyNanos());
+
+    sink.add(request(1));
+    socket.awaitStall();
+    Thread.sleep(20);
+    socket.release();
+    socket.awaitSent(1);
+    sink.add(request(2));
+    socket.awaitSent(2);
+
+    // The writer records the latency just after the socket returns.
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (sink.getMaxWriteLatencyNanos() < TimeUnit.MILLISECONDS.toNanos(20) && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertTrue(sink.getMaxWriteLatencyNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    assertTrue(sink.getLastWriteLatencyNanos() <= sink.getMaxWriteLatencyNanos());
+  }
+
+  private static JsonObject request(int id) {
+    final JsonObject json = new JsonObject();
+    json.addProperty("id", Integer.toString(id));
+    json.addProperty("method", "getVM");
+    return json;
+  }
+
+  /**
+   * Blocks in the first write until released, as a socket does when the VM stops reading.
+   */
+  private static class StalledSocket implements WebSocketTransport {
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void connect(URI uri, Listener listener) {
+    }
+
+    @Override
+    public void send(String text) {
+      stalled.countDown();
+      try {
+        released.await();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      sent.add(text);
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+
+    @Override
+    public void close() {
+      release();
+    }
+
+    void awaitStall() throws InterruptedException {
+      assertTrue(stalled.await(10, TimeUnit.SECONDS));
+    }
+
+    void release() {
+      released.countDown();
+    }
+
+    synchronized void awaitSent(int count) throws InterruptedException {
+      final long deadline = System.currentTimeMillis() + 10000;
+      while (sent.size() < count && System.currentTimeMillis() < deadline) {
+        wait(100);
+      }
+      assertEquals(count, sent.size());
+    }
+
+    List<String> sentIds() {
+      final List<String> ids = new ArrayList<>();
+      for (String text : sent) {
+        ids.add(JsonParser.parseString(text).getAsJsonObject().get("id").getAsString());
+      }
+      return ids;
+    }
+  }
+}
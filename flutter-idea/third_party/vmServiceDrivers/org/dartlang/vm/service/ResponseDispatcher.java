@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service;
+
+import com.google.gson.JsonObject;
+import org.dartlang.vm.service.consumer.Consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table that maps a consumer and the type of a response to the handler that wraps the response
+ * and passes it to the consumer.
+ * <p>
+ * Handlers are registered per consumer interface. The first time a response is dispatched to a
+ * concrete consumer class, the handlers of all interfaces it implements are merged into a single
+ * map, which is cached for that class. Dispatching is then one class lookup and one hash lookup
+ * instead of an {@code instanceof} test against every consumer interface.
+ * <p>
+ * If a class implements several interfaces that handle the same response type, the interface that
+ * was registered first wins.
+ */
+class ResponseDispatcher {
+  interface Handler {
+    void handle(Consumer consumer, JsonObject json);
+  }
+
+  /**
+   * Handlers keyed by consumer interface, then by response type, in registration order.
+   */
+  private final Map<Class<? extends Consumer>, Map<String, Handler>> interfaceHandlers = new LinkedHashMap<>();
+
+  private final ClassValue<Map<String, Handler>> classHandlers = new ClassValue<Map<String, Handler>>() {
+    @Override
+    protected Map<String, Handler> computeValue(Class<?> consumerClass) {
+      return resolve(consumerClass);
+    }
+  };
+
+  /**
+   * Registers a handler. All handlers must be registered before the first call to
+   * {@link #dispatch}.
+   */
+  void register(Class<? extends Consumer> consumerInterface, String responseType, Handler handler) {
+    interfaceHandlers.computeIfAbsent(consumerInterface, (key) -> new LinkedHashMap<>()).put(responseType, handler);
+  }
+
+  /**
+   * Forwards the response to the consumer and returns true, or returns false if the consumer
+   * does not accept responses of the given type.
+   */
+  boolean dispatch(Consumer consumer, String responseType, JsonObject json) {
+    final Handler handler = classHandlers.get(consumer.getClass()).get(responseType);
+    if (handler == null) {
+      return false;
+    }
+    handler.handle(consumer, json);
+    return true;
+  }
+
+  /**
+   * Returns the registered handlers, keyed by consumer interface, then by response type.
+   */
+  Map<Class<? extends Consumer>, Map<String, Handler>> getInterfaceHandlers() {
+    return Collections.unmodifiableMap(interfaceHandlers);
+  }
+
+  /**
+   * Returns the consumer interfaces that have handlers for the given class, in registration order.
+   */
+  List<Class<?>> getConsumerInterfaces(Class<?> consumerClass) {
+    final List<Class<?>> result = new ArrayList<>();
+    for (Class<?> consumerInterface : interfaceHandlers.keySet()) {
+      if (consumerInterface.isAssignableFrom(consumerClass)) {
+        result.add(consumerInterface);
+      }
+    }
+    return result;
+  }
+
+  private Map<String, Handler> resolve(Class<?> consumerClass) {
+    final Map<String, Handler> handlers = new HashMap<>();
+    for (Class<?> consumerInterface : getConsumerInterfaces(consumerClass)) {
+      for (Map.Entry<String, Handler> entry : interfaceHandlers.get(consumerInterface).entrySet()) {
+        handlers.putIfAbsent(entry.getKey(), entry.getValue());
+      }
+    }
+    return handlers.isEmpty() ? Collections.emptyMap() : handlers;
+  }
+}
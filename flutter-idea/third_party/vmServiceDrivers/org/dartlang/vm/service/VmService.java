@@ -927,501 +927,115 @@ public class VmService extends VmServiceBase {
     return obj;
   }
 
+  private static final ResponseDispatcher responseDispatcher = new ResponseDispatcher();
+
+  static {
+    responseDispatcher.register(AddBreakpointAtEntryConsumer.class, "Breakpoint", (consumer, json) -> ((AddBreakpointAtEntryConsumer) consumer).received(new Breakpoint(json)));
+    responseDispatcher.register(AddBreakpointAtEntryConsumer.class, "Sentinel", (consumer, json) -> ((AddBreakpointAtEntryConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(AddBreakpointConsumer.class, "Breakpoint", (consumer, json) -> ((AddBreakpointConsumer) consumer).received(new Breakpoint(json)));
+    responseDispatcher.register(AddBreakpointConsumer.class, "Sentinel", (consumer, json) -> ((AddBreakpointConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(AddBreakpointWithScriptUriConsumer.class, "Breakpoint", (consumer, json) -> ((AddBreakpointWithScriptUriConsumer) consumer).received(new Breakpoint(json)));
+    responseDispatcher.register(AddBreakpointWithScriptUriConsumer.class, "Sentinel", (consumer, json) -> ((AddBreakpointWithScriptUriConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(BreakpointConsumer.class, "Breakpoint", (consumer, json) -> ((BreakpointConsumer) consumer).received(new Breakpoint(json)));
+    responseDispatcher.register(ClearCpuSamplesConsumer.class, "Sentinel", (consumer, json) -> ((ClearCpuSamplesConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(ClearCpuSamplesConsumer.class, "Success", (consumer, json) -> ((ClearCpuSamplesConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(CpuSamplesConsumer.class, "CpuSamples", (consumer, json) -> ((CpuSamplesConsumer) consumer).received(new CpuSamples(json)));
+    responseDispatcher.register(EvaluateConsumer.class, "@Error", (consumer, json) -> ((EvaluateConsumer) consumer).received(new ErrorRef(json)));
+    responseDispatcher.register(EvaluateConsumer.class, "@Instance", (consumer, json) -> ((EvaluateConsumer) consumer).received(new InstanceRef(json)));
+    responseDispatcher.register(EvaluateConsumer.class, "@Null", (consumer, json) -> ((EvaluateConsumer) consumer).received(new NullRef(json)));
+    responseDispatcher.register(EvaluateConsumer.class, "Sentinel", (consumer, json) -> ((EvaluateConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(EvaluateInFrameConsumer.class, "@Error", (consumer, json) -> ((EvaluateInFrameConsumer) consumer).received(new ErrorRef(json)));
+    responseDispatcher.register(EvaluateInFrameConsumer.class, "@Instance", (consumer, json) -> ((EvaluateInFrameConsumer) consumer).received(new InstanceRef(json)));
+    responseDispatcher.register(EvaluateInFrameConsumer.class, "@Null", (consumer, json) -> ((EvaluateInFrameConsumer) consumer).received(new NullRef(json)));
+    responseDispatcher.register(EvaluateInFrameConsumer.class, "Sentinel", (consumer, json) -> ((EvaluateInFrameConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(FlagListConsumer.class, "FlagList", (consumer, json) -> ((FlagListConsumer) consumer).received(new FlagList(json)));
+    responseDispatcher.register(GetAllocationProfileConsumer.class, "AllocationProfile", (consumer, json) -> ((GetAllocationProfileConsumer) consumer).received(new AllocationProfile(json)));
+    responseDispatcher.register(GetAllocationProfileConsumer.class, "Sentinel", (consumer, json) -> ((GetAllocationProfileConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetClassListConsumer.class, "ClassList", (consumer, json) -> ((GetClassListConsumer) consumer).received(new ClassList(json)));
+    responseDispatcher.register(GetClassListConsumer.class, "Sentinel", (consumer, json) -> ((GetClassListConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetCpuSamplesConsumer.class, "CpuSamples", (consumer, json) -> ((GetCpuSamplesConsumer) consumer).received(new CpuSamples(json)));
+    responseDispatcher.register(GetCpuSamplesConsumer.class, "Sentinel", (consumer, json) -> ((GetCpuSamplesConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetInboundReferencesConsumer.class, "InboundReferences", (consumer, json) -> ((GetInboundReferencesConsumer) consumer).received(new InboundReferences(json)));
+    responseDispatcher.register(GetInboundReferencesConsumer.class, "Sentinel", (consumer, json) -> ((GetInboundReferencesConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetInstancesAsListConsumer.class, "@Instance", (consumer, json) -> ((GetInstancesAsListConsumer) consumer).received(new InstanceRef(json)));
+    responseDispatcher.register(GetInstancesAsListConsumer.class, "@Null", (consumer, json) -> ((GetInstancesAsListConsumer) consumer).received(new NullRef(json)));
+    responseDispatcher.register(GetInstancesAsListConsumer.class, "Sentinel", (consumer, json) -> ((GetInstancesAsListConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetInstancesConsumer.class, "InstanceSet", (consumer, json) -> ((GetInstancesConsumer) consumer).received(new InstanceSet(json)));
+    responseDispatcher.register(GetInstancesConsumer.class, "Sentinel", (consumer, json) -> ((GetInstancesConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetIsolateConsumer.class, "Isolate", (consumer, json) -> ((GetIsolateConsumer) consumer).received(new Isolate(json)));
+    responseDispatcher.register(GetIsolateConsumer.class, "Sentinel", (consumer, json) -> ((GetIsolateConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetIsolateGroupConsumer.class, "IsolateGroup", (consumer, json) -> ((GetIsolateGroupConsumer) consumer).received(new IsolateGroup(json)));
+    responseDispatcher.register(GetIsolateGroupConsumer.class, "Sentinel", (consumer, json) -> ((GetIsolateGroupConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetIsolateGroupMemoryUsageConsumer.class, "MemoryUsage", (consumer, json) -> ((GetIsolateGroupMemoryUsageConsumer) consumer).received(new MemoryUsage(json)));
+    responseDispatcher.register(GetIsolateGroupMemoryUsageConsumer.class, "Sentinel", (consumer, json) -> ((GetIsolateGroupMemoryUsageConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetMemoryUsageConsumer.class, "MemoryUsage", (consumer, json) -> ((GetMemoryUsageConsumer) consumer).received(new MemoryUsage(json)));
+    responseDispatcher.register(GetMemoryUsageConsumer.class, "Sentinel", (consumer, json) -> ((GetMemoryUsageConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Breakpoint", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Breakpoint(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Class", (consumer, json) -> ((GetObjectConsumer) consumer).received(new ClassObj(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Code", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Code(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Context", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Context(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Error", (consumer, json) -> ((GetObjectConsumer) consumer).received(new ErrorObj(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Field", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Field(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Function", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Func(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Instance", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Instance(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Library", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Library(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Null", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Null(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Object", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Obj(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Script", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Script(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "Sentinel", (consumer, json) -> ((GetObjectConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetObjectConsumer.class, "TypeArguments", (consumer, json) -> ((GetObjectConsumer) consumer).received(new TypeArguments(json)));
+    responseDispatcher.register(GetRetainingPathConsumer.class, "RetainingPath", (consumer, json) -> ((GetRetainingPathConsumer) consumer).received(new RetainingPath(json)));
+    responseDispatcher.register(GetRetainingPathConsumer.class, "Sentinel", (consumer, json) -> ((GetRetainingPathConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetScriptsConsumer.class, "ScriptList", (consumer, json) -> ((GetScriptsConsumer) consumer).received(new ScriptList(json)));
+    responseDispatcher.register(GetScriptsConsumer.class, "Sentinel", (consumer, json) -> ((GetScriptsConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetSourceReportConsumer.class, "Sentinel", (consumer, json) -> ((GetSourceReportConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetSourceReportConsumer.class, "SourceReport", (consumer, json) -> ((GetSourceReportConsumer) consumer).received(new SourceReport(json)));
+    responseDispatcher.register(GetStackConsumer.class, "Sentinel", (consumer, json) -> ((GetStackConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(GetStackConsumer.class, "Stack", (consumer, json) -> ((GetStackConsumer) consumer).received(new Stack(json)));
+    responseDispatcher.register(InvokeConsumer.class, "@Error", (consumer, json) -> ((InvokeConsumer) consumer).received(new ErrorRef(json)));
+    responseDispatcher.register(InvokeConsumer.class, "@Instance", (consumer, json) -> ((InvokeConsumer) consumer).received(new InstanceRef(json)));
+    responseDispatcher.register(InvokeConsumer.class, "@Null", (consumer, json) -> ((InvokeConsumer) consumer).received(new NullRef(json)));
+    responseDispatcher.register(InvokeConsumer.class, "Sentinel", (consumer, json) -> ((InvokeConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(KillConsumer.class, "Sentinel", (consumer, json) -> ((KillConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(KillConsumer.class, "Success", (consumer, json) -> ((KillConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(PauseConsumer.class, "Sentinel", (consumer, json) -> ((PauseConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(PauseConsumer.class, "Success", (consumer, json) -> ((PauseConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(PortListConsumer.class, "PortList", (consumer, json) -> ((PortListConsumer) consumer).received(new PortList(json)));
+    responseDispatcher.register(ProcessMemoryUsageConsumer.class, "ProcessMemoryUsage", (consumer, json) -> ((ProcessMemoryUsageConsumer) consumer).received(new ProcessMemoryUsage(json)));
+    responseDispatcher.register(ProtocolListConsumer.class, "ProtocolList", (consumer, json) -> ((ProtocolListConsumer) consumer).received(new ProtocolList(json)));
+    responseDispatcher.register(ReloadSourcesConsumer.class, "ReloadReport", (consumer, json) -> ((ReloadSourcesConsumer) consumer).received(new ReloadReport(json)));
+    responseDispatcher.register(ReloadSourcesConsumer.class, "Sentinel", (consumer, json) -> ((ReloadSourcesConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(RemoveBreakpointConsumer.class, "Sentinel", (consumer, json) -> ((RemoveBreakpointConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(RemoveBreakpointConsumer.class, "Success", (consumer, json) -> ((RemoveBreakpointConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(RequestHeapSnapshotConsumer.class, "Sentinel", (consumer, json) -> ((RequestHeapSnapshotConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(RequestHeapSnapshotConsumer.class, "Success", (consumer, json) -> ((RequestHeapSnapshotConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(ResumeConsumer.class, "Sentinel", (consumer, json) -> ((ResumeConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(ResumeConsumer.class, "Success", (consumer, json) -> ((ResumeConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(SetExceptionPauseModeConsumer.class, "Sentinel", (consumer, json) -> ((SetExceptionPauseModeConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(SetExceptionPauseModeConsumer.class, "Success", (consumer, json) -> ((SetExceptionPauseModeConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(SetFlagConsumer.class, "Error", (consumer, json) -> ((SetFlagConsumer) consumer).received(new ErrorObj(json)));
+    responseDispatcher.register(SetFlagConsumer.class, "Success", (consumer, json) -> ((SetFlagConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(SetIsolatePauseModeConsumer.class, "Sentinel", (consumer, json) -> ((SetIsolatePauseModeConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(SetIsolatePauseModeConsumer.class, "Success", (consumer, json) -> ((SetIsolatePauseModeConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(SetLibraryDebuggableConsumer.class, "Sentinel", (consumer, json) -> ((SetLibraryDebuggableConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(SetLibraryDebuggableConsumer.class, "Success", (consumer, json) -> ((SetLibraryDebuggableConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(SetNameConsumer.class, "Sentinel", (consumer, json) -> ((SetNameConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(SetNameConsumer.class, "Success", (consumer, json) -> ((SetNameConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(SetTraceClassAllocationConsumer.class, "Sentinel", (consumer, json) -> ((SetTraceClassAllocationConsumer) consumer).received(new Sentinel(json)));
+    responseDispatcher.register(SetTraceClassAllocationConsumer.class, "Success", (consumer, json) -> ((SetTraceClassAllocationConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(SuccessConsumer.class, "Success", (consumer, json) -> ((SuccessConsumer) consumer).received(new Success(json)));
+    responseDispatcher.register(TimelineConsumer.class, "Timeline", (consumer, json) -> ((TimelineConsumer) consumer).received(new Timeline(json)));
+    responseDispatcher.register(TimelineFlagsConsumer.class, "TimelineFlags", (consumer, json) -> ((TimelineFlagsConsumer) consumer).received(new TimelineFlags(json)));
+    responseDispatcher.register(TimestampConsumer.class, "Timestamp", (consumer, json) -> ((TimestampConsumer) consumer).received(new Timestamp(json)));
+    responseDispatcher.register(UriListConsumer.class, "UriList", (consumer, json) -> ((UriListConsumer) consumer).received(new UriList(json)));
+    responseDispatcher.register(VMConsumer.class, "VM", (consumer, json) -> ((VMConsumer) consumer).received(new VM(json)));
+    responseDispatcher.register(VersionConsumer.class, "Version", (consumer, json) -> ((VersionConsumer) consumer).received(new Version(json)));
+  }
+
   @Override
   void forwardResponse(Consumer consumer, String responseType, JsonObject json) {
-    if (consumer instanceof AddBreakpointAtEntryConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((AddBreakpointAtEntryConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((AddBreakpointAtEntryConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof AddBreakpointConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((AddBreakpointConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((AddBreakpointConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof AddBreakpointWithScriptUriConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((AddBreakpointWithScriptUriConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((AddBreakpointWithScriptUriConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof BreakpointConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((BreakpointConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-    }
-    if (consumer instanceof ClearCpuSamplesConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((ClearCpuSamplesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((ClearCpuSamplesConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof CpuSamplesConsumer) {
-      if (responseType.equals("CpuSamples")) {
-        ((CpuSamplesConsumer) consumer).received(new CpuSamples(json));
-        return;
-      }
-    }
-    if (consumer instanceof EvaluateConsumer) {
-      if (responseType.equals("@Error")) {
-        ((EvaluateConsumer) consumer).received(new ErrorRef(json));
-        return;
-      }
-      if (responseType.equals("@Instance")) {
-        ((EvaluateConsumer) consumer).received(new InstanceRef(json));
-        return;
-      }
-      if (responseType.equals("@Null")) {
-        ((EvaluateConsumer) consumer).received(new NullRef(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((EvaluateConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof EvaluateInFrameConsumer) {
-      if (responseType.equals("@Error")) {
-        ((EvaluateInFrameConsumer) consumer).received(new ErrorRef(json));
-        return;
-      }
-      if (responseType.equals("@Instance")) {
-        ((EvaluateInFrameConsumer) consumer).received(new InstanceRef(json));
-        return;
-      }
-      if (responseType.equals("@Null")) {
-        ((EvaluateInFrameConsumer) consumer).received(new NullRef(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((EvaluateInFrameConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof FlagListConsumer) {
-      if (responseType.equals("FlagList")) {
-        ((FlagListConsumer) consumer).received(new FlagList(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetAllocationProfileConsumer) {
-      if (responseType.equals("AllocationProfile")) {
-        ((GetAllocationProfileConsumer) consumer).received(new AllocationProfile(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetAllocationProfileConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetClassListConsumer) {
-      if (responseType.equals("ClassList")) {
-        ((GetClassListConsumer) consumer).received(new ClassList(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetClassListConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetCpuSamplesConsumer) {
-      if (responseType.equals("CpuSamples")) {
-        ((GetCpuSamplesConsumer) consumer).received(new CpuSamples(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetCpuSamplesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetInboundReferencesConsumer) {
-      if (responseType.equals("InboundReferences")) {
-        ((GetInboundReferencesConsumer) consumer).received(new InboundReferences(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetInboundReferencesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetInstancesAsListConsumer) {
-      if (responseType.equals("@Instance")) {
-        ((GetInstancesAsListConsumer) consumer).received(new InstanceRef(json));
-        return;
-      }
-      if (responseType.equals("@Null")) {
-        ((GetInstancesAsListConsumer) consumer).received(new NullRef(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetInstancesAsListConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetInstancesConsumer) {
-      if (responseType.equals("InstanceSet")) {
-        ((GetInstancesConsumer) consumer).received(new InstanceSet(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetInstancesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetIsolateConsumer) {
-      if (responseType.equals("Isolate")) {
-        ((GetIsolateConsumer) consumer).received(new Isolate(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetIsolateConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetIsolateGroupConsumer) {
-      if (responseType.equals("IsolateGroup")) {
-        ((GetIsolateGroupConsumer) consumer).received(new IsolateGroup(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetIsolateGroupConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetIsolateGroupMemoryUsageConsumer) {
-      if (responseType.equals("MemoryUsage")) {
-        ((GetIsolateGroupMemoryUsageConsumer) consumer).received(new MemoryUsage(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetIsolateGroupMemoryUsageConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetMemoryUsageConsumer) {
-      if (responseType.equals("MemoryUsage")) {
-        ((GetMemoryUsageConsumer) consumer).received(new MemoryUsage(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetMemoryUsageConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetObjectConsumer) {
-      if (responseType.equals("Breakpoint")) {
-        ((GetObjectConsumer) consumer).received(new Breakpoint(json));
-        return;
-      }
-      if (responseType.equals("Class")) {
-        ((GetObjectConsumer) consumer).received(new ClassObj(json));
-        return;
-      }
-      if (responseType.equals("Code")) {
-        ((GetObjectConsumer) consumer).received(new Code(json));
-        return;
-      }
-      if (responseType.equals("Context")) {
-        ((GetObjectConsumer) consumer).received(new Context(json));
-        return;
-      }
-      if (responseType.equals("Error")) {
-        ((GetObjectConsumer) consumer).received(new ErrorObj(json));
-        return;
-      }
-      if (responseType.equals("Field")) {
-        ((GetObjectConsumer) consumer).received(new Field(json));
-        return;
-      }
-      if (responseType.equals("Function")) {
-        ((GetObjectConsumer) consumer).received(new Func(json));
-        return;
-      }
-      if (responseType.equals("Instance")) {
-        ((GetObjectConsumer) consumer).received(new Instance(json));
-        return;
-      }
-      if (responseType.equals("Library")) {
-        ((GetObjectConsumer) consumer).received(new Library(json));
-        return;
-      }
-      if (responseType.equals("Null")) {
-        ((GetObjectConsumer) consumer).received(new Null(json));
-        return;
-      }
-      if (responseType.equals("Object")) {
-        ((GetObjectConsumer) consumer).received(new Obj(json));
-        return;
-      }
-      if (responseType.equals("Script")) {
-        ((GetObjectConsumer) consumer).received(new Script(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetObjectConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("TypeArguments")) {
-        ((GetObjectConsumer) consumer).received(new TypeArguments(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetRetainingPathConsumer) {
-      if (responseType.equals("RetainingPath")) {
-        ((GetRetainingPathConsumer) consumer).received(new RetainingPath(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetRetainingPathConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetScriptsConsumer) {
-      if (responseType.equals("ScriptList")) {
-        ((GetScriptsConsumer) consumer).received(new ScriptList(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((GetScriptsConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetSourceReportConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((GetSourceReportConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("SourceReport")) {
-        ((GetSourceReportConsumer) consumer).received(new SourceReport(json));
-        return;
-      }
-    }
-    if (consumer instanceof GetStackConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((GetStackConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Stack")) {
-        ((GetStackConsumer) consumer).received(new Stack(json));
-        return;
-      }
-    }
-    if (consumer instanceof InvokeConsumer) {
-      if (responseType.equals("@Error")) {
-        ((InvokeConsumer) consumer).received(new ErrorRef(json));
-        return;
-      }
-      if (responseType.equals("@Instance")) {
-        ((InvokeConsumer) consumer).received(new InstanceRef(json));
-        return;
-      }
-      if (responseType.equals("@Null")) {
-        ((InvokeConsumer) consumer).received(new NullRef(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((InvokeConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof KillConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((KillConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((KillConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof PauseConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((PauseConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((PauseConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof PortListConsumer) {
-      if (responseType.equals("PortList")) {
-        ((PortListConsumer) consumer).received(new PortList(json));
-        return;
-      }
-    }
-    if (consumer instanceof ProcessMemoryUsageConsumer) {
-      if (responseType.equals("ProcessMemoryUsage")) {
-        ((ProcessMemoryUsageConsumer) consumer).received(new ProcessMemoryUsage(json));
-        return;
-      }
-    }
-    if (consumer instanceof ProtocolListConsumer) {
-      if (responseType.equals("ProtocolList")) {
-        ((ProtocolListConsumer) consumer).received(new ProtocolList(json));
-        return;
-      }
-    }
-    if (consumer instanceof ReloadSourcesConsumer) {
-      if (responseType.equals("ReloadReport")) {
-        ((ReloadSourcesConsumer) consumer).received(new ReloadReport(json));
-        return;
-      }
-      if (responseType.equals("Sentinel")) {
-        ((ReloadSourcesConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-    }
-    if (consumer instanceof RemoveBreakpointConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((RemoveBreakpointConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((RemoveBreakpointConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof RequestHeapSnapshotConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((RequestHeapSnapshotConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((RequestHeapSnapshotConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof ResumeConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((ResumeConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((ResumeConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetExceptionPauseModeConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetExceptionPauseModeConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetExceptionPauseModeConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetFlagConsumer) {
-      if (responseType.equals("Error")) {
-        ((SetFlagConsumer) consumer).received(new ErrorObj(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetFlagConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetIsolatePauseModeConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetIsolatePauseModeConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetIsolatePauseModeConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetLibraryDebuggableConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetLibraryDebuggableConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetLibraryDebuggableConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetNameConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetNameConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetNameConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SetTraceClassAllocationConsumer) {
-      if (responseType.equals("Sentinel")) {
-        ((SetTraceClassAllocationConsumer) consumer).received(new Sentinel(json));
-        return;
-      }
-      if (responseType.equals("Success")) {
-        ((SetTraceClassAllocationConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof SuccessConsumer) {
-      if (responseType.equals("Success")) {
-        ((SuccessConsumer) consumer).received(new Success(json));
-        return;
-      }
-    }
-    if (consumer instanceof TimelineConsumer) {
-      if (responseType.equals("Timeline")) {
-        ((TimelineConsumer) consumer).received(new Timeline(json));
-        return;
-      }
-    }
-    if (consumer instanceof TimelineFlagsConsumer) {
-      if (responseType.equals("TimelineFlags")) {
-        ((TimelineFlagsConsumer) consumer).received(new TimelineFlags(json));
-        return;
-      }
-    }
-    if (consumer instanceof TimestampConsumer) {
-      if (responseType.equals("Timestamp")) {
-        ((TimestampConsumer) consumer).received(new Timestamp(json));
-        return;
-      }
-    }
-    if (consumer instanceof UriListConsumer) {
-      if (responseType.equals("UriList")) {
-        ((UriListConsumer) consumer).received(new UriList(json));
-        return;
-      }
-    }
-    if (consumer instanceof VMConsumer) {
-      if (responseType.equals("VM")) {
-        ((VMConsumer) consumer).received(new VM(json));
-        return;
-      }
-    }
-    if (consumer instanceof VersionConsumer) {
-      if (responseType.equals("Version")) {
-        ((VersionConsumer) consumer).received(new Version(json));
-        return;
-      }
+    if (responseDispatcher.dispatch(consumer, responseType, json)) {
+      return;
     }
     if (consumer instanceof ServiceExtensionConsumer) {
       ((ServiceExtensionConsumer) consumer).received(json);
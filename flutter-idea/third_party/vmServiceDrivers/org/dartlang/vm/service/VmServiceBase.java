@@ -17,20 +17,22 @@ import com.google.common.collect.Maps;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import de.roderick.weberknecht.WebSocket;
-import de.roderick.weberknecht.WebSocketEventHandler;
-import de.roderick.weberknecht.WebSocketException;
-import de.roderick.weberknecht.WebSocketMessage;
 import org.dartlang.vm.service.consumer.*;
 import org.dartlang.vm.service.element.*;
+import org.dartlang.vm.service.internal.JdkWebSocketTransport;
+import org.dartlang.vm.service.internal.RecordingWebSocketTransport;
 import org.dartlang.vm.service.internal.RequestSink;
 import org.dartlang.vm.service.internal.VmServiceConst;
+import org.dartlang.vm.service.internal.WeberknechtWebSocketTransport;
 import org.dartlang.vm.service.internal.WebSocketRequestSink;
+import org.dartlang.vm.service.internal.WebSocketTransport;
 import org.dartlang.vm.service.logging.Logging;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -43,12 +45,33 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 @SuppressWarnings({"unused", "WeakerAccess"})
 abstract class VmServiceBase implements VmServiceConst {
+  /**
+   * The system property that selects the WebSocket client: {@code jdk} (the default) or
+   * {@code weberknecht}.
+   */
+  public static final String TRANSPORT_PROPERTY = "vm.service.transport";
+
+  /**
+   * The system property naming a directory to record VM service sessions to, see
+   * {@link RecordingWebSocketTransport}.
+   */
+  public static final String RECORD_DIRECTORY_PROPERTY = "vm.service.record.dir";
+
   /**
    * Connect to the VM observatory service via the specified URI
    *
    * @return an API object for interacting with the VM service (not {@code null}).
    */
   public static VmService connect(final String url) throws IOException {
+    return connect(url, createDefaultTransport());
+  }
+
+  /**
+   * Connect to the VM observatory service via the specified URI using the given transport.
+   *
+   * @return an API object for interacting with the VM service (not {@code null}).
+   */
+  public static VmService connect(final String url, final WebSocketTransport transport) throws IOException {
     // Validate URL
     URI uri;
     try {
@@ -62,16 +85,10 @@ abstract class VmServiceBase implements VmServiceConst {
     }
 
     // Create web socket and observatory
-    WebSocket webSocket;
-    try {
-      webSocket = new WebSocket(uri);
-    } catch (WebSocketException e) {
-      throw new IOException("Failed to create websocket: " + url, e);
-    }
     final VmService vmService = new VmService();
 
-    // Setup event handler for forwarding responses
-    webSocket.setEventHandler(new WebSocketEventHandler() {
+    // Establish the connection, forwarding responses to the observatory
+    transport.connect(uri, new WebSocketTransport.Listener() {
       @Override
       public void onClose() {
         Logging.getLogger().logInformation("VM connection closed: " + url);
@@ -80,10 +97,10 @@ abstract class VmServiceBase implements VmServiceConst {
       }
 
       @Override
-      public void onMessage(WebSocketMessage message) {
-        Logging.getLogger().logInformation("VM message: " + message.getText());
+      public void onMessage(String text) {
+        Logging.getLogger().logInformation("VM message: " + text);
         try {
-          vmService.processMessage(message.getText());
+          vmService.processMessage(text);
         } catch (Exception e) {
           Logging.getLogger().logError(e.getMessage(), e);
         }
@@ -95,28 +112,10 @@ abstract class VmServiceBase implements VmServiceConst {
 
         Logging.getLogger().logInformation("VM connection open: " + url);
       }
-
-      @Override
-      public void onPing() {
-      }
-
-      @Override
-      public void onPong() {
-      }
     });
 
-    // Establish WebSocket Connection
-    //noinspection TryWithIdenticalCatches
-    try {
-      webSocket.connect();
-    } catch (WebSocketException e) {
-      throw new IOException("Failed to connect: " + url, e);
-    } catch (ArrayIndexOutOfBoundsException e) {
-      // The weberknecht can occasionally throw an array index exception if a connect terminates on initial connect
-      // (de.roderick.weberknecht.WebSocket.connect, WebSocket.java:126).
-      throw new IOException("Failed to connect: " + url, e);
-    }
-    vmService.requestSink = new WebSocketRequestSink(webSocket);
+    // Requests that can't be sent are answered with an error response.
+    vmService.requestSink = new WebSocketRequestSink(transport, vmService::processResponse);
 
     // Check protocol version
     final CountDownLatch latch = new CountDownLatch(1);
@@ -152,6 +151,23 @@ abstract class VmServiceBase implements VmServiceConst {
     return vmService;
   }
 
+  private static WebSocketTransport createDefaultTransport() {
+    final WebSocketTransport transport;
+    if ("weberknecht".equals(System.getProperty(TRANSPORT_PROPERTY))) {
+      transport = new WeberknechtWebSocketTransport();
+    } else {
+      transport = new JdkWebSocketTransport();
+    }
+
+    final String recordDirectory = System.getProperty(RECORD_DIRECTORY_PROPERTY);
+    if (recordDirectory == null) {
+      return transport;
+    }
+    final Path file = Paths.get(recordDirectory, "vm-service-" + System.currentTimeMillis() + ".txt.gz");
+    Logging.getLogger().logInformation("Recording VM service session to " + file);
+    return new RecordingWebSocketTransport(transport, file);
+  }
+
   /**
    * Connect to the VM observatory service on the given local port.
    *
@@ -591,7 +607,11 @@ abstract class VmServiceBase implements VmServiceConst {
       Logging.getLogger().logError("Response missing " + ID, e);
       return;
     }
-    Consumer consumer = consumerMap.remove(id);
+    // Error responses for dropped requests arrive on the request writer thread.
+    Consumer consumer;
+    synchronized (consumerMapLock) {
+      consumer = consumerMap.remove(id);
+    }
     if (consumer == null) {
       Logging.getLogger().logError("No consumer associated with " + ID + ": " + id);
       return;
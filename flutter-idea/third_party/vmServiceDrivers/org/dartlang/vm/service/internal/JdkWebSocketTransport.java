@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link WebSocketTransport} using the JDK's non-blocking {@link WebSocket} client.
+ * <p>
+ * All connections share one {@link HttpClient}, so they are served by a single selector thread
+ * rather than a reader thread each.
+ */
+public class JdkWebSocketTransport implements WebSocketTransport {
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+  /**
+   * Messages larger than this are most likely a runaway response and close the connection.
+   */
+  public static final int DEFAULT_MAX_MESSAGE_LENGTH = 512 * 1024 * 1024;
+
+  /**
+   * How long to wait for the VM service to answer a close message before dropping the connection.
+   */
+  public static final Duration DEFAULT_CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+  private static HttpClient sharedClient;
+
+  private final Duration connectTimeout;
+  private final int maxMessageLength;
+  private final Duration closeTimeout;
+
+  private WebSocket webSocket;
+  private MessageAssembler assembler;
+
+  public JdkWebSocketTransport() {
+    this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_MAX_MESSAGE_LENGTH);
+  }
+
+  public JdkWebSocketTransport(Duration connectTimeout, int maxMessageLength) {
+    this(connectTimeout, maxMessageLength, DEFAULT_CLOSE_TIMEOUT);
+  }
+
+  public JdkWebSocketTransport(Duration connectTimeout, int maxMessageLength, Duration closeTimeout) {
+    this.connectTimeout = connectTimeout;
+    this.maxMessageLength = maxMessageLength;
+    this.closeTimeout = closeTimeout;
+  }
+
+  private static synchronized HttpClient getClient() {
+    if (sharedClient == null) {
+      sharedClient = HttpClient.newHttpClient();
+    }
+    return sharedClient;
+  }
+
+  @Override
+  public void connect(URI uri, Listener listener) throws IOException {
+    assembler = new MessageAssembler(listener);
+    try {
+      webSocket = getClient().newWebSocketBuilder()
+          .connectTimeout(connectTimeout)
+          .buildAsync(uri, assembler)
+          .get(connectTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to connect: " + uri, e.getCause());
+    } catch (TimeoutException e) {
+      throw new IOException("Timed out connecting: " + uri, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted connecting: " + uri, e);
+    }
+  }
+
+  @Override
+  public void send(String text) throws IOException {
+    try {
+      // The JDK client allows only one outstanding send, so wait for each to finish.
+      webSocket.sendText(text, true).get();
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to send: " + e.getCause().getMessage(), e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while sending", e);
+    }
+  }
+
+  /**
+   * Starts the closing handshake without blocking. If the VM service doesn't answer within the
+   * close timeout, the connection is dropped.
+   */
+  @Override
+  public void close() {
+    final WebSocket webSocket = this.webSocket;
+    final MessageAssembler assembler = this.assembler;
+    if (webSocket == null) {
+      return;
+    }
+    webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").whenComplete((ignored, error) -> {
+      if (error != null) {
+        abort(webSocket, assembler);
+      }
+    });
+    CompletableFuture.delayedExecutor(closeTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+      if (!webSocket.isInputClosed()) {
+        abort(webSocket, assembler);
+      }
+    });
+  }
+
+  private static void abort(WebSocket webSocket, MessageAssembler assembler) {
+    webSocket.abort();
+    // An aborted connection reports nothing more to its listener.
+    assembler.onClosed();
+  }
+
+  /**
+   * Joins message fragments and requests the next message only once the listener has handled the
+   * current one.
+   */
+  private class MessageAssembler implements WebSocket.Listener {
+    private final Listener listener;
+    private final StringBuilder message = new StringBuilder();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    MessageAssembler(Listener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+      listener.onOpen();
+      webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+      message.append(data);
+      if (message.length() > maxMessageLength) {
+        Logging.getLogger().logError("VM service message exceeds " + maxMessageLength + " characters");
+        message.setLength(0);
+        webSocket.abort();
+        onClosed();
+        return null;
+      }
+      if (last) {
+        final String text = message.toString();
+        message.setLength(0);
+        listener.onMessage(text);
+      }
+      webSocket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+      // Complete the closing handshake the VM service started.
+      if (!webSocket.isOutputClosed()) {
+        webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+      }
+      onClosed();
+      return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+      Logging.getLogger().logError("VM service connection failed", error);
+      onClosed();
+    }
+
+    private void onClosed() {
+      if (closed.compareAndSet(false, true)) {
+        listener.onClose();
+      }
+    }
+  }
+}
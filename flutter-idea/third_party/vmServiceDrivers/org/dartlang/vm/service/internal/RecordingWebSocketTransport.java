@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import org.dartlang.vm.service.logging.Logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link WebSocketTransport} that records the messages passing through another transport.
+ * <p>
+ * Each message is written as one line: the milliseconds since the connection was opened, a
+ * direction ({@code >} for messages sent to the VM, {@code <} for messages received from it) and
+ * the JSON text, separated by single spaces. Files whose name ends in {@code .gz} are compressed.
+ */
+public class RecordingWebSocketTransport implements WebSocketTransport {
+  public static final char SENT = '>';
+  public static final char RECEIVED = '<';
+
+  private final WebSocketTransport delegate;
+  private final Path file;
+  private Writer out;
+  private long startNanos;
+
+  public RecordingWebSocketTransport(WebSocketTransport delegate, Path file) {
+    this.delegate = delegate;
+    this.file = file;
+  }
+
+  @Override
+  public void connect(URI uri, Listener listener) throws IOException {
+    OutputStream stream = Files.newOutputStream(file);
+    if (file.getFileName().toString().endsWith(".gz")) {
+      stream = new GZIPOutputStream(stream);
+    }
+    out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    startNanos = System.nanoTime();
+
+    try {
+      connectDelegate(uri, listener);
+    } catch (IOException e) {
+      closeRecording();
+      throw e;
+    }
+  }
+
+  private void connectDelegate(URI uri, Listener listener) throws IOException {
+    delegate.connect(uri, new Listener() {
+      @Override
+      public void onOpen() {
+        listener.onOpen();
+      }
+
+      @Override
+      public void onMessage(String text) {
+        record(RECEIVED, text);
+        listener.onMessage(text);
+      }
+
+      @Override
+      public void onClose() {
+        closeRecording();
+        listener.onClose();
+      }
+    });
+  }
+
+  @Override
+  public void send(String text) throws IOException {
+    record(SENT, text);
+    delegate.send(text);
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+    closeRecording();
+  }
+
+  private synchronized void record(char direction, String text) {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.write(Long.toString(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+      out.write(' ');
+      out.write(direction);
+      out.write(' ');
+      // Newlines in JSON text can only be whitespace between tokens.
+      out.write(text.replace('\n', ' ').replace('\r', ' '));
+      out.write('\n');
+    } catch (IOException e) {
+      Logging.getLogger().logError("Failed to record VM service message", e);
+      closeRecording();
+    }
+  }
+
+  private synchronized void closeRecording() {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.close();
+    } catch (IOException e) {
+      Logging.getLogger().logError("Failed to close VM service recording", e);
+    }
+    out = null;
+  }
+}
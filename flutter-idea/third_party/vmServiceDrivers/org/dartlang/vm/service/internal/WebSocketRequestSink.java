@@ -14,45 +14,196 @@
 package org.dartlang.vm.service.internal;
 
 import com.google.gson.JsonObject;
-import de.roderick.weberknecht.WebSocket;
-import de.roderick.weberknecht.WebSocketException;
 import org.dartlang.vm.service.logging.Logging;
 
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * An {@link WebSocket} based implementation of {@link RequestSink}.
+ * A {@link WebSocketTransport} based implementation of {@link RequestSink}.
+ * <p>
+ * Requests are serialized and written by a dedicated writer thread so that callers never block on
+ * socket I/O. Requests that queue up while a write is in progress are drained and written back to
+ * back in one pass. The queue is bounded: once it is full, callers other than the UI thread wait
+ * up to {@link #OFFER_TIMEOUT_MS} for space, after which the request is dropped and, if a
+ * {@link ResponseSink} was given, answered with an error so the caller's consumer is not left
+ * waiting forever.
  */
-public class WebSocketRequestSink implements RequestSink {
+public class WebSocketRequestSink implements RequestSink, VmServiceConst {
+  static final int QUEUE_CAPACITY = 4096;
+  static final long OFFER_TIMEOUT_MS = 5000;
+
+  /**
+   * Writes slower than this are logged as a sign that the VM is not keeping up.
+   */
+  private static final long SLOW_WRITE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private volatile WebSocketTransport webSocket;
 
-  private WebSocket webSocket;
+  /**
+   * Receives error responses for requests that are dropped, may be {@code null}.
+   */
+  private final ResponseSink errorSink;
 
-  public WebSocketRequestSink(WebSocket webSocket) {
+  private final BlockingQueue<JsonObject> queue;
+  private final long offerTimeoutMs;
+  private final Thread writer;
+
+  private final AtomicLong droppedRequests = new AtomicLong();
+  private volatile long lastWriteNanos;
+  private volatile long maxWriteNanos;
+
+  public WebSocketRequestSink(WebSocketTransport webSocket) {
+    this(webSocket, null);
+  }
+
+  public WebSocketRequestSink(WebSocketTransport webSocket, ResponseSink errorSink) {
+    this(webSocket, errorSink, QUEUE_CAPACITY, OFFER_TIMEOUT_MS);
+  }
+
+  /**
+   * Visible for testing, so that a small queue can be filled quickly.
+   */
+  WebSocketRequestSink(WebSocketTransport webSocket, ResponseSink errorSink, int queueCapacity, long offerTimeoutMs) {
     this.webSocket = webSocket;
+    this.errorSink = errorSink;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.offerTimeoutMs = offerTimeoutMs;
+    writer = new Thread(this::runWriter, "VM service request writer");
+    writer.setDaemon(true);
+    writer.start();
   }
 
   @Override
   public void add(JsonObject json) {
-    String request = json.toString();
     if (webSocket == null) {
-      Logging.getLogger().logInformation("Dropped: " + request);
+      drop(json);
       return;
     }
+    boolean queued = queue.offer(json);
+    if (!queued && !SwingUtilities.isEventDispatchThread()) {
+      try {
+        queued = queue.offer(json, offerTimeoutMs, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (!queued) {
+      drop(json);
+    }
+  }
+
+  /**
+   * The number of requests waiting to be written.
+   */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * The number of requests dropped because the queue was full or the sink was closed.
+   */
+  public long getDroppedRequestCount() {
+    return droppedRequests.get();
+  }
+
+  /**
+   * How long the most recent socket write took, in nanoseconds.
+   */
+  public long getLastWriteLatencyNanos() {
+    return lastWriteNanos;
+  }
+
+  /**
+   * How long the slowest socket write took, in nanoseconds.
+   */
+  public long getMaxWriteLatencyNanos() {
+    return maxWriteNanos;
+  }
+
+  private void runWriter() {
+    final List<JsonObject> batch = new ArrayList<>();
+    try {
+      while (webSocket != null) {
+        batch.add(queue.take());
+        queue.drainTo(batch);
+        for (JsonObject json : batch) {
+          write(json);
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      // The sink was closed.
+    }
+  }
+
+  private void write(JsonObject json) {
+    final WebSocketTransport socket = webSocket;
+    if (socket == null) {
+      drop(json);
+      return;
+    }
+    String request = json.toString();
     Logging.getLogger().logInformation("Sent: " + request);
+    final long start = System.nanoTime();
     try {
-      webSocket.send(request);
-    } catch (WebSocketException e) {
+      socket.send(request);
+    } catch (IOException e) {
       Logging.getLogger().logError("Failed to send request: " + request, e);
     }
+    final long elapsed = System.nanoTime() - start;
+    lastWriteNanos = elapsed;
+    if (elapsed > maxWriteNanos) {
+      maxWriteNanos = elapsed;
+    }
+    if (elapsed > SLOW_WRITE_NANOS) {
+      Logging.getLogger().logInformation("Slow VM service write: " + TimeUnit.NANOSECONDS.toMillis(elapsed)
+          + "ms, " + queue.size() + " requests queued");
+    }
+  }
+
+  private void drop(JsonObject json) {
+    droppedRequests.incrementAndGet();
+    Logging.getLogger().logInformation("Dropped: " + json);
+    if (errorSink == null || !json.has(METHOD) || !json.has(ID)) {
+      // Only requests made by this client expect a response.
+      return;
+    }
+    try {
+      JsonObject error = new JsonObject();
+      error.addProperty(CODE, SERVER_ERROR);
+      error.addProperty(MESSAGE, webSocket == null ? "Connection closed" : "Too many pending requests");
+      JsonObject response = new JsonObject();
+      response.add(ID, json.get(ID));
+      response.add(ERROR, error);
+      errorSink.add(response);
+    } catch (Exception e) {
+      Logging.getLogger().logError(e.getMessage(), e);
+    }
   }
 
   @Override
   public void close() {
-    if (webSocket != null) {
+    final WebSocketTransport socket = webSocket;
+    if (socket != null) {
+      webSocket = null;
+      writer.interrupt();
+      final List<JsonObject> pending = new ArrayList<>();
+      queue.drainTo(pending);
+      for (JsonObject json : pending) {
+        drop(json);
+      }
       try {
-        webSocket.close();
-      } catch (WebSocketException e) {
+        socket.close();
+      } catch (IOException e) {
         Logging.getLogger().logError("Failed to close websocket", e);
       }
-      webSocket = null;
     }
   }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * A WebSocket connection to a VM service.
+ * <p>
+ * Implementations deliver each complete text message to the {@link Listener} in the order received
+ * and must not deliver the next message before the listener has returned from the previous one.
+ * {@link #send} is only called from one thread at a time.
+ */
+public interface WebSocketTransport {
+  /**
+   * Receives the events of a connection.
+   */
+  interface Listener {
+    void onOpen();
+
+    void onMessage(String text);
+
+    void onClose();
+  }
+
+  /**
+   * Opens the connection, blocking until it is established.
+   */
+  void connect(URI uri, Listener listener) throws IOException;
+
+  /**
+   * Sends a text message, blocking until it has been handed to the network.
+   */
+  void send(String text) throws IOException;
+
+  void close() throws IOException;
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.dartlang.vm.service.internal;
+
+import de.roderick.weberknecht.WebSocket;
+import de.roderick.weberknecht.WebSocketEventHandler;
+import de.roderick.weberknecht.WebSocketException;
+import de.roderick.weberknecht.WebSocketMessage;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * A {@link WebSocketTransport} using the weberknecht client, which reads each connection on its own
+ * blocking thread.
+ */
+public class WeberknechtWebSocketTransport implements WebSocketTransport {
+  private WebSocket webSocket;
+
+  @Override
+  public void connect(URI uri, Listener listener) throws IOException {
+    try {
+      webSocket = new WebSocket(uri);
+    } catch (WebSocketException e) {
+      throw new IOException("Failed to create websocket: " + uri, e);
+    }
+
+    webSocket.setEventHandler(new WebSocketEventHandler() {
+      @Override
+      public void onClose() {
+        listener.onClose();
+      }
+
+      @Override
+      public void onMessage(WebSocketMessage message) {
+        listener.onMessage(message.getText());
+      }
+
+      @Override
+      public void onOpen() {
+        listener.onOpen();
+      }
+
+      @Override
+      public void onPing() {
+      }
+
+      @Override
+      public void onPong() {
+      }
+    });
+
+    //noinspection TryWithIdenticalCatches
+    try {
+      webSocket.connect();
+    } catch (WebSocketException e) {
+      throw new IOException("Failed to connect: " + uri, e);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      // The weberknecht can occasionally throw an array index exception if a connect terminates on initial connect
+      // (de.roderick.weberknecht.WebSocket.connect, WebSocket.java:126).
+      throw new IOException("Failed to connect: " + uri, e);
+    }
+  }
+
+  @Override
+  public void send(String text) throws IOException {
+    try {
+      webSocket.send(text);
+    } catch (WebSocketException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      webSocket.close();
+    } catch (WebSocketException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+}